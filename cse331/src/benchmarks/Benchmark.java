@@ -0,0 +1,99 @@
+package benchmarks;
+
+/**
+ * A Benchmark is one piece of code to be timed by BenchmarkRunner, in the
+ * manner of a JMH benchmark method. The runner calls setUp once for each
+ * parameter, then over and over calls prepare, which is not timed, and run,
+ * which is. Each run does operations() operations and the runner reports the
+ * time and allocation per operation. Whatever run computes should be
+ * returned, so the JIT cannot remove the work as dead code.
+ *
+ * @author WP
+ *
+ */
+public abstract class Benchmark {
+
+    // name of the benchmark
+    private final String name;
+    // values the benchmark is run with
+    private final String[] params;
+
+    // Abstraction function: the benchmark this.name, run once with each of
+    // this.params.
+
+    // Representation Invariant:
+    // this.name is not null, this.params is not null or empty
+
+    /**
+     * constructor
+     *
+     * @param name
+     *            name of the benchmark
+     * @param params
+     *            values to run the benchmark with, such as graph sizes
+     * @effects creates a benchmark
+     * @throws IllegalArgumentException
+     *             if name is null or params is null or empty
+     */
+    protected Benchmark(String name, String... params) {
+        if (name == null || params == null || params.length == 0) {
+            throw new IllegalArgumentException();
+        }
+        this.name = name;
+        this.params = params.clone();
+    }
+
+    /**
+     * @return name of the benchmark
+     */
+    public final String getName() {
+        return this.name;
+    }
+
+    /**
+     * @return copy of the values the benchmark is run with
+     */
+    public final String[] getParams() {
+        return this.params.clone();
+    }
+
+    /**
+     * sets up the state for a parameter, untimed
+     *
+     * @param param
+     *            one of getParams()
+     * @throws Exception
+     *             if the state cannot be set up
+     */
+    public abstract void setUp(String param) throws Exception;
+
+    /**
+     * prepares for one run, untimed. Does nothing unless overridden; override
+     * it when run changes the state, for example by removing nodes
+     *
+     * @throws Exception
+     *             if the run cannot be prepared
+     */
+    public void prepare() throws Exception {
+        // nothing to prepare
+    }
+
+    /**
+     * does the timed work once
+     *
+     * @return a value computed from the work
+     * @throws Exception
+     *             if the work fails
+     */
+    public abstract long run() throws Exception;
+
+    /**
+     * returns how many operations one run does, for example the number of
+     * nodes added, so times are reported per operation
+     *
+     * @return operations per run, at least 1
+     */
+    public int operations() {
+        return 1;
+    }
+}
@@ -0,0 +1,387 @@
+package benchmarks;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import model.RouteMetrics;
+
+/**
+ * BenchmarkRunner times Benchmarks the way JMH does, without needing JMH on
+ * the class path. Each benchmark is warmed up for a number of iterations and
+ * then measured for more, each iteration calling run repeatedly for a fixed
+ * time. For every benchmark and parameter it reports the mean time per
+ * operation with its 99.9% confidence interval and, like JMH's gc profiler,
+ * the bytes allocated per operation and the collections and collection time
+ * while it was measured.
+ *
+ * Results can be saved as CSV and given back as a baseline, in which case the
+ * change from the baseline is reported too. Run it from the cse331 directory:
+ *
+ * <pre>
+ * java benchmarks.BenchmarkRunner [--filter REGEX] [--warmup N] [--iterations N]
+ *         [--time MILLIS] [--out results.csv] [--baseline old.csv]
+ * </pre>
+ *
+ * @author WP
+ *
+ */
+public final class BenchmarkRunner {
+
+    // Student's t for a two sided 99.9% interval, by degrees of freedom - 1
+    private static final double[] T999 = { 636.619, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781,
+        4.587, 4.437, 4.318, 4.221, 4.140, 4.073, 4.015, 3.965, 3.922, 3.883, 3.850 };
+    // t for many degrees of freedom
+    private static final double Z999 = 3.291;
+
+    // iterations not measured, measured, and their length in nanoseconds
+    private final int warmups;
+    private final int iterations;
+    private final long iterationNanos;
+    // where the results are written
+    private final PrintStream out;
+    // xor of every value the benchmarks returned, so they cannot be dead code
+    private long sink;
+
+    /**
+     * constructor
+     *
+     * @param warmups
+     *            iterations to run before measuring
+     * @param iterations
+     *            iterations to measure, at least 2
+     * @param iterationMillis
+     *            length of each iteration, in milliseconds
+     * @param out
+     *            where the results are written
+     * @effects creates a runner
+     * @throws IllegalArgumentException
+     *             if out is null, warmups is negative, iterations is less
+     *             than 2 or iterationMillis is not positive
+     */
+    public BenchmarkRunner(int warmups, int iterations, long iterationMillis, PrintStream out) {
+        if (out == null || warmups < 0 || iterations < 2 || iterationMillis <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.warmups = warmups;
+        this.iterations = iterations;
+        this.iterationNanos = iterationMillis * 1000000;
+        this.out = out;
+    }
+
+    /**
+     * runs a benchmark with one of its parameters
+     *
+     * @param benchmark
+     *            benchmark to run
+     * @param param
+     *            parameter to run it with
+     * @return what was measured
+     * @throws Exception
+     *             if the benchmark fails
+     * @throws IllegalArgumentException
+     *             if benchmark or param is null
+     */
+    public Result run(Benchmark benchmark, String param) throws Exception {
+        if (benchmark == null || param == null) {
+            throw new IllegalArgumentException();
+        }
+        benchmark.setUp(param);
+        for (int i = 0; i < this.warmups; i++) {
+            this.iteration(benchmark);
+        }
+        long collections = BenchmarkRunner.collections();
+        long collectionMillis = BenchmarkRunner.collectionMillis();
+        double[] nanosPerOp = new double[this.iterations];
+        double bytes = 0;
+        double ops = 0;
+        for (int i = 0; i < this.iterations; i++) {
+            double[] measured = this.iteration(benchmark);
+            nanosPerOp[i] = measured[0] / measured[2];
+            bytes += measured[1];
+            ops += measured[2];
+        }
+        double mean = 0;
+        for (double t : nanosPerOp) {
+            mean += t;
+        }
+        mean /= nanosPerOp.length;
+        double variance = 0;
+        for (double t : nanosPerOp) {
+            variance += (t - mean) * (t - mean);
+        }
+        variance /= nanosPerOp.length - 1;
+        int df = nanosPerOp.length - 1;
+        double t = df <= BenchmarkRunner.T999.length ? BenchmarkRunner.T999[df - 1] : BenchmarkRunner.Z999;
+        double error = t * Math.sqrt(variance / nanosPerOp.length);
+        return new Result(benchmark.getName(), param, mean, error, bytes / ops,
+                BenchmarkRunner.collections() - collections, BenchmarkRunner.collectionMillis() - collectionMillis);
+    }
+
+    /**
+     * runs a benchmark for one iteration
+     *
+     * @param benchmark
+     *            benchmark to run
+     * @return nanoseconds spent in run, bytes allocated by run and operations
+     *         done
+     * @throws Exception
+     *             if the benchmark fails
+     */
+    private double[] iteration(Benchmark benchmark) throws Exception {
+        long timed = 0;
+        long allocated = 0;
+        long runs = 0;
+        long end = System.nanoTime() + this.iterationNanos;
+        do {
+            benchmark.prepare();
+            long startAllocated = RouteMetrics.allocatedBytes();
+            long start = System.nanoTime();
+            this.sink ^= benchmark.run();
+            long now = System.nanoTime();
+            allocated += RouteMetrics.allocatedBytes() - startAllocated;
+            timed += now - start;
+            runs++;
+        } while (System.nanoTime() < end);
+        return new double[] { timed, allocated, (double) runs * benchmark.operations() };
+    }
+
+    /**
+     * @return collections so far by every collector
+     */
+    private static long collections() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    /**
+     * @return milliseconds spent collecting so far by every collector
+     */
+    private static long collectionMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    /**
+     * runs benchmarks with each of their parameters, writing a line for each
+     * as it finishes
+     *
+     * @param benchmarks
+     *            benchmarks to run
+     * @param filter
+     *            pattern found in the names of the benchmarks to run
+     * @param baseline
+     *            earlier results by key, to report the change from
+     * @return the results, in order
+     * @throws Exception
+     *             if a benchmark fails
+     * @throws IllegalArgumentException
+     *             if any args are null
+     */
+    public List<Result> runAll(List<Benchmark> benchmarks, Pattern filter, Map<String, Result> baseline)
+            throws Exception {
+        if (benchmarks == null || filter == null || baseline == null) {
+            throw new IllegalArgumentException();
+        }
+        List<Result> results = new ArrayList<Result>();
+        this.out.printf("%-34s %-8s %14s %12s %12s %8s %8s %9s%n", "Benchmark", "(param)", "ns/op", "error",
+                "B/op", "gc.count", "gc.ms", "change");
+        for (Benchmark benchmark : benchmarks) {
+            if (!filter.matcher(benchmark.getName()).find()) {
+                continue;
+            }
+            for (String param : benchmark.getParams()) {
+                Result result = this.run(benchmark, param);
+                results.add(result);
+                Result before = baseline.get(result.key());
+                String change = before == null ? ""
+                        : String.format("%+.1f%%", 100 * (result.nanosPerOp / before.nanosPerOp - 1));
+                this.out.printf("%-34s %-8s %14.3f %12.3f %12.1f %8d %8d %9s%n", result.benchmark, result.param,
+                        result.nanosPerOp, result.error, result.bytesPerOp, result.collections,
+                        result.collectionMillis, change);
+            }
+        }
+        if (this.sink == 42) {
+            // never printed in practice, keeps the sink live
+            this.out.println();
+        }
+        return results;
+    }
+
+    /**
+     * writes results as CSV
+     *
+     * @param results
+     *            results to write
+     * @param file
+     *            name of the file to write
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    public static void write(List<Result> results, String file) throws IOException {
+        PrintWriter out = new PrintWriter(new FileWriter(file));
+        try {
+            out.println("benchmark,param,nsPerOp,error,bytesPerOp,gcCount,gcMillis");
+            for (Result r : results) {
+                out.println(r.benchmark + "," + r.param + "," + r.nanosPerOp + "," + r.error + "," + r.bytesPerOp
+                        + "," + r.collections + "," + r.collectionMillis);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * reads results written by write
+     *
+     * @param file
+     *            name of the file to read
+     * @return the results by key
+     * @throws IOException
+     *             if the file cannot be read or is not of the right form
+     */
+    public static Map<String, Result> read(String file) throws IOException {
+        Map<String, Result> results = new HashMap<String, Result>();
+        BufferedReader in = new BufferedReader(new FileReader(file));
+        try {
+            String line = in.readLine();
+            while ((line = in.readLine()) != null) {
+                String[] fields = line.split(",");
+                if (fields.length != 7) {
+                    throw new IOException("Not a result: " + line);
+                }
+                try {
+                    Result r = new Result(fields[0], fields[1], Double.parseDouble(fields[2]),
+                            Double.parseDouble(fields[3]), Double.parseDouble(fields[4]),
+                            Long.parseLong(fields[5]), Long.parseLong(fields[6]));
+                    results.put(r.key(), r);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Not a result: " + line, e);
+                }
+            }
+        } finally {
+            in.close();
+        }
+        return results;
+    }
+
+    /**
+     * runs every benchmark
+     *
+     * @param args
+     *            options, see the class comment
+     * @throws Exception
+     *             if a benchmark fails or a file cannot be read or written
+     */
+    public static void main(String[] args) throws Exception {
+        String filter = "";
+        int warmups = 5;
+        int iterations = 5;
+        long millis = 1000;
+        String outFile = null;
+        Map<String, Result> baseline = new HashMap<String, Result>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            if (args[i].equals("--filter")) {
+                filter = value;
+            } else if (args[i].equals("--warmup")) {
+                warmups = Integer.parseInt(value);
+            } else if (args[i].equals("--iterations")) {
+                iterations = Integer.parseInt(value);
+            } else if (args[i].equals("--time")) {
+                millis = Long.parseLong(value);
+            } else if (args[i].equals("--out")) {
+                outFile = value;
+            } else if (args[i].equals("--baseline")) {
+                baseline = BenchmarkRunner.read(value);
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+        benchmarks.addAll(GraphBenchmarks.all());
+        benchmarks.addAll(ModelBenchmarks.all());
+        BenchmarkRunner runner = new BenchmarkRunner(warmups, iterations, millis, System.out);
+        List<Result> results = runner.runAll(benchmarks, Pattern.compile(filter), baseline);
+        if (outFile != null) {
+            BenchmarkRunner.write(results, outFile);
+        }
+    }
+
+    /**
+     * A Result is what was measured of one benchmark with one parameter.
+     */
+    public static final class Result {
+        // what was run
+        private final String benchmark;
+        private final String param;
+        // mean nanoseconds per operation and its 99.9% confidence interval
+        private final double nanosPerOp;
+        private final double error;
+        // bytes allocated per operation
+        private final double bytesPerOp;
+        // collections while measuring and the milliseconds they took
+        private final long collections;
+        private final long collectionMillis;
+
+        /**
+         * constructor
+         *
+         * @effects creates a result of the args
+         */
+        private Result(String benchmark, String param, double nanosPerOp, double error, double bytesPerOp,
+                long collections, long collectionMillis) {
+            this.benchmark = benchmark;
+            this.param = param;
+            this.nanosPerOp = nanosPerOp;
+            this.error = error;
+            this.bytesPerOp = bytesPerOp;
+            this.collections = collections;
+            this.collectionMillis = collectionMillis;
+        }
+
+        /**
+         * @return the benchmark and parameter, which identify the result
+         */
+        public String key() {
+            return this.benchmark + "," + this.param;
+        }
+
+        /**
+         * @return mean nanoseconds per operation
+         */
+        public double getNanosPerOp() {
+            return this.nanosPerOp;
+        }
+
+        /**
+         * @return half the width of the 99.9% confidence interval of the mean
+         */
+        public double getError() {
+            return this.error;
+        }
+
+        /**
+         * @return bytes allocated per operation
+         */
+        public double getBytesPerOp() {
+            return this.bytesPerOp;
+        }
+    }
+}
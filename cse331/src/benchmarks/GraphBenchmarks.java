@@ -0,0 +1,233 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import graphStructure.Edge;
+import graphStructure.Graph;
+import model.PointD;
+
+/**
+ * GraphBenchmarks are the benchmarks of graphStructure.Graph: adding nodes,
+ * adding edges, getting the edges of nodes and removing nodes, each on graphs
+ * of several sizes. The graphs are like the campus: PointD nodes, each with
+ * edges to a few nearby nodes labeled with their distance.
+ *
+ * @author WP
+ *
+ */
+public final class GraphBenchmarks {
+
+    // sizes of the graphs, in nodes
+    private static final String[] SIZES = { "1000", "10000", "100000" };
+    // edges leaving each node
+    private static final int DEGREE = 4;
+    // nodes removed by each run of removeNode, which searches the whole graph
+    private static final int REMOVED = 100;
+
+    /**
+     * not instantiable
+     */
+    private GraphBenchmarks() {
+    }
+
+    /**
+     * makes the benchmarks
+     *
+     * @return every benchmark of Graph
+     */
+    public static List<Benchmark> all() {
+        List<Benchmark> all = new ArrayList<Benchmark>();
+
+        all.add(new Benchmark("Graph.addNode", GraphBenchmarks.SIZES) {
+            private PointD[] nodes;
+
+            @Override
+            public void setUp(String param) {
+                this.nodes = GraphBenchmarks.nodes(Integer.parseInt(param));
+            }
+
+            @Override
+            public long run() {
+                Graph<PointD, Double> g = new Graph<PointD, Double>();
+                for (PointD p : this.nodes) {
+                    g.addNode(p);
+                }
+                return g.size();
+            }
+
+            @Override
+            public int operations() {
+                return this.nodes.length;
+            }
+        });
+
+        all.add(new Benchmark("Graph.addEdge", GraphBenchmarks.SIZES) {
+            private PointD[] nodes;
+            private Graph<PointD, Double> graph;
+
+            @Override
+            public void setUp(String param) {
+                this.nodes = GraphBenchmarks.nodes(Integer.parseInt(param));
+            }
+
+            @Override
+            public void prepare() {
+                this.graph = new Graph<PointD, Double>();
+                for (PointD p : this.nodes) {
+                    this.graph.addNode(p);
+                }
+            }
+
+            @Override
+            public long run() {
+                GraphBenchmarks.addEdges(this.graph, this.nodes);
+                return this.graph.size();
+            }
+
+            @Override
+            public int operations() {
+                return this.nodes.length * GraphBenchmarks.DEGREE;
+            }
+        });
+
+        all.add(new Benchmark("Graph.getEdges", GraphBenchmarks.SIZES) {
+            private PointD[] nodes;
+            private Graph<PointD, Double> graph;
+
+            @Override
+            public void setUp(String param) {
+                this.nodes = GraphBenchmarks.nodes(Integer.parseInt(param));
+                this.graph = GraphBenchmarks.graph(this.nodes);
+            }
+
+            @Override
+            public long run() {
+                long edges = 0;
+                for (PointD p : this.nodes) {
+                    for (Edge<PointD, Double> e : this.graph.getEdges(p)) {
+                        edges += e.getEnd().hashCode();
+                    }
+                }
+                return edges;
+            }
+
+            @Override
+            public int operations() {
+                return this.nodes.length;
+            }
+        });
+
+        all.add(new Benchmark("Graph.removeNode", GraphBenchmarks.SIZES) {
+            private Graph<PointD, Double> graph;
+            // nodes removed by each run, and the edges to put back after
+            private PointD[] removed;
+            private List<Edge<PointD, Double>> touching;
+
+            @Override
+            public void setUp(String param) {
+                PointD[] nodes = GraphBenchmarks.nodes(Integer.parseInt(param));
+                this.graph = GraphBenchmarks.graph(nodes);
+                this.removed = new PointD[GraphBenchmarks.REMOVED];
+                for (int i = 0; i < this.removed.length; i++) {
+                    this.removed[i] = nodes[(int) ((long) i * nodes.length / this.removed.length)];
+                }
+                Set<PointD> sample = new HashSet<PointD>(Arrays.asList(this.removed));
+                this.touching = new ArrayList<Edge<PointD, Double>>();
+                for (PointD p : nodes) {
+                    for (Edge<PointD, Double> e : this.graph.getEdges(p)) {
+                        if (sample.contains(e.getStart()) || sample.contains(e.getEnd())) {
+                            this.touching.add(e);
+                        }
+                    }
+                }
+            }
+
+            @Override
+            public void prepare() {
+                for (PointD p : this.removed) {
+                    this.graph.addNode(p);
+                }
+                for (Edge<PointD, Double> e : this.touching) {
+                    this.graph.addEdge(e.getLabel(), e.getStart(), e.getEnd());
+                }
+            }
+
+            @Override
+            public long run() {
+                long removed = 0;
+                for (PointD p : this.removed) {
+                    if (this.graph.removeNode(p)) {
+                        removed++;
+                    }
+                }
+                return removed;
+            }
+
+            @Override
+            public int operations() {
+                return this.removed.length;
+            }
+        });
+
+        return all;
+    }
+
+    /**
+     * makes nodes scattered over a square the density of the campus
+     *
+     * @param n
+     *            number of nodes
+     * @return n different points, the same ones for the same n
+     */
+    static PointD[] nodes(int n) {
+        Random random = new Random(n);
+        double side = Math.sqrt(n) * 50;
+        PointD[] nodes = new PointD[n];
+        for (int i = 0; i < n; i++) {
+            nodes[i] = new PointD(Math.floor(random.nextDouble() * side * 1e4) / 1e4 + i * 1e-6,
+                    Math.floor(random.nextDouble() * side * 1e4) / 1e4);
+        }
+        return nodes;
+    }
+
+    /**
+     * adds DEGREE edges leaving each node, to the nodes that follow it
+     *
+     * @param graph
+     *            graph holding the nodes
+     * @param nodes
+     *            nodes of the graph
+     */
+    static void addEdges(Graph<PointD, Double> graph, PointD[] nodes) {
+        for (int i = 0; i < nodes.length; i++) {
+            PointD start = nodes[i];
+            for (int d = 1; d <= GraphBenchmarks.DEGREE; d++) {
+                PointD end = nodes[(i + d * 7) % nodes.length];
+                double dx = end.getX() - start.getX();
+                double dy = end.getY() - start.getY();
+                graph.addEdge(Math.sqrt(dx * dx + dy * dy), start, end);
+            }
+        }
+    }
+
+    /**
+     * makes a graph of nodes with DEGREE edges leaving each
+     *
+     * @param nodes
+     *            nodes of the graph
+     * @return the graph
+     */
+    static Graph<PointD, Double> graph(PointD[] nodes) {
+        Graph<PointD, Double> graph = new Graph<PointD, Double>();
+        for (PointD p : nodes) {
+            graph.addNode(p);
+        }
+        GraphBenchmarks.addEdges(graph, nodes);
+        return graph;
+    }
+}
@@ -0,0 +1,268 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import graphStructure.Edge;
+import graphStructure.Graph;
+import model.CampusGraph;
+import model.CampusParser;
+import model.MalformedDataException;
+import model.PointD;
+
+/**
+ * ModelBenchmarks are the benchmarks of the model: parsing path data,
+ * building a CampusGraph, finding paths with findWeightedPath and the PointD
+ * methods every search calls. Paths are found between a short, a medium and a
+ * cross campus pair of buildings, the pairs at the 10th, 50th and 100th
+ * percentile of path length over all pairs.
+ *
+ * @author WP
+ *
+ */
+public final class ModelBenchmarks {
+
+    // where the data files are, from the directory the runner is started in
+    private static final String DATA_DIR = "./src/model/data/";
+    // points hashed or compared per run
+    private static final int POINTS = 1024;
+
+    // the campus graph and its benchmark pairs, loaded on first use
+    private static Graph<PointD, Double> campus;
+    private static Map<String, PointD[]> campusPairs;
+
+    /**
+     * not instantiable
+     */
+    private ModelBenchmarks() {
+    }
+
+    /**
+     * makes the benchmarks
+     *
+     * @return every benchmark of the model
+     */
+    public static List<Benchmark> all() {
+        List<Benchmark> all = new ArrayList<Benchmark>();
+
+        all.add(new Benchmark("CampusParser.parsePathData", "campus", "10000", "100000") {
+            private String file;
+
+            @Override
+            public void setUp(String param) throws IOException {
+                if (param.equals("campus")) {
+                    this.file = ModelBenchmarks.DATA_DIR + "campus_paths.dat";
+                } else {
+                    this.file = ModelBenchmarks.writePaths(Integer.parseInt(param));
+                }
+            }
+
+            @Override
+            public long run() throws MalformedDataException {
+                Graph<PointD, Double> graph = new Graph<PointD, Double>();
+                CampusParser.parsePathData(this.file, graph);
+                return graph.size();
+            }
+        });
+
+        all.add(new Benchmark("CampusGraph.new", "campus") {
+            @Override
+            public void setUp(String param) {
+                // reads the campus files each run
+            }
+
+            @Override
+            public long run() throws MalformedDataException {
+                return new CampusGraph("campus_buildings.dat", "campus_paths.dat").getBuildings().size();
+            }
+        });
+
+        all.add(new Benchmark("CampusGraph.findWeightedPath", "short", "medium", "cross") {
+            private Graph<PointD, Double> graph;
+            private PointD start;
+            private PointD end;
+
+            @Override
+            public void setUp(String param) throws MalformedDataException {
+                this.graph = ModelBenchmarks.campusGraph();
+                PointD[] pair = ModelBenchmarks.pairs(this.graph).get(param);
+                this.start = pair[0];
+                this.end = pair[1];
+            }
+
+            @Override
+            public long run() {
+                return CampusGraph.findWeightedPath(this.graph, this.start, this.end).size();
+            }
+        });
+
+        all.add(new Benchmark("PointD.hashCode", "campus") {
+            private PointD[] points;
+
+            @Override
+            public void setUp(String param) throws MalformedDataException {
+                this.points = ModelBenchmarks.campusPoints();
+            }
+
+            @Override
+            public long run() {
+                long sum = 0;
+                for (PointD p : this.points) {
+                    sum += p.hashCode();
+                }
+                return sum;
+            }
+
+            @Override
+            public int operations() {
+                return this.points.length;
+            }
+        });
+
+        all.add(new Benchmark("PointD.relativeDirection", "campus") {
+            private PointD[] points;
+
+            @Override
+            public void setUp(String param) throws MalformedDataException {
+                this.points = ModelBenchmarks.campusPoints();
+            }
+
+            @Override
+            public long run() {
+                long sum = 0;
+                for (int i = 1; i < this.points.length; i++) {
+                    sum += this.points[i - 1].relativeDirection(this.points[i]).length();
+                }
+                return sum;
+            }
+
+            @Override
+            public int operations() {
+                return this.points.length - 1;
+            }
+        });
+
+        return all;
+    }
+
+    /**
+     * loads the campus paths, once
+     *
+     * @return graph of the campus paths
+     * @throws MalformedDataException
+     *             if the data cannot be read
+     */
+    private static synchronized Graph<PointD, Double> campusGraph() throws MalformedDataException {
+        if (ModelBenchmarks.campus == null) {
+            Graph<PointD, Double> graph = new Graph<PointD, Double>();
+            CampusParser.parsePathData(ModelBenchmarks.DATA_DIR + "campus_paths.dat", graph);
+            ModelBenchmarks.campus = graph;
+        }
+        return ModelBenchmarks.campus;
+    }
+
+    /**
+     * takes POINTS nodes of the campus, in the order of the data
+     *
+     * @return points of the campus
+     * @throws MalformedDataException
+     *             if the data cannot be read
+     */
+    private static PointD[] campusPoints() throws MalformedDataException {
+        List<PointD> nodes = new ArrayList<PointD>(ModelBenchmarks.campusGraph().getNodes());
+        PointD[] points = new PointD[ModelBenchmarks.POINTS];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = nodes.get(i * 31 % nodes.size());
+        }
+        return points;
+    }
+
+    /**
+     * finds the short, medium and cross campus pairs of buildings, once
+     *
+     * @param graph
+     *            graph of the campus paths
+     * @return map of "short", "medium" and "cross" to the start and end of
+     *         the pair
+     * @throws MalformedDataException
+     *             if the data cannot be read
+     */
+    private static synchronized Map<String, PointD[]> pairs(Graph<PointD, Double> graph)
+            throws MalformedDataException {
+        if (ModelBenchmarks.campusPairs == null) {
+            CampusGraph model = new CampusGraph("campus_buildings.dat", "campus_paths.dat");
+            List<PointD> buildings = new ArrayList<PointD>();
+            for (String shortName : model.getBuildings().keySet()) {
+                PointD location = model.getLocation(shortName);
+                if (location != null && graph.containsNode(location)) {
+                    buildings.add(location);
+                }
+            }
+            final Map<PointD[], Double> lengths = new HashMap<PointD[], Double>();
+            for (PointD start : buildings) {
+                for (PointD end : buildings) {
+                    List<Edge<PointD, Double>> path = CampusGraph.findWeightedPath(graph, start, end);
+                    if (path != null && !path.isEmpty()) {
+                        double length = 0;
+                        for (Edge<PointD, Double> e : path) {
+                            length += e.getLabel();
+                        }
+                        lengths.put(new PointD[] { start, end }, length);
+                    }
+                }
+            }
+            PointD[][] sorted = lengths.keySet().toArray(new PointD[lengths.size()][]);
+            Arrays.sort(sorted, new Comparator<PointD[]>() {
+                @Override
+                public int compare(PointD[] p1, PointD[] p2) {
+                    return Double.compare(lengths.get(p1), lengths.get(p2));
+                }
+            });
+            Map<String, PointD[]> pairs = new HashMap<String, PointD[]>();
+            pairs.put("short", sorted[sorted.length / 10]);
+            pairs.put("medium", sorted[sorted.length / 2]);
+            pairs.put("cross", sorted[sorted.length - 1]);
+            ModelBenchmarks.campusPairs = pairs;
+        }
+        return ModelBenchmarks.campusPairs;
+    }
+
+    /**
+     * writes a path data file for a graph of n nodes like GraphBenchmarks
+     * uses, deleted when the JVM exits
+     *
+     * @param n
+     *            number of nodes
+     * @return name of the file
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    private static String writePaths(int n) throws IOException {
+        PointD[] nodes = GraphBenchmarks.nodes(n);
+        Graph<PointD, Double> graph = GraphBenchmarks.graph(nodes);
+        File file = File.createTempFile("paths" + n, ".dat");
+        file.deleteOnExit();
+        BufferedWriter out = new BufferedWriter(new FileWriter(file));
+        try {
+            for (PointD p : nodes) {
+                out.write(p.getX() + "," + p.getY());
+                out.newLine();
+                for (Edge<PointD, Double> e : graph.getEdges(p)) {
+                    out.write("\t" + e.getEnd().getX() + "," + e.getEnd().getY() + ": " + e.getLabel());
+                    out.newLine();
+                }
+            }
+        } finally {
+            out.close();
+        }
+        return file.getPath();
+    }
+}
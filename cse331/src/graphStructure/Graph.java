@@ -1,7 +1,9 @@
 package graphStructure;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
@@ -87,10 +89,10 @@ public class Graph<T, E> {
 
         // removes all edges ending at removed node
         for (T t : this.nodeMap.keySet()) {
-            Set<Edge<T, E>> edges = this.nodeMap.get(t);
-            for (Edge<T, E> e : edges) {
-                if (e.getEnd().equals(node)) {
-                    edges.remove(e);
+            Iterator<Edge<T, E>> edges = this.nodeMap.get(t).iterator();
+            while (edges.hasNext()) {
+                if (edges.next().getEnd().equals(node)) {
+                    edges.remove();
                 }
             }
         }
@@ -100,6 +102,26 @@ public class Graph<T, E> {
 
     }
 
+    /**
+     * removes a node that no edges end at, without the search removeNode makes
+     * through every other node for edges ending at it
+     *
+     * @param node
+     *            data of the node to be removed
+     * @requires node not null and no edge of the graph ends at node
+     * @modifies this
+     * @effects node and the edges leaving it are removed
+     * @return true if node successfully removed (is in the graph)
+     */
+    public boolean removeUnreferencedNode(T node) {
+        if (node == null) {
+            throw new IllegalArgumentException();
+        }
+        boolean result = this.nodeMap.remove(node) != null;
+        this.checkRep();
+        return result;
+    }
+
     /**
      * check if node is in graph
      *
@@ -147,6 +169,39 @@ public class Graph<T, E> {
 
     }
 
+    /**
+     * adds many edges at once, adding their start and end nodes if they are
+     * not already in the graph. Meant for loading large graphs, since it
+     * skips the checks addNode and addEdge make on every call.
+     *
+     * @param edges
+     *            edges to add
+     * @requires edges and all of its edges, labels and nodes are not null
+     * @modifies this
+     * @effects adds every node and edge of edges that is not pre-existing
+     */
+    public void addEdges(Collection<Edge<T, E>> edges) {
+        if (edges == null) {
+            throw new IllegalArgumentException();
+        }
+        this.checkRep();
+        for (Edge<T, E> e : edges) {
+            if (e == null || e.getLabel() == null || e.getStart() == null || e.getEnd() == null) {
+                throw new IllegalArgumentException();
+            }
+            Set<Edge<T, E>> startEdges = this.nodeMap.get(e.getStart());
+            if (startEdges == null) {
+                startEdges = new HashSet<Edge<T, E>>();
+                this.nodeMap.put(e.getStart(), startEdges);
+            }
+            if (!this.nodeMap.containsKey(e.getEnd())) {
+                this.nodeMap.put(e.getEnd(), new HashSet<Edge<T, E>>());
+            }
+            startEdges.add(e);
+        }
+        this.checkRep();
+    }
+
     /**
      * removes edge
      *
@@ -123,6 +123,24 @@ public class GraphTest {
         Assert.assertFalse(this.intGraph.containsNode(this.one));
     }
 
+    @Test
+    public void testRemoveNodeWithManyEdgesToIt() {
+        Graph<Integer, String> g = new Graph<Integer, String>();
+        for (int i = 0; i < 20; i++) {
+            g.addNode(i);
+        }
+        for (int i = 1; i < 20; i++) {
+            for (int j = 1; j < 20; j++) {
+                g.addEdge(i + "to" + j, i, j);
+            }
+            g.addEdge(i + "to0", i, 0);
+        }
+        Assert.assertTrue(g.removeNode(0));
+        for (int i = 1; i < 20; i++) {
+            Assert.assertEquals(19, g.getEdges(i).size());
+        }
+    }
+
     @Test
     public void testContainsNode() {
         Assert.assertTrue(this.g1.containsNode(this.me));
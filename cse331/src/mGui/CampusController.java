@@ -2,13 +2,28 @@ package mGui;
 
 import java.awt.*;
 import java.awt.event.*;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import javax.swing.*;
+import javax.swing.Timer;
 
-import model.CampusGraph;
+import graphStructure.Edge;
+import model.CampusModel;
+import model.PointD;
+import model.RouteExplanation;
 
 /**
- * controller for gui, allows client to choose which path or reset tool
+ * controller for gui, allows client to choose which path or reset tool.
+ * 
+ * Paths are found off the event dispatch thread, one search at a time, so
+ * the window stays responsive on large graphs. Finding another path or
+ * resetting cancels the search in progress by interrupting it, so it stops
+ * within a few thousand nodes and its result is never shown, and a progress
+ * bar appears while a search runs for long.
  * 
  * @author WP
  *
@@ -16,7 +31,7 @@ import model.CampusGraph;
 public class CampusController extends JPanel {
 
     /**
-     * action listener for find path and reset buttons
+     * action listener for find path, explain and reset buttons
      * 
      * @author WP
      *
@@ -24,15 +39,18 @@ public class CampusController extends JPanel {
     private class ButtonListener implements ActionListener {
 
         /**
-         * activates on ActionEvents. Either tells view to find a path or resets
-         * the view and controller
+         * activates on ActionEvents. Either tells view to find a path, to find
+         * and explain one, or resets the view and controller
          */
         @Override
         public void actionPerformed(ActionEvent e) {
             String action = e.getActionCommand();
             if (action.equals("Find Path"))
-                view.findPath((String) start.getSelectedItem(), (String) end.getSelectedItem());
+                search((String) start.getSelectedItem(), (String) end.getSelectedItem(), false);
+            else if (action.equals("Explain"))
+                search((String) start.getSelectedItem(), (String) end.getSelectedItem(), true);
             else {
+                cancelSearch();
                 view.reset();
                 //reset controller
                 start.setSelectedIndex(0);
@@ -43,17 +61,155 @@ public class CampusController extends JPanel {
 
     }
 
+    /**
+     * finds a path on the search thread and shows it in the view when done,
+     * unless it was cancelled first
+     * 
+     * @author WP
+     *
+     */
+    private class RouteWorker extends SwingWorker<Void, Void> {
+
+        // buildings to find the path between
+        private final String from;
+        private final String to;
+
+        // whether to explain the path
+        private final boolean explain;
+
+        // what the search found, set by doInBackground
+        private List<Edge<PointD, Double>> path;
+        private RouteExplanation explanation;
+
+        /**
+         * constructor
+         * 
+         * @param from
+         *            start building
+         * @param to
+         *            end building
+         * @param explain
+         *            true to explain the path
+         */
+        RouteWorker(String from, String to, boolean explain) {
+            this.from = from;
+            this.to = to;
+            this.explain = explain;
+        }
+
+        /**
+         * finds the path, off the event dispatch thread
+         */
+        @Override
+        protected Void doInBackground() {
+            if (explain)
+                explanation = model.explain(from, to, true);
+            else
+                path = model.findPath(from, to);
+            return null;
+        }
+
+        /**
+         * shows the path, on the event dispatch thread, if this is still the
+         * current search
+         */
+        @Override
+        protected void done() {
+            if (isCancelled() || worker != this)
+                return;
+            worker = null;
+            hideProgress();
+            try {
+                // rethrows anything the search threw
+                get();
+            } catch (InterruptedException e) {
+                return;
+            } catch (ExecutionException e) {
+                e.getCause().printStackTrace();
+                view.reset();
+                return;
+            }
+            if (explain)
+                view.showExplanation(from, explanation);
+            else
+                view.showPath(from, path);
+        }
+    }
+
+    /**
+     * combo box model that shows a list without copying it, so the building
+     * directory's sorted names back every combo box directly
+     *
+     * @author WP
+     *
+     */
+    private static class BuildingListModel extends AbstractListModel<String> implements ComboBoxModel<String> {
+
+        private static final long serialVersionUID = 1L;
+
+        // names to show, never modified
+        private final List<String> names;
+
+        // the selected name
+        private Object selected;
+
+        /**
+         * constructor
+         *
+         * @param names
+         *            names to show, selecting the first if there is one
+         */
+        BuildingListModel(List<String> names) {
+            this.names = names;
+            this.selected = names.isEmpty() ? null : names.get(0);
+        }
+
+        @Override
+        public int getSize() {
+            return this.names.size();
+        }
+
+        @Override
+        public String getElementAt(int index) {
+            return this.names.get(index);
+        }
+
+        @Override
+        public void setSelectedItem(Object item) {
+            this.selected = item;
+            this.fireContentsChanged(this, -1, -1);
+        }
+
+        @Override
+        public Object getSelectedItem() {
+            return this.selected;
+        }
+    }
+
     private static final long serialVersionUID = 1L;
 
-    CampusGraph model;
+    // milliseconds a search runs before the progress bar shows
+    private static final int PROGRESS_DELAY = 200;
+
+    CampusModel model;
 
     // view to interact with
-    CampusView view;
+    RouteDisplay view;
 
     // combo boxes with buildings to select from
     JComboBox<String> start;
     JComboBox<String> end;
 
+    // runs the searches, one at a time in the order asked for
+    private final ExecutorService searches;
+
+    // the search whose result will be shown, or null if there is none
+    private RouteWorker worker;
+
+    // shown while a search runs longer than PROGRESS_DELAY
+    private final JProgressBar progress;
+    private final Timer progressTimer;
+
     /**
      * constructor of controller for gui
      * 
@@ -65,7 +221,7 @@ public class CampusController extends JPanel {
      * @throws IllegalArgumentException
      *             if args are null
      */
-    public CampusController(CampusGraph model, CampusView view) {
+    public CampusController(CampusModel model, RouteDisplay view) {
         if (model == null || view == null) {
             throw new IllegalArgumentException();
         }
@@ -74,21 +230,93 @@ public class CampusController extends JPanel {
 
         this.setLayout(new FlowLayout());
 
-        String[] buildings = model.getBuildings().keySet().toArray(new String[0]);
+        List<String> buildings = model.getDirectory().getShortNames();
 
         // initialize and add components
         this.add(new JLabel("Choose Starting Building: "));
-        this.add(start = new JComboBox<String>(buildings));
+        this.add(start = new JComboBox<String>(new BuildingListModel(buildings)));
         this.add(new JLabel("Choose Ending Building: "));
-        this.add(end = new JComboBox<String>(buildings));
+        this.add(end = new JComboBox<String>(new BuildingListModel(buildings)));
 
         // initialize and add buttons w/ listeners
         JButton findPath = new JButton("Find Path");
         JButton reset = new JButton("Reset");
+        JButton explain = new JButton("Explain");
         findPath.addActionListener(new ButtonListener());
         reset.addActionListener(new ButtonListener());
+        explain.addActionListener(new ButtonListener());
         this.add(reset);
         this.add(findPath);
+        this.add(explain);
+
+        // a bar that moves while the search runs, shown only for long ones
+        progress = new JProgressBar();
+        progress.setIndeterminate(true);
+        progress.setVisible(false);
+        this.add(progress);
+        progressTimer = new Timer(PROGRESS_DELAY, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (worker != null)
+                    progress.setVisible(true);
+            }
+        });
+        progressTimer.setRepeats(false);
+
+        searches = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "route-search");
+                // does not keep the program running once the window closes
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * starts finding a path in the background, cancelling the search in
+     * progress
+     * 
+     * @param from
+     *            start building
+     * @param to
+     *            end building
+     * @param explain
+     *            true to explain the path
+     * @modifies this
+     * @effects replaces the current search with one between from and to
+     */
+    private void search(String from, String to, boolean explain) {
+        cancelSearch();
+        worker = new RouteWorker(from, to, explain);
+        progressTimer.restart();
+        searches.execute(worker);
+    }
+
+    /**
+     * cancels the current search, if there is one, so its result is never
+     * shown
+     * 
+     * @modifies this
+     * @effects clears the current search and hides the progress bar
+     */
+    private void cancelSearch() {
+        if (worker != null) {
+            // interrupting a search that has started stops it early, so the
+            // next one is not kept waiting, and done ignores what it found
+            worker.cancel(true);
+            worker = null;
+        }
+        hideProgress();
+    }
+
+    /**
+     * hides the progress bar and stops it from showing
+     */
+    private void hideProgress() {
+        progressTimer.stop();
+        progress.setVisible(false);
     }
 
 }
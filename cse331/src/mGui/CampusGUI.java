@@ -2,9 +2,10 @@ package mGui;
 
 import javax.swing.*;
 
-import model.CampusGraph;
+import model.CampusModel;
 
 import java.awt.*;
+import java.io.File;
 
 /**
  * Gui w/ view and controller for pathfinding at UW. Can fit and usable on a screen with 1024 x 768 resolution, but also resizable.
@@ -15,7 +16,17 @@ public class CampusGUI {
     
     private JFrame frame;
     
-    public CampusGUI(CampusGraph model){
+    public CampusGUI(CampusModel model){
+        this(model, false);
+    }
+
+    /**
+     * constructor
+     * @param model the model for path finding
+     * @param tiled true to show the map in zoomable tiles, kept in the
+     *        temporary directory, instead of scaled to the window
+     */
+    public CampusGUI(CampusModel model, boolean tiled){
         
         //initialize frame
         frame = new JFrame("UW Path Finder");
@@ -24,11 +35,17 @@ public class CampusGUI {
                 BoxLayout.Y_AXIS));
         
         //intialize and add view
-        CampusView view = new CampusView(model);
+        JComponent view;
+        if (tiled) {
+            view = new TiledCampusView(model, new File("./src/model/data/campus_map.jpg"),
+                    new File(System.getProperty("java.io.tmpdir"), "campus_map_tiles"));
+        } else {
+            view = new CampusView(model);
+        }
         frame.add(view);
 
         //intialize and add controller
-        CampusController control = new CampusController(model, view);
+        CampusController control = new CampusController(model, (RouteDisplay) view);
         frame.add(control);
 
         frame.pack();
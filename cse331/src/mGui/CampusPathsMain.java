@@ -14,17 +14,18 @@ public class CampusPathsMain {
     
     /**
      * main
-     * @param args
+     * @param args --tiled to show the map in zoomable tiles
      */
     public static void main(String[] args){
         CampusGraph model=null;
         try {
-             model = new CampusGraph("campus_buildings.dat", "campus_paths.dat");
+             model = CampusGraph.load("campus_buildings.dat", "campus_paths.dat");
         } catch (MalformedDataException e) {
             e.printStackTrace();
         }
         
-        CampusGUI campusGUI = new CampusGUI(model);
+        boolean tiled = args.length > 0 && args[0].equals("--tiled");
+        CampusGUI campusGUI = new CampusGUI(model, tiled);
         
         
     }
@@ -4,8 +4,9 @@ import javax.imageio.ImageIO;
 import javax.swing.*;
 
 import graphStructure.Edge;
-import model.CampusGraph;
+import model.CampusModel;
 import model.PointD;
+import model.RouteExplanation;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
@@ -13,18 +14,24 @@ import java.io.File;
 import java.util.List;
 
 /**
- * view for gui, displays the campus map and paths and buildings
+ * view for gui, displays the campus map and paths and buildings.
+ *
+ * The view paints from two cached layers at its current size: the map,
+ * scaled once when the size changes in an image the display can draw
+ * without converting, and a transparent overlay holding the path and the
+ * explored region, redrawn only when they change. Changing the path only
+ * repaints the part of the view the old and new overlays cover.
  * @author WP
  *
  */
-public class CampusView extends JComponent {
+public class CampusView extends JComponent implements RouteDisplay {
 
     private static final long serialVersionUID = 1L;
     
     //radius of marker for start/end buildings
     private static final int CIRCLE_RAD = 5;
 
-    private CampusGraph model;
+    private CampusModel model;
 
     private BufferedImage img;
 
@@ -32,6 +39,17 @@ public class CampusView extends JComponent {
 
     private String start;
 
+    // nodes the last explained search settled, or null if it was not explained
+    private List<PointD> explored;
+
+    // map scaled to the size of the view, or null until first painted
+    private BufferedImage scaledMap;
+
+    // path and explored region at the size of the view, clear elsewhere
+    private BufferedImage overlay;
+
+    // part of the view the overlay has drawn in, empty if nothing
+    private Rectangle overlayBounds = nothing();
 
     /**
      * constructor of view for gui
@@ -39,7 +57,7 @@ public class CampusView extends JComponent {
      * @effects constructs a CampusView
      * @throws IllegalArgumentException if model is null
      */
-    public CampusView(CampusGraph model) {
+    public CampusView(CampusModel model) {
         if(model==null){
             throw new IllegalArgumentException();
         }
@@ -64,10 +82,68 @@ public class CampusView extends JComponent {
         if(start==null || end==null){
             throw new IllegalArgumentException();
         }
+        showPath(start, model.findPath(start, end));
+    }
+
+    /**
+     * shows a path found elsewhere, such as by a background search. Must be
+     * called on the event dispatch thread
+     * @param start start building
+     * @param path the path from start, or null if there is none
+     * @modifies this.path, this.start, this.explored
+     * @effects sets path and start to the args and clears explored
+     * @throws IllegalArgumentException if start is null
+     */
+    @Override
+    public void showPath(String start, List<Edge<PointD, Double>> path) {
+        if(start==null){
+            throw new IllegalArgumentException();
+        }
+        this.start = start;
+        this.path = path;
+        explored = null;
+        //update view
+        routeChanged();
+    }
+
+    /**
+     * finds path between two buildings like findPath, and also shows the
+     * region the search explored to find it
+     * @param start start building
+     * @param end end building
+     * @modifies this.path, this.start, this.explored
+     * @effects sets path to the path between the two buildings and explored
+     *          to the nodes the search settled
+     * @throws IllegalArgumentException if args are null
+     */
+    public void explainPath(String start, String end) {
+        if(start==null || end==null){
+            throw new IllegalArgumentException();
+        }
+        showExplanation(start, model.explain(start, end, true));
+    }
+
+    /**
+     * shows an explained path found elsewhere, such as by a background
+     * search. Must be called on the event dispatch thread
+     * @param start start building
+     * @param explanation the explained path from start
+     * @modifies this.path, this.start, this.explored
+     * @effects sets path to the path of explanation and explored to the
+     *          nodes its search settled
+     * @throws IllegalArgumentException if args are null
+     */
+    @Override
+    public void showExplanation(String start, RouteExplanation explanation) {
+        if(start==null || explanation==null){
+            throw new IllegalArgumentException();
+        }
         this.start = start;
-        path = model.findPath(start, end);
+        path = explanation.getPath();
+        explored = explanation.getSettledOrder();
+        this.setToolTipText(explanation.toString());
         //update view
-        repaint();
+        routeChanged();
     }
 
     /**
@@ -77,11 +153,14 @@ public class CampusView extends JComponent {
      * @effects sets path to null
      * @effects sets start to null
      */
+    @Override
     public void reset() {
         start = null;
         path = null;
+        explored = null;
+        this.setToolTipText(null);
         //update view
-        repaint();
+        routeChanged();
     }
 
     /**
@@ -103,43 +182,159 @@ public class CampusView extends JComponent {
     }
 
     /**
-     * paints the components
-     * @param g graphics for painting
-     * @modifies the view displayed
-     * @effects draws the image and path/markers if a path is chosen.
+     * redraws the overlay after the path changed and repaints what changed
+     * @modifies this.overlay, this.overlayBounds
+     * @effects redraws the overlay if there is one, and repaints the parts of
+     *          the view the old and new overlays cover
      */
-    @Override
-    public void paintComponent(Graphics g) {
-        super.paintComponent(g);
+    private void routeChanged() {
+        if (overlay == null) {
+            //nothing painted yet, the first paint draws the overlay
+            repaint();
+            return;
+        }
+        Rectangle dirty = new Rectangle(overlayBounds);
+        drawOverlay();
+        dirty.add(overlayBounds);
+        if (!dirty.isEmpty()) {
+            repaint(dirty);
+        }
+    }
+
+    /**
+     * makes sure the cached layers match the size of the view
+     * @modifies this.scaledMap, this.overlay, this.overlayBounds
+     * @effects rescales the map and redraws the overlay if the size changed
+     */
+    private void validateLayers() {
+        int width = getWidth();
+        int height = getHeight();
+        if (scaledMap != null && scaledMap.getWidth() == width && scaledMap.getHeight() == height) {
+            return;
+        }
+        scaledMap = createLayer(width, height, Transparency.OPAQUE);
+        Graphics2D g = scaledMap.createGraphics();
+        //scaled once per size, so it can afford the better filter
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(img, 0, 0, width, height, 0, 0, img.getWidth(), img.getHeight(), null);
+        g.dispose();
+
+        overlay = createLayer(width, height, Transparency.TRANSLUCENT);
+        overlayBounds = nothing();
+        drawOverlay();
+    }
+
+    /**
+     * makes an image the display can draw without converting
+     * @param width width of the image
+     * @param height height of the image
+     * @param transparency a Transparency constant
+     * @return an empty image of the size
+     */
+    private BufferedImage createLayer(int width, int height, int transparency) {
+        GraphicsConfiguration config = getGraphicsConfiguration();
+        if (config == null) {
+            //not on screen, as when painting offscreen
+            int type = transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+            return new BufferedImage(width, height, type);
+        }
+        return config.createCompatibleImage(width, height, transparency);
+    }
 
-        Graphics2D graphics = (Graphics2D) g;
+    /**
+     * redraws the path and explored region in the overlay
+     * @requires this.overlay != null
+     * @modifies this.overlay, this.overlayBounds
+     * @effects clears what was drawn, draws the current path and explored
+     *          region and sets overlayBounds to the part they cover
+     */
+    private void drawOverlay() {
+        Graphics2D g = overlay.createGraphics();
+        if (!overlayBounds.isEmpty()) {
+            g.setComposite(AlphaComposite.Clear);
+            g.fill(overlayBounds);
+            g.setComposite(AlphaComposite.SrcOver);
+        }
+        Rectangle bounds = nothing();
 
         //scales image pixels to size of view so locations match
-        double wRatio = (this.getWidth() + 0.0) / img.getWidth();
-        double hRatio = (this.getHeight() + 0.0) / img.getHeight();
+        double wRatio = (overlay.getWidth() + 0.0) / img.getWidth();
+        double hRatio = (overlay.getHeight() + 0.0) / img.getHeight();
+
+        //shade the explored region, earliest settled nodes lightest
+        if (explored != null) {
+            for (int i = 0; i < explored.size(); i++) {
+                PointD p = explored.get(i);
+                int alpha = 40 + 160 * i / Math.max(1, explored.size());
+                int x = (int) (p.getX() * wRatio) - 1;
+                int y = (int) (p.getY() * hRatio) - 1;
+                g.setColor(new Color(255, 140, 0, alpha));
+                g.fillRect(x, y, 3, 3);
+                bounds.add(new Rectangle(x, y, 3, 3));
+            }
+        }
 
-        //draws map
-        graphics.drawImage(img, 0, 0, getWidth(), getHeight(), 0, 0, img.getWidth(), img.getHeight(), null);
         //if path has been chosen
         if (path != null) {
             PointD startLoc = model.getLocation(start);
-            
+
             g.setColor(Color.BLUE);
             //mark start
-            g.fillOval((int)(startLoc.getX()*wRatio-CIRCLE_RAD),(int)(startLoc.getY()*hRatio-CIRCLE_RAD),2*CIRCLE_RAD,2*CIRCLE_RAD);
+            int x = (int) (startLoc.getX() * wRatio - CIRCLE_RAD);
+            int y = (int) (startLoc.getY() * hRatio - CIRCLE_RAD);
+            g.fillOval(x, y, 2 * CIRCLE_RAD, 2 * CIRCLE_RAD);
+            bounds.add(new Rectangle(x, y, 2 * CIRCLE_RAD + 1, 2 * CIRCLE_RAD + 1));
 
             //draw paths
             for (Edge<PointD, Double> e : path) {
                 PointD end = e.getEnd();
-                g.drawLine((int) (startLoc.getX() * wRatio), (int) (startLoc.getY() * hRatio), (int) (end.getX() * wRatio),
-                        (int) (end.getY() * hRatio));
-                startLoc=end;
+                g.drawLine((int) (startLoc.getX() * wRatio), (int) (startLoc.getY() * hRatio),
+                        (int) (end.getX() * wRatio), (int) (end.getY() * hRatio));
+                bounds.add(new Rectangle((int) (end.getX() * wRatio), (int) (end.getY() * hRatio), 1, 1));
+                startLoc = end;
             }
 
             //mark end
             g.setColor(Color.RED);
-            g.fillOval((int)(startLoc.getX()*wRatio-CIRCLE_RAD),(int)(startLoc.getY()*hRatio-CIRCLE_RAD),2*CIRCLE_RAD,2*CIRCLE_RAD);
-        } 
+            x = (int) (startLoc.getX() * wRatio - CIRCLE_RAD);
+            y = (int) (startLoc.getY() * hRatio - CIRCLE_RAD);
+            g.fillOval(x, y, 2 * CIRCLE_RAD, 2 * CIRCLE_RAD);
+            bounds.add(new Rectangle(x, y, 2 * CIRCLE_RAD + 1, 2 * CIRCLE_RAD + 1));
+        }
+        g.dispose();
+        overlayBounds = bounds.intersection(new Rectangle(0, 0, overlay.getWidth(), overlay.getHeight()));
+    }
+
+    /**
+     * @return a rectangle that adding a rectangle to makes a copy of it, as
+     *         adding to an empty one would also cover its corner
+     */
+    private static Rectangle nothing() {
+        return new Rectangle(0, 0, -1, -1);
+    }
+
+    /**
+     * paints the components
+     * @param g graphics for painting
+     * @modifies the view displayed
+     * @effects draws the map and the path/markers if a path is chosen, from
+     *          the cached layers, within the clip of g
+     */
+    @Override
+    public void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (getWidth() <= 0 || getHeight() <= 0) {
+            return;
+        }
+        validateLayers();
+
+        //both layers are the size of the view, so drawing them is a copy
+        //that the clip of g limits to the part being repainted
+        g.drawImage(scaledMap, 0, 0, null);
+        Rectangle clip = g.getClipBounds();
+        if (!overlayBounds.isEmpty() && (clip == null || clip.intersects(overlayBounds))) {
+            g.drawImage(overlay, 0, 0, null);
+        }
     }
 
 }
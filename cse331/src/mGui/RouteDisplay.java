@@ -0,0 +1,37 @@
+package mGui;
+
+import java.util.List;
+
+import graphStructure.Edge;
+import model.PointD;
+import model.RouteExplanation;
+
+/**
+ * a view that shows paths found by the controller. Its methods are called
+ * on the event dispatch thread
+ * @author WP
+ *
+ */
+public interface RouteDisplay {
+
+    /**
+     * shows a path
+     * @param start start building
+     * @param path the path from start, or null if there is none
+     * @throws IllegalArgumentException if start is null
+     */
+    void showPath(String start, List<Edge<PointD, Double>> path);
+
+    /**
+     * shows an explained path and the region its search explored
+     * @param start start building
+     * @param explanation the explained path from start
+     * @throws IllegalArgumentException if args are null
+     */
+    void showExplanation(String start, RouteExplanation explanation);
+
+    /**
+     * stops showing any path
+     */
+    void reset();
+}
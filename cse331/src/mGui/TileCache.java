@@ -0,0 +1,180 @@
+package mGui;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * keeps the most recently used tiles of a TilePyramid decoded in memory,
+ * loading the others on background threads when they are asked for. A tile
+ * not in memory is reported missing at once and loaded, and the listener is
+ * told on the event dispatch thread when it arrives. Newer requests are
+ * loaded first, so the tiles in view after a pan arrive before those the
+ * view has already left. A tile that cannot be read is reported once and
+ * then left missing, rather than read again on every repaint.
+ *
+ * @author WP
+ *
+ */
+public class TileCache {
+
+    /**
+     * told when a tile has been loaded
+     */
+    public interface Listener {
+        /**
+         * called on the event dispatch thread when a tile is in the cache
+         * @param level level of the tile
+         * @param col column of the tile
+         * @param row row of the tile
+         */
+        void tileLoaded(int level, int col, int row);
+    }
+
+    // the tiles
+    private final TilePyramid pyramid;
+
+    // told when tiles arrive
+    private final Listener listener;
+
+    // decoded tiles by key, least recently used first
+    private final Map<Long, BufferedImage> tiles;
+
+    // keys of the tiles being loaded
+    private final Set<Long> loading;
+
+    // keys of the tiles that could not be read
+    private final Set<Long> failed;
+
+    // loads tiles, newest request first
+    private final ThreadPoolExecutor loader;
+
+    /**
+     * constructor
+     * @param pyramid the tiles
+     * @param capacity most tiles kept in memory
+     * @param threads number of threads loading tiles
+     * @param listener told when tiles arrive
+     * @effects creates an empty cache
+     * @throws IllegalArgumentException if pyramid or listener is null, or
+     *         capacity or threads is not positive
+     */
+    public TileCache(TilePyramid pyramid, final int capacity, int threads, Listener listener) {
+        if (pyramid == null || listener == null || capacity <= 0 || threads <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.pyramid = pyramid;
+        this.listener = listener;
+        this.tiles = new LinkedHashMap<Long, BufferedImage>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.loading = new HashSet<Long>();
+        this.failed = new HashSet<Long>();
+        this.loader = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingDeque<Runnable>() {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    public boolean offer(Runnable r) {
+                        // last in, first out
+                        return offerFirst(r);
+                    }
+                }, new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "tile-loader");
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+    }
+
+    /**
+     * @return the pyramid the tiles are from
+     */
+    public TilePyramid getPyramid() {
+        return pyramid;
+    }
+
+    /**
+     * gets a tile if it is in memory, and starts loading it if not
+     * @param level level of the tile
+     * @param col column of the tile
+     * @param row row of the tile
+     * @return the tile, or null if it is being loaded or could not be read
+     */
+    public BufferedImage get(final int level, final int col, final int row) {
+        final Long key = key(level, col, row);
+        synchronized (this) {
+            BufferedImage tile = tiles.get(key);
+            if (tile != null || failed.contains(key) || !loading.add(key)) {
+                return tile;
+            }
+        }
+        loader.execute(new Runnable() {
+            @Override
+            public void run() {
+                BufferedImage tile = null;
+                try {
+                    tile = pyramid.readTile(level, col, row);
+                } catch (IOException | RuntimeException e) {
+                    e.printStackTrace();
+                } finally {
+                    synchronized (TileCache.this) {
+                        loading.remove(key);
+                        if (tile != null) {
+                            tiles.put(key, tile);
+                        } else {
+                            // not asked for again, so it is reported once
+                            failed.add(key);
+                        }
+                    }
+                }
+                if (tile != null) {
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            listener.tileLoaded(level, col, row);
+                        }
+                    });
+                }
+            }
+        });
+        return null;
+    }
+
+    /**
+     * gets a tile only if it is in memory
+     * @param level level of the tile
+     * @param col column of the tile
+     * @param row row of the tile
+     * @return the tile, or null if it is not in memory
+     */
+    public synchronized BufferedImage peek(int level, int col, int row) {
+        return tiles.get(key(level, col, row));
+    }
+
+    /**
+     * @param level level of a tile
+     * @param col column of the tile
+     * @param row row of the tile
+     * @return a key naming the tile
+     */
+    private static Long key(int level, int col, int row) {
+        return ((long) level << 48) | ((long) col << 24) | row;
+    }
+}
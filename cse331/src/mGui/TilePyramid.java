@@ -0,0 +1,303 @@
+package mGui;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Properties;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * a multi-resolution pyramid of tiles of a map image, kept on disk so the
+ * full image never has to be held decoded in memory. Level 0 is the image at
+ * full size, and each level after is half the size of the one before, until
+ * the whole image fits in one tile. Every tile is TILE_SIZE pixels square,
+ * except those on the right and bottom edges, which are cut off by the edge
+ * of their level.
+ *
+ * Level 0 is cut from the source a strip of tiles at a time, and each level
+ * after is made by halving four tiles of the level before into one, so
+ * building holds at most a strip of the source decoded. A pyramid built once
+ * is reused until its source changes.
+ *
+ * @author WP
+ *
+ */
+public class TilePyramid {
+
+    /** width and height of a tile, in pixels */
+    public static final int TILE_SIZE = 256;
+
+    // describes the pyramid in its directory
+    private static final String INDEX = "pyramid.properties";
+
+    // directory holding the tiles, one directory per level
+    private final File directory;
+
+    // size of the source image, in pixels
+    private final int width;
+    private final int height;
+
+    // number of levels
+    private final int levels;
+
+    /**
+     * constructor
+     * @param directory directory holding the tiles
+     * @param width width of the source image
+     * @param height height of the source image
+     * @effects creates a pyramid of the tiles in directory
+     */
+    private TilePyramid(File directory, int width, int height) {
+        this.directory = directory;
+        this.width = width;
+        this.height = height;
+        int levels = 1;
+        while (Math.max(levelSize(width, levels - 1), levelSize(height, levels - 1)) > TILE_SIZE) {
+            levels++;
+        }
+        this.levels = levels;
+    }
+
+    /**
+     * opens the pyramid of an image, building it first if directory does not
+     * hold one built from the image as it is now
+     * @param source the image
+     * @param directory directory to keep the tiles in, made if needed
+     * @return the pyramid
+     * @throws IOException if the image cannot be read or the tiles cannot be
+     *         written
+     * @throws IllegalArgumentException if args are null
+     */
+    public static TilePyramid open(File source, File directory) throws IOException {
+        if (source == null || directory == null) {
+            throw new IllegalArgumentException();
+        }
+        String stamp = source.length() + ":" + source.lastModified();
+        File index = new File(directory, INDEX);
+        if (index.isFile()) {
+            Properties p = new Properties();
+            InputStream in = new FileInputStream(index);
+            try {
+                p.load(in);
+            } finally {
+                in.close();
+            }
+            if (stamp.equals(p.getProperty("source")) && String.valueOf(TILE_SIZE).equals(p.getProperty("tile"))) {
+                return new TilePyramid(directory, Integer.parseInt(p.getProperty("width")),
+                        Integer.parseInt(p.getProperty("height")));
+            }
+        }
+
+        TilePyramid pyramid = buildBase(source, directory);
+        for (int level = 1; level < pyramid.levels; level++) {
+            pyramid.buildLevel(level);
+        }
+
+        // written last, so a build that did not finish is built again
+        Properties p = new Properties();
+        p.setProperty("source", stamp);
+        p.setProperty("tile", String.valueOf(TILE_SIZE));
+        p.setProperty("width", String.valueOf(pyramid.width));
+        p.setProperty("height", String.valueOf(pyramid.height));
+        OutputStream out = new FileOutputStream(index);
+        try {
+            p.store(out, "tile pyramid of " + source.getName());
+        } finally {
+            out.close();
+        }
+        return pyramid;
+    }
+
+    /**
+     * cuts level 0 from the source, decoding a strip of tiles at a time
+     * @param source the image
+     * @param directory directory to keep the tiles in
+     * @return the pyramid, with only level 0 built
+     * @throws IOException if the image cannot be read or the tiles cannot be
+     *         written
+     */
+    private static TilePyramid buildBase(File source, File directory) throws IOException {
+        ImageInputStream in = ImageIO.createImageInputStream(source);
+        if (in == null) {
+            throw new IOException("Cannot read " + source);
+        }
+        try {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new IOException("Not an image: " + source);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                TilePyramid pyramid = new TilePyramid(directory, reader.getWidth(0), reader.getHeight(0));
+                pyramid.levelDirectory(0).mkdirs();
+                ImageReadParam param = reader.getDefaultReadParam();
+                for (int row = 0; row < pyramid.rows(0); row++) {
+                    int y = row * TILE_SIZE;
+                    param.setSourceRegion(new Rectangle(0, y, pyramid.width,
+                            Math.min(TILE_SIZE, pyramid.height - y)));
+                    BufferedImage strip = reader.read(0, param);
+                    for (int col = 0; col < pyramid.columns(0); col++) {
+                        int x = col * TILE_SIZE;
+                        BufferedImage tile = new BufferedImage(Math.min(TILE_SIZE, pyramid.width - x),
+                                strip.getHeight(), BufferedImage.TYPE_INT_RGB);
+                        Graphics2D g = tile.createGraphics();
+                        g.drawImage(strip, -x, 0, null);
+                        g.dispose();
+                        pyramid.writeTile(0, col, row, tile);
+                    }
+                }
+                return pyramid;
+            } finally {
+                reader.dispose();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * makes a level by halving the tiles of the level before, four into one
+     * @param level the level, at least 1
+     * @requires level - 1 is built
+     * @throws IOException if the tiles cannot be read or written
+     */
+    private void buildLevel(int level) throws IOException {
+        levelDirectory(level).mkdirs();
+        int levelWidth = levelSize(width, level);
+        int levelHeight = levelSize(height, level);
+        for (int row = 0; row < rows(level); row++) {
+            for (int col = 0; col < columns(level); col++) {
+                BufferedImage tile = new BufferedImage(Math.min(TILE_SIZE, levelWidth - col * TILE_SIZE),
+                        Math.min(TILE_SIZE, levelHeight - row * TILE_SIZE), BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = tile.createGraphics();
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                for (int dy = 0; dy < 2; dy++) {
+                    for (int dx = 0; dx < 2; dx++) {
+                        int childCol = 2 * col + dx;
+                        int childRow = 2 * row + dy;
+                        if (childCol < columns(level - 1) && childRow < rows(level - 1)) {
+                            BufferedImage child = readTile(level - 1, childCol, childRow);
+                            g.drawImage(child, dx * TILE_SIZE / 2, dy * TILE_SIZE / 2,
+                                    (child.getWidth() + 1) / 2, (child.getHeight() + 1) / 2, null);
+                        }
+                    }
+                }
+                g.dispose();
+                writeTile(level, col, row, tile);
+            }
+        }
+    }
+
+    /**
+     * finds the size of a level along one side
+     * @param size size of the source image along the side
+     * @param level the level
+     * @return size of the level along the side, at least 1
+     */
+    private static int levelSize(int size, int level) {
+        return Math.max(1, (int) Math.ceil(size / (double) (1 << level)));
+    }
+
+    /**
+     * @return width of the source image, in pixels
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return height of the source image, in pixels
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return number of levels, the last of which is one tile
+     */
+    public int getLevels() {
+        return levels;
+    }
+
+    /**
+     * @param level the level
+     * @return number of columns of tiles of level
+     */
+    public int columns(int level) {
+        return (levelSize(width, level) + TILE_SIZE - 1) / TILE_SIZE;
+    }
+
+    /**
+     * @param level the level
+     * @return number of rows of tiles of level
+     */
+    public int rows(int level) {
+        return (levelSize(height, level) + TILE_SIZE - 1) / TILE_SIZE;
+    }
+
+    /**
+     * reads a tile from disk
+     * @param level level of the tile
+     * @param col column of the tile
+     * @param row row of the tile
+     * @return the tile, each pixel covering 2^level pixels of the source
+     *         along each side
+     * @throws IOException if the tile cannot be read
+     * @throws IllegalArgumentException if there is no such tile
+     */
+    public BufferedImage readTile(int level, int col, int row) throws IOException {
+        if (level < 0 || level >= levels || col < 0 || col >= columns(level) || row < 0 || row >= rows(level)) {
+            throw new IllegalArgumentException();
+        }
+        BufferedImage tile = ImageIO.read(tileFile(level, col, row));
+        if (tile == null) {
+            throw new IOException("Cannot read tile " + level + "/" + col + "_" + row);
+        }
+        return tile;
+    }
+
+    /**
+     * writes a tile to disk
+     * @param level level of the tile
+     * @param col column of the tile
+     * @param row row of the tile
+     * @param tile the tile
+     * @throws IOException if the tile cannot be written
+     */
+    private void writeTile(int level, int col, int row, BufferedImage tile) throws IOException {
+        if (!ImageIO.write(tile, "jpg", tileFile(level, col, row))) {
+            throw new IOException("No JPEG writer");
+        }
+    }
+
+    /**
+     * @param level the level
+     * @return directory holding the tiles of level
+     */
+    private File levelDirectory(int level) {
+        return new File(directory, String.valueOf(level));
+    }
+
+    /**
+     * @param level level of the tile
+     * @param col column of the tile
+     * @param row row of the tile
+     * @return file holding the tile
+     */
+    private File tileFile(int level, int col, int row) {
+        return new File(levelDirectory(level), col + "_" + row + ".jpg");
+    }
+}
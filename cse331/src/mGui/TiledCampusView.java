@@ -0,0 +1,400 @@
+package mGui;
+
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.JComponent;
+import javax.swing.SwingWorker;
+
+import graphStructure.Edge;
+import model.CampusModel;
+import model.PointD;
+import model.RouteExplanation;
+
+/**
+ * view for gui that shows the campus map in tiles, so it can be zoomed with
+ * the mouse wheel and panned by dragging without the whole map decoded in
+ * memory. The map is cut into a TilePyramid on disk the first time, and the
+ * tiles in view are loaded through a TileCache at the level that matches the
+ * zoom. Until a tile arrives, the part of a coarser tile that covers it is
+ * drawn instead.
+ *
+ * Paths and the explored region are drawn through the same viewport as the
+ * map: a point (x, y) of the map is drawn at ((x - originX) * scale,
+ * (y - originY) * scale).
+ * @author WP
+ *
+ */
+public class TiledCampusView extends JComponent implements RouteDisplay {
+
+    private static final long serialVersionUID = 1L;
+
+    //radius of marker for start/end buildings
+    private static final int CIRCLE_RAD = 5;
+
+    //most screen pixels per map pixel
+    private static final double MAX_SCALE = 4;
+
+    //zoom for each notch of the mouse wheel
+    private static final double ZOOM_STEP = 1.25;
+
+    //tiles kept decoded, about 16MB, and threads decoding them
+    private static final int CACHE_TILES = 64;
+    private static final int LOADER_THREADS = 2;
+
+    private CampusModel model;
+
+    //the map's tiles, or null until the pyramid is open
+    private TileCache cache;
+
+    //why the map could not be opened, or null if it has not failed
+    private String failure;
+
+    private List<Edge<PointD, Double>> path;
+
+    private String start;
+
+    // nodes the last explained search settled, or null if it was not explained
+    private List<PointD> explored;
+
+    //screen pixels per map pixel, and the map point at the top left corner
+    private double scale;
+    private double originX;
+    private double originY;
+
+    //whether the whole map is shown, following the size of the view
+    private boolean fitted = true;
+
+    //where the mouse was when last pressed or dragged
+    private int lastX;
+    private int lastY;
+
+    /**
+     * constructor of tiled view for gui. The map is opened in the background
+     * @param model the model for path finding
+     * @param map the map image
+     * @param tiles directory to keep the map's tiles in
+     * @effects constructs a TiledCampusView
+     * @throws IllegalArgumentException if args are null
+     */
+    public TiledCampusView(CampusModel model, final File map, final File tiles) {
+        if(model==null || map==null || tiles==null){
+            throw new IllegalArgumentException();
+        }
+        this.model = model;
+        this.setPreferredSize(new Dimension(1024, 680));
+
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                lastX = e.getX();
+                lastY = e.getY();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                originX -= (e.getX() - lastX) / scale;
+                originY -= (e.getY() - lastY) / scale;
+                lastX = e.getX();
+                lastY = e.getY();
+                fitted = false;
+                repaint();
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                zoom(Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()), e.getX(), e.getY());
+            }
+        };
+        this.addMouseListener(mouse);
+        this.addMouseMotionListener(mouse);
+        this.addMouseWheelListener(mouse);
+
+        //building the pyramid the first time takes a while
+        new SwingWorker<TilePyramid, Void>() {
+            @Override
+            protected TilePyramid doInBackground() throws Exception {
+                return TilePyramid.open(map, tiles);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    openCache(get());
+                } catch (InterruptedException e) {
+                    failure = "Map not loaded";
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace();
+                    failure = "Cannot load map: " + e.getCause().getMessage();
+                }
+                repaint();
+            }
+        }.execute();
+    }
+
+    /**
+     * starts showing the map's tiles
+     * @param pyramid the map's tiles
+     * @modifies this.cache
+     * @effects makes a cache of the tiles and starts loading the coarsest
+     */
+    private void openCache(TilePyramid pyramid) {
+        cache = new TileCache(pyramid, CACHE_TILES, LOADER_THREADS, new TileCache.Listener() {
+            @Override
+            public void tileLoaded(int level, int col, int row) {
+                repaint(tileBounds(level, col, row));
+            }
+        });
+        //the coarsest level is one tile, drawn while finer ones load
+        cache.get(pyramid.getLevels() - 1, 0, 0);
+    }
+
+    @Override
+    public void showPath(String start, List<Edge<PointD, Double>> path) {
+        if(start==null){
+            throw new IllegalArgumentException();
+        }
+        this.start = start;
+        this.path = path;
+        explored = null;
+        repaint();
+    }
+
+    @Override
+    public void showExplanation(String start, RouteExplanation explanation) {
+        if(start==null || explanation==null){
+            throw new IllegalArgumentException();
+        }
+        this.start = start;
+        path = explanation.getPath();
+        explored = explanation.getSettledOrder();
+        this.setToolTipText(explanation.toString());
+        repaint();
+    }
+
+    @Override
+    public void reset() {
+        start = null;
+        path = null;
+        explored = null;
+        this.setToolTipText(null);
+        repaint();
+    }
+
+    /**
+     * zooms about a point of the view, keeping the map point under it still
+     * @param factor how much to multiply the scale by
+     * @param x x of the point in the view
+     * @param y y of the point in the view
+     * @modifies this.scale, this.originX, this.originY
+     * @effects zooms by factor, as far as the limits allow
+     */
+    private void zoom(double factor, int x, int y) {
+        if (cache == null || scale <= 0 || getWidth() <= 0 || getHeight() <= 0) {
+            return;
+        }
+        double mapX = originX + x / scale;
+        double mapY = originY + y / scale;
+        scale = Math.max(fitScale(), Math.min(MAX_SCALE, scale * factor));
+        originX = mapX - x / scale;
+        originY = mapY - y / scale;
+        fitted = false;
+        repaint();
+    }
+
+    /**
+     * @return the scale that shows the whole map in the view
+     */
+    private double fitScale() {
+        TilePyramid pyramid = cache.getPyramid();
+        return Math.min((getWidth() + 0.0) / pyramid.getWidth(), (getHeight() + 0.0) / pyramid.getHeight());
+    }
+
+    /**
+     * keeps the viewport on the map
+     * @modifies this.scale, this.originX, this.originY
+     * @effects shows the whole map if fitted or zoomed out past it, and
+     *          centers the map along each side it does not fill
+     */
+    private void clampViewport() {
+        TilePyramid pyramid = cache.getPyramid();
+        double fit = fitScale();
+        if (fitted || scale < fit) {
+            scale = fit;
+        }
+        double spanX = getWidth() / scale;
+        double spanY = getHeight() / scale;
+        if (spanX >= pyramid.getWidth()) {
+            originX = (pyramid.getWidth() - spanX) / 2;
+        } else {
+            originX = Math.max(0, Math.min(pyramid.getWidth() - spanX, originX));
+        }
+        if (spanY >= pyramid.getHeight()) {
+            originY = (pyramid.getHeight() - spanY) / 2;
+        } else {
+            originY = Math.max(0, Math.min(pyramid.getHeight() - spanY, originY));
+        }
+    }
+
+    /**
+     * @return the coarsest level with at least one of its pixels per screen
+     *         pixel at the current scale
+     */
+    private int level() {
+        int level = 0;
+        while (level + 1 < cache.getPyramid().getLevels() && scale * (2 << level) <= 1) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * @param x x of a map point
+     * @return x of the point in the view
+     */
+    private int screenX(double x) {
+        return (int) Math.round((x - originX) * scale);
+    }
+
+    /**
+     * @param y y of a map point
+     * @return y of the point in the view
+     */
+    private int screenY(double y) {
+        return (int) Math.round((y - originY) * scale);
+    }
+
+    /**
+     * @param level level of a tile
+     * @param col column of the tile
+     * @param row row of the tile
+     * @return the part of the view the tile covers
+     */
+    private Rectangle tileBounds(int level, int col, int row) {
+        TilePyramid pyramid = cache.getPyramid();
+        int span = TilePyramid.TILE_SIZE << level;
+        int x0 = screenX(col * (double) span);
+        int y0 = screenY(row * (double) span);
+        int x1 = screenX(Math.min((col + 1) * (double) span, pyramid.getWidth()));
+        int y1 = screenY(Math.min((row + 1) * (double) span, pyramid.getHeight()));
+        return new Rectangle(x0, y0, x1 - x0, y1 - y0);
+    }
+
+    /**
+     * draws a tile in its place, or the part of a coarser tile in memory
+     * that covers it if it is still loading
+     * @param g graphics to draw with
+     * @param level level of the tile
+     * @param col column of the tile
+     * @param row row of the tile
+     */
+    private void drawTile(Graphics2D g, int level, int col, int row) {
+        Rectangle bounds = tileBounds(level, col, row);
+        BufferedImage tile = cache.get(level, col, row);
+        if (tile != null) {
+            g.drawImage(tile, bounds.x, bounds.y, bounds.x + bounds.width, bounds.y + bounds.height, 0, 0,
+                    tile.getWidth(), tile.getHeight(), null);
+            return;
+        }
+        for (int up = level + 1; up < cache.getPyramid().getLevels(); up++) {
+            int shift = up - level;
+            BufferedImage parent = cache.peek(up, col >> shift, row >> shift);
+            if (parent != null) {
+                Rectangle parentBounds = tileBounds(up, col >> shift, row >> shift);
+                Graphics2D clipped = (Graphics2D) g.create();
+                clipped.clip(bounds);
+                clipped.drawImage(parent, parentBounds.x, parentBounds.y, parentBounds.x + parentBounds.width,
+                        parentBounds.y + parentBounds.height, 0, 0, parent.getWidth(), parent.getHeight(), null);
+                clipped.dispose();
+                return;
+            }
+        }
+    }
+
+    /**
+     * paints the components
+     * @param g graphics for painting
+     * @modifies the view displayed
+     * @effects draws the tiles of the map in view, and the path/markers if
+     *          a path is chosen
+     */
+    @Override
+    public void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (getWidth() <= 0 || getHeight() <= 0) {
+            return;
+        }
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.setColor(Color.GRAY);
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        if (cache == null) {
+            g.setColor(Color.WHITE);
+            g.drawString(failure == null ? "Loading map..." : failure, 10, 20);
+            return;
+        }
+        clampViewport();
+
+        Graphics2D graphics = (Graphics2D) g.create();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+
+        //tiles that meet the clip
+        TilePyramid pyramid = cache.getPyramid();
+        int level = level();
+        double span = TilePyramid.TILE_SIZE << level;
+        int firstCol = Math.max(0, (int) Math.floor((originX + clip.x / scale) / span));
+        int lastCol = Math.min(pyramid.columns(level) - 1,
+                (int) Math.floor((originX + clip.getMaxX() / scale) / span));
+        int firstRow = Math.max(0, (int) Math.floor((originY + clip.y / scale) / span));
+        int lastRow = Math.min(pyramid.rows(level) - 1,
+                (int) Math.floor((originY + clip.getMaxY() / scale) / span));
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                drawTile(graphics, level, col, row);
+            }
+        }
+        graphics.dispose();
+
+        //shade the explored region, earliest settled nodes lightest
+        if (explored != null) {
+            for (int i = 0; i < explored.size(); i++) {
+                PointD p = explored.get(i);
+                int alpha = 40 + 160 * i / Math.max(1, explored.size());
+                g.setColor(new Color(255, 140, 0, alpha));
+                g.fillRect(screenX(p.getX()) - 1, screenY(p.getY()) - 1, 3, 3);
+            }
+        }
+
+        //if path has been chosen
+        if (path != null) {
+            PointD startLoc = model.getLocation(start);
+
+            g.setColor(Color.BLUE);
+            //mark start
+            g.fillOval(screenX(startLoc.getX()) - CIRCLE_RAD, screenY(startLoc.getY()) - CIRCLE_RAD, 2 * CIRCLE_RAD,
+                    2 * CIRCLE_RAD);
+
+            //draw paths
+            for (Edge<PointD, Double> e : path) {
+                PointD end = e.getEnd();
+                g.drawLine(screenX(startLoc.getX()), screenY(startLoc.getY()), screenX(end.getX()),
+                        screenY(end.getY()));
+                startLoc = end;
+            }
+
+            //mark end
+            g.setColor(Color.RED);
+            g.fillOval(screenX(startLoc.getX()) - CIRCLE_RAD, screenY(startLoc.getY()) - CIRCLE_RAD, 2 * CIRCLE_RAD,
+                    2 * CIRCLE_RAD);
+        }
+    }
+
+}
@@ -0,0 +1,166 @@
+package mGui.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import mGui.TileCache;
+import mGui.TilePyramid;
+
+/**
+ * this class tests the implementation of the TileCache class
+ *
+ * @author WP
+ *
+ */
+public class TileCacheTest {
+
+    private File dir;
+    private TilePyramid pyramid;
+    // tiles the listener was told of, as level/col_row
+    private List<String> loaded;
+    // a permit for every tile the listener was told of
+    private Semaphore arrived;
+    private TileCache.Listener listener;
+
+    @Before
+    public void startUp() throws IOException {
+        this.dir = Files.createTempDirectory("tiles").toFile();
+        File source = new File(this.dir, "map.png");
+        TilePyramidTest.writeImage(source, 600, 300);
+        this.pyramid = TilePyramid.open(source, new File(this.dir, "tiles"));
+        this.loaded = Collections.synchronizedList(new ArrayList<String>());
+        this.arrived = new Semaphore(0);
+        this.listener = new TileCache.Listener() {
+            @Override
+            public void tileLoaded(int level, int col, int row) {
+                Assert.assertTrue(SwingUtilities.isEventDispatchThread());
+                TileCacheTest.this.loaded.add(level + "/" + col + "_" + row);
+                TileCacheTest.this.arrived.release();
+            }
+        };
+    }
+
+    @After
+    public void tearDown() {
+        TilePyramidTest.delete(this.dir);
+    }
+
+    /**
+     * asks for a tile and waits until it is in the cache
+     */
+    private void load(TileCache cache, int level, int col, int row) throws InterruptedException {
+        Assert.assertNull(cache.get(level, col, row));
+        Assert.assertTrue(this.arrived.tryAcquire(10, TimeUnit.SECONDS));
+        Assert.assertNotNull(cache.peek(level, col, row));
+    }
+
+    /**
+     * waits for the listener calls already posted to the event dispatch
+     * thread
+     */
+    private static void flush() throws InterruptedException, InvocationTargetException {
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                // nothing, just waits for the events before it
+            }
+        });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullListener() {
+        new TileCache(this.pyramid, 4, 1, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoCapacity() {
+        new TileCache(this.pyramid, 0, 1, this.listener);
+    }
+
+    @Test
+    public void testLoadsInBackground() throws InterruptedException {
+        TileCache cache = new TileCache(this.pyramid, 4, 2, this.listener);
+        Assert.assertSame(this.pyramid, cache.getPyramid());
+        Assert.assertNull(cache.peek(0, 1, 1));
+        this.load(cache, 0, 1, 1);
+        Assert.assertEquals(Collections.singletonList("0/1_1"), this.loaded);
+        // in memory now, so it comes back at once without loading
+        Assert.assertNotNull(cache.get(0, 1, 1));
+        Assert.assertEquals(TilePyramid.TILE_SIZE, cache.peek(0, 1, 1).getWidth());
+    }
+
+    @Test
+    public void testLoadedOnce() throws InterruptedException, InvocationTargetException {
+        TileCache cache = new TileCache(this.pyramid, 4, 2, this.listener);
+        cache.get(0, 2, 0);
+        cache.get(0, 2, 0);
+        Assert.assertTrue(this.arrived.tryAcquire(10, TimeUnit.SECONDS));
+        Assert.assertNotNull(cache.get(0, 2, 0));
+        TileCacheTest.flush();
+        Assert.assertEquals(1, this.loaded.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() throws InterruptedException {
+        TileCache cache = new TileCache(this.pyramid, 2, 1, this.listener);
+        this.load(cache, 0, 0, 0);
+        this.load(cache, 0, 1, 0);
+        // using the first tile makes the second the least recently used
+        Assert.assertNotNull(cache.get(0, 0, 0));
+        this.load(cache, 0, 2, 0);
+        Assert.assertNotNull(cache.peek(0, 0, 0));
+        Assert.assertNull(cache.peek(0, 1, 0));
+        Assert.assertNotNull(cache.peek(0, 2, 0));
+
+        // an evicted tile is loaded again when asked for
+        this.load(cache, 0, 1, 0);
+        Assert.assertNull(cache.peek(0, 0, 0));
+        Assert.assertEquals(4, this.loaded.size());
+    }
+
+    @Test
+    public void testUnreadableTileNotRetried() throws InterruptedException, IOException,
+            InvocationTargetException {
+        File tile = new File(new File(new File(this.dir, "tiles"), "0"), "0_0.jpg");
+        File saved = new File(this.dir, "saved.jpg");
+        Assert.assertTrue(tile.renameTo(saved));
+        // one thread, so the tile after the missing one loads once it failed
+        TileCache cache = new TileCache(this.pyramid, 4, 1, this.listener);
+        Assert.assertNull(cache.get(0, 0, 0));
+        this.load(cache, 0, 1, 0);
+
+        // not read again, even once the file is back
+        Assert.assertTrue(saved.renameTo(tile));
+        Assert.assertNull(cache.get(0, 0, 0));
+        this.load(cache, 0, 2, 0);
+        Assert.assertNull(cache.peek(0, 0, 0));
+        TileCacheTest.flush();
+        Assert.assertEquals(2, this.loaded.size());
+    }
+
+    @Test
+    public void testTileOutsidePyramidFails() throws InterruptedException, InvocationTargetException {
+        TileCache cache = new TileCache(this.pyramid, 4, 1, this.listener);
+        // readTile throws IllegalArgumentException, which must not leave the
+        // tile marked as loading forever
+        Assert.assertNull(cache.get(0, 9, 9));
+        this.load(cache, 0, 1, 0);
+        Assert.assertNull(cache.get(0, 9, 9));
+        TileCacheTest.flush();
+        Assert.assertEquals(Collections.singletonList("0/1_0"), this.loaded);
+    }
+}
@@ -0,0 +1,149 @@
+package mGui.test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import javax.imageio.ImageIO;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import mGui.TilePyramid;
+
+/**
+ * this class tests the implementation of the TilePyramid class
+ *
+ * @author WP
+ *
+ */
+public class TilePyramidTest {
+
+    private File dir;
+    private File source;
+    private File tiles;
+
+    @Before
+    public void startUp() throws IOException {
+        this.dir = Files.createTempDirectory("pyramid").toFile();
+        this.source = new File(this.dir, "map.png");
+        this.tiles = new File(this.dir, "tiles");
+        // two and a third tiles wide and one and a sixth tall, so level 0
+        // has cut off tiles on the right and bottom
+        TilePyramidTest.writeImage(this.source, 600, 300);
+    }
+
+    @After
+    public void tearDown() {
+        TilePyramidTest.delete(this.dir);
+    }
+
+    /**
+     * writes an image red on the left half and blue on the right
+     */
+    static void writeImage(File file, int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.RED);
+        g.fillRect(0, 0, width / 2, height);
+        g.setColor(Color.BLUE);
+        g.fillRect(width / 2, 0, width - width / 2, height);
+        g.dispose();
+        Assert.assertTrue(ImageIO.write(image, "png", file));
+    }
+
+    /**
+     * deletes a file or a directory and everything in it
+     */
+    static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                TilePyramidTest.delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullSource() throws IOException {
+        TilePyramid.open(null, this.tiles);
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotAnImage() throws IOException {
+        File text = new File(this.dir, "map.txt");
+        Files.write(text.toPath(), "not an image".getBytes("US-ASCII"));
+        TilePyramid.open(text, this.tiles);
+    }
+
+    @Test
+    public void testLevels() throws IOException {
+        TilePyramid pyramid = TilePyramid.open(this.source, this.tiles);
+        Assert.assertEquals(600, pyramid.getWidth());
+        Assert.assertEquals(300, pyramid.getHeight());
+        // 600 x 300, 300 x 150, then 150 x 75 fits in one tile
+        Assert.assertEquals(3, pyramid.getLevels());
+        Assert.assertEquals(3, pyramid.columns(0));
+        Assert.assertEquals(2, pyramid.rows(0));
+        Assert.assertEquals(2, pyramid.columns(1));
+        Assert.assertEquals(1, pyramid.rows(1));
+        Assert.assertEquals(1, pyramid.columns(2));
+        Assert.assertEquals(1, pyramid.rows(2));
+    }
+
+    @Test
+    public void testTileSizes() throws IOException {
+        TilePyramid pyramid = TilePyramid.open(this.source, this.tiles);
+        BufferedImage full = pyramid.readTile(0, 0, 0);
+        Assert.assertEquals(TilePyramid.TILE_SIZE, full.getWidth());
+        Assert.assertEquals(TilePyramid.TILE_SIZE, full.getHeight());
+        BufferedImage corner = pyramid.readTile(0, 2, 1);
+        Assert.assertEquals(600 - 2 * TilePyramid.TILE_SIZE, corner.getWidth());
+        Assert.assertEquals(300 - TilePyramid.TILE_SIZE, corner.getHeight());
+        BufferedImage top = pyramid.readTile(2, 0, 0);
+        Assert.assertEquals(150, top.getWidth());
+        Assert.assertEquals(75, top.getHeight());
+    }
+
+    @Test
+    public void testTilesShowSource() throws IOException {
+        TilePyramid pyramid = TilePyramid.open(this.source, this.tiles);
+        // tiles are lossy, so only check which color wins
+        BufferedImage top = pyramid.readTile(2, 0, 0);
+        Color left = new Color(top.getRGB(10, 40));
+        Color right = new Color(top.getRGB(140, 40));
+        Assert.assertTrue(left.getRed() > 200 && left.getBlue() < 60);
+        Assert.assertTrue(right.getBlue() > 200 && right.getRed() < 60);
+        Color edge = new Color(pyramid.readTile(0, 2, 1).getRGB(80, 40));
+        Assert.assertTrue(edge.getBlue() > 200 && edge.getRed() < 60);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoSuchTile() throws IOException {
+        TilePyramid.open(this.source, this.tiles).readTile(1, 2, 0);
+    }
+
+    @Test
+    public void testReusedUntilSourceChanges() throws IOException {
+        TilePyramid.open(this.source, this.tiles);
+        File tile = new File(new File(this.tiles, "0"), "0_0.jpg");
+        Assert.assertTrue(tile.delete());
+
+        // the source is unchanged, so the tiles are not built again
+        TilePyramid same = TilePyramid.open(this.source, this.tiles);
+        Assert.assertEquals(600, same.getWidth());
+        Assert.assertFalse(tile.exists());
+
+        TilePyramidTest.writeImage(this.source, 300, 300);
+        TilePyramid changed = TilePyramid.open(this.source, this.tiles);
+        Assert.assertEquals(300, changed.getWidth());
+        Assert.assertEquals(2, changed.getLevels());
+        Assert.assertTrue(tile.exists());
+    }
+}
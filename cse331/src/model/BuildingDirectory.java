@@ -0,0 +1,341 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * A BuildingDirectory is an immutable index of the buildings on campus, built
+ * once when the campus is loaded. It looks up a building by short name in
+ * constant time, lists the buildings in order of short name without copying
+ * them, and completes prefixes of short names or of the words of long names
+ * through a compressed trie. It also holds a BuildingSearchIndex for typo
+ * tolerant search. Since it never changes, it can be shared between threads.
+ *
+ * @author WP
+ *
+ */
+public final class BuildingDirectory {
+    // switch for checking rep invariant
+    private static final boolean CHECK = false;
+
+    // short names in order; the id of a building is its index here
+    private final String[] shortNames;
+    // long name and location of each building, by id
+    private final String[] longNames;
+    private final PointD[] locations;
+    // maps short names to ids
+    private final Map<String, Integer> ids;
+    // the buildings in order of short name, as an unmodifiable map
+    private final SortedMap<String, String> sorted;
+    // lower case short names and long name words, leading to building ids
+    private final TrieNode trie;
+    // fuzzy search over the names
+    private final BuildingSearchIndex search;
+
+    // Abstraction function: this holds a building for every index i of
+    // this.shortNames, with short name this.shortNames[i], long name
+    // this.longNames[i] and location this.locations[i].
+
+    // Representation Invariant:
+    // none of the fields are null,
+    // this.shortNames is sorted and has no duplicates,
+    // the arrays have the same length,
+    // this.ids maps this.shortNames[i] to i,
+    // this.sorted maps this.shortNames[i] to this.longNames[i]
+
+    /**
+     * constructor, indexes a set of buildings
+     *
+     * @param short2LongName
+     *            map of abbreviated names to long form names
+     * @param name2Loc
+     *            map of abbreviated names to locations
+     * @requires both maps have the same keys, and no keys or values are null
+     * @effects builds a directory of the buildings in the maps
+     * @throws IllegalArgumentException
+     *             if args are null
+     */
+    public BuildingDirectory(Map<String, String> short2LongName, Map<String, PointD> name2Loc) {
+        if (short2LongName == null || name2Loc == null) {
+            throw new IllegalArgumentException();
+        }
+        TreeMap<String, String> byName = new TreeMap<String, String>(short2LongName);
+        int n = byName.size();
+        this.shortNames = byName.keySet().toArray(new String[n]);
+        this.longNames = new String[n];
+        this.locations = new PointD[n];
+        this.ids = new HashMap<String, Integer>(n * 2);
+        this.trie = new TrieNode("");
+        for (int i = 0; i < n; i++) {
+            String shortName = this.shortNames[i];
+            this.longNames[i] = byName.get(shortName);
+            this.locations[i] = name2Loc.get(shortName);
+            this.ids.put(shortName, i);
+            this.trie.insert(BuildingDirectory.key(shortName), i);
+            String longName = BuildingDirectory.key(this.longNames[i]);
+            for (int start = 0; start < longName.length(); start++) {
+                if (start == 0 || longName.charAt(start - 1) == ' ') {
+                    this.trie.insert(longName.substring(start), i);
+                }
+            }
+        }
+        this.sorted = Collections.unmodifiableSortedMap(byName);
+        this.search = new BuildingSearchIndex(byName);
+        this.checkRep();
+    }
+
+    /**
+     * normalizes a name for prefix matching
+     *
+     * @param name
+     *            name to normalize
+     * @return name in lower case
+     */
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * number of buildings
+     *
+     * @return number of buildings in this
+     */
+    public int size() {
+        return this.shortNames.length;
+    }
+
+    /**
+     * checks if there is a building with a short name
+     *
+     * @param shortName
+     *            abbreviated name of building
+     * @return true iff this has a building with that short name
+     * @throws IllegalArgumentException
+     *             if shortName is null
+     */
+    public boolean contains(String shortName) {
+        if (shortName == null) {
+            throw new IllegalArgumentException();
+        }
+        return this.ids.containsKey(shortName);
+    }
+
+    /**
+     * returns the long name of a building
+     *
+     * @param shortName
+     *            abbreviated name of building
+     * @return long form name of the building, or null if there is none
+     * @throws IllegalArgumentException
+     *             if shortName is null
+     */
+    public String getLongName(String shortName) {
+        if (shortName == null) {
+            throw new IllegalArgumentException();
+        }
+        Integer id = this.ids.get(shortName);
+        return id == null ? null : this.longNames[id];
+    }
+
+    /**
+     * returns the location of a building
+     *
+     * @param shortName
+     *            abbreviated name of building
+     * @return location of the building, or null if there is none
+     * @throws IllegalArgumentException
+     *             if shortName is null
+     */
+    public PointD getLocation(String shortName) {
+        if (shortName == null) {
+            throw new IllegalArgumentException();
+        }
+        Integer id = this.ids.get(shortName);
+        return id == null ? null : this.locations[id];
+    }
+
+    /**
+     * returns the buildings in alphabetical order of short name. The map is a
+     * view, so no copy is made, and it cannot be modified.
+     *
+     * @return map of short names to long names, sorted by short name
+     */
+    public SortedMap<String, String> getBuildings() {
+        return this.sorted;
+    }
+
+    /**
+     * returns the short names in alphabetical order. The list is a view, so
+     * no copy is made, and it cannot be modified.
+     *
+     * @return the sorted short names
+     */
+    public List<String> getShortNames() {
+        return Collections.unmodifiableList(Arrays.asList(this.shortNames));
+    }
+
+    /**
+     * finds buildings whose short name, long name or a word of whose long name
+     * starts with a prefix, ignoring case
+     *
+     * @param prefix
+     *            start of the name to complete
+     * @param limit
+     *            most buildings to return
+     * @return short names of up to limit matching buildings, in alphabetical
+     *         order
+     * @throws IllegalArgumentException
+     *             if prefix is null or limit is negative
+     */
+    public List<String> complete(String prefix, int limit) {
+        if (prefix == null || limit < 0) {
+            throw new IllegalArgumentException();
+        }
+        List<String> result = new ArrayList<String>();
+        TrieNode node = this.trie.find(BuildingDirectory.key(prefix));
+        if (node == null || limit == 0) {
+            return result;
+        }
+        BitSet found = new BitSet(this.shortNames.length);
+        node.collect(found);
+        for (int i = found.nextSetBit(0); i >= 0 && result.size() < limit; i = found.nextSetBit(i + 1)) {
+            result.add(this.shortNames[i]);
+        }
+        return result;
+    }
+
+    /**
+     * returns the fuzzy search index of the buildings, for finding them from
+     * misspelled or partial names
+     *
+     * @return search index over the names of the buildings in this
+     */
+    public BuildingSearchIndex getSearchIndex() {
+        return this.search;
+    }
+
+    /**
+     * checks rep invariant. names must be sorted and indexed by id.
+     */
+    private void checkRep() {
+        if (!BuildingDirectory.CHECK) {
+            return;
+        }
+        if (this.shortNames.length != this.longNames.length || this.shortNames.length != this.locations.length
+                || this.ids.size() != this.shortNames.length || this.sorted.size() != this.shortNames.length) {
+            throw new RuntimeException("directory sizes do not match");
+        }
+        for (int i = 0; i < this.shortNames.length; i++) {
+            if (i > 0 && this.shortNames[i - 1].compareTo(this.shortNames[i]) >= 0) {
+                throw new RuntimeException("short names are not sorted");
+            }
+            if (this.ids.get(this.shortNames[i]) != i) {
+                throw new RuntimeException("short name is not indexed by its id");
+            }
+        }
+    }
+
+    /**
+     * a node of a compressed trie: the edge leading to it is labeled with a
+     * whole run of characters, and it holds the ids of the names that end at
+     * it
+     */
+    private static final class TrieNode {
+        // characters on the edge from the parent to this node
+        String label;
+        final List<TrieNode> children;
+        // ids of the buildings with a key ending here
+        int[] ends;
+
+        TrieNode(String label) {
+            this.label = label;
+            this.children = new ArrayList<TrieNode>(2);
+            this.ends = new int[0];
+        }
+
+        /**
+         * finds the child whose label starts with a character
+         */
+        TrieNode child(char c) {
+            for (TrieNode child : this.children) {
+                if (child.label.charAt(0) == c) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * adds a key below this node, splitting edges where it leaves them
+         */
+        void insert(String key, int id) {
+            TrieNode node = this;
+            int i = 0;
+            while (i < key.length()) {
+                TrieNode child = node.child(key.charAt(i));
+                if (child == null) {
+                    child = new TrieNode(key.substring(i));
+                    node.children.add(child);
+                    node = child;
+                    break;
+                }
+                int common = 0;
+                while (common < child.label.length() && i + common < key.length()
+                        && child.label.charAt(common) == key.charAt(i + common)) {
+                    common++;
+                }
+                if (common < child.label.length()) {
+                    TrieNode mid = new TrieNode(child.label.substring(0, common));
+                    child.label = child.label.substring(common);
+                    mid.children.add(child);
+                    node.children.set(node.children.indexOf(child), mid);
+                    child = mid;
+                }
+                node = child;
+                i += common;
+            }
+            node.ends = Arrays.copyOf(node.ends, node.ends.length + 1);
+            node.ends[node.ends.length - 1] = id;
+        }
+
+        /**
+         * finds the node below which every key starting with prefix lies
+         */
+        TrieNode find(String prefix) {
+            TrieNode node = this;
+            int i = 0;
+            while (i < prefix.length()) {
+                node = node.child(prefix.charAt(i));
+                if (node == null) {
+                    return null;
+                }
+                int m = Math.min(node.label.length(), prefix.length() - i);
+                if (!node.label.regionMatches(0, prefix, i, m)) {
+                    return null;
+                }
+                i += m;
+            }
+            return node;
+        }
+
+        /**
+         * adds the ids of every key at or below this node to found
+         */
+        void collect(BitSet found) {
+            for (int id : this.ends) {
+                found.set(id);
+            }
+            for (TrieNode child : this.children) {
+                child.collect(found);
+            }
+        }
+    }
+}
@@ -0,0 +1,566 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A BuildingSearchIndex finds buildings from what people type for them: the
+ * short name ("MGH"), the long name or the start of it ("Mary Gates"), the
+ * start of a later word of it ("Gates"), the initials of some words followed
+ * by the rest ("mgates"), or any of those with a few typos. Each building is
+ * indexed under several keys, which are lower case with everything but
+ * letters and digits removed, and a query matches the start of a key.
+ *
+ * Keys the query is a prefix of are found by binary search over the sorted
+ * keys. Only if those give too few buildings are typos considered: trigram
+ * postings pick out the keys that share enough trigrams with the query to be
+ * within the allowed edit distance, and only those are checked with an edit
+ * distance limited to a band around the diagonal. The index is immutable, so
+ * it can be shared between threads. Each search takes working arrays from a
+ * pool and gives them back after, as CampusSnapshot does, so at most
+ * MAX_SEARCHES sets are ever made however many threads search; more searches
+ * than that at once wait their turn.
+ *
+ * @author WP
+ *
+ */
+public final class BuildingSearchIndex {
+    // switch for checking rep invariant
+    private static final boolean CHECK = false;
+
+    // character used to pad the start of keys and queries
+    private static final char PAD = '\0';
+    // most sets of working arrays in use at once
+    private static final int MAX_SEARCHES = 2 * Runtime.getRuntime().availableProcessors();
+
+    // short names in order; the id of a building is its index here
+    private final String[] shortNames;
+    // normalized search keys
+    private final String[] keys;
+    // id of the building each key belongs to
+    private final int[] owners;
+    // ids of the keys, in alphabetical order of key
+    private final int[] sortedKeys;
+    // maps each trigram to the ids of the keys containing it, in order
+    private final Map<Long, int[]> postings;
+    // length of the rows of the edit distance table: one more than the
+    // longest key
+    private final int rowLength;
+    // idle working arrays, made as needed up to MAX_SEARCHES sets, so
+    // searches share nothing and allocate nothing per key or building
+    private final Queue<Scratch> scratches;
+    // permits for the sets of working arrays not in use
+    private final Semaphore scratchPermits;
+
+    // Abstraction function: this finds the buildings this.shortNames, where
+    // building i can be found by any key this.keys[k] with this.owners[k] == i.
+
+    // Representation Invariant:
+    // none of the fields are null,
+    // this.shortNames is sorted,
+    // this.keys and this.owners have the same length,
+    // every owner is an index of this.shortNames,
+    // this.sortedKeys orders the ids of this.keys by key,
+    // this.postings.get(t) lists, in increasing order, every key containing
+    // trigram t once
+
+    /**
+     * constructor, indexes the names of a set of buildings
+     *
+     * @param short2LongName
+     *            map of abbreviated names to long form names
+     * @requires no keys or values are null
+     * @effects builds an index of the buildings
+     * @throws IllegalArgumentException
+     *             if short2LongName is null
+     */
+    public BuildingSearchIndex(Map<String, String> short2LongName) {
+        if (short2LongName == null) {
+            throw new IllegalArgumentException();
+        }
+        TreeMap<String, String> byName = new TreeMap<String, String>(short2LongName);
+        this.shortNames = byName.keySet().toArray(new String[byName.size()]);
+
+        List<String> keyList = new ArrayList<String>();
+        List<Integer> ownerList = new ArrayList<Integer>();
+        int longest = 0;
+        for (int i = 0; i < this.shortNames.length; i++) {
+            for (String key : BuildingSearchIndex.keysOf(this.shortNames[i], byName.get(this.shortNames[i]))) {
+                keyList.add(key);
+                ownerList.add(i);
+                longest = Math.max(longest, key.length());
+            }
+        }
+        this.keys = keyList.toArray(new String[keyList.size()]);
+        this.owners = new int[this.keys.length];
+        Integer[] order = new Integer[this.keys.length];
+        for (int k = 0; k < this.owners.length; k++) {
+            this.owners[k] = ownerList.get(k);
+            order[k] = k;
+        }
+        final String[] sortBy = this.keys;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer k1, Integer k2) {
+                return sortBy[k1].compareTo(sortBy[k2]);
+            }
+        });
+        this.sortedKeys = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            this.sortedKeys[i] = order[i];
+        }
+
+        Map<Long, int[]> lists = new HashMap<Long, int[]>();
+        Map<Long, Integer> sizes = new HashMap<Long, Integer>();
+        for (int k = 0; k < this.keys.length; k++) {
+            for (long trigram : BuildingSearchIndex.trigrams(this.keys[k])) {
+                int[] list = lists.get(trigram);
+                int size = list == null ? 0 : sizes.get(trigram);
+                if (list == null) {
+                    list = new int[2];
+                } else if (list[size - 1] == k) {
+                    // the key has this trigram more than once
+                    continue;
+                } else if (size == list.length) {
+                    list = Arrays.copyOf(list, size * 2);
+                }
+                list[size] = k;
+                lists.put(trigram, list);
+                sizes.put(trigram, size + 1);
+            }
+        }
+        this.postings = new HashMap<Long, int[]>(lists.size() * 2);
+        for (Map.Entry<Long, int[]> entry : lists.entrySet()) {
+            this.postings.put(entry.getKey(), Arrays.copyOf(entry.getValue(), sizes.get(entry.getKey())));
+        }
+        this.rowLength = longest + 1;
+        this.scratches = new ConcurrentLinkedQueue<Scratch>();
+        this.scratchPermits = new Semaphore(BuildingSearchIndex.MAX_SEARCHES);
+        this.checkRep();
+    }
+
+    /**
+     * lower cases a name and drops everything but letters and digits
+     *
+     * @param name
+     *            name to normalize
+     * @return the normalized name
+     */
+    private static String normalize(String name) {
+        StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * finds the keys a building is indexed under: its short name, and for
+     * every word of its long name, the rest of the name from that word on,
+     * both alone and after the initials of the words before it
+     *
+     * @param shortName
+     *            abbreviated name of the building
+     * @param longName
+     *            long form name of the building
+     * @return the distinct, non empty keys of the building
+     */
+    private static Set<String> keysOf(String shortName, String longName) {
+        Set<String> result = new LinkedHashSet<String>();
+        result.add(BuildingSearchIndex.normalize(shortName));
+        List<String> words = new ArrayList<String>();
+        for (String word : longName.split("[^\\p{L}\\p{N}]+")) {
+            String w = BuildingSearchIndex.normalize(word);
+            if (!w.isEmpty()) {
+                words.add(w);
+            }
+        }
+        for (int i = 0; i <= words.size(); i++) {
+            StringBuilder key = new StringBuilder();
+            for (int j = 0; j < words.size(); j++) {
+                if (j < i) {
+                    key.append(words.get(j).charAt(0));
+                } else {
+                    key.append(words.get(j));
+                }
+            }
+            result.add(key.toString());
+            StringBuilder rest = new StringBuilder();
+            for (int j = i; j < words.size(); j++) {
+                rest.append(words.get(j));
+            }
+            result.add(rest.toString());
+        }
+        result.remove("");
+        return result;
+    }
+
+    /**
+     * finds the trigrams of a string padded at the start, so a string of
+     * length n has n trigrams and the first ones mark where it starts
+     *
+     * @param s
+     *            string to split
+     * @return the trigrams of s, packed three chars to a long
+     */
+    private static long[] trigrams(String s) {
+        long[] result = new long[s.length()];
+        char a = BuildingSearchIndex.PAD;
+        char b = BuildingSearchIndex.PAD;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            result[i] = ((long) a << 32) | ((long) b << 16) | c;
+            a = b;
+            b = c;
+        }
+        return result;
+    }
+
+    /**
+     * the number of typos allowed in a query
+     *
+     * @param length
+     *            length of the normalized query
+     * @return most edits a match may be from the query
+     */
+    private static int maxDistance(int length) {
+        if (length <= 3) {
+            return 0;
+        } else if (length <= 6) {
+            return 1;
+        }
+        return 2;
+    }
+
+    /**
+     * ranks how well a query matches the start of a key. Only cells of the
+     * edit distance table within bound of the diagonal are computed, since
+     * any path through the others costs more than bound.
+     *
+     * @param query
+     *            normalized query
+     * @param key
+     *            normalized key
+     * @param bound
+     *            most edits allowed
+     * @param prev
+     *            working row at least key.length() + 1 long
+     * @param cur
+     *            working row at least key.length() + 1 long
+     * @return twice the fewest edits that turn query into a prefix of key,
+     *         plus one unless that prefix can be the whole key, or -1 if more
+     *         than bound edits are needed
+     */
+    private static int rank(String query, String key, int bound, int[] prev, int[] cur) {
+        int m = query.length();
+        if (key.length() < m - bound) {
+            return -1;
+        }
+        int n = Math.min(key.length(), m + bound);
+        int far = bound + 1;
+        for (int j = 0; j <= n; j++) {
+            prev[j] = Math.min(j, far);
+        }
+        for (int i = 1; i <= m; i++) {
+            int lo = Math.max(1, i - bound);
+            int hi = Math.min(n, i + bound);
+            cur[lo - 1] = lo == 1 ? Math.min(i, far) : far;
+            int rowMin = cur[lo - 1];
+            char q = query.charAt(i - 1);
+            for (int j = lo; j <= hi; j++) {
+                int d = prev[j - 1] + (q == key.charAt(j - 1) ? 0 : 1);
+                d = Math.min(d, prev[j] + 1);
+                d = Math.min(d, cur[j - 1] + 1);
+                cur[j] = Math.min(d, far);
+                rowMin = Math.min(rowMin, cur[j]);
+            }
+            if (hi < n) {
+                // the next row reads one cell past this band
+                cur[hi + 1] = far;
+            }
+            if (rowMin > bound) {
+                return -1;
+            }
+            int[] swap = prev;
+            prev = cur;
+            cur = swap;
+        }
+        int best = far;
+        for (int j = Math.max(0, m - bound); j <= n; j++) {
+            best = Math.min(best, prev[j]);
+        }
+        if (best > bound) {
+            return -1;
+        }
+        boolean whole = n == key.length() && prev[n] == best;
+        return best * 2 + (whole ? 0 : 1);
+    }
+
+    /**
+     * finds where a string would go among the sorted keys
+     *
+     * @param s
+     *            string to look for
+     * @return index in this.sortedKeys of the first key not less than s
+     */
+    private int lowerBound(String s) {
+        int lo = 0;
+        int hi = this.sortedKeys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (this.keys[this.sortedKeys[mid]].compareTo(s) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * number of buildings
+     *
+     * @return number of buildings in this
+     */
+    public int size() {
+        return this.shortNames.length;
+    }
+
+    /**
+     * finds the buildings that best match a query. Buildings are ranked by how
+     * many edits the query is from the start of one of their keys, then with
+     * whole key matches before prefix matches, then by short name.
+     *
+     * @param query
+     *            what was typed for the building
+     * @param k
+     *            most buildings to return
+     * @return short names of up to k matching buildings, best first
+     * @throws IllegalArgumentException
+     *             if query is null or k is negative
+     */
+    public List<String> search(String query, int k) {
+        if (query == null || k < 0) {
+            throw new IllegalArgumentException();
+        }
+        List<String> result = new ArrayList<String>();
+        String q = BuildingSearchIndex.normalize(query);
+        if (q.isEmpty() || k == 0) {
+            return result;
+        }
+        Scratch work = this.takeScratch();
+        boolean cleared = false;
+        try {
+            this.search(q, k, work, result);
+            cleared = true;
+        } finally {
+            // arrays a failed search may have left dirty are not reused
+            this.giveBack(cleared ? work : null);
+        }
+        return result;
+    }
+
+    /**
+     * finds the buildings that best match a normalized query
+     *
+     * @param q
+     *            the query, normalized and not empty
+     * @param k
+     *            most buildings to find, at least 1
+     * @param work
+     *            working arrays of this search, cleared
+     * @param result
+     *            list to add the short names of the buildings to
+     * @modifies work, result
+     * @effects adds up to k matching buildings to result, best first, and
+     *          leaves work cleared
+     */
+    private void search(String q, int k, Scratch work, List<String> result) {
+        // keys that start with q, which no match with a typo can beat
+        int end = this.lowerBound(q + Character.MAX_VALUE);
+        for (int i = this.lowerBound(q); i < end; i++) {
+            int key = this.sortedKeys[i];
+            work.offer(this.owners[key], this.keys[key].length() == q.length() ? 0 : 1);
+        }
+
+        int bound = BuildingSearchIndex.maxDistance(q.length());
+        if (work.found < k && bound > 0) {
+            // count the distinct trigrams of q that each key has
+            long[] grams = BuildingSearchIndex.trigrams(q);
+            Arrays.sort(grams);
+            int distinct = 0;
+            for (int i = 0; i < grams.length; i++) {
+                if (i > 0 && grams[i] == grams[i - 1]) {
+                    continue;
+                }
+                distinct++;
+                int[] list = this.postings.get(grams[i]);
+                if (list != null) {
+                    for (int key : list) {
+                        work.count(key);
+                    }
+                }
+            }
+
+            // each edit can break at most three trigrams, so keys with fewer
+            // in common than this cannot be close enough
+            int threshold = Math.max(1, distinct - 3 * bound);
+            for (int t = 0; t < work.counted; t++) {
+                int key = work.keys[t];
+                int count = work.counts[key];
+                work.counts[key] = 0;
+                if (count >= threshold && !this.keys[key].startsWith(q)) {
+                    int rank = BuildingSearchIndex.rank(q, this.keys[key], bound, work.rowA, work.rowB);
+                    if (rank >= 0) {
+                        work.offer(this.owners[key], rank);
+                    }
+                }
+            }
+            work.counted = 0;
+        }
+
+        // keep the k best, by rank then id, in a small sorted array of one
+        // long per building
+        long[] top = new long[Math.min(k, work.found)];
+        int size = 0;
+        for (int t = 0; t < work.found; t++) {
+            int building = work.buildings[t];
+            long entry = ((long) (work.ranks[building] - 1) << 32) | building;
+            work.ranks[building] = 0;
+            if (size == top.length && entry >= top[size - 1]) {
+                continue;
+            }
+            int j = size < top.length ? size++ : size - 1;
+            while (j > 0 && top[j - 1] > entry) {
+                top[j] = top[j - 1];
+                j--;
+            }
+            top[j] = entry;
+        }
+        work.found = 0;
+        for (int i = 0; i < size; i++) {
+            result.add(this.shortNames[(int) top[i]]);
+        }
+    }
+
+    /**
+     * takes a set of working arrays for a search, waiting if MAX_SEARCHES
+     * are in use
+     *
+     * @return cleared working arrays no other search is using
+     */
+    private Scratch takeScratch() {
+        this.scratchPermits.acquireUninterruptibly();
+        Scratch work = this.scratches.poll();
+        return work == null ? new Scratch(this.keys.length, this.shortNames.length, this.rowLength) : work;
+    }
+
+    /**
+     * gives back working arrays taken by takeScratch
+     *
+     * @param work
+     *            the working arrays, cleared and no longer used by the
+     *            caller, or null if they were left dirty and are dropped
+     */
+    private void giveBack(Scratch work) {
+        if (work != null) {
+            this.scratches.add(work);
+        }
+        this.scratchPermits.release();
+    }
+
+    /**
+     * checks rep invariant. keys must belong to buildings and postings must
+     * be in order.
+     */
+    private void checkRep() {
+        if (!BuildingSearchIndex.CHECK) {
+            return;
+        }
+        if (this.keys.length != this.owners.length || this.sortedKeys.length != this.keys.length) {
+            throw new RuntimeException("every key needs an owner");
+        }
+        for (int i = 1; i < this.sortedKeys.length; i++) {
+            if (this.keys[this.sortedKeys[i - 1]].compareTo(this.keys[this.sortedKeys[i]]) > 0) {
+                throw new RuntimeException("keys are not sorted");
+            }
+        }
+        for (int owner : this.owners) {
+            if (owner < 0 || owner >= this.shortNames.length) {
+                throw new RuntimeException("key owned by no building");
+            }
+        }
+        for (int[] list : this.postings.values()) {
+            for (int j = 1; j < list.length; j++) {
+                if (list[j - 1] >= list[j]) {
+                    throw new RuntimeException("postings out of order");
+                }
+            }
+        }
+    }
+
+    /**
+     * working arrays for one search at a time. Between searches every count
+     * and rank is zero and nothing is counted or found.
+     */
+    private static final class Scratch {
+        // trigrams each key shares with the query, and the keys with any
+        final int[] counts;
+        int[] keys;
+        int counted;
+        // one more than the best rank of each building, and the buildings
+        // with one
+        final int[] ranks;
+        final int[] buildings;
+        int found;
+        // rows of the edit distance table
+        final int[] rowA;
+        final int[] rowB;
+
+        Scratch(int keys, int buildings, int rowLength) {
+            this.counts = new int[keys];
+            this.keys = new int[16];
+            this.ranks = new int[buildings];
+            this.buildings = new int[buildings];
+            this.rowA = new int[rowLength];
+            this.rowB = new int[rowLength];
+        }
+
+        /**
+         * counts one more shared trigram for a key
+         */
+        void count(int key) {
+            if (this.counts[key]++ == 0) {
+                if (this.counted == this.keys.length) {
+                    this.keys = Arrays.copyOf(this.keys, this.counted * 2);
+                }
+                this.keys[this.counted++] = key;
+            }
+        }
+
+        /**
+         * records a match for a building, keeping its best rank
+         */
+        void offer(int building, int rank) {
+            if (this.ranks[building] == 0) {
+                this.buildings[this.found++] = building;
+                this.ranks[building] = rank + 1;
+            } else if (rank + 1 < this.ranks[building]) {
+                this.ranks[building] = rank + 1;
+            }
+        }
+    }
+}
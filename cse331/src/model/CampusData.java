@@ -0,0 +1,147 @@
+package model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import graphStructure.Graph;
+
+/**
+ * The raw data a CampusGraph is built from: the buildings, the graph of paths
+ * and the pool all of their points come from. It can be read from the text
+ * data files or from a compiled GraphImage.
+ *
+ * @author WP
+ *
+ */
+final class CampusData {
+
+    // maps abbreviated building name to long form name
+    private final Map<String, String> short2LongName;
+    // maps abbrevated building name to its location
+    private final Map<String, PointD> name2Loc;
+    // Graph with PointD nodes and Double labeled edges
+    private final Graph<PointD, Double> graph;
+    // canonical PointD for every location
+    private final PointDPool pool;
+    // this.graph in flat arrays, or null until it is needed
+    private CompactGraph compact;
+
+    // Abstraction function: this is the campus with the buildings
+    // this.short2LongName located at this.name2Loc and the paths this.graph.
+    // this.compact is either null or the same graph as this.graph.
+
+    // Representation Invariant:
+    // none of the fields except this.compact are null
+
+    /**
+     * constructor
+     *
+     * @param short2LongName
+     *            abbreviated building names mapped to long names
+     * @param name2Loc
+     *            abbreviated building names mapped to locations
+     * @param graph
+     *            paths between locations
+     * @param pool
+     *            pool all of the locations were interned in
+     * @param compact
+     *            graph in flat arrays, or null to build it when needed
+     * @effects creates a CampusData holding the args
+     */
+    CampusData(Map<String, String> short2LongName, Map<String, PointD> name2Loc, Graph<PointD, Double> graph,
+            PointDPool pool, CompactGraph compact) {
+        this.short2LongName = short2LongName;
+        this.name2Loc = name2Loc;
+        this.graph = graph;
+        this.pool = pool;
+        this.compact = compact;
+    }
+
+    /**
+     * reads campus data from text data files
+     *
+     * @param buildingFile
+     *            path of the building data file
+     * @param pathFile
+     *            path of the path data file
+     * @return the data in the files
+     * @throws MalformedDataException
+     *             if the files are not of proper format
+     * @throws IllegalArgumentException
+     *             if the args are null
+     */
+    static CampusData parse(String buildingFile, String pathFile) throws MalformedDataException {
+        return CampusData.parse(buildingFile, pathFile, new PointDPool());
+    }
+
+    /**
+     * reads campus data from text data files, interning the locations in a
+     * pool that may already hold points of other data
+     *
+     * @param buildingFile
+     *            path of the building data file
+     * @param pathFile
+     *            path of the path data file
+     * @param pool
+     *            pool to intern the locations in
+     * @modifies pool
+     * @return the data in the files
+     * @throws MalformedDataException
+     *             if the files are not of proper format
+     * @throws IllegalArgumentException
+     *             if the args are null
+     */
+    static CampusData parse(String buildingFile, String pathFile, PointDPool pool) throws MalformedDataException {
+        if (buildingFile == null || pathFile == null || pool == null) {
+            throw new IllegalArgumentException();
+        }
+        Map<String, String> short2LongName = new HashMap<String, String>();
+        Map<String, PointD> name2Loc = new HashMap<String, PointD>();
+        Graph<PointD, Double> graph = new Graph<PointD, Double>();
+
+        CampusParser.parseBuildingData(buildingFile, short2LongName, name2Loc, pool);
+        CampusParser.parsePathDataMapped(pathFile, graph, pool);
+        return new CampusData(short2LongName, name2Loc, graph, pool, null);
+    }
+
+    /**
+     * @return abbreviated building names mapped to long names
+     */
+    Map<String, String> getShort2LongName() {
+        return this.short2LongName;
+    }
+
+    /**
+     * @return abbreviated building names mapped to locations
+     */
+    Map<String, PointD> getName2Loc() {
+        return this.name2Loc;
+    }
+
+    /**
+     * @return graph of paths between locations
+     */
+    Graph<PointD, Double> getGraph() {
+        return this.graph;
+    }
+
+    /**
+     * @return pool all of the locations come from
+     */
+    PointDPool getPool() {
+        return this.pool;
+    }
+
+    /**
+     * returns the graph in flat arrays, building it the first time
+     *
+     * @modifies this
+     * @return a CompactGraph of getGraph()
+     */
+    CompactGraph getCompact() {
+        if (this.compact == null) {
+            this.compact = new CompactGraph(this.graph);
+        }
+        return this.compact;
+    }
+}
@@ -3,14 +3,12 @@ package model;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
-import java.util.TreeMap;
 
 import graphStructure.Edge;
 import graphStructure.Graph;
@@ -19,28 +17,58 @@ import graphStructure.Graph;
 /**
  * this class is the model for buildings and their paths on campus. It can list
  * all the buildings on campus, find the shortest path between two buildings and
- * find the longform name of an abbreviated building.
+ * find the longform name of an abbreviated building. A CampusGraph is only
+ * modified by applyPatch, so it can be queried from several threads as long
+ * as no patch is being applied. To serve many threads while patches are
+ * applied, query a CampusSnapshot taken with snapshot() instead.
  *
  * @author WP
  *
  */
-public class CampusGraph {
+public class CampusGraph implements CampusModel {
     // switch for checking rep invariant
     private static final boolean CHECK = false;
 
+    // directory the data files are in
+    static final String DATA_DIR = "./src/model/data/";
+
+    // metrics of findWeightedPath
+    private static final RouteMetrics METRICS = RouteMetrics.forEngine("dijkstra");
+
+    // nodes a search settles between checks for whether its thread was interrupted
+    static final int INTERRUPT_INTERVAL = 4096;
+
     // maps abbreviated building name to long form name
     private final Map<String, String> short2LongName;
     // maps abbrevated building name to its location
     private final Map<String, PointD> name2Loc;
 
+    // canonical PointD for every location in the data files
+    private final PointDPool pool;
+
     // Graph with PointD nodes and Double labeled edges
     private final Graph<PointD, Double> cGraph;
 
+    // this.cGraph with chains between buildings collapsed, used for queries
+    private final ContractedGraph<PointD> contracted;
+
+    // index of the buildings, rebuilt when a patch changes them
+    private BuildingDirectory directory;
+
+    // walking directions for the edges of this.cGraph as it was loaded.
+    // Edges added by patches are not in it and are described on the fly.
+    private final InstructionTable instructions;
+
     // Abstraction function: this model represents buildings and the paths
     // between them. this.short2LongName maps abbreviated names to their long
     // form, this.name2Loc maps short names to its location, and this.cGraph
     // represents a graph with nodes of points on a coordinate plane connected
-    // by edges with labels with the distance between them.
+    // by edges with labels with the distance between them. this.contracted
+    // is a simplified copy of this.cGraph that gives the same paths. Every
+    // PointD in the model is the one held by this.pool. this.instructions
+    // holds the walking directions for the edges of this.cGraph.
+    // this.directory indexes the buildings of this.short2LongName and
+    // this.name2Loc.
 
     // Representation Invariant:
     // none of the fields are null,
@@ -69,17 +97,117 @@ public class CampusGraph {
      *             if the args are null
      */
     public CampusGraph(String buildingFile, String pathFile) throws MalformedDataException {
-        if (buildingFile == null || pathFile == null) {
-            throw new IllegalArgumentException();
+        this(CampusData.parse(CampusGraph.dataFile(buildingFile), CampusGraph.dataFile(pathFile)));
+    }
+
+    /**
+     * constructor, builds a new CampusGraph from loaded data
+     *
+     * @param data
+     *            buildings and paths of the campus
+     * @requires data is not modified afterwards
+     * @effects builds a new CampusGraph object with data
+     */
+    CampusGraph(CampusData data) {
+        GraphBuildEvent event = new GraphBuildEvent();
+        event.begin();
+        this.short2LongName = data.getShort2LongName();
+        this.name2Loc = data.getName2Loc();
+        this.cGraph = data.getGraph();
+        this.pool = data.getPool();
+        this.contracted = new ContractedGraph<PointD>(this.cGraph, new HashSet<PointD>(this.name2Loc.values()));
+        this.directory = new BuildingDirectory(this.short2LongName, this.name2Loc);
+        this.instructions = new InstructionTable(data.getCompact());
+        event.finish("campus", this.cGraph.size(), this.instructions.getGraph().edgeCount());
+        this.checkRep();
+    }
+
+    /**
+     * builds a new CampusGraph like the constructor does, but reads the
+     * compiled GraphImage of the files instead if there is one that is up to
+     * date. Falls back to the text files if the image is missing, corrupt or
+     * older than the files.
+     *
+     * @param buildingFile
+     *            name of data file to read for info on buildings
+     * @param pathFile
+     *            name of data file to read for info on paths
+     * @requires the args buildingFile and pathFile are names of files that
+     *           exist
+     * @return a CampusGraph with the data of the files
+     * @throws MalformedDataException
+     *             if the files are not of proper format
+     * @throws IllegalArgumentException
+     *             if the args are null
+     */
+    public static CampusGraph load(String buildingFile, String pathFile) throws MalformedDataException {
+        String buildings = CampusGraph.dataFile(buildingFile);
+        String paths = CampusGraph.dataFile(pathFile);
+        CampusData data = GraphImage.load(GraphImage.imageFile(paths), buildings, paths);
+        if (data == null) {
+            data = CampusData.parse(buildings, paths);
         }
-        this.short2LongName = new HashMap<String, String>();
-        this.name2Loc = new HashMap<String, PointD>();
-        this.cGraph = new Graph<PointD, Double>();
+        return new CampusGraph(data);
+    }
 
-        CampusParser.parseBuildingData("./src/model/data/" + buildingFile, this.short2LongName, this.name2Loc);
-        CampusParser.parsePathData("./src/model/data/" + pathFile, this.cGraph);
+    /**
+     * applies a patch file from the data directory to this model, updating
+     * only the parts of the model the patch changes. See
+     * CampusParser.applyPatch for the format.
+     *
+     * @param patchFile
+     *            name of the patch file to read
+     * @requires patchFile is the name of a file that exists, and no queries
+     *           are made on this while the patch is applied
+     * @modifies this
+     * @effects the buildings and paths of this are changed as the patch says
+     * @throws MalformedDataException
+     *             if the patch is not of proper format, in which case this is
+     *             unchanged
+     * @throws IllegalArgumentException
+     *             if patchFile is null
+     */
+    public void applyPatch(String patchFile) throws MalformedDataException {
+        // the contracted graph already indexes the edges by where they end
+        GraphDelta<PointD> delta = CampusParser.applyPatch(CampusGraph.dataFile(patchFile), this.cGraph,
+                this.short2LongName, this.name2Loc, this.pool, this.contracted.getIncoming());
+        if (!delta.isEmpty()) {
+            this.contracted.update(delta, new HashSet<PointD>(this.name2Loc.values()));
+        }
+        if (!delta.getTouchedNodes().isEmpty()) {
+            // only building changes touch nodes
+            this.directory = new BuildingDirectory(this.short2LongName, this.name2Loc);
+        }
         this.checkRep();
+    }
 
+    /**
+     * copies this model into an immutable CampusSnapshot, which any number of
+     * threads can query without locks. Later patches to this do not change
+     * the snapshot.
+     *
+     * @requires no patch is applied to this while the snapshot is taken
+     * @return a snapshot of the buildings and paths of this
+     */
+    public CampusSnapshot snapshot() {
+        CompactGraph compact = new CompactGraph(this.cGraph);
+        return new CampusSnapshot(this.directory, compact, new InstructionTable(compact));
+    }
+
+    /**
+     * returns the path of a file in the data directory
+     *
+     * @param name
+     *            name of the data file
+     * @return relative path of the file
+     * @throws IllegalArgumentException
+     *             if name is null
+     */
+    static String dataFile(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException();
+        }
+        return CampusGraph.DATA_DIR + name;
     }
 
     /**
@@ -91,6 +219,7 @@ public class CampusGraph {
      * @throws IllegalArgumentException
      *             iff arg is null
      */
+    @Override
     public PointD getLocation(String s) {
         if (s == null) {
             throw new IllegalArgumentException();
@@ -99,13 +228,25 @@ public class CampusGraph {
     }
 
     /**
-     * returns a copy of the buildings in alphabetical order
+     * returns the buildings in alphabetical order. The map is a view of the
+     * building directory and cannot be modified.
      *
-     * @return a copy of the buildings in alphabetical order
+     * @return map of short names to long names in alphabetical order
      */
+    @Override
     public Map<String, String> getBuildings() {
         this.checkRep();
-        return new TreeMap<String, String>(this.short2LongName);
+        return this.directory.getBuildings();
+    }
+
+    /**
+     * returns the directory of buildings
+     *
+     * @return directory of every building in the model
+     */
+    @Override
+    public BuildingDirectory getDirectory() {
+        return this.directory;
     }
 
     /**
@@ -117,16 +258,29 @@ public class CampusGraph {
      * @throws IllegalArgumentException
      *             if arg is null or if building is not in the model
      */
+    @Override
     public String getLongName(String shortName) {
         this.checkRep();
         if (shortName == null) {
             throw new IllegalArgumentException();
         }
-        if (!this.getBuildings().containsKey(shortName)) {
+        String longName = this.directory.getLongName(shortName);
+        if (longName == null) {
             throw new IllegalArgumentException();
         }
         this.checkRep();
-        return this.short2LongName.get(shortName);
+        return longName;
+    }
+
+    /**
+     * returns the walking directions for the edges of the campus, worked out
+     * when the model was loaded
+     *
+     * @return table of directions for every edge in the model
+     */
+    @Override
+    public InstructionTable getInstructions() {
+        return this.instructions;
     }
 
     /**
@@ -141,6 +295,7 @@ public class CampusGraph {
      *             if args are null or if the building does not exist in the
      *             model (only looks at abbreviated names)
      */
+    @Override
     public List<Edge<PointD, Double>> findPath(String start, String end) {
         this.checkRep();
         if (start == null || end == null) {
@@ -163,9 +318,48 @@ public class CampusGraph {
             return null;
         }
         this.checkRep();
-        return findWeightedPath(this.cGraph, this.name2Loc.get(start), this.name2Loc.get(end));
+        return this.contracted.findPath(this.name2Loc.get(start), this.name2Loc.get(end));
     }
     
+    /**
+     * find the path between two buildings and explain how the search for it
+     * went. The search explained is the one findPath makes on the contracted
+     * graph, so it settles only buildings and the ends of chains, and a
+     * trace holds just those nodes.
+     *
+     * @param start
+     *            building at start of path
+     * @param end
+     *            building at end of path
+     * @param trace
+     *            true to include the nodes in the order the search settled
+     *            them
+     * @return a path from start to end with the statistics of the search
+     * @throws IllegalArgumentException
+     *             if args are null or if either building is not in the model
+     */
+    @Override
+    public RouteExplanation explain(String start, String end, boolean trace) {
+        if (start == null || end == null) {
+            throw new IllegalArgumentException();
+        }
+        long resolving = System.nanoTime();
+        PointD from = this.name2Loc.get(start);
+        PointD to = this.name2Loc.get(end);
+        if (from == null) {
+            throw new IllegalArgumentException("Unknown building: " + start);
+        }
+        if (to == null) {
+            throw new IllegalArgumentException("Unknown building: " + end);
+        }
+        long searching = System.nanoTime();
+        this.checkRep();
+        ContractedGraph.Search<PointD> s = this.contracted.explain(from, to, trace);
+        List<PointD> order = s.order == null ? new ArrayList<PointD>(0) : s.order;
+        return new RouteExplanation(s.path, s.settled, s.relaxed, s.pushes, s.maxSize, searching - resolving,
+                s.searchNanos, s.pathNanos, order);
+    }
+
     /**
      * find shortest path from start node to end node in graph based on edge
      * weights. Picks the least weight, lowest nodes path. Paths are defined as
@@ -178,7 +372,7 @@ public class CampusGraph {
      * @param end
      *            end node of path
      * @return shortest path between nodes (least node path if more than one
-     *         with lowest weight)
+     *         with lowest weight), or null if the thread was interrupted
      * @throws IllegalArgumentException
      *             if any args null or nodes not in graph
      */
@@ -189,6 +383,11 @@ public class CampusGraph {
         if (!graph.containsNode(start) || !graph.containsNode(end)) {
             throw new IllegalArgumentException();
         }
+        RouteQueryEvent event = new RouteQueryEvent();
+        event.begin();
+        long started = System.nanoTime();
+        long allocated = RouteMetrics.allocatedBytes();
+        long relaxed = 0;
         Queue<List<Edge<T, Double>>> activePaths = new PriorityQueue<List<Edge<T, Double>>>(
                 new Comparator<List<Edge<T, Double>>>() {
                     @Override
@@ -220,8 +419,15 @@ public class CampusGraph {
             if (foundNodes.contains(minDest)) {
                 continue;
             }
+            if (foundNodes.size() % CampusGraph.INTERRUPT_INTERVAL == 0 && Thread.currentThread().isInterrupted()) {
+                // cancelled, so no one wants the path
+                return null;
+            }
             if (minDest.equals(end)) {
                 minPath.remove(0);
+                // every relaxed edge was pushed as a path, plus the first
+                CampusGraph.METRICS.record(started, allocated, foundNodes.size() + 1, relaxed, relaxed + 1);
+                event.finish("dijkstra", start, end, foundNodes.size() + 1, minPath);
                 return minPath;
             }
             for (Edge<T, Double> e : graph.getEdges(minDest)) {
@@ -231,10 +437,12 @@ public class CampusGraph {
                 List<Edge<T, Double>> newPath = new ArrayList<Edge<T, Double>>(minPath);
                 newPath.add(e);
                 activePaths.add(newPath);
-
+                relaxed++;
             }
             foundNodes.add(minDest);
         }
+        CampusGraph.METRICS.record(started, allocated, foundNodes.size(), relaxed, relaxed + 1);
+        event.finish("dijkstra", start, end, foundNodes.size(), null);
         return null;
     }
 
@@ -246,7 +454,8 @@ public class CampusGraph {
         if (!CampusGraph.CHECK) {
             return;
         }
-        if (this.name2Loc == null || this.cGraph == null || this.short2LongName == null) {
+        if (this.name2Loc == null || this.cGraph == null || this.short2LongName == null || this.contracted == null
+                || this.pool == null || this.instructions == null || this.directory == null) {
             throw new RuntimeException();
         }
         for (String s : this.short2LongName.keySet()) {
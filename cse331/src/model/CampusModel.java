@@ -0,0 +1,97 @@
+package model;
+
+import java.util.List;
+import java.util.Map;
+
+import graphStructure.Edge;
+
+/**
+ * A model of buildings and their paths on campus. It can list all the
+ * buildings on campus, find the shortest path between two buildings and find
+ * the longform name of an abbreviated building. The views only use a campus
+ * through this interface, so the model behind it can be swapped out.
+ *
+ * @author WP
+ *
+ */
+public interface CampusModel {
+
+    /**
+     * returns location corresponding to a building
+     *
+     * @param s
+     *            the building to find location for (in abbreviated form)
+     * @return PointD location for that building
+     * @throws IllegalArgumentException
+     *             iff arg is null
+     */
+    public PointD getLocation(String s);
+
+    /**
+     * returns the buildings in alphabetical order. The map cannot be modified.
+     *
+     * @return map of short names to long names in alphabetical order
+     */
+    public Map<String, String> getBuildings();
+
+    /**
+     * returns the directory of buildings, for looking up and completing
+     * building names
+     *
+     * @return directory of every building in the model
+     */
+    public BuildingDirectory getDirectory();
+
+    /**
+     * returns the long form name of a building given an abbreviated name
+     *
+     * @param shortName
+     *            abbreviated name of building
+     * @return long form name of the building
+     * @throws IllegalArgumentException
+     *             if arg is null or if building is not in the model
+     */
+    public String getLongName(String shortName);
+
+    /**
+     * returns the walking directions for the edges of the campus
+     *
+     * @return table of directions for every edge in the model
+     */
+    public InstructionTable getInstructions();
+
+    /**
+     * find the path between two buildings
+     *
+     * @param start
+     *            building at start of path
+     * @param end
+     *            building at end of path
+     * @return a path from start to end, or null if there is none or the
+     *         calling thread was interrupted, in which case the search stops
+     *         early and the thread stays interrupted
+     * @throws IllegalArgumentException
+     *             if args are null or if the building does not exist in the
+     *             model (only looks at abbreviated names)
+     */
+    public List<Edge<PointD, Double>> findPath(String start, String end);
+
+    /**
+     * find the path between two buildings and explain how the search for it
+     * went
+     *
+     * @param start
+     *            building at start of path
+     * @param end
+     *            building at end of path
+     * @param trace
+     *            true to include the nodes in the order the search settled
+     *            them
+     * @return a path from start to end with the statistics of the search,
+     *         which stops early without a path if the calling thread was
+     *         interrupted, leaving the thread interrupted
+     * @throws IllegalArgumentException
+     *             if args are null or if either building is not in the model
+     */
+    public RouteExplanation explain(String start, String end, boolean trace);
+}
@@ -3,12 +3,31 @@ package model;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import graphStructure.Edge;
 import graphStructure.Graph;
 
 /**
- * this class parses and loads data from given files
+ * this class parses and loads data from given files. Building and path files
+ * whose names end in .gz (gzip) or .deflate (zlib) are decompressed as they
+ * are read.
  *
  * @author WP
  *
@@ -38,13 +57,44 @@ public class CampusParser {
      */
     public static void parseBuildingData(String filename, Map<String, String> short2LongName,
             Map<String, PointD> name2Loc) throws MalformedDataException {
-        if (filename == null || short2LongName == null || name2Loc == null) {
+        CampusParser.parseBuildingData(filename, short2LongName, name2Loc, new PointDPool());
+    }
+
+    /**
+     * Reads building data like parseBuildingData(filename, short2LongName,
+     * name2Loc), taking building locations from a pool of points.
+     *
+     * @param filename
+     *            file to read from
+     * @param short2LongName
+     *            map in which abbreviated names will be mapped to long form
+     *            names. Pre-existing data is overriden.
+     * @param name2Loc
+     *            map in which abbreviated names will be mapped to a PointD
+     *            location. Pre-existing data is overriden.
+     * @param pool
+     *            pool the locations are interned in
+     * @requires filename exists and has an existing corresponding file
+     * @modifies short2LongName, name2Loc, pool
+     * @effects short2LongName is filled with abbreviated names mapped to long
+     *          form
+     * @effects name2loc is filled with abbreviated names mapped to PointD
+     *          locations from pool
+     * @throws MalformedDataException
+     *             if file is not of proper form
+     */
+    public static void parseBuildingData(String filename, Map<String, String> short2LongName,
+            Map<String, PointD> name2Loc, PointDPool pool) throws MalformedDataException {
+        if (filename == null || short2LongName == null || name2Loc == null || pool == null) {
             throw new IllegalArgumentException();
         }
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        long lines = 0;
         BufferedReader reader = null;
 
         try {
-            reader = new BufferedReader(new FileReader(filename));
+            reader = CampusParser.openReader(filename);
 
             // erase pre-existing data
             short2LongName.clear();
@@ -69,17 +119,18 @@ public class CampusParser {
                 String shortName = tokens[0];
                 String longName = tokens[1];
 
-                Double x = Double.parseDouble(tokens[2]);
-                Double y = Double.parseDouble(tokens[3]);
+                double x = Double.parseDouble(tokens[2]);
+                double y = Double.parseDouble(tokens[3]);
 
                 short2LongName.put(shortName, longName);
-                name2Loc.put(shortName, new PointD(x, y));
-
+                name2Loc.put(shortName, pool.intern(x, y));
+                lines++;
             }
         } catch (IOException e) {
             System.err.println(e.toString());
             e.printStackTrace(System.err);
         } finally {
+            event.finish(filename, "buildings", lines);
             if (reader != null) {
                 try {
                     reader.close();
@@ -91,6 +142,23 @@ public class CampusParser {
         }
     }
 
+    /**
+     * opens a data file for reading, decompressing it on another thread if it
+     * is compressed
+     *
+     * @param filename
+     *            file to open
+     * @return a reader of the text of the file
+     * @throws IOException
+     *             if the file cannot be opened
+     */
+    private static BufferedReader openReader(String filename) throws IOException {
+        if (InflatingInputStream.isCompressed(filename)) {
+            return new BufferedReader(new InputStreamReader(new InflatingInputStream(filename)));
+        }
+        return new BufferedReader(new FileReader(filename));
+    }
+
     /**
      * Reads path data. Each line of the data file should contain a coordinate
      * pair followed by indented lines containing a coordinate pair then a colon
@@ -110,13 +178,40 @@ public class CampusParser {
      *             if file is not of proper form
      */
     public static void parsePathData(String filename, Graph<PointD, Double> campusGraph) throws MalformedDataException {
-        if (filename == null || campusGraph == null) {
+        CampusParser.parsePathData(filename, campusGraph, new PointDPool());
+    }
+
+    /**
+     * Reads path data like parsePathData(filename, campusGraph), interning
+     * every coordinate in pool so each location is one PointD object.
+     *
+     * @param filename
+     *            file to read from
+     * @param campusGraph
+     *            graph with PointD nodes connected by edges with Double labels.
+     *            Pre-existing data is overriden.
+     * @param pool
+     *            pool the nodes are interned in
+     * @requires filename exists and has an existing corresponding file
+     * @modifies campusGraph, pool
+     * @effects campusGraph is filled with data. All coordinates are added as
+     *          PointD nodes from pool and the corresponding edges with
+     *          distance labels are also added.
+     * @throws MalformedDataException
+     *             if file is not of proper form
+     */
+    public static void parsePathData(String filename, Graph<PointD, Double> campusGraph, PointDPool pool)
+            throws MalformedDataException {
+        if (filename == null || campusGraph == null || pool == null) {
             throw new IllegalArgumentException();
         }
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        long lines = 0;
         BufferedReader reader = null;
 
         try {
-            reader = new BufferedReader(new FileReader(filename));
+            reader = CampusParser.openReader(filename);
 
             // erase pre-existing data
             for (PointD p : campusGraph.getNodes()) {
@@ -147,23 +242,25 @@ public class CampusParser {
                 }
 
                 if (tokens.length == 1) {
-                    startNode = new PointD(Double.parseDouble(coordTokens[0]), Double.parseDouble(coordTokens[1]));
+                    startNode = pool.intern(Double.parseDouble(coordTokens[0]), Double.parseDouble(coordTokens[1]));
 
                     campusGraph.addNode(startNode);
                 } else if (tokens.length == 2) {
                     if (startNode == null) {
                         throw new MalformedDataException("file must start with an initial point");
                     }
-                    PointD endNode = new PointD(Double.parseDouble(coordTokens[0]), Double.parseDouble(coordTokens[1]));
+                    PointD endNode = pool.intern(Double.parseDouble(coordTokens[0]), Double.parseDouble(coordTokens[1]));
                     campusGraph.addNode(endNode);
 
                     campusGraph.addEdge(Double.parseDouble(tokens[1]), startNode, endNode);
                 }
+                lines++;
             }
         } catch (IOException e) {
             System.err.println(e.toString());
             e.printStackTrace(System.err);
         } finally {
+            event.finish(filename, "paths", lines);
             if (reader != null) {
                 try {
                     reader.close();
@@ -174,4 +271,599 @@ public class CampusParser {
             }
         }
     }
+
+    /**
+     * Reads path data like parsePathData(filename, campusGraph, pool), but
+     * memory maps the file and parses numbers straight from its bytes, then
+     * adds all edges to the graph at once. Gives the same graph and the same
+     * MalformedDataException messages as parsePathData. Files must be
+     * smaller than 2GB. Compressed files are read by parsePathData.
+     *
+     * @param filename
+     *            file to read from
+     * @param campusGraph
+     *            graph with PointD nodes connected by edges with Double labels.
+     *            Pre-existing data is overriden.
+     * @param pool
+     *            pool the nodes are interned in
+     * @requires filename exists and has an existing corresponding file
+     * @modifies campusGraph, pool
+     * @effects campusGraph is filled with data. All coordinates are added as
+     *          PointD nodes from pool and the corresponding edges with
+     *          distance labels are also added.
+     * @throws MalformedDataException
+     *             if file is not of proper form
+     */
+    public static void parsePathDataMapped(String filename, Graph<PointD, Double> campusGraph, PointDPool pool)
+            throws MalformedDataException {
+        if (filename == null || campusGraph == null || pool == null) {
+            throw new IllegalArgumentException();
+        }
+        if (InflatingInputStream.isCompressed(filename)) {
+            // compressed bytes cannot be scanned in place
+            CampusParser.parsePathData(filename, campusGraph, pool);
+            return;
+        }
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        MappedByteBuffer buf;
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            System.err.println(e.toString());
+            e.printStackTrace(System.err);
+            return;
+        }
+        List<PathRecords> chunks = new ArrayList<PathRecords>(1);
+        chunks.add(PathDataScanner.scan(buf, 0, buf.limit()));
+        try {
+            CampusParser.loadRecords(chunks, campusGraph, pool);
+        } finally {
+            event.finish(filename, "paths mapped", CampusParser.countRecords(chunks));
+        }
+    }
+
+    /**
+     * Reads path data like parsePathDataMapped, splitting the file into one
+     * chunk per available processor and scanning the chunks in parallel.
+     *
+     * @param filename
+     *            file to read from
+     * @param campusGraph
+     *            graph with PointD nodes connected by edges with Double labels.
+     *            Pre-existing data is overriden.
+     * @param pool
+     *            pool the nodes are interned in
+     * @requires filename exists and has an existing corresponding file
+     * @modifies campusGraph, pool
+     * @effects campusGraph is filled with the same data parsePathData gives
+     * @throws MalformedDataException
+     *             if file is not of proper form
+     */
+    public static void parsePathDataParallel(String filename, Graph<PointD, Double> campusGraph, PointDPool pool)
+            throws MalformedDataException {
+        CampusParser.parsePathDataParallel(filename, campusGraph, pool, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Reads path data like parsePathDataMapped, splitting the file into
+     * chunks and scanning them on several threads. Chunks only start at
+     * unindented, uncommented lines, so each start point stays with its
+     * neighbors. The chunks are then added to the graph in file order, so the
+     * graph and the MalformedDataException reported are the same as the
+     * sequential parsers give. Compressed files are read by parsePathData.
+     *
+     * @param filename
+     *            file to read from
+     * @param campusGraph
+     *            graph with PointD nodes connected by edges with Double labels.
+     *            Pre-existing data is overriden.
+     * @param pool
+     *            pool the nodes are interned in
+     * @param threads
+     *            number of threads to scan with
+     * @requires filename exists and has an existing corresponding file
+     * @modifies campusGraph, pool
+     * @effects campusGraph is filled with the same data parsePathData gives
+     * @throws MalformedDataException
+     *             if file is not of proper form
+     * @throws IllegalArgumentException
+     *             if any args are null or threads is less than 1
+     */
+    public static void parsePathDataParallel(String filename, Graph<PointD, Double> campusGraph, PointDPool pool,
+            int threads) throws MalformedDataException {
+        if (filename == null || campusGraph == null || pool == null || threads < 1) {
+            throw new IllegalArgumentException();
+        }
+        if (InflatingInputStream.isCompressed(filename)) {
+            CampusParser.parsePathData(filename, campusGraph, pool);
+            return;
+        }
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        final MappedByteBuffer buf;
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            System.err.println(e.toString());
+            e.printStackTrace(System.err);
+            return;
+        }
+
+        // find where each chunk starts, the last one ending at the limit
+        List<Integer> bounds = new ArrayList<Integer>(threads + 1);
+        bounds.add(0);
+        int limit = buf.limit();
+        for (int i = 1; i < threads; i++) {
+            int last = bounds.get(bounds.size() - 1);
+            int bound = CampusParser.recordStart(buf, Math.max(last, (int) ((long) limit * i / threads)), limit);
+            if (bound > last && bound < limit) {
+                bounds.add(bound);
+            }
+        }
+        bounds.add(limit);
+
+        List<PathRecords> chunks = new ArrayList<PathRecords>(bounds.size() - 1);
+        if (bounds.size() == 2) {
+            chunks.add(PathDataScanner.scan(buf, 0, limit));
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(bounds.size() - 1);
+            try {
+                List<Future<PathRecords>> futures = new ArrayList<Future<PathRecords>>(bounds.size() - 1);
+                for (int i = 0; i + 1 < bounds.size(); i++) {
+                    final int from = bounds.get(i);
+                    final int to = bounds.get(i + 1);
+                    futures.add(executor.submit(new Callable<PathRecords>() {
+                        @Override
+                        public PathRecords call() {
+                            return PathDataScanner.scan(buf, from, to);
+                        }
+                    }));
+                }
+                for (Future<PathRecords> f : futures) {
+                    chunks.add(f.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        try {
+            CampusParser.loadRecords(chunks, campusGraph, pool);
+        } finally {
+            event.finish(filename, "paths parallel", CampusParser.countRecords(chunks));
+        }
+    }
+
+    /**
+     * Applies a patch file to campus data that is already loaded. Each line of
+     * a patch is one change, an operation followed by tab separated fields:
+     *
+     * <pre>
+     * +building  shortname  longname  x_coord  y_coord
+     * -building  shortname
+     * +node      x,y
+     * -node      x,y
+     * +edge      x,y  x,y: distance
+     * -edge      x,y  x,y: distance
+     * </pre>
+     *
+     * Lines starting with # are comments. Changes are applied in order.
+     * Adding a building with an existing short name replaces it, +edge adds
+     * its end points if they are not nodes yet, and -node also removes the
+     * edges leaving the node and the edges back to it from those neighbors.
+     * Adding something already there or removing something that is not there
+     * does nothing. The whole patch is read before anything is changed, so a
+     * malformed patch leaves the data as it was. To find the edges back to a
+     * removed node the graph is indexed by where its edges end, so a patch
+     * with a -node takes time proportional to the whole campus; one without
+     * takes time proportional to the size of the patch. Callers that already
+     * keep such an index should pass it to the overload taking one.
+     *
+     * @param filename
+     *            patch file to read from
+     * @param campusGraph
+     *            graph with PointD nodes connected by edges with Double labels
+     * @param short2LongName
+     *            map of abbreviated names to long form names
+     * @param name2Loc
+     *            map of abbreviated names to locations
+     * @param pool
+     *            pool the nodes and locations are interned in
+     * @requires filename exists
+     * @modifies campusGraph, short2LongName, name2Loc, pool
+     * @effects the changes in the patch are made to the graph and maps
+     * @return the changes made to campusGraph, with the locations of added
+     *         and removed buildings touched
+     * @throws MalformedDataException
+     *             if file is not of proper form
+     * @throws IllegalArgumentException
+     *             if any args are null
+     */
+    public static GraphDelta<PointD> applyPatch(String filename, Graph<PointD, Double> campusGraph,
+            Map<String, String> short2LongName, Map<String, PointD> name2Loc, PointDPool pool)
+            throws MalformedDataException {
+        return CampusParser.applyPatch(filename, campusGraph, short2LongName, name2Loc, pool, null);
+    }
+
+    /**
+     * Applies a patch file like applyPatch(filename, campusGraph,
+     * short2LongName, name2Loc, pool), finding the edges back to a removed
+     * node in an index the caller already keeps, so the whole patch takes time
+     * proportional to its size, not to the campus.
+     *
+     * @param filename
+     *            patch file to read from
+     * @param campusGraph
+     *            graph with PointD nodes connected by edges with Double labels
+     * @param short2LongName
+     *            map of abbreviated names to long form names
+     * @param name2Loc
+     *            map of abbreviated names to locations
+     * @param pool
+     *            pool the nodes and locations are interned in
+     * @param incoming
+     *            edges of campusGraph ending at each node, as it was before
+     *            the patch, or null to index campusGraph at the first -node.
+     *            It may hold edges that are gone, and is not modified.
+     * @requires filename exists
+     * @modifies campusGraph, short2LongName, name2Loc, pool
+     * @effects the changes in the patch are made to the graph and maps
+     * @return the changes made to campusGraph, with the locations of added
+     *         and removed buildings touched
+     * @throws MalformedDataException
+     *             if file is not of proper form
+     * @throws IllegalArgumentException
+     *             if any args but incoming are null
+     */
+    public static GraphDelta<PointD> applyPatch(String filename, Graph<PointD, Double> campusGraph,
+            Map<String, String> short2LongName, Map<String, PointD> name2Loc, PointDPool pool,
+            Map<PointD, ? extends Collection<Edge<PointD, Double>>> incoming) throws MalformedDataException {
+        if (filename == null || campusGraph == null || short2LongName == null || name2Loc == null
+                || pool == null) {
+            throw new IllegalArgumentException();
+        }
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        List<String[]> changes = new ArrayList<String[]>();
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new FileReader(filename));
+            String inputLine;
+            while ((inputLine = reader.readLine()) != null) {
+                // Ignore comment and blank lines.
+                if (inputLine.startsWith("#") || inputLine.isEmpty()) {
+                    continue;
+                }
+                changes.add(CampusParser.parsePatchLine(inputLine));
+            }
+        } catch (IOException e) {
+            System.err.println(e.toString());
+            e.printStackTrace(System.err);
+        } finally {
+            event.finish(filename, "patch", changes.size());
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    System.err.println(e.toString());
+                    e.printStackTrace(System.err);
+                }
+            }
+        }
+
+        GraphDelta<PointD> delta = new GraphDelta<PointD>();
+        // start nodes of the edges this patch added, by the node they end at;
+        // may name starts whose edges are gone again
+        Map<PointD, Set<PointD>> sources = new HashMap<PointD, Set<PointD>>();
+        for (String[] change : changes) {
+            String op = change[0];
+            if (op.equals("+building")) {
+                PointD old = name2Loc.get(change[1]);
+                if (old != null) {
+                    delta.touch(old);
+                }
+                PointD loc = pool.intern(Double.parseDouble(change[3]), Double.parseDouble(change[4]));
+                short2LongName.put(change[1], change[2]);
+                name2Loc.put(change[1], loc);
+                delta.touch(loc);
+            } else if (op.equals("-building")) {
+                short2LongName.remove(change[1]);
+                PointD old = name2Loc.remove(change[1]);
+                if (old != null) {
+                    delta.touch(old);
+                }
+            } else if (op.equals("+node")) {
+                PointD p = CampusParser.patchPoint(change[1], pool);
+                if (campusGraph.addNode(p)) {
+                    delta.nodeAdded(p);
+                }
+            } else if (op.equals("-node")) {
+                PointD p = CampusParser.patchPoint(change[1], pool);
+                if (campusGraph.containsNode(p)) {
+                    if (incoming == null) {
+                        incoming = CampusParser.incoming(campusGraph);
+                    }
+                    CampusParser.removePatchNode(p, campusGraph, incoming.get(p), sources.get(p), delta);
+                }
+            } else if (op.equals("+edge")) {
+                PointD start = CampusParser.patchPoint(change[1], pool);
+                PointD end = CampusParser.patchPoint(change[2], pool);
+                double dist = Double.parseDouble(change[3]);
+                if (campusGraph.addNode(start)) {
+                    delta.nodeAdded(start);
+                }
+                if (campusGraph.addNode(end)) {
+                    delta.nodeAdded(end);
+                }
+                if (campusGraph.addEdge(dist, start, end)) {
+                    delta.edgeAdded(new Edge<PointD, Double>(dist, start, end));
+                    CampusParser.addSource(sources, start, end);
+                }
+            } else {
+                PointD start = CampusParser.patchPoint(change[1], pool);
+                PointD end = CampusParser.patchPoint(change[2], pool);
+                double dist = Double.parseDouble(change[3]);
+                if (campusGraph.containsNode(start) && campusGraph.containsNode(end)
+                        && campusGraph.removeEdge(dist, start, end)) {
+                    delta.edgeRemoved(new Edge<PointD, Double>(dist, start, end));
+                }
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * splits and checks one line of a patch
+     *
+     * @param inputLine
+     *            line to parse
+     * @return the operation followed by its fields, with the distance of an
+     *         edge split from its end point
+     * @throws MalformedDataException
+     *             if the line is not a well formed change
+     */
+    private static String[] parsePatchLine(String inputLine) throws MalformedDataException {
+        String[] tokens = inputLine.split("\t");
+        String op = tokens[0];
+        try {
+            if (op.equals("+building") && tokens.length == 5) {
+                Double.parseDouble(tokens[3]);
+                Double.parseDouble(tokens[4]);
+                return tokens;
+            } else if (op.equals("-building") && tokens.length == 2) {
+                return tokens;
+            } else if ((op.equals("+node") || op.equals("-node")) && tokens.length == 2) {
+                CampusParser.checkPatchPoint(tokens[1]);
+                return tokens;
+            } else if ((op.equals("+edge") || op.equals("-edge")) && tokens.length == 3) {
+                String[] endTokens = tokens[2].split(": ");
+                if (endTokens.length == 2) {
+                    CampusParser.checkPatchPoint(tokens[1]);
+                    CampusParser.checkPatchPoint(endTokens[0]);
+                    Double.parseDouble(endTokens[1]);
+                    return new String[] { op, tokens[1], endTokens[0], endTokens[1] };
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new MalformedDataException("Patch line has a malformed number: " + inputLine);
+        }
+        throw new MalformedDataException("Patch line is not a known change: " + inputLine);
+    }
+
+    /**
+     * checks that a patch field is a coordinate pair
+     *
+     * @param field
+     *            field to check
+     * @throws MalformedDataException
+     *             if field is not a comma separated coordinate pair
+     * @throws NumberFormatException
+     *             if a coordinate is not a number
+     */
+    private static void checkPatchPoint(String field) throws MalformedDataException {
+        String[] coordTokens = field.split(",");
+        if (coordTokens.length != 2) {
+            throw new MalformedDataException("Patch line should contain a comma separated coordinate pair: " + field);
+        }
+        Double.parseDouble(coordTokens[0]);
+        Double.parseDouble(coordTokens[1]);
+    }
+
+    /**
+     * @param field
+     *            checked coordinate pair
+     * @param pool
+     *            pool to intern the point in
+     * @modifies pool
+     * @return the point in field
+     */
+    private static PointD patchPoint(String field, PointDPool pool) {
+        String[] coordTokens = field.split(",");
+        return pool.intern(Double.parseDouble(coordTokens[0]), Double.parseDouble(coordTokens[1]));
+    }
+
+    /**
+     * indexes the edges of a graph by where they end, taking time
+     * proportional to the whole graph
+     *
+     * @param campusGraph
+     *            graph to index
+     * @return map of each node to the edges ending at it
+     */
+    private static Map<PointD, List<Edge<PointD, Double>>> incoming(Graph<PointD, Double> campusGraph) {
+        Map<PointD, List<Edge<PointD, Double>>> incoming = new HashMap<PointD, List<Edge<PointD, Double>>>();
+        for (PointD start : campusGraph.getNodes()) {
+            for (Edge<PointD, Double> e : campusGraph.getEdges(start)) {
+                List<Edge<PointD, Double>> in = incoming.get(e.getEnd());
+                if (in == null) {
+                    in = new ArrayList<Edge<PointD, Double>>(2);
+                    incoming.put(e.getEnd(), in);
+                }
+                in.add(e);
+            }
+        }
+        return incoming;
+    }
+
+    /**
+     * notes an edge added by a patch
+     *
+     * @param sources
+     *            starts of the edges added, by end
+     * @param start
+     *            start of the edge
+     * @param end
+     *            end of the edge
+     * @modifies sources
+     * @effects start is a source of end
+     */
+    private static void addSource(Map<PointD, Set<PointD>> sources, PointD start, PointD end) {
+        Set<PointD> starts = sources.get(end);
+        if (starts == null) {
+            starts = new HashSet<PointD>();
+            sources.put(end, starts);
+        }
+        starts.add(start);
+    }
+
+    /**
+     * removes a node, its edges and every edge ending at it
+     *
+     * @param p
+     *            node of campusGraph to remove
+     * @param campusGraph
+     *            graph to remove from
+     * @param in
+     *            edges that ended at p before the patch, some perhaps gone,
+     *            or null if there were none
+     * @param starts
+     *            starts of the edges to p the patch added, some perhaps gone,
+     *            or null if there are none
+     * @param delta
+     *            changes to record the removal in
+     * @modifies campusGraph, delta
+     * @effects p, its edges and the edges ending at it are removed from
+     *          campusGraph and recorded
+     */
+    private static void removePatchNode(PointD p, Graph<PointD, Double> campusGraph,
+            Collection<Edge<PointD, Double>> in, Set<PointD> starts, GraphDelta<PointD> delta) {
+        if (in != null) {
+            for (Edge<PointD, Double> e : in) {
+                PointD start = e.getStart();
+                if (!start.equals(p) && campusGraph.containsNode(start)
+                        && campusGraph.removeEdge(e.getLabel(), start, p)) {
+                    delta.edgeRemoved(e);
+                }
+            }
+        }
+        if (starts != null) {
+            for (PointD start : starts) {
+                if (start.equals(p) || !campusGraph.containsNode(start)) {
+                    continue;
+                }
+                for (Edge<PointD, Double> e : campusGraph.getDirectedEdgesBetween(start, p)) {
+                    campusGraph.removeEdge(e.getLabel(), start, p);
+                    delta.edgeRemoved(e);
+                }
+            }
+        }
+        for (Edge<PointD, Double> e : campusGraph.getEdges(p)) {
+            delta.edgeRemoved(e);
+        }
+        campusGraph.removeUnreferencedNode(p);
+        delta.nodeRemoved(p);
+    }
+
+    /**
+     * finds the first start point line at or after a byte
+     *
+     * @param buf
+     *            bytes of the file
+     * @param pos
+     *            index to search from
+     * @param limit
+     *            end of the file
+     * @return index of the first byte of the first line after pos that is not
+     *         indented or a comment, or limit if there is none
+     */
+    private static int recordStart(MappedByteBuffer buf, int pos, int limit) {
+        if (pos == 0) {
+            return 0;
+        }
+        // skip the rest of the line pos is in
+        pos = PathDataScanner.nextLine(buf, PathDataScanner.lineEnd(buf, pos, limit), limit);
+        while (pos < limit && (buf.get(pos) == '\t' || buf.get(pos) == '#')) {
+            pos = PathDataScanner.nextLine(buf, PathDataScanner.lineEnd(buf, pos, limit), limit);
+        }
+        return pos;
+    }
+
+    /**
+     * counts the records scanned from a path file
+     *
+     * @param chunks
+     *            records of each chunk of the file
+     * @return number of records in all chunks
+     */
+    private static long countRecords(List<PathRecords> chunks) {
+        long count = 0;
+        for (PathRecords records : chunks) {
+            count += records.size();
+        }
+        return count;
+    }
+
+    /**
+     * replaces the contents of a graph with scanned path data, stopping at the
+     * first error
+     *
+     * @param chunks
+     *            records of consecutive parts of a file, in order
+     * @param campusGraph
+     *            graph to fill. Pre-existing data is overriden.
+     * @param pool
+     *            pool the nodes are interned in
+     * @modifies campusGraph, pool
+     * @effects campusGraph holds the nodes and edges of every record before the
+     *          first error
+     * @throws MalformedDataException
+     *             if a chunk stopped at a malformed line, or the first record
+     *             is not a start point
+     */
+    private static void loadRecords(List<PathRecords> chunks, Graph<PointD, Double> campusGraph, PointDPool pool)
+            throws MalformedDataException {
+        // erase pre-existing data
+        for (PointD p : campusGraph.getNodes()) {
+            campusGraph.removeNode(p);
+        }
+
+        List<Edge<PointD, Double>> edges = new ArrayList<Edge<PointD, Double>>();
+        PointD startNode = null;
+        try {
+            for (PathRecords records : chunks) {
+                for (int i = 0; i < records.size(); i++) {
+                    PointD p = pool.intern(records.x(i), records.y(i));
+                    if (records.isStart(i)) {
+                        startNode = p;
+                        campusGraph.addNode(startNode);
+                    } else {
+                        if (startNode == null) {
+                            throw new MalformedDataException("file must start with an initial point");
+                        }
+                        edges.add(new Edge<PointD, Double>(records.distance(i), startNode, p));
+                    }
+                }
+                if (records.hasError()) {
+                    records.throwError();
+                }
+            }
+        } finally {
+            campusGraph.addEdges(edges);
+        }
+    }
 }
@@ -0,0 +1,500 @@
+package model;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import graphStructure.Edge;
+
+/**
+ * A CampusRegistry serves several campuses from one JVM. Each campus is
+ * registered by name with its building and path files, which can be anywhere,
+ * and is only loaded the first time it is asked for. Loaded campuses are
+ * immutable CampusSnapshots held by soft references, so the garbage collector
+ * evicts the ones that have not been used for the longest when memory runs
+ * short, and they are loaded again the next time they are asked for.
+ *
+ * Every campus is loaded through one shared PointDPool and one shared table
+ * of names, so a coordinate or a building name that appears in several
+ * datasets is held once. The pool and table hold only what the loaded
+ * campuses use: evicting a campus rebuilds them from the campuses still
+ * loaded, so they never keep an evicted campus in memory, and a campus the
+ * collector evicted is dropped from them the next time any campus is loaded.
+ * The registry counts loads, evictions and
+ * queries for each campus, and records whether each get found the campus
+ * loaded as cache hits of the "snapshot" RouteMetrics.
+ *
+ * @author WP
+ *
+ */
+public final class CampusRegistry {
+
+    // guards this.pool, this.strings, this.loading and the models of the
+    // campuses, and serializes parsing, since a pool is not safe to share
+    private final Object lock;
+    // canonical point for every location of a loaded campus
+    private PointDPool pool;
+    // canonical copy of every building name of a loaded campus
+    private Map<String, String> strings;
+    // data parsed into this.pool whose campus is not loaded yet
+    private final List<CampusData> loading;
+    // models the collector has evicted
+    private final ReferenceQueue<CountingCampus> collected;
+    // registered campuses by name
+    private final Map<String, Campus> campuses;
+
+    // Abstraction function: this serves the campuses this.campuses, each
+    // built from its files the first time it is asked for after being
+    // registered or evicted.
+
+    // Representation Invariant:
+    // none of the fields are null,
+    // every point of a loaded campus or of this.loading is the one held by
+    // this.pool, and every name is the one held by this.strings,
+    // this.pool and this.strings hold nothing else, except what campuses in
+    // this.collected used
+
+    /**
+     * constructor
+     *
+     * @effects creates a registry with no campuses
+     */
+    public CampusRegistry() {
+        this.lock = new Object();
+        this.pool = new PointDPool();
+        this.strings = new HashMap<String, String>();
+        this.loading = new ArrayList<CampusData>();
+        this.collected = new ReferenceQueue<CountingCampus>();
+        this.campuses = new ConcurrentHashMap<String, Campus>();
+    }
+
+    /**
+     * registers a campus to be loaded when it is first asked for
+     *
+     * @param name
+     *            name to look the campus up by
+     * @param buildingFile
+     *            path of the building data file
+     * @param pathFile
+     *            path of the path data file
+     * @modifies this
+     * @effects adds a campus called name, without reading the files
+     * @throws IllegalArgumentException
+     *             if args are null or a campus called name is registered
+     */
+    public void register(String name, String buildingFile, String pathFile) {
+        if (name == null || buildingFile == null || pathFile == null) {
+            throw new IllegalArgumentException();
+        }
+        if (this.campuses.putIfAbsent(name, new Campus(buildingFile, pathFile)) != null) {
+            throw new IllegalArgumentException("Campus already registered: " + name);
+        }
+    }
+
+    /**
+     * returns the names of the registered campuses
+     *
+     * @return names of every campus, in alphabetical order
+     */
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(new TreeSet<String>(this.campuses.keySet()));
+    }
+
+    /**
+     * returns a campus, loading it if it is not loaded
+     *
+     * @param name
+     *            name of the campus
+     * @modifies this
+     * @effects loads the files of the campus if it is not loaded
+     * @return the campus, which is safe to query from any number of threads
+     * @throws MalformedDataException
+     *             if the files of the campus are not of proper format
+     * @throws IllegalArgumentException
+     *             if name is null or no campus is registered by that name
+     */
+    public CampusModel get(String name) throws MalformedDataException {
+        return this.campus(name).load();
+    }
+
+    /**
+     * checks whether a campus is loaded right now
+     *
+     * @param name
+     *            name of the campus
+     * @return true iff the campus is loaded and has not been evicted
+     * @throws IllegalArgumentException
+     *             if name is null or no campus is registered by that name
+     */
+    public boolean isLoaded(String name) {
+        return this.campus(name).loaded() != null;
+    }
+
+    /**
+     * drops a campus from memory, so it is loaded again the next time it is
+     * asked for. Callers still holding the campus can keep using it.
+     *
+     * @param name
+     *            name of the campus
+     * @modifies this
+     * @effects the campus is not loaded, and the shared pool and name table
+     *          hold only what the campuses still loaded use
+     * @throws IllegalArgumentException
+     *             if name is null or no campus is registered by that name
+     */
+    public void evict(String name) {
+        this.campus(name).evict();
+    }
+
+    /**
+     * returns the counts for a campus
+     *
+     * @param name
+     *            name of the campus
+     * @return loads, evictions and queries of the campus so far
+     * @throws IllegalArgumentException
+     *             if name is null or no campus is registered by that name
+     */
+    public Stats getStats(String name) {
+        Campus campus = this.campus(name);
+        return new Stats(campus.loads.get(), campus.evictions.get(), campus.queries.get());
+    }
+
+    /**
+     * counts the locations in the shared pool
+     *
+     * @return number of distinct locations of the loaded campuses
+     */
+    public int getPooledPoints() {
+        synchronized (this.lock) {
+            return this.pool.size();
+        }
+    }
+
+    /**
+     * counts the names in the shared name table
+     *
+     * @return number of distinct building names of the loaded campuses
+     */
+    public int getPooledNames() {
+        synchronized (this.lock) {
+            return this.strings.size();
+        }
+    }
+
+    /**
+     * finds a registered campus
+     *
+     * @param name
+     *            name of the campus
+     * @return the campus called name
+     * @throws IllegalArgumentException
+     *             if name is null or no campus is registered by that name
+     */
+    private Campus campus(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException();
+        }
+        Campus campus = this.campuses.get(name);
+        if (campus == null) {
+            throw new IllegalArgumentException("Unknown campus: " + name);
+        }
+        return campus;
+    }
+
+    /**
+     * reads the files of a campus through the shared pool and name table
+     *
+     * @param campus
+     *            the campus
+     * @requires the caller holds the lock on campus
+     * @modifies this, campus
+     * @effects loads campus, first dropping from the pool and name table what
+     *          campuses the collector evicted used
+     * @return the loaded model of campus
+     * @throws MalformedDataException
+     *             if the files are not of proper format
+     */
+    private CountingCampus read(Campus campus) throws MalformedDataException {
+        CampusData data;
+        synchronized (this.lock) {
+            if (this.collected.poll() != null) {
+                while (this.collected.poll() != null) {
+                    // all of them are dropped by one rebuild
+                }
+                this.rebuild();
+            }
+            CampusData parsed = CampusData.parse(campus.buildingFile, campus.pathFile, this.pool);
+            Map<String, String> short2LongName = new HashMap<String, String>();
+            Map<String, PointD> name2Loc = new HashMap<String, PointD>();
+            for (Map.Entry<String, String> entry : parsed.getShort2LongName().entrySet()) {
+                String shortName = this.intern(entry.getKey());
+                short2LongName.put(shortName, this.intern(entry.getValue()));
+                name2Loc.put(shortName, parsed.getName2Loc().get(entry.getKey()));
+            }
+            data = new CampusData(short2LongName, name2Loc, parsed.getGraph(), this.pool, null);
+            // so a rebuild before the campus is loaded keeps its points
+            this.loading.add(data);
+        }
+        // the rest only reads the data, so other campuses can load meanwhile
+        CountingCampus model = null;
+        try {
+            model = new CountingCampus(new CampusSnapshot(data), campus.queries);
+        } finally {
+            synchronized (this.lock) {
+                this.loading.remove(data);
+                if (model != null) {
+                    campus.model = new SoftReference<CountingCampus>(model, this.collected);
+                }
+            }
+        }
+        return model;
+    }
+
+    /**
+     * drops the loaded model of a campus
+     *
+     * @param campus
+     *            the campus
+     * @requires the caller holds the lock on campus
+     * @modifies this, campus
+     * @effects campus is not loaded, and the pool and name table hold only
+     *          what the campuses still loaded use
+     */
+    private void release(Campus campus) {
+        synchronized (this.lock) {
+            if (campus.model != null) {
+                campus.model = null;
+                this.rebuild();
+            }
+        }
+    }
+
+    /**
+     * replaces the pool and name table with ones holding only the points and
+     * names of the campuses that are loaded or being loaded. The points and
+     * names kept are the ones those campuses hold, so campuses loaded later
+     * still share them.
+     *
+     * @requires the caller holds this.lock
+     * @modifies this
+     * @effects this.pool and this.strings hold only what the loaded campuses
+     *          and this.loading use
+     */
+    private void rebuild() {
+        PointDPool pool = new PointDPool();
+        Map<String, String> strings = new HashMap<String, String>();
+        for (Campus campus : this.campuses.values()) {
+            CountingCampus model = campus.loaded();
+            if (model != null) {
+                CompactGraph graph = model.snapshot.getGraph();
+                for (int i = 0; i < graph.nodeCount(); i++) {
+                    pool.intern(graph.node(i));
+                }
+                for (Map.Entry<String, String> entry : model.snapshot.getBuildings().entrySet()) {
+                    PointD location = model.snapshot.getLocation(entry.getKey());
+                    if (location != null) {
+                        pool.intern(location);
+                    }
+                    strings.putIfAbsent(entry.getKey(), entry.getKey());
+                    strings.putIfAbsent(entry.getValue(), entry.getValue());
+                }
+            }
+        }
+        for (CampusData data : this.loading) {
+            for (PointD p : data.getGraph().getNodes()) {
+                pool.intern(p);
+            }
+            for (PointD p : data.getName2Loc().values()) {
+                pool.intern(p);
+            }
+            for (Map.Entry<String, String> entry : data.getShort2LongName().entrySet()) {
+                strings.putIfAbsent(entry.getKey(), entry.getKey());
+                strings.putIfAbsent(entry.getValue(), entry.getValue());
+            }
+        }
+        this.pool = pool;
+        this.strings = strings;
+    }
+
+    /**
+     * returns the canonical copy of a name
+     *
+     * @param s
+     *            name to intern
+     * @requires the caller holds this.lock
+     * @modifies this
+     * @effects adds s to the name table if no equal name is in it
+     * @return the table's String equal to s
+     */
+    private String intern(String s) {
+        String known = this.strings.putIfAbsent(s, s);
+        return known == null ? s : known;
+    }
+
+    /**
+     * The counts for one campus, as of when they were read.
+     */
+    public static final class Stats {
+        private final long loads;
+        private final long evictions;
+        private final long queries;
+
+        /**
+         * constructor
+         *
+         * @param loads
+         *            times the campus was loaded
+         * @param evictions
+         *            times the campus was evicted
+         * @param queries
+         *            paths found on the campus
+         * @effects creates Stats with the counts
+         */
+        Stats(long loads, long evictions, long queries) {
+            this.loads = loads;
+            this.evictions = evictions;
+            this.queries = queries;
+        }
+
+        /**
+         * @return times the campus was loaded
+         */
+        public long getLoads() {
+            return this.loads;
+        }
+
+        /**
+         * @return times the campus was evicted, explicitly or by the garbage
+         *         collector
+         */
+        public long getEvictions() {
+            return this.evictions;
+        }
+
+        /**
+         * @return paths found on the campus
+         */
+        public long getQueries() {
+            return this.queries;
+        }
+
+        @Override
+        public String toString() {
+            return "loads=" + this.loads + " evictions=" + this.evictions + " queries=" + this.queries;
+        }
+    }
+
+    /**
+     * A registered campus: where its files are, the loaded model if it has
+     * not been evicted, and its counts.
+     */
+    private final class Campus {
+        final String buildingFile;
+        final String pathFile;
+        // the loaded model, or null if it was never loaded or was evicted
+        // explicitly; the referent is null if the collector evicted it.
+        // Set only under the registry's lock, and read without it
+        volatile SoftReference<CountingCampus> model;
+        final AtomicLong loads = new AtomicLong();
+        final AtomicLong evictions = new AtomicLong();
+        final AtomicLong queries = new AtomicLong();
+
+        Campus(String buildingFile, String pathFile) {
+            this.buildingFile = buildingFile;
+            this.pathFile = pathFile;
+        }
+
+        /**
+         * returns the loaded model, or null if there is none
+         */
+        CountingCampus loaded() {
+            SoftReference<CountingCampus> model = this.model;
+            return model == null ? null : model.get();
+        }
+
+        /**
+         * returns the loaded model, loading it first if needed
+         */
+        synchronized CountingCampus load() throws MalformedDataException {
+            CountingCampus current = this.loaded();
+            RouteMetrics.forEngine("snapshot").recordCache(current != null);
+            if (current == null) {
+                if (this.model != null) {
+                    // the collector cleared it
+                    this.evictions.incrementAndGet();
+                }
+                current = CampusRegistry.this.read(this);
+                this.loads.incrementAndGet();
+            }
+            return current;
+        }
+
+        /**
+         * drops the loaded model
+         */
+        synchronized void evict() {
+            if (this.loaded() != null) {
+                this.evictions.incrementAndGet();
+            }
+            CampusRegistry.this.release(this);
+        }
+    }
+
+    /**
+     * A CampusModel that counts the paths found on a snapshot.
+     */
+    private static final class CountingCampus implements CampusModel {
+        private final CampusSnapshot snapshot;
+        private final AtomicLong queries;
+
+        CountingCampus(CampusSnapshot snapshot, AtomicLong queries) {
+            this.snapshot = snapshot;
+            this.queries = queries;
+        }
+
+        @Override
+        public PointD getLocation(String s) {
+            return this.snapshot.getLocation(s);
+        }
+
+        @Override
+        public Map<String, String> getBuildings() {
+            return this.snapshot.getBuildings();
+        }
+
+        @Override
+        public BuildingDirectory getDirectory() {
+            return this.snapshot.getDirectory();
+        }
+
+        @Override
+        public String getLongName(String shortName) {
+            return this.snapshot.getLongName(shortName);
+        }
+
+        @Override
+        public InstructionTable getInstructions() {
+            return this.snapshot.getInstructions();
+        }
+
+        @Override
+        public List<Edge<PointD, Double>> findPath(String start, String end) {
+            this.queries.incrementAndGet();
+            return this.snapshot.findPath(start, end);
+        }
+
+        @Override
+        public RouteExplanation explain(String start, String end, boolean trace) {
+            return this.snapshot.explain(start, end, trace);
+        }
+    }
+}
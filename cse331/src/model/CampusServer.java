@@ -0,0 +1,701 @@
+package model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import graphStructure.Edge;
+
+/**
+ * A CampusServer answers campus queries over HTTP with JSON, so clients can
+ * keep one JVM running instead of starting one per query. It serves:
+ *
+ * <pre>
+ * GET /route?from=CSE&amp;to=MGH  {"from":..,"to":..,"distance":..,"path":[[x,y],..]}
+ * GET /route?from=CSE&amp;to=MGH&amp;format=polyline[&amp;precision=4]
+ *                              {"from":..,"to":..,"polyline":"..","precision":..,"distance":..}
+ * GET /buildings               [{"short":..,"long":..,"x":..,"y":..},..]
+ * GET /nearest?x=1900&amp;y=1950  {"short":..,"long":..,"x":..,"y":..,"distance":..}
+ * </pre>
+ *
+ * Errors are answered with a status of 400, 404 or 405 and a body of the
+ * form {"error":"..."}. All queries go to one immutable CampusSnapshot, so
+ * requests are handled concurrently without locks, each on its own virtual
+ * thread when the JVM has them and on a pooled thread otherwise. A route
+ * as a polyline is the text form of Polyline, far shorter than the list of
+ * points and written from the snapshot's node ids without building the path.
+ * The list of buildings never changes and is serialized once; other
+ * responses are written into buffers that are reused from request to
+ * request.
+ *
+ * @author WP
+ *
+ */
+public final class CampusServer {
+    // switch for checking rep invariant
+    private static final boolean CHECK = false;
+
+    // starting capacity of a response buffer, enough for any campus route
+    private static final int BUFFER_SIZE = 1 << 14;
+    // most idle response buffers kept for reuse
+    private static final int MAX_IDLE_BUFFERS = 64;
+
+    // the campus served
+    private final CampusSnapshot model;
+    // the HTTP server
+    private final HttpServer server;
+    // runs the requests
+    private final ExecutorService executor;
+    // body of every /buildings response
+    private final byte[] buildings;
+    // short names of the buildings that have locations, and their coordinates
+    private final String[] located;
+    private final double[] xs;
+    private final double[] ys;
+    // response buffers not in use
+    private final Queue<JsonBuffer> buffers;
+
+    // Abstraction function: this is an HTTP server bound to
+    // this.server.getAddress() answering queries about this.model.
+    // this.located[i] is at (this.xs[i], this.ys[i]).
+
+    // Representation Invariant:
+    // none of the fields are null,
+    // this.located, this.xs and this.ys have the same length,
+    // this.buildings is the JSON of the buildings of this.model
+
+    /**
+     * constructor, binds a server without starting it
+     *
+     * @param model
+     *            campus to serve
+     * @param port
+     *            port to listen on, or 0 for any free port
+     * @effects creates a server bound to port
+     * @throws IOException
+     *             if the port cannot be bound
+     * @throws IllegalArgumentException
+     *             if model is null or port is negative
+     */
+    public CampusServer(CampusSnapshot model, int port) throws IOException {
+        if (model == null || port < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.model = model;
+        this.buffers = new ConcurrentLinkedQueue<JsonBuffer>();
+
+        List<String> shortNames = model.getDirectory().getShortNames();
+        int count = 0;
+        for (String shortName : shortNames) {
+            if (model.getLocation(shortName) != null) {
+                count++;
+            }
+        }
+        this.located = new String[count];
+        this.xs = new double[count];
+        this.ys = new double[count];
+        JsonBuffer all = new JsonBuffer();
+        all.text.append('[');
+        int i = 0;
+        for (String shortName : shortNames) {
+            if (all.text.length() > 1) {
+                all.text.append(',');
+            }
+            CampusServer.appendBuilding(all.text, model, shortName);
+            all.text.append('}');
+            PointD location = model.getLocation(shortName);
+            if (location != null) {
+                this.located[i] = shortName;
+                this.xs[i] = location.getX();
+                this.ys[i] = location.getY();
+                i++;
+            }
+        }
+        all.text.append(']');
+        int length = all.encode();
+        this.buildings = new byte[length];
+        System.arraycopy(all.bytes, 0, this.buildings, 0, length);
+
+        this.executor = CampusServer.requestExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/route", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                CampusServer.this.route(exchange);
+            }
+        });
+        this.server.createContext("/buildings", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                if (CampusServer.this.allowed(exchange)) {
+                    CampusServer.send(exchange, 200, CampusServer.this.buildings, CampusServer.this.buildings.length);
+                }
+            }
+        });
+        this.server.createContext("/nearest", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                CampusServer.this.nearest(exchange);
+            }
+        });
+        this.checkRep();
+    }
+
+    /**
+     * makes the executor that runs requests: one virtual thread per request
+     * if the JVM has virtual threads, otherwise a pool of daemon threads
+     *
+     * @return executor for requests
+     */
+    private static ExecutorService requestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            final AtomicInteger threads = new AtomicInteger();
+            return Executors.newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "campus-server-" + threads.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+    }
+
+    /**
+     * starts answering requests
+     *
+     * @modifies this
+     * @effects starts the server
+     */
+    public void start() {
+        this.server.start();
+    }
+
+    /**
+     * stops answering requests and releases the port
+     *
+     * @modifies this
+     * @effects stops the server and its threads
+     */
+    public void stop() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * returns the port the server listens on
+     *
+     * @return port of the server
+     */
+    public int getPort() {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * answers GET /route?from=&amp;to=, with format=polyline and precision
+     * if given
+     *
+     * @param exchange
+     *            the request
+     * @throws IOException
+     *             if the response cannot be sent
+     */
+    private void route(HttpExchange exchange) throws IOException {
+        if (!this.allowed(exchange)) {
+            return;
+        }
+        Map<String, String> params = CampusServer.params(exchange);
+        String from = params.get("from");
+        String to = params.get("to");
+        if (from == null || to == null) {
+            this.error(exchange, 400, "from and to are required");
+            return;
+        }
+        for (String name : new String[] { from, to }) {
+            if (!this.model.getDirectory().contains(name) || this.model.getLocation(name) == null) {
+                this.error(exchange, 404, "Unknown building: " + name);
+                return;
+            }
+        }
+        String format = params.get("format");
+        if ("polyline".equals(format)) {
+            this.polyline(exchange, from, to, params.get("precision"));
+            return;
+        } else if (format != null && !format.equals("path")) {
+            this.error(exchange, 400, "Unknown format: " + format);
+            return;
+        }
+        List<Edge<PointD, Double>> path;
+        try {
+            path = this.model.findPath(from, to);
+        } catch (IllegalArgumentException e) {
+            // a building that is not on any path
+            path = null;
+        }
+        if (path == null) {
+            this.error(exchange, 404, "No path from " + from + " to " + to);
+            return;
+        }
+        JsonBuffer buffer = this.buffer();
+        StringBuilder json = buffer.text;
+        double dist = 0;
+        for (Edge<PointD, Double> e : path) {
+            dist += e.getLabel();
+        }
+        json.append("{\"from\":");
+        CampusServer.appendBuilding(json, this.model, from);
+        json.append("},\"to\":");
+        CampusServer.appendBuilding(json, this.model, to);
+        json.append("},\"distance\":").append(Math.round(dist)).append(",\"path\":[");
+        CampusServer.appendPoint(json, this.model.getLocation(from));
+        for (Edge<PointD, Double> e : path) {
+            json.append(',');
+            CampusServer.appendPoint(json, e.getEnd());
+        }
+        json.append("]}");
+        this.send(exchange, 200, buffer);
+    }
+
+    /**
+     * answers GET /route with format=polyline
+     *
+     * @param exchange
+     *            the request
+     * @param from
+     *            building at start of path
+     * @param to
+     *            building at end of path
+     * @param precision
+     *            decimal places to keep, Polyline.LOSSLESS if null
+     * @requires from and to are known buildings with locations
+     * @throws IOException
+     *             if the response cannot be sent
+     */
+    private void polyline(HttpExchange exchange, String from, String to, String precision) throws IOException {
+        int digits = Polyline.LOSSLESS;
+        if (precision != null) {
+            try {
+                digits = Integer.parseInt(precision);
+            } catch (NumberFormatException e) {
+                digits = -1;
+            }
+            if (digits < 0 || digits > Polyline.MAX_PRECISION) {
+                this.error(exchange, 400, "precision must be from 0 to " + Polyline.MAX_PRECISION);
+                return;
+            }
+        }
+        JsonBuffer buffer = this.buffer();
+        StringBuilder json = buffer.text;
+        json.append("{\"from\":");
+        CampusServer.appendBuilding(json, this.model, from);
+        json.append("},\"to\":");
+        CampusServer.appendBuilding(json, this.model, to);
+        json.append("},\"polyline\":\"");
+        int start = json.length();
+        double dist;
+        try {
+            dist = this.model.appendPolyline(from, to, digits, json);
+        } catch (IllegalArgumentException e) {
+            // a building that is not on any path
+            dist = -1;
+        }
+        if (dist < 0) {
+            json.setLength(0);
+            this.error(exchange, 404, "No path from " + from + " to " + to, buffer);
+            return;
+        }
+        CampusServer.escapeBackslashes(json, start);
+        json.append("\",\"precision\":").append(digits).append(",\"distance\":").append(Math.round(dist))
+                .append('}');
+        this.send(exchange, 200, buffer);
+    }
+
+    /**
+     * answers GET /nearest?x=&amp;y= with the building closest to the point
+     *
+     * @param exchange
+     *            the request
+     * @throws IOException
+     *             if the response cannot be sent
+     */
+    private void nearest(HttpExchange exchange) throws IOException {
+        if (!this.allowed(exchange)) {
+            return;
+        }
+        Map<String, String> params = CampusServer.params(exchange);
+        double x;
+        double y;
+        try {
+            x = Double.parseDouble(params.get("x"));
+            y = Double.parseDouble(params.get("y"));
+        } catch (NullPointerException | NumberFormatException e) {
+            this.error(exchange, 400, "x and y must be numbers");
+            return;
+        }
+        int best = -1;
+        double bestSquared = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < this.located.length; i++) {
+            double dx = this.xs[i] - x;
+            double dy = this.ys[i] - y;
+            double squared = dx * dx + dy * dy;
+            if (squared < bestSquared) {
+                bestSquared = squared;
+                best = i;
+            }
+        }
+        if (best < 0) {
+            this.error(exchange, 404, "No buildings");
+            return;
+        }
+        JsonBuffer buffer = this.buffer();
+        CampusServer.appendBuilding(buffer.text, this.model, this.located[best]);
+        buffer.text.append(",\"distance\":").append(Math.round(Math.sqrt(bestSquared))).append('}');
+        this.send(exchange, 200, buffer);
+    }
+
+    /**
+     * checks the request is a GET, answering 405 if not
+     *
+     * @param exchange
+     *            the request
+     * @return true iff the request is a GET
+     * @throws IOException
+     *             if the response cannot be sent
+     */
+    private boolean allowed(HttpExchange exchange) throws IOException {
+        if (exchange.getRequestMethod().equals("GET")) {
+            return true;
+        }
+        exchange.getResponseHeaders().set("Allow", "GET");
+        this.error(exchange, 405, "Only GET is supported");
+        return false;
+    }
+
+    /**
+     * answers with an error
+     *
+     * @param exchange
+     *            the request
+     * @param status
+     *            HTTP status of the error
+     * @param message
+     *            what went wrong
+     * @throws IOException
+     *             if the response cannot be sent
+     */
+    private void error(HttpExchange exchange, int status, String message) throws IOException {
+        this.error(exchange, status, message, this.buffer());
+    }
+
+    /**
+     * answers with an error written into a buffer already taken
+     *
+     * @param exchange
+     *            the request
+     * @param status
+     *            HTTP status of the error
+     * @param message
+     *            what went wrong
+     * @param buffer
+     *            empty buffer to write the error into
+     * @throws IOException
+     *             if the response cannot be sent
+     */
+    private void error(HttpExchange exchange, int status, String message, JsonBuffer buffer) throws IOException {
+        buffer.text.append("{\"error\":");
+        CampusServer.appendString(buffer.text, message);
+        buffer.text.append('}');
+        this.send(exchange, status, buffer);
+    }
+
+    /**
+     * takes an empty response buffer, reusing an idle one if there is one
+     *
+     * @return an empty buffer
+     */
+    private JsonBuffer buffer() {
+        JsonBuffer buffer = this.buffers.poll();
+        return buffer == null ? new JsonBuffer() : buffer;
+    }
+
+    /**
+     * sends the JSON in a buffer and gives the buffer back for reuse
+     *
+     * @param exchange
+     *            the request
+     * @param status
+     *            HTTP status of the response
+     * @param buffer
+     *            buffer holding the body
+     * @throws IOException
+     *             if the response cannot be sent
+     */
+    private void send(HttpExchange exchange, int status, JsonBuffer buffer) throws IOException {
+        try {
+            CampusServer.send(exchange, status, buffer.bytes, buffer.encode());
+        } finally {
+            buffer.text.setLength(0);
+            // the count is approximate, which is fine for a cap
+            if (this.buffers.size() < CampusServer.MAX_IDLE_BUFFERS) {
+                this.buffers.add(buffer);
+            }
+        }
+    }
+
+    /**
+     * sends a JSON body
+     *
+     * @param exchange
+     *            the request
+     * @param status
+     *            HTTP status of the response
+     * @param body
+     *            bytes of the body
+     * @param length
+     *            number of bytes of body to send
+     * @throws IOException
+     *             if the response cannot be sent
+     */
+    private static void send(HttpExchange exchange, int status, byte[] body, int length) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, length);
+        OutputStream out = exchange.getResponseBody();
+        try {
+            out.write(body, 0, length);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * decodes the query parameters of a request
+     *
+     * @param exchange
+     *            the request
+     * @return map of parameter names to values, keeping the first of repeats
+     */
+    private static Map<String, String> params(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<String, String>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            try {
+                name = URLDecoder.decode(name, StandardCharsets.UTF_8);
+                value = URLDecoder.decode(value, StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            if (!params.containsKey(name)) {
+                params.put(name, value);
+            }
+        }
+        return params;
+    }
+
+    /**
+     * appends a building as an unclosed JSON object, so fields can be added
+     *
+     * @param json
+     *            text to append to
+     * @param model
+     *            the campus
+     * @param shortName
+     *            building to append
+     */
+    private static void appendBuilding(StringBuilder json, CampusSnapshot model, String shortName) {
+        json.append("{\"short\":");
+        CampusServer.appendString(json, shortName);
+        json.append(",\"long\":");
+        CampusServer.appendString(json, model.getLongName(shortName));
+        PointD location = model.getLocation(shortName);
+        if (location != null) {
+            json.append(",\"x\":").append(location.getX()).append(",\"y\":").append(location.getY());
+        }
+    }
+
+    /**
+     * appends a point as a JSON array [x,y]
+     *
+     * @param json
+     *            text to append to
+     * @param p
+     *            point to append
+     */
+    private static void appendPoint(StringBuilder json, PointD p) {
+        json.append('[').append(p.getX()).append(',').append(p.getY()).append(']');
+    }
+
+    /**
+     * appends a string as a quoted, escaped JSON string
+     *
+     * @param json
+     *            text to append to
+     * @param s
+     *            string to append
+     */
+    private static void appendString(StringBuilder json, String s) {
+        json.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * escapes the backslashes in the end of a JSON string, the only
+     * character of a text Polyline that needs escaping, in place
+     *
+     * @param json
+     *            text ending in the unescaped characters
+     * @param from
+     *            index in json of the first unescaped character
+     * @modifies json
+     * @effects doubles every backslash in json from from on
+     */
+    private static void escapeBackslashes(StringBuilder json, int from) {
+        int end = json.length();
+        int count = 0;
+        for (int i = from; i < end; i++) {
+            if (json.charAt(i) == '\\') {
+                count++;
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        json.setLength(end + count);
+        for (int i = end - 1, j = end + count - 1; i >= from && j > i; i--) {
+            char c = json.charAt(i);
+            json.setCharAt(j--, c);
+            if (c == '\\') {
+                json.setCharAt(j--, c);
+            }
+        }
+    }
+
+    /**
+     * runs a server for the campus
+     *
+     * @param args
+     *            the port to listen on, 8080 if not given
+     */
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        try {
+            CampusSnapshot model = CampusGraph.load("campus_buildings.dat", "campus_paths.dat").snapshot();
+            CampusServer server = new CampusServer(model, port);
+            server.start();
+            System.out.println("Serving campus paths on port " + server.getPort());
+        } catch (MalformedDataException e) {
+            e.printStackTrace();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * checks rep invariant. the buildings and their coordinates must match
+     */
+    private void checkRep() {
+        if (!CampusServer.CHECK) {
+            return;
+        }
+        if (this.model == null || this.server == null || this.executor == null || this.buildings == null
+                || this.buffers == null) {
+            throw new RuntimeException("fields cannot be null");
+        }
+        if (this.located.length != this.xs.length || this.located.length != this.ys.length) {
+            throw new RuntimeException("every located building needs coordinates");
+        }
+    }
+
+    /**
+     * A JsonBuffer holds the text of a response and the UTF-8 bytes it is
+     * encoded into. Both grow as needed and keep their capacity, so a reused
+     * buffer serializes without allocating.
+     */
+    private static final class JsonBuffer {
+        // text of the response
+        private final StringBuilder text;
+        // encoded text, may be longer than needed
+        private byte[] bytes;
+
+        /**
+         * constructor
+         *
+         * @effects creates an empty buffer
+         */
+        private JsonBuffer() {
+            this.text = new StringBuilder(CampusServer.BUFFER_SIZE);
+            this.bytes = new byte[CampusServer.BUFFER_SIZE];
+        }
+
+        /**
+         * encodes this.text into this.bytes as UTF-8
+         *
+         * @modifies this
+         * @return number of bytes used
+         */
+        private int encode() {
+            int length = this.text.length();
+            if (this.bytes.length < 3 * length) {
+                this.bytes = new byte[Math.max(3 * length, 2 * this.bytes.length)];
+            }
+            byte[] b = this.bytes;
+            int n = 0;
+            for (int i = 0; i < length; i++) {
+                char c = this.text.charAt(i);
+                if (c < 0x80) {
+                    b[n++] = (byte) c;
+                } else if (c < 0x800) {
+                    b[n++] = (byte) (0xC0 | (c >> 6));
+                    b[n++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(this.text.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, this.text.charAt(++i));
+                    b[n++] = (byte) (0xF0 | (cp >> 18));
+                    b[n++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    b[n++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    b[n++] = (byte) (0x80 | (cp & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    b[n++] = (byte) '?';
+                } else {
+                    b[n++] = (byte) (0xE0 | (c >> 12));
+                    b[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    b[n++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            return n;
+        }
+    }
+}
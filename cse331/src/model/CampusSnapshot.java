@@ -0,0 +1,603 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+import graphStructure.Edge;
+
+/**
+ * A CampusSnapshot is an immutable copy of a CampusGraph as it was when the
+ * snapshot was taken. The paths are held in a CompactGraph and the buildings
+ * in a BuildingDirectory, both of which are read only arrays, and every field
+ * is final, so a snapshot can be handed to any number of threads and queried
+ * by all of them at once without locks. Shortest paths are found with
+ * Dijkstra's algorithm over the arrays, using a heap of node ids and working
+ * arrays taken from a pool for each query and given back after. The pool
+ * holds at most MAX_SEARCHES sets of working arrays, each about 44 bytes per
+ * node, so memory stays bounded however many threads query, including a new
+ * virtual thread per query; more queries than that at once wait their turn.
+ *
+ * @author WP
+ *
+ */
+public final class CampusSnapshot implements CampusModel {
+    // switch for checking rep invariant
+    private static final boolean CHECK = false;
+
+    // metrics of findPath
+    private static final RouteMetrics METRICS = RouteMetrics.forEngine("snapshot");
+    // most sets of working arrays in use at once
+    private static final int MAX_SEARCHES = 2 * Runtime.getRuntime().availableProcessors();
+
+    // the buildings
+    private final BuildingDirectory directory;
+    // the paths between locations
+    private final CompactGraph graph;
+    // walking directions for the edges of this.graph
+    private final InstructionTable instructions;
+    // id in this.graph of the location of each building, by directory order,
+    // or -1 if the building is not on any path
+    private final int[] buildingNodes;
+    // idle working arrays, made as needed up to MAX_SEARCHES sets
+    private final Queue<Search> searches;
+    // permits for the sets of working arrays not in use
+    private final Semaphore searchPermits;
+
+    // Abstraction function: this is the campus with the buildings of
+    // this.directory and the paths of this.graph. Building i of
+    // this.directory.getShortNames() is at node this.buildingNodes[i].
+
+    // Representation Invariant:
+    // none of the fields are null,
+    // this.buildingNodes has one entry per building of this.directory,
+    // this.buildingNodes[i] is -1 or the id in this.graph of the location of
+    // building i,
+    // this.instructions describes this.graph
+
+    /**
+     * constructor, copies the buildings and paths of a campus
+     *
+     * @param directory
+     *            the buildings of the campus
+     * @param graph
+     *            the paths of the campus
+     * @param instructions
+     *            walking directions for the edges of graph
+     * @requires instructions.getGraph() == graph
+     * @effects creates a snapshot of the campus
+     * @throws IllegalArgumentException
+     *             if args are null
+     */
+    public CampusSnapshot(BuildingDirectory directory, CompactGraph graph, InstructionTable instructions) {
+        if (directory == null || graph == null || instructions == null) {
+            throw new IllegalArgumentException();
+        }
+        this.directory = directory;
+        this.graph = graph;
+        this.instructions = instructions;
+        List<String> shortNames = directory.getShortNames();
+        this.buildingNodes = new int[shortNames.size()];
+        for (int i = 0; i < this.buildingNodes.length; i++) {
+            PointD location = directory.getLocation(shortNames.get(i));
+            this.buildingNodes[i] = location == null ? -1 : graph.nodeId(location);
+        }
+        this.searches = new ConcurrentLinkedQueue<Search>();
+        this.searchPermits = new Semaphore(CampusSnapshot.MAX_SEARCHES);
+        this.checkRep();
+    }
+
+    /**
+     * constructor, builds a snapshot straight from loaded data
+     *
+     * @param data
+     *            buildings and paths of the campus
+     * @requires data is not modified afterwards
+     * @effects creates a snapshot of the campus in data
+     */
+    CampusSnapshot(CampusData data) {
+        this(new BuildingDirectory(data.getShort2LongName(), data.getName2Loc()), data.getCompact(),
+                new InstructionTable(data.getCompact()));
+    }
+
+    /**
+     * returns location corresponding to a building
+     *
+     * @param s
+     *            the building to find location for (in abbreviated form)
+     * @return PointD location for that building, or null if there is none
+     * @throws IllegalArgumentException
+     *             iff arg is null
+     */
+    @Override
+    public PointD getLocation(String s) {
+        return this.directory.getLocation(s);
+    }
+
+    /**
+     * returns the buildings in alphabetical order. The map cannot be modified.
+     *
+     * @return map of short names to long names in alphabetical order
+     */
+    @Override
+    public Map<String, String> getBuildings() {
+        return this.directory.getBuildings();
+    }
+
+    /**
+     * returns the directory of buildings
+     *
+     * @return directory of every building in the snapshot
+     */
+    @Override
+    public BuildingDirectory getDirectory() {
+        return this.directory;
+    }
+
+    /**
+     * returns the long form name of a building given an abbreviated name
+     *
+     * @param shortName
+     *            abbreviated name of building
+     * @return long form name of the building
+     * @throws IllegalArgumentException
+     *             if arg is null or if building is not in the snapshot
+     */
+    @Override
+    public String getLongName(String shortName) {
+        String longName = this.directory.getLongName(shortName);
+        if (longName == null) {
+            throw new IllegalArgumentException();
+        }
+        return longName;
+    }
+
+    /**
+     * returns the walking directions for the edges of the campus
+     *
+     * @return table of directions for every edge in the snapshot
+     */
+    @Override
+    public InstructionTable getInstructions() {
+        return this.instructions;
+    }
+
+    /**
+     * returns the paths of the campus
+     *
+     * @return the graph of paths in the snapshot
+     */
+    public CompactGraph getGraph() {
+        return this.graph;
+    }
+
+    /**
+     * find the path between two buildings. Picks the path of least weight,
+     * and of those the one with the fewest edges, like CampusGraph does.
+     *
+     * @param start
+     *            building at start of path
+     * @param end
+     *            building at end of path
+     * @return a path from start to end, or null if there is none, if either
+     *         building is unknown (which is printed) or if the thread was
+     *         interrupted
+     * @throws IllegalArgumentException
+     *             if args are null or if either building is not on any path
+     */
+    @Override
+    public List<Edge<PointD, Double>> findPath(String start, String end) {
+        if (start == null || end == null) {
+            throw new IllegalArgumentException();
+        }
+        boolean unknown = false;
+        if (!this.directory.contains(start)) {
+            System.out.println("Unknown building: " + start);
+            unknown = true;
+        }
+        if (!this.directory.contains(end)) {
+            System.out.println("Unknown building: " + end);
+            unknown = true;
+        }
+        if (unknown) {
+            System.out.println();
+            return null;
+        }
+        return this.findPath(this.buildingNode(start), this.buildingNode(end));
+    }
+
+    /**
+     * find the path between two nodes of the graph of this snapshot
+     *
+     * @param from
+     *            id of the start node
+     * @param to
+     *            id of the end node
+     * @requires both ids are nodes of this.graph
+     * @return the least weight, fewest edge path from start to end, or null if
+     *         there is none
+     */
+    private List<Edge<PointD, Double>> findPath(int from, int to) {
+        RouteQueryEvent event = new RouteQueryEvent();
+        event.begin();
+        long started = System.nanoTime();
+        long allocated = RouteMetrics.allocatedBytes();
+        Search s = this.takeSearch();
+        try {
+            List<Edge<PointD, Double>> result = this.search(s, from, to) ? this.path(s, from, to) : null;
+            CampusSnapshot.METRICS.record(started, allocated, s.settled, s.relaxed, s.pushes);
+            event.finish("snapshot", this.graph.node(from), this.graph.node(to), s.settled, result);
+            return result;
+        } finally {
+            this.giveBack(s);
+        }
+    }
+
+    /**
+     * finds the path between two buildings like findPath, and appends it as a
+     * text Polyline of the points it passes through. The points are read
+     * from the node ids of the search, so no Edges or PointDs are made.
+     *
+     * @param start
+     *            building at start of path
+     * @param end
+     *            building at end of path
+     * @param precision
+     *            decimal places kept, from 0 to Polyline.MAX_PRECISION
+     * @param out
+     *            text to append to
+     * @modifies out
+     * @effects appends the encoded path to out if there is one
+     * @return length of the path, or -1 if there is none
+     * @throws IllegalArgumentException
+     *             if any args are null, precision is out of range or either
+     *             building is unknown or not on any path
+     */
+    public double appendPolyline(String start, String end, int precision, StringBuilder out) {
+        if (start == null || end == null || out == null
+                || precision < 0 || precision > Polyline.MAX_PRECISION) {
+            throw new IllegalArgumentException();
+        }
+        int from = this.buildingNode(start);
+        int to = this.buildingNode(end);
+        long started = System.nanoTime();
+        long allocated = RouteMetrics.allocatedBytes();
+        Search s = this.takeSearch();
+        try {
+            double length = -1;
+            if (this.search(s, from, to)) {
+                int count = s.hops[to] + 1;
+                for (int v = to, i = count - 1; i >= 0; v = s.parents[v], i--) {
+                    s.route[i] = v;
+                }
+                Polyline.append(out, this.graph, s.route, count, precision);
+                length = s.dist[to];
+            }
+            CampusSnapshot.METRICS.record(started, allocated, s.settled, s.relaxed, s.pushes);
+            return length;
+        } finally {
+            this.giveBack(s);
+        }
+    }
+
+    /**
+     * finds the path between two buildings like findPath, and explains how the
+     * search went. The search is the same one findPath makes: it always notes
+     * the order nodes are settled in, in an array it already has, so asking
+     * for a trace only costs copying that order out afterwards.
+     *
+     * @param start
+     *            building at start of path
+     * @param end
+     *            building at end of path
+     * @param trace
+     *            true to include the nodes in the order they were settled
+     * @return the path with the statistics of the search
+     * @throws IllegalArgumentException
+     *             if args are null or if either building is unknown or not
+     *             on any path
+     */
+    @Override
+    public RouteExplanation explain(String start, String end, boolean trace) {
+        if (start == null || end == null) {
+            throw new IllegalArgumentException();
+        }
+        long resolving = System.nanoTime();
+        int from = this.buildingNode(start);
+        int to = this.buildingNode(end);
+        long searching = System.nanoTime();
+        Search s = this.takeSearch();
+        try {
+            boolean found = this.search(s, from, to);
+            long rebuilding = System.nanoTime();
+            List<Edge<PointD, Double>> path = found ? this.path(s, from, to) : null;
+            long done = System.nanoTime();
+
+            List<PointD> order = new ArrayList<PointD>(trace ? s.settled : 0);
+            if (trace) {
+                for (int i = 0; i < s.settled; i++) {
+                    order.add(this.graph.node(s.order[i]));
+                }
+            }
+            return new RouteExplanation(path, s.settled, s.relaxed, s.pushes, s.maxSize, searching - resolving,
+                    rebuilding - searching, done - rebuilding, order);
+        } finally {
+            this.giveBack(s);
+        }
+    }
+
+    /**
+     * finds the node a building is at
+     *
+     * @param shortName
+     *            abbreviated name of the building
+     * @return id in this.graph of the location of the building
+     * @throws IllegalArgumentException
+     *             if the building is unknown or not on any path
+     */
+    private int buildingNode(String shortName) {
+        int i = Collections.binarySearch(this.directory.getShortNames(), shortName);
+        if (i < 0 || this.buildingNodes[i] < 0) {
+            throw new IllegalArgumentException("Unknown building: " + shortName);
+        }
+        return this.buildingNodes[i];
+    }
+
+    /**
+     * takes a set of working arrays for a query, waiting if MAX_SEARCHES are
+     * in use
+     *
+     * @return working arrays no other query is using
+     */
+    private Search takeSearch() {
+        this.searchPermits.acquireUninterruptibly();
+        Search s = this.searches.poll();
+        return s == null ? new Search(this.graph.nodeCount()) : s;
+    }
+
+    /**
+     * gives back working arrays taken by takeSearch
+     *
+     * @param s
+     *            the working arrays, no longer used by the caller
+     */
+    private void giveBack(Search s) {
+        this.searches.add(s);
+        this.searchPermits.release();
+    }
+
+    /**
+     * runs Dijkstra's algorithm from one node until another is settled
+     *
+     * @param s
+     *            working arrays of this query
+     * @param from
+     *            id of the start node
+     * @param to
+     *            id of the end node
+     * @modifies s
+     * @effects s holds the search, with the best way to reach each settled
+     *          node
+     * @return true iff to was reached, false if it was not or the thread
+     *         was interrupted
+     */
+    private boolean search(Search s, int from, int to) {
+        s.start(from);
+        while (s.size > 0) {
+            int u = s.pop();
+            if (u == to) {
+                return true;
+            }
+            if (s.settled % CampusGraph.INTERRUPT_INTERVAL == 0 && Thread.currentThread().isInterrupted()) {
+                // cancelled, so no one wants the path
+                return false;
+            }
+            for (int e = this.graph.firstEdge(u); e < this.graph.endEdge(u); e++) {
+                int v = this.graph.target(e);
+                if (s.done[v] == s.stamp) {
+                    continue;
+                }
+                s.relaxed++;
+                s.relax(v, s.dist[u] + this.graph.weight(e), s.hops[u] + 1, u, e);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * rebuilds the path a search found
+     *
+     * @param s
+     *            search that reached to
+     * @param from
+     *            id of the start node
+     * @param to
+     *            id of the end node
+     * @return edges from from to to
+     */
+    private List<Edge<PointD, Double>> path(Search s, int from, int to) {
+        List<Edge<PointD, Double>> result = new ArrayList<Edge<PointD, Double>>(s.hops[to]);
+        for (int v = to; v != from; v = s.parents[v]) {
+            result.add(new Edge<PointD, Double>(this.graph.weight(s.edges[v]), this.graph.node(s.parents[v]),
+                    this.graph.node(v)));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * checks rep invariant. every building must be at its node.
+     */
+    private void checkRep() {
+        if (!CampusSnapshot.CHECK) {
+            return;
+        }
+        if (this.instructions.getGraph() != this.graph) {
+            throw new RuntimeException("instructions describe another graph");
+        }
+        List<String> shortNames = this.directory.getShortNames();
+        if (this.buildingNodes.length != shortNames.size()) {
+            throw new RuntimeException("every building needs a node");
+        }
+        for (int i = 0; i < this.buildingNodes.length; i++) {
+            int node = this.buildingNodes[i];
+            if (node >= 0 && !this.graph.node(node).equals(this.directory.getLocation(shortNames.get(i)))) {
+                throw new RuntimeException("building is not at its node");
+            }
+        }
+    }
+
+    /**
+     * working arrays for the searches of one query at a time. A node has a
+     * distance only if its seen stamp is the stamp of the current search and
+     * is settled only if its done stamp is, so nothing is cleared between
+     * searches.
+     */
+    private static final class Search {
+        // best known distance and edge count to each node
+        final double[] dist;
+        final int[] hops;
+        // node and edge each node is best reached by
+        final int[] parents;
+        final int[] edges;
+        // stamp of the last search that reached or settled each node
+        final int[] seen;
+        final int[] done;
+        int stamp;
+        // binary heap of node ids, and the index of each node in it
+        final int[] heap;
+        final int[] positions;
+        int size;
+        // effort of the current search
+        int settled;
+        int relaxed;
+        int pushes;
+        int maxSize;
+        // nodes in the order they were settled, the first this.settled valid
+        final int[] order;
+        // nodes of the path found, from the start
+        final int[] route;
+
+        Search(int n) {
+            this.dist = new double[n];
+            this.hops = new int[n];
+            this.parents = new int[n];
+            this.edges = new int[n];
+            this.seen = new int[n];
+            this.done = new int[n];
+            this.heap = new int[n];
+            this.positions = new int[n];
+            this.order = new int[n];
+            this.route = new int[n];
+        }
+
+        /**
+         * starts a new search from a node
+         */
+        void start(int from) {
+            this.stamp++;
+            if (this.stamp == 0) {
+                // the stamps wrapped, so old ones could look current
+                Arrays.fill(this.seen, 0);
+                Arrays.fill(this.done, 0);
+                this.stamp = 1;
+            }
+            this.size = 0;
+            this.settled = 0;
+            this.relaxed = 0;
+            this.pushes = 0;
+            this.maxSize = 0;
+            this.relax(from, 0.0, 0, from, -1);
+        }
+
+        /**
+         * reaches node v by edge e from u, if that is better than before
+         */
+        void relax(int v, double d, int h, int u, int e) {
+            if (this.seen[v] == this.stamp && !this.before(d, h, this.dist[v], this.hops[v])) {
+                return;
+            }
+            this.dist[v] = d;
+            this.hops[v] = h;
+            this.parents[v] = u;
+            this.edges[v] = e;
+            this.pushes++;
+            if (this.seen[v] != this.stamp) {
+                this.seen[v] = this.stamp;
+                this.positions[v] = this.size;
+                this.heap[this.size++] = v;
+                this.maxSize = Math.max(this.maxSize, this.size);
+            }
+            this.up(this.positions[v]);
+        }
+
+        /**
+         * removes and settles the closest node in the heap
+         */
+        int pop() {
+            int min = this.heap[0];
+            this.done[min] = this.stamp;
+            this.order[this.settled++] = min;
+            this.size--;
+            if (this.size > 0) {
+                this.heap[0] = this.heap[this.size];
+                this.positions[this.heap[0]] = 0;
+                this.down(0);
+            }
+            return min;
+        }
+
+        /**
+         * true iff distance d with h edges is better than distance d2 with h2
+         */
+        private boolean before(double d, int h, double d2, int h2) {
+            return d < d2 || (d == d2 && h < h2);
+        }
+
+        /**
+         * true iff heap entry i is better than heap entry j
+         */
+        private boolean less(int i, int j) {
+            int a = this.heap[i];
+            int b = this.heap[j];
+            return this.before(this.dist[a], this.hops[a], this.dist[b], this.hops[b]);
+        }
+
+        private void swap(int i, int j) {
+            int a = this.heap[i];
+            this.heap[i] = this.heap[j];
+            this.heap[j] = a;
+            this.positions[this.heap[i]] = i;
+            this.positions[this.heap[j]] = j;
+        }
+
+        private void up(int i) {
+            while (i > 0 && this.less(i, (i - 1) / 2)) {
+                this.swap(i, (i - 1) / 2);
+                i = (i - 1) / 2;
+            }
+        }
+
+        private void down(int i) {
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= this.size) {
+                    return;
+                }
+                if (child + 1 < this.size && this.less(child + 1, child)) {
+                    child++;
+                }
+                if (!this.less(child, i)) {
+                    return;
+                }
+                this.swap(i, child);
+                i = child;
+            }
+        }
+    }
+}
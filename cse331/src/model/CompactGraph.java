@@ -0,0 +1,375 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import graphStructure.Edge;
+import graphStructure.Graph;
+
+/**
+ * A CompactGraph is an immutable copy of a graph of PointD nodes and Double
+ * labeled edges stored in flat arrays. Nodes are numbered 0 to nodeCount() - 1
+ * in order of x then y coordinate, and the edges leaving node u are numbered
+ * firstEdge(u) to endEdge(u) - 1 (compressed sparse row form).
+ *
+ * @author WP
+ *
+ */
+public class CompactGraph {
+    // switch for checking rep invariant
+    private static final boolean CHECK = false;
+
+    // the node with each id
+    private final PointD[] nodes;
+    // coordinates of each node
+    private final double[] xs;
+    private final double[] ys;
+    // maps coordinates to node ids
+    private final CoordinateIndex index;
+    // edges of node u are offsets[u] to offsets[u + 1] - 1
+    private final int[] offsets;
+    // end node and weight of each edge
+    private final int[] targets;
+    private final double[] weights;
+
+    // Abstraction function: this represents a graph with the nodes
+    // this.nodes, where for every node u and offsets[u] <= e < offsets[u + 1]
+    // there is an edge from this.nodes[u] to this.nodes[targets[e]] labeled
+    // weights[e].
+
+    // Representation Invariant:
+    // none of the fields are null,
+    // this.nodes, this.xs and this.ys have the same length n and
+    // this.offsets has length n + 1,
+    // this.offsets is non-decreasing, starts at 0 and ends at
+    // this.targets.length == this.weights.length,
+    // every target is between 0 and n - 1,
+    // this.index maps the coordinates of this.nodes[i] to i
+
+    /**
+     * constructor, copies graph into arrays
+     *
+     * @param graph
+     *            graph to copy
+     * @effects creates a CompactGraph with the same nodes and edges as graph
+     * @throws IllegalArgumentException
+     *             if graph is null
+     */
+    public CompactGraph(Graph<PointD, Double> graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException();
+        }
+        GraphBuildEvent event = new GraphBuildEvent();
+        event.begin();
+        Set<PointD> nodeSet = graph.getNodes();
+        this.nodes = nodeSet.toArray(new PointD[nodeSet.size()]);
+        Arrays.sort(this.nodes, new Comparator<PointD>() {
+            @Override
+            public int compare(PointD p1, PointD p2) {
+                int result = Double.compare(p1.getX(), p2.getX());
+                if (result == 0) {
+                    result = Double.compare(p1.getY(), p2.getY());
+                }
+                return result;
+            }
+        });
+
+        int n = this.nodes.length;
+        this.xs = new double[n];
+        this.ys = new double[n];
+        this.index = new CoordinateIndex(n);
+        for (int i = 0; i < n; i++) {
+            this.xs[i] = this.nodes[i].getX();
+            this.ys[i] = this.nodes[i].getY();
+            this.index.putIfAbsent(this.xs[i], this.ys[i], i);
+        }
+
+        this.offsets = new int[n + 1];
+        List<int[]> ends = new ArrayList<int[]>(n);
+        List<double[]> labels = new ArrayList<double[]>(n);
+        for (int i = 0; i < n; i++) {
+            Set<Edge<PointD, Double>> edges = graph.getEdges(this.nodes[i]);
+            int[] end = new int[edges.size()];
+            double[] label = new double[edges.size()];
+            int j = 0;
+            for (Edge<PointD, Double> e : edges) {
+                end[j] = this.index.get(e.getEnd().getX(), e.getEnd().getY());
+                label[j] = e.getLabel();
+                j++;
+            }
+            CompactGraph.sortByTarget(end, label);
+            ends.add(end);
+            labels.add(label);
+            this.offsets[i + 1] = this.offsets[i] + end.length;
+        }
+
+        this.targets = new int[this.offsets[n]];
+        this.weights = new double[this.offsets[n]];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(ends.get(i), 0, this.targets, this.offsets[i], ends.get(i).length);
+            System.arraycopy(labels.get(i), 0, this.weights, this.offsets[i], labels.get(i).length);
+        }
+        event.finish("compact", n, this.targets.length);
+        this.checkRep();
+    }
+
+    /**
+     * constructor, wraps arrays that are already in compressed sparse row
+     * form, such as ones read back from a GraphImage
+     *
+     * @param xs
+     *            x coord of each node, sorted by x then y
+     * @param ys
+     *            y coord of each node
+     * @param offsets
+     *            first edge of each node, followed by the number of edges
+     * @param targets
+     *            end node of each edge
+     * @param weights
+     *            weight of each edge
+     * @requires the arrays meet the rep invariant and are not modified
+     *           afterwards
+     * @effects creates a CompactGraph using the arrays
+     */
+    CompactGraph(double[] xs, double[] ys, int[] offsets, int[] targets, double[] weights) {
+        this.xs = xs;
+        this.ys = ys;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.nodes = new PointD[xs.length];
+        this.index = new CoordinateIndex(xs.length);
+        for (int i = 0; i < xs.length; i++) {
+            this.nodes[i] = new PointD(xs[i], ys[i]);
+            this.index.putIfAbsent(xs[i], ys[i], i);
+        }
+        this.checkRep();
+    }
+
+    /**
+     * sorts the edges of one node by target then weight, so the layout does
+     * not depend on hash order
+     *
+     * @param end
+     *            targets of the edges
+     * @param label
+     *            weights of the edges
+     * @modifies end, label
+     * @effects both arrays are reordered the same way
+     */
+    private static void sortByTarget(int[] end, double[] label) {
+        // insertion sort, since nodes have only a few edges each
+        for (int i = 1; i < end.length; i++) {
+            int t = end[i];
+            double w = label[i];
+            int j = i - 1;
+            while (j >= 0 && (end[j] > t || (end[j] == t && Double.compare(label[j], w) > 0))) {
+                end[j + 1] = end[j];
+                label[j + 1] = label[j];
+                j--;
+            }
+            end[j + 1] = t;
+            label[j + 1] = w;
+        }
+    }
+
+    /**
+     * number of nodes
+     *
+     * @return number of nodes in this
+     */
+    public int nodeCount() {
+        return this.nodes.length;
+    }
+
+    /**
+     * number of edges
+     *
+     * @return number of edges in this
+     */
+    public int edgeCount() {
+        return this.targets.length;
+    }
+
+    /**
+     * returns the id of a point
+     *
+     * @param p
+     *            point to look up
+     * @return id of p, or -1 if p is not a node
+     * @throws IllegalArgumentException
+     *             if p is null
+     */
+    public int nodeId(PointD p) {
+        if (p == null) {
+            throw new IllegalArgumentException();
+        }
+        return this.index.get(p.getX(), p.getY());
+    }
+
+    /**
+     * returns the node with an id
+     *
+     * @param id
+     *            id of the node
+     * @requires 0 &lt;= id &lt; nodeCount()
+     * @return the node with that id
+     */
+    public PointD node(int id) {
+        return this.nodes[id];
+    }
+
+    /**
+     * @param id
+     *            id of the node
+     * @requires 0 &lt;= id &lt; nodeCount()
+     * @return x coord of the node
+     */
+    public double x(int id) {
+        return this.xs[id];
+    }
+
+    /**
+     * @param id
+     *            id of the node
+     * @requires 0 &lt;= id &lt; nodeCount()
+     * @return y coord of the node
+     */
+    public double y(int id) {
+        return this.ys[id];
+    }
+
+    /**
+     * @param node
+     *            id of the node
+     * @requires 0 &lt;= node &lt; nodeCount()
+     * @return id of the first edge leaving node
+     */
+    public int firstEdge(int node) {
+        return this.offsets[node];
+    }
+
+    /**
+     * @param node
+     *            id of the node
+     * @requires 0 &lt;= node &lt; nodeCount()
+     * @return one past the id of the last edge leaving node
+     */
+    public int endEdge(int node) {
+        return this.offsets[node + 1];
+    }
+
+    /**
+     * @param edge
+     *            id of the edge
+     * @requires 0 &lt;= edge &lt; edgeCount()
+     * @return id of the node the edge ends at
+     */
+    public int target(int edge) {
+        return this.targets[edge];
+    }
+
+    /**
+     * @param edge
+     *            id of the edge
+     * @requires 0 &lt;= edge &lt; edgeCount()
+     * @return weight of the edge
+     */
+    public double weight(int edge) {
+        return this.weights[edge];
+    }
+
+    /**
+     * finds the id of an edge
+     *
+     * @param start
+     *            id of the start node
+     * @param end
+     *            id of the end node
+     * @param weight
+     *            weight of the edge
+     * @return id of the edge from start to end with that weight, or -1 if
+     *         there is none
+     */
+    public int edgeId(int start, int end, double weight) {
+        if (start < 0 || start >= this.nodes.length) {
+            return -1;
+        }
+        for (int e = this.offsets[start]; e < this.offsets[start + 1]; e++) {
+            if (this.targets[e] == end && this.weights[e] == weight) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * finds the id of an edge
+     *
+     * @param e
+     *            edge to look up
+     * @return id of e, or -1 if it is not in this
+     * @throws IllegalArgumentException
+     *             if e is null
+     */
+    public int edgeId(Edge<PointD, Double> e) {
+        if (e == null) {
+            throw new IllegalArgumentException();
+        }
+        PointD start = e.getStart();
+        PointD end = e.getEnd();
+        return this.edgeId(this.index.get(start.getX(), start.getY()), this.index.get(end.getX(), end.getY()),
+                e.getLabel());
+    }
+
+    /**
+     * copies this into a Graph
+     *
+     * @return a new Graph with the nodes and edges of this
+     */
+    public Graph<PointD, Double> toGraph() {
+        Graph<PointD, Double> graph = new Graph<PointD, Double>();
+        List<Edge<PointD, Double>> edges = new ArrayList<Edge<PointD, Double>>(this.targets.length);
+        for (int u = 0; u < this.nodes.length; u++) {
+            graph.addNode(this.nodes[u]);
+            for (int e = this.offsets[u]; e < this.offsets[u + 1]; e++) {
+                edges.add(new Edge<PointD, Double>(this.weights[e], this.nodes[u], this.nodes[this.targets[e]]));
+            }
+        }
+        graph.addEdges(edges);
+        return graph;
+    }
+
+    /**
+     * checks rep invariant. arrays must line up and targets must be nodes.
+     */
+    private void checkRep() {
+        if (!CompactGraph.CHECK) {
+            return;
+        }
+        int n = this.nodes.length;
+        if (this.xs.length != n || this.ys.length != n || this.offsets.length != n + 1) {
+            throw new RuntimeException("node arrays are different lengths");
+        }
+        if (this.offsets[0] != 0 || this.offsets[n] != this.targets.length
+                || this.targets.length != this.weights.length) {
+            throw new RuntimeException("edge arrays do not match offsets");
+        }
+        for (int i = 0; i < n; i++) {
+            if (this.offsets[i] > this.offsets[i + 1]) {
+                throw new RuntimeException("offsets must not decrease");
+            }
+            if (this.index.get(this.xs[i], this.ys[i]) != i) {
+                throw new RuntimeException("node is not indexed by its id");
+            }
+        }
+        for (int t : this.targets) {
+            if (t < 0 || t >= n) {
+                throw new RuntimeException("edge ends outside the graph");
+            }
+        }
+    }
+}
@@ -0,0 +1,638 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import graphStructure.Edge;
+import graphStructure.Graph;
+
+/**
+ * A ContractedGraph is a simplified view of a graph with Double labeled
+ * edges. Chains of nodes that only connect two neighbors (one way in and one
+ * way out in each direction) are collapsed into compound edges whose weight is
+ * the sum of the chain. Shortest paths are searched on the reduced graph and
+ * then expanded back into the original edges, so the returned paths are the
+ * same as those of CampusGraph.findWeightedPath. When the graph changes,
+ * update rebuilds only the chains around the changed nodes.
+ *
+ * @author WP
+ *
+ */
+public class ContractedGraph<T> {
+    // switch for checking rep invariant
+    private static final boolean CHECK = false;
+
+    // metrics of findPath
+    private static final RouteMetrics METRICS = RouteMetrics.forEngine("contracted");
+
+    // the graph this was built from
+    private final Graph<T, Double> original;
+
+    // graph with all chain nodes removed and compound edges added
+    private final Graph<T, Double> reduced;
+
+    // maps compound edges of this.reduced to the original edges they replace
+    private final Map<Edge<T, Double>, List<Edge<T, Double>>> expansions;
+
+    // edges of this.original ending at each of its nodes
+    private final Map<T, List<Edge<T, Double>>> incoming;
+
+    // chain nodes walked through from each node of this.reduced
+    private final Map<T, List<T>> walked;
+
+    // nodes of this.reduced whose walks pass through each chain node
+    private final Map<T, Set<T>> walkStarts;
+
+    // Abstraction function: this represents this.original, where every edge
+    // e of this.reduced that is a key of this.expansions stands for the path
+    // this.expansions.get(e) in this.original, and every other edge of
+    // this.reduced is an edge of this.original.
+
+    // Representation Invariant:
+    // none of the fields are null,
+    // every node of this.reduced is a node of this.original,
+    // every value of this.expansions is a connected path of at least two
+    // edges from the start to the end of its key, whose labels sum to the
+    // key's label,
+    // this.incoming has a key for every node of this.original,
+    // c is in this.walked.get(s) iff s is in this.walkStarts.get(c)
+
+    /**
+     * constructor, contracts all chains of graph except at the nodes in keep
+     *
+     * @param graph
+     *            graph to simplify. Must only be modified by changes that are
+     *            then passed to update.
+     * @param keep
+     *            nodes that must stay in the reduced graph, such as the ends
+     *            of queries
+     * @requires graph is only modified as described above
+     * @effects builds a new ContractedGraph of graph
+     * @throws IllegalArgumentException
+     *             if args are null
+     */
+    public ContractedGraph(Graph<T, Double> graph, Set<T> keep) {
+        if (graph == null || keep == null) {
+            throw new IllegalArgumentException();
+        }
+        GraphBuildEvent event = new GraphBuildEvent();
+        event.begin();
+        this.original = graph;
+        this.reduced = new Graph<T, Double>();
+        this.expansions = new HashMap<Edge<T, Double>, List<Edge<T, Double>>>();
+        this.incoming = new HashMap<T, List<Edge<T, Double>>>();
+        this.walked = new HashMap<T, List<T>>();
+        this.walkStarts = new HashMap<T, Set<T>>();
+
+        Map<T, Set<Edge<T, Double>>> outgoing = new HashMap<T, Set<Edge<T, Double>>>();
+        for (T node : graph.getNodes()) {
+            outgoing.put(node, graph.getEdges(node));
+            this.incoming.put(node, new ArrayList<Edge<T, Double>>(2));
+        }
+        for (Set<Edge<T, Double>> edges : outgoing.values()) {
+            for (Edge<T, Double> e : edges) {
+                this.incoming.get(e.getEnd()).add(e);
+            }
+        }
+
+        for (T node : outgoing.keySet()) {
+            if (keep.contains(node)
+                    || !ContractedGraph.isChainNode(node, outgoing.get(node), this.incoming.get(node))) {
+                this.reduced.addNode(node);
+            }
+        }
+        for (T start : this.reduced.getNodes()) {
+            this.addEdgesFrom(start);
+        }
+        long edges = 0;
+        if (event.isEnabled()) {
+            for (T node : this.reduced.getNodes()) {
+                edges += this.reduced.getEdges(node).size();
+            }
+        }
+        event.finish("contracted", this.reduced.size(), edges);
+        this.checkRep();
+    }
+
+    /**
+     * returns the edges of the graph this was built from ending at each of its
+     * nodes, as of when this was built or last updated
+     *
+     * @return map of every node to the edges ending at it, which cannot be
+     *         modified
+     */
+    Map<T, List<Edge<T, Double>>> getIncoming() {
+        return Collections.unmodifiableMap(this.incoming);
+    }
+
+    /**
+     * updates this after changes to the graph it was built from, rebuilding
+     * only the edges of the reduced graph that start at, end at or pass
+     * through a changed node. Takes time proportional to the size of the
+     * change and the length of the chains around it.
+     *
+     * @param delta
+     *            the changes made to the graph since this was built or last
+     *            updated
+     * @param keep
+     *            nodes that must stay in the reduced graph from now on. Nodes
+     *            whose membership changed must be touched in delta.
+     * @requires delta records every change made to the graph
+     * @modifies this
+     * @effects this is the contraction of the graph as it is now
+     * @throws IllegalArgumentException
+     *             if args are null
+     */
+    public void update(GraphDelta<T> delta, Set<T> keep) {
+        if (delta == null || keep == null) {
+            throw new IllegalArgumentException();
+        }
+        for (Edge<T, Double> e : delta.getRemovedEdges()) {
+            List<Edge<T, Double>> in = this.incoming.get(e.getEnd());
+            if (in != null) {
+                in.remove(e);
+            }
+        }
+        for (T node : delta.getRemovedNodes()) {
+            this.incoming.remove(node);
+        }
+        for (T node : delta.getAddedNodes()) {
+            if (!this.incoming.containsKey(node)) {
+                this.incoming.put(node, new ArrayList<Edge<T, Double>>(2));
+            }
+        }
+        for (Edge<T, Double> e : delta.getAddedEdges()) {
+            List<Edge<T, Double>> in = this.incoming.get(e.getEnd());
+            if (in == null) {
+                in = new ArrayList<Edge<T, Double>>(2);
+                this.incoming.put(e.getEnd(), in);
+            }
+            in.add(e);
+        }
+
+        // every reduced edge starting at, ending at or passing through an
+        // affected node has to be rebuilt
+        Set<T> affected = delta.getAffectedNodes();
+        Set<T> dirty = new HashSet<T>();
+        for (T node : affected) {
+            this.addWalkStarts(node, dirty);
+            List<Edge<T, Double>> in = this.incoming.get(node);
+            if (in != null) {
+                for (Edge<T, Double> e : in) {
+                    this.addWalkStarts(e.getStart(), dirty);
+                }
+            }
+        }
+        for (T start : dirty) {
+            if (this.reduced.containsNode(start)) {
+                this.removeEdgesFrom(start);
+            }
+        }
+
+        // the affected nodes are the only ones that can join or leave a chain
+        for (T node : affected) {
+            boolean present = this.original.containsNode(node);
+            boolean chain = present && !keep.contains(node)
+                    && ContractedGraph.isChainNode(node, this.original.getEdges(node), this.incoming.get(node));
+            if (this.reduced.containsNode(node)) {
+                if (!present || chain) {
+                    // its edges and all edges ending at it were just removed
+                    this.reduced.removeUnreferencedNode(node);
+                }
+            } else if (present && !chain) {
+                this.reduced.addNode(node);
+                dirty.add(node);
+            }
+        }
+        for (T start : dirty) {
+            if (this.reduced.containsNode(start)) {
+                this.addEdgesFrom(start);
+            }
+        }
+        this.checkRep();
+    }
+
+    /**
+     * finds the nodes whose reduced edges leave from or pass through a node
+     *
+     * @param node
+     *            node to look up
+     * @param starts
+     *            set to add to
+     * @modifies starts
+     * @effects adds node if it is in the reduced graph, otherwise every node
+     *          whose walks pass through it
+     */
+    private void addWalkStarts(T node, Set<T> starts) {
+        if (this.reduced.containsNode(node)) {
+            starts.add(node);
+        } else if (this.walkStarts.containsKey(node)) {
+            starts.addAll(this.walkStarts.get(node));
+        }
+    }
+
+    /**
+     * adds the reduced edges leaving a node, walking along every chain that
+     * starts at it
+     *
+     * @param start
+     *            node of the reduced graph with no reduced edges
+     * @modifies this.reduced, this.expansions, this.walked, this.walkStarts
+     * @effects adds an edge for each edge of start to a reduced node and a
+     *          compound edge for each chain leaving start
+     */
+    private void addEdgesFrom(T start) {
+        List<T> inner = new ArrayList<T>();
+        for (Edge<T, Double> first : this.original.getEdges(start)) {
+            if (this.reduced.containsNode(first.getEnd())) {
+                if (!this.reduced.addEdge(first.getLabel(), start, first.getEnd())) {
+                    // a chain of the same weight came first; the direct edge
+                    // has fewer hops, so it wins
+                    this.expansions.remove(first);
+                }
+                continue;
+            }
+            // walk along the chain until it reaches a node that is kept
+            List<Edge<T, Double>> chain = new ArrayList<Edge<T, Double>>();
+            chain.add(first);
+            T prev = start;
+            T cur = first.getEnd();
+            while (!this.reduced.containsNode(cur)) {
+                inner.add(cur);
+                for (Edge<T, Double> e : this.original.getEdges(cur)) {
+                    if (!e.getEnd().equals(prev)) {
+                        chain.add(e);
+                        prev = cur;
+                        cur = e.getEnd();
+                        break;
+                    }
+                }
+            }
+            if (cur.equals(start)) {
+                // a loop back to start never shortens a path
+                continue;
+            }
+            this.addCompound(start, cur, chain);
+        }
+        if (!inner.isEmpty()) {
+            this.walked.put(start, inner);
+            for (T node : inner) {
+                Set<T> starts = this.walkStarts.get(node);
+                if (starts == null) {
+                    starts = new HashSet<T>(2);
+                    this.walkStarts.put(node, starts);
+                }
+                starts.add(start);
+            }
+        }
+    }
+
+    /**
+     * removes the reduced edges leaving a node
+     *
+     * @param start
+     *            node of the reduced graph
+     * @modifies this.reduced, this.expansions, this.walked, this.walkStarts
+     * @effects start has no reduced edges and no walks
+     */
+    private void removeEdgesFrom(T start) {
+        for (Edge<T, Double> e : this.reduced.getEdges(start)) {
+            this.reduced.removeEdge(e.getLabel(), start, e.getEnd());
+            this.expansions.remove(e);
+        }
+        List<T> inner = this.walked.remove(start);
+        if (inner != null) {
+            for (T node : inner) {
+                Set<T> starts = this.walkStarts.get(node);
+                if (starts != null) {
+                    starts.remove(start);
+                    if (starts.isEmpty()) {
+                        this.walkStarts.remove(node);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * adds a compound edge for chain to the reduced graph
+     *
+     * @param start
+     *            start of the chain
+     * @param end
+     *            end of the chain
+     * @param chain
+     *            original edges from start to end
+     * @modifies this.reduced, this.expansions
+     * @effects adds an edge from start to end carrying the weight of chain,
+     *          unless an equal edge with no more hops already exists. A
+     *          direct edge of the same weight added later replaces it.
+     */
+    private void addCompound(T start, T end, List<Edge<T, Double>> chain) {
+        double weight = 0;
+        for (Edge<T, Double> e : chain) {
+            weight += e.getLabel();
+        }
+        Edge<T, Double> compound = new Edge<T, Double>(weight, start, end);
+        if (this.reduced.addEdge(weight, start, end)) {
+            this.expansions.put(compound, chain);
+        } else if (this.expansions.containsKey(compound) && this.expansions.get(compound).size() > chain.size()) {
+            this.expansions.put(compound, chain);
+        }
+    }
+
+    /**
+     * checks if node is the middle of a chain: it is only connected to two
+     * other nodes, with exactly one edge to and one edge from each of them
+     *
+     * @param node
+     *            node to check
+     * @param out
+     *            edges leaving node
+     * @param in
+     *            edges ending at node
+     * @return true iff node can be contracted
+     */
+    private static <T> boolean isChainNode(T node, Set<Edge<T, Double>> out, List<Edge<T, Double>> in) {
+        if (out.size() != 2 || in.size() != 2) {
+            return false;
+        }
+        Set<T> outEnds = new HashSet<T>();
+        for (Edge<T, Double> e : out) {
+            outEnds.add(e.getEnd());
+        }
+        Set<T> inStarts = new HashSet<T>();
+        for (Edge<T, Double> e : in) {
+            inStarts.add(e.getStart());
+        }
+        return outEnds.size() == 2 && !outEnds.contains(node) && outEnds.equals(inStarts);
+    }
+
+    /**
+     * number of nodes left after contraction
+     *
+     * @return number of nodes in the reduced graph
+     */
+    public int size() {
+        return this.reduced.size();
+    }
+
+    /**
+     * find shortest path from start node to end node based on edge weights.
+     * Picks the least weight, lowest nodes path, the same way
+     * CampusGraph.findWeightedPath does on the original graph.
+     *
+     * @param start
+     *            start node of path
+     * @param end
+     *            end node of path
+     * @return shortest path between nodes as edges of the original graph, or
+     *         null if there is none or the thread was interrupted
+     * @throws IllegalArgumentException
+     *             if any args null or nodes not in graph
+     */
+    public List<Edge<T, Double>> findPath(T start, T end) {
+        if (start == null || end == null) {
+            throw new IllegalArgumentException();
+        }
+        if (!this.reduced.containsNode(start) || !this.reduced.containsNode(end)) {
+            // queries starting inside a chain are answered on the full graph
+            return CampusGraph.findWeightedPath(this.original, start, end);
+        }
+        this.checkRep();
+        RouteQueryEvent event = new RouteQueryEvent();
+        event.begin();
+        long started = System.nanoTime();
+        long allocated = RouteMetrics.allocatedBytes();
+        Search<T> s = new Search<T>(false);
+        if (!this.search(s, start, end)) {
+            // interrupted
+            return null;
+        }
+        ContractedGraph.METRICS.record(started, allocated, s.settled, s.relaxed, s.pushes);
+        event.finish("contracted", start, end, s.settled, s.path);
+        return s.path;
+    }
+
+    /**
+     * find shortest path from start node to end node with the same search as
+     * findPath, noting how the search went. Only the nodes of the reduced
+     * graph are settled; the nodes inside chains are walked over in one
+     * relaxation. A query starting inside a chain is answered on the full
+     * graph, as findPath does, and only its path is noted.
+     *
+     * @param start
+     *            start node of path
+     * @param end
+     *            end node of path
+     * @param trace
+     *            true to note the nodes in the order they were settled
+     * @return what the search did, with the path it found
+     * @throws IllegalArgumentException
+     *             if any args null or nodes not in graph
+     */
+    Search<T> explain(T start, T end, boolean trace) {
+        if (start == null || end == null) {
+            throw new IllegalArgumentException();
+        }
+        Search<T> s = new Search<T>(trace);
+        if (!this.reduced.containsNode(start) || !this.reduced.containsNode(end)) {
+            long searching = System.nanoTime();
+            s.path = CampusGraph.findWeightedPath(this.original, start, end);
+            s.searchNanos = System.nanoTime() - searching;
+            return s;
+        }
+        this.checkRep();
+        this.search(s, start, end);
+        return s;
+    }
+
+    /**
+     * runs Dijkstra's algorithm on the reduced graph from one node until
+     * another is settled
+     *
+     * @param s
+     *            where to note what the search does
+     * @param start
+     *            start node of path
+     * @param end
+     *            end node of path
+     * @requires start and end are nodes of this.reduced, and s is new
+     * @modifies s
+     * @effects s holds the path found, or null if there is none, and the
+     *          effort it took
+     * @return false iff the search stopped early because the thread was
+     *         interrupted
+     */
+    private boolean search(Search<T> s, T start, T end) {
+        long searching = System.nanoTime();
+        Map<T, Step<T>> best = new HashMap<T, Step<T>>();
+        Set<T> foundNodes = new HashSet<T>();
+        PriorityQueue<Step<T>> active = new PriorityQueue<Step<T>>();
+        Step<T> first = new Step<T>(start, 0.0, 0, null, null);
+        best.put(start, first);
+        active.add(first);
+        s.pushes = 1;
+        s.maxSize = 1;
+
+        while (!active.isEmpty()) {
+            Step<T> min = active.remove();
+            if (!foundNodes.add(min.node)) {
+                continue;
+            }
+            s.settled++;
+            if (s.order != null) {
+                s.order.add(min.node);
+            }
+            if (s.settled % CampusGraph.INTERRUPT_INTERVAL == 0 && Thread.currentThread().isInterrupted()) {
+                // cancelled, so no one wants the path
+                s.searchNanos = System.nanoTime() - searching;
+                return false;
+            }
+            if (min.node.equals(end)) {
+                long rebuilding = System.nanoTime();
+                s.searchNanos = rebuilding - searching;
+                s.path = this.expand(min);
+                s.pathNanos = System.nanoTime() - rebuilding;
+                return true;
+            }
+            for (Edge<T, Double> e : this.reduced.getEdges(min.node)) {
+                if (foundNodes.contains(e.getEnd())) {
+                    continue;
+                }
+                // sum chain weights one at a time so totals match the
+                // original graph exactly
+                double dist = min.dist;
+                int hops = min.hops;
+                List<Edge<T, Double>> chain = this.expansions.get(e);
+                if (chain == null) {
+                    dist += e.getLabel();
+                    hops++;
+                } else {
+                    for (Edge<T, Double> part : chain) {
+                        dist += part.getLabel();
+                    }
+                    hops += chain.size();
+                }
+                Step<T> next = new Step<T>(e.getEnd(), dist, hops, e, min);
+                Step<T> known = best.get(e.getEnd());
+                s.relaxed++;
+                if (known == null || next.compareTo(known) < 0) {
+                    best.put(e.getEnd(), next);
+                    active.add(next);
+                    s.pushes++;
+                    s.maxSize = Math.max(s.maxSize, active.size());
+                }
+            }
+        }
+        s.searchNanos = System.nanoTime() - searching;
+        return true;
+    }
+
+    /**
+     * rebuilds the path of original edges leading to last
+     *
+     * @param last
+     *            final step of a search
+     * @return edges of the original graph from the first step to last
+     */
+    private List<Edge<T, Double>> expand(Step<T> last) {
+        List<Edge<T, Double>> path = new ArrayList<Edge<T, Double>>(last.hops);
+        for (Step<T> s = last; s.via != null; s = s.prev) {
+            List<Edge<T, Double>> chain = this.expansions.get(s.via);
+            if (chain == null) {
+                path.add(s.via);
+            } else {
+                for (int i = chain.size() - 1; i >= 0; i--) {
+                    path.add(chain.get(i));
+                }
+            }
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * checks rep invariant. fields cannot be null and every compound edge
+     * must expand to a path between its ends.
+     */
+    private void checkRep() {
+        if (!ContractedGraph.CHECK) {
+            return;
+        }
+        if (this.original == null || this.reduced == null || this.expansions == null || this.incoming == null
+                || this.walked == null || this.walkStarts == null) {
+            throw new RuntimeException();
+        }
+        for (T node : this.reduced.getNodes()) {
+            if (!this.original.containsNode(node)) {
+                throw new RuntimeException("reduced graph has a node not in the original");
+            }
+        }
+        for (Edge<T, Double> e : this.expansions.keySet()) {
+            List<Edge<T, Double>> chain = this.expansions.get(e);
+            if (chain.size() < 2 || !chain.get(0).getStart().equals(e.getStart())
+                    || !chain.get(chain.size() - 1).getEnd().equals(e.getEnd())) {
+                throw new RuntimeException("compound edge does not match its chain");
+            }
+        }
+    }
+
+    /**
+     * what one search of a ContractedGraph did: the path it found and the
+     * effort and time it took
+     */
+    static final class Search<T> {
+        // path found, or null if there is none
+        List<Edge<T, Double>> path;
+        // search effort
+        int settled;
+        int relaxed;
+        int pushes;
+        int maxSize;
+        // time spent searching and rebuilding the path, in nanoseconds
+        long searchNanos;
+        long pathNanos;
+        // nodes in the order they were settled, or null if not traced
+        final List<T> order;
+
+        Search(boolean trace) {
+            this.order = trace ? new ArrayList<T>() : null;
+        }
+    }
+
+    /**
+     * a step of a shortest path search: the best known way to reach a node.
+     * Steps are ordered by distance then number of original edges.
+     */
+    private static class Step<T> implements Comparable<Step<T>> {
+        final T node;
+        final double dist;
+        final int hops;
+        final Edge<T, Double> via;
+        final Step<T> prev;
+
+        Step(T node, double dist, int hops, Edge<T, Double> via, Step<T> prev) {
+            this.node = node;
+            this.dist = dist;
+            this.hops = hops;
+            this.via = via;
+            this.prev = prev;
+        }
+
+        @Override
+        public int compareTo(Step<T> other) {
+            int result = Double.compare(this.dist, other.dist);
+            if (result == 0) {
+                result = Integer.compare(this.hops, other.hops);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * A map from coordinate pairs to int ids that does not allocate on lookup.
+ * Each coordinate is packed into the long holding its bits, and the pairs are
+ * stored in open-addressing tables with linear probing.
+ *
+ * @author WP
+ *
+ */
+public class CoordinateIndex {
+    // switch for checking rep invariant
+    private static final boolean CHECK = false;
+
+    // marks an empty slot in this.ids
+    private static final int EMPTY = -1;
+
+    // bits of the x and y coordinates of each slot
+    private long[] xBits;
+    private long[] yBits;
+    // id stored at each slot, or EMPTY
+    private int[] ids;
+    // number of stored pairs
+    private int size;
+
+    // Abstraction function: this maps the coordinate pair
+    // (longBitsToDouble(this.xBits[i]), longBitsToDouble(this.yBits[i])) to
+    // this.ids[i] for every slot i where this.ids[i] != EMPTY.
+
+    // Representation Invariant:
+    // all arrays have the same length, which is a power of two,
+    // this.size is the number of slots that are not EMPTY and is at most half
+    // of the length,
+    // no two used slots have the same pair of bits
+
+    /**
+     * constructor
+     *
+     * @param expected
+     *            number of pairs expected to be stored
+     * @effects creates an empty CoordinateIndex
+     * @throws IllegalArgumentException
+     *             if expected is negative
+     */
+    public CoordinateIndex(int expected) {
+        if (expected < 0) {
+            throw new IllegalArgumentException();
+        }
+        int capacity = 16;
+        while (capacity < 2 * expected) {
+            capacity <<= 1;
+        }
+        this.allocate(capacity);
+        this.checkRep();
+    }
+
+    /**
+     * returns the id mapped to a coordinate pair
+     *
+     * @param x
+     *            x coord
+     * @param y
+     *            y coord
+     * @return the id of (x, y), or -1 if it is not in this
+     */
+    public int get(double x, double y) {
+        long xb = CoordinateIndex.bits(x);
+        long yb = CoordinateIndex.bits(y);
+        int mask = this.ids.length - 1;
+        for (int i = CoordinateIndex.mix(xb, yb) & mask;; i = (i + 1) & mask) {
+            if (this.ids[i] == CoordinateIndex.EMPTY) {
+                return -1;
+            }
+            if (this.xBits[i] == xb && this.yBits[i] == yb) {
+                return this.ids[i];
+            }
+        }
+    }
+
+    /**
+     * maps a coordinate pair to id unless it is already mapped
+     *
+     * @param x
+     *            x coord
+     * @param y
+     *            y coord
+     * @param id
+     *            id to store
+     * @modifies this
+     * @effects maps (x, y) to id if (x, y) has no id yet
+     * @return the id (x, y) is mapped to after the call
+     * @throws IllegalArgumentException
+     *             if id is negative
+     */
+    public int putIfAbsent(double x, double y, int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException();
+        }
+        long xb = CoordinateIndex.bits(x);
+        long yb = CoordinateIndex.bits(y);
+        int mask = this.ids.length - 1;
+        int i = CoordinateIndex.mix(xb, yb) & mask;
+        while (this.ids[i] != CoordinateIndex.EMPTY) {
+            if (this.xBits[i] == xb && this.yBits[i] == yb) {
+                return this.ids[i];
+            }
+            i = (i + 1) & mask;
+        }
+        this.xBits[i] = xb;
+        this.yBits[i] = yb;
+        this.ids[i] = id;
+        this.size++;
+        if (2 * this.size > this.ids.length) {
+            this.grow();
+        }
+        this.checkRep();
+        return id;
+    }
+
+    /**
+     * number of pairs in this
+     *
+     * @return number of mapped coordinate pairs
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * doubles the tables and reinserts every pair
+     */
+    private void grow() {
+        long[] oldX = this.xBits;
+        long[] oldY = this.yBits;
+        int[] oldIds = this.ids;
+        this.allocate(oldIds.length * 2);
+        int mask = this.ids.length - 1;
+        for (int j = 0; j < oldIds.length; j++) {
+            if (oldIds[j] == CoordinateIndex.EMPTY) {
+                continue;
+            }
+            int i = CoordinateIndex.mix(oldX[j], oldY[j]) & mask;
+            while (this.ids[i] != CoordinateIndex.EMPTY) {
+                i = (i + 1) & mask;
+            }
+            this.xBits[i] = oldX[j];
+            this.yBits[i] = oldY[j];
+            this.ids[i] = oldIds[j];
+        }
+    }
+
+    /**
+     * replaces the tables with empty ones
+     *
+     * @param capacity
+     *            number of slots, a power of two
+     */
+    private void allocate(int capacity) {
+        this.xBits = new long[capacity];
+        this.yBits = new long[capacity];
+        this.ids = new int[capacity];
+        Arrays.fill(this.ids, CoordinateIndex.EMPTY);
+    }
+
+    /**
+     * bits of a coordinate, with -0.0 folded into 0.0 to match PointD.equals
+     *
+     * @param d
+     *            coordinate
+     * @return bits of d
+     */
+    private static long bits(double d) {
+        return Double.doubleToLongBits(d + 0.0);
+    }
+
+    /**
+     * spreads the bits of a pair over an int so nearby coordinates land in
+     * different slots
+     *
+     * @param xb
+     *            bits of x
+     * @param yb
+     *            bits of y
+     * @return hash of the pair
+     */
+    private static int mix(long xb, long yb) {
+        long h = xb * 0x9E3779B97F4A7C15L + yb;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    /**
+     * checks rep invariant. tables must be the same power of two length and
+     * less than half full.
+     */
+    private void checkRep() {
+        if (!CoordinateIndex.CHECK) {
+            return;
+        }
+        int length = this.ids.length;
+        if (this.xBits.length != length || this.yBits.length != length || Integer.bitCount(length) != 1) {
+            throw new RuntimeException("tables must be the same power of two length");
+        }
+        int used = 0;
+        for (int id : this.ids) {
+            if (id != CoordinateIndex.EMPTY) {
+                used++;
+            }
+        }
+        if (used != this.size || 2 * used > length) {
+            throw new RuntimeException("size does not match the tables");
+        }
+    }
+}
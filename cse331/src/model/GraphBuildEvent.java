@@ -0,0 +1,58 @@
+package model;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A Flight Recorder event for building one of the structures the campus is
+ * queried through. Only builds that take longer than the threshold, 10 ms
+ * unless a recording sets another, are recorded.
+ *
+ * @author WP
+ *
+ */
+@Name("model.GraphBuild")
+@Label("Campus Graph Build")
+@Description("Building a graph structure from loaded campus data")
+@Category("Campus Paths")
+@Threshold("10 ms")
+@StackTrace(false)
+final class GraphBuildEvent extends Event {
+
+    @Label("Structure")
+    @Description("campus, contracted or compact")
+    String structure;
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Edges")
+    long edges;
+
+    /**
+     * ends the event and records it if it took long enough
+     *
+     * @param structure
+     *            kind of structure built
+     * @param nodes
+     *            nodes in the structure
+     * @param edges
+     *            edges in the structure
+     * @modifies this
+     * @effects commits this to any recording that wants it
+     */
+    void finish(String structure, long nodes, long edges) {
+        this.end();
+        if (this.shouldCommit()) {
+            this.structure = structure;
+            this.nodes = nodes;
+            this.edges = edges;
+            this.commit();
+        }
+    }
+}
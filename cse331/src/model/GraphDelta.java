@@ -0,0 +1,172 @@
+package model;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import graphStructure.Edge;
+
+/**
+ * A GraphDelta records the changes made to a graph of Double labeled edges,
+ * so structures built from the graph can update only the parts that changed.
+ * Besides added and removed nodes and edges it records touched nodes, whose
+ * edges did not change but whose role did, such as a node that became the
+ * location of a building. Changes that undo each other cancel out, so the
+ * delta only holds the net change.
+ *
+ * @author WP
+ *
+ */
+public class GraphDelta<T> {
+
+    private final Set<T> addedNodes;
+    private final Set<T> removedNodes;
+    private final Set<Edge<T, Double>> addedEdges;
+    private final Set<Edge<T, Double>> removedEdges;
+    private final Set<T> touched;
+
+    // Abstraction function: the graph gained this.addedNodes and
+    // this.addedEdges, lost this.removedNodes and this.removedEdges, and the
+    // nodes in this.touched changed in some other way.
+
+    // Representation Invariant:
+    // none of the fields are null,
+    // this.addedNodes and this.removedNodes are disjoint,
+    // this.addedEdges and this.removedEdges are disjoint
+
+    /**
+     * constructor
+     *
+     * @effects creates a delta with no changes
+     */
+    public GraphDelta() {
+        this.addedNodes = new HashSet<T>();
+        this.removedNodes = new HashSet<T>();
+        this.addedEdges = new LinkedHashSet<Edge<T, Double>>();
+        this.removedEdges = new LinkedHashSet<Edge<T, Double>>();
+        this.touched = new HashSet<T>();
+    }
+
+    /**
+     * @param node
+     *            node that was added
+     * @modifies this
+     * @effects records that node was added
+     */
+    public void nodeAdded(T node) {
+        if (!this.removedNodes.remove(node)) {
+            this.addedNodes.add(node);
+        }
+    }
+
+    /**
+     * @param node
+     *            node that was removed
+     * @modifies this
+     * @effects records that node was removed
+     */
+    public void nodeRemoved(T node) {
+        if (!this.addedNodes.remove(node)) {
+            this.removedNodes.add(node);
+        }
+    }
+
+    /**
+     * @param e
+     *            edge that was added
+     * @modifies this
+     * @effects records that e was added
+     */
+    public void edgeAdded(Edge<T, Double> e) {
+        if (!this.removedEdges.remove(e)) {
+            this.addedEdges.add(e);
+        }
+    }
+
+    /**
+     * @param e
+     *            edge that was removed
+     * @modifies this
+     * @effects records that e was removed
+     */
+    public void edgeRemoved(Edge<T, Double> e) {
+        if (!this.addedEdges.remove(e)) {
+            this.removedEdges.add(e);
+        }
+    }
+
+    /**
+     * @param node
+     *            node whose role changed
+     * @modifies this
+     * @effects records that node changed
+     */
+    public void touch(T node) {
+        this.touched.add(node);
+    }
+
+    /**
+     * @return nodes added to the graph
+     */
+    public Set<T> getAddedNodes() {
+        return Collections.unmodifiableSet(this.addedNodes);
+    }
+
+    /**
+     * @return nodes removed from the graph
+     */
+    public Set<T> getRemovedNodes() {
+        return Collections.unmodifiableSet(this.removedNodes);
+    }
+
+    /**
+     * @return edges added to the graph, in order
+     */
+    public Set<Edge<T, Double>> getAddedEdges() {
+        return Collections.unmodifiableSet(this.addedEdges);
+    }
+
+    /**
+     * @return edges removed from the graph, in order
+     */
+    public Set<Edge<T, Double>> getRemovedEdges() {
+        return Collections.unmodifiableSet(this.removedEdges);
+    }
+
+    /**
+     * @return nodes whose role changed
+     */
+    public Set<T> getTouchedNodes() {
+        return Collections.unmodifiableSet(this.touched);
+    }
+
+    /**
+     * returns every node the delta affects: added, removed and touched nodes
+     * and both ends of every added or removed edge
+     *
+     * @return a new set of the affected nodes
+     */
+    public Set<T> getAffectedNodes() {
+        Set<T> result = new HashSet<T>(this.addedNodes);
+        result.addAll(this.removedNodes);
+        result.addAll(this.touched);
+        for (Edge<T, Double> e : this.addedEdges) {
+            result.add(e.getStart());
+            result.add(e.getEnd());
+        }
+        for (Edge<T, Double> e : this.removedEdges) {
+            result.add(e.getStart());
+            result.add(e.getEnd());
+        }
+        return result;
+    }
+
+    /**
+     * @return true iff nothing changed
+     */
+    public boolean isEmpty() {
+        return this.addedNodes.isEmpty() && this.removedNodes.isEmpty() && this.addedEdges.isEmpty()
+                && this.removedEdges.isEmpty() && this.touched.isEmpty();
+    }
+}
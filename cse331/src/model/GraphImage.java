@@ -0,0 +1,395 @@
+package model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import graphStructure.Graph;
+
+/**
+ * Reads and writes compiled campus data. An image holds the buildings, the
+ * coordinates of every node and the paths in compressed sparse row form, so
+ * a CampusGraph can be loaded with one read instead of parsing the text data
+ * files.
+ *
+ * The file starts with a header of: magic number, format version, the
+ * length, last modified time and CRC32 of each source file, the length and
+ * CRC32 of the payload, and a CRC32 of the header itself. The payload is the
+ * node count, x coords, y coords, edge offsets, edge count, edge targets,
+ * edge weights, building count, then each building's short name, long name
+ * (both as a length and UTF-8 bytes), x coord and y coord. All numbers are
+ * big endian.
+ *
+ * @author WP
+ *
+ */
+public class GraphImage {
+
+    // identifies image files, "CGIM"
+    private static final int MAGIC = 0x4347494D;
+    // changes whenever the layout changes
+    static final int VERSION = 1;
+    // bytes before the payload
+    private static final int HEADER_SIZE = 4 + 4 + 6 * 8 + 4 + 8 + 8;
+
+    // not an ADT, only static methods
+    private GraphImage() {
+    }
+
+    /**
+     * tool that compiles text data files into an image. Usage:
+     * GraphImage [buildingFile pathFile [imageFile]], with paths relative to
+     * the project. Defaults to the campus data files.
+     *
+     * @param args
+     *            command line args
+     */
+    public static void main(String[] args) {
+        String buildings = args.length >= 2 ? args[0] : CampusGraph.dataFile("campus_buildings.dat");
+        String paths = args.length >= 2 ? args[1] : CampusGraph.dataFile("campus_paths.dat");
+        String image = args.length >= 3 ? args[2] : GraphImage.imageFile(paths);
+        try {
+            GraphImage.compile(buildings, paths, image);
+            System.out.println("Wrote " + image);
+        } catch (MalformedDataException | IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * returns the default image file for a path data file
+     *
+     * @param pathFile
+     *            path of the path data file
+     * @return pathFile with ".dat" replaced by ".img"
+     * @throws IllegalArgumentException
+     *             if pathFile is null
+     */
+    public static String imageFile(String pathFile) {
+        if (pathFile == null) {
+            throw new IllegalArgumentException();
+        }
+        String base = pathFile.endsWith(".dat") ? pathFile.substring(0, pathFile.length() - 4) : pathFile;
+        return base + ".img";
+    }
+
+    /**
+     * compiles text data files into an image
+     *
+     * @param buildingFile
+     *            path of the building data file
+     * @param pathFile
+     *            path of the path data file
+     * @param imageFile
+     *            path to write the image to
+     * @requires buildingFile and pathFile exist
+     * @effects writes an image of the data files to imageFile, replacing it
+     *          atomically if it exists
+     * @throws MalformedDataException
+     *             if the data files are not of proper format
+     * @throws IOException
+     *             if the files cannot be read or written
+     * @throws IllegalArgumentException
+     *             if args are null
+     */
+    public static void compile(String buildingFile, String pathFile, String imageFile)
+            throws MalformedDataException, IOException {
+        if (buildingFile == null || pathFile == null || imageFile == null) {
+            throw new IllegalArgumentException();
+        }
+        CampusData data = CampusData.parse(buildingFile, pathFile);
+        CompactGraph graph = data.getCompact();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(graph.nodeCount() * 24 + graph.edgeCount() * 12);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(graph.nodeCount());
+        for (int i = 0; i < graph.nodeCount(); i++) {
+            out.writeDouble(graph.x(i));
+        }
+        for (int i = 0; i < graph.nodeCount(); i++) {
+            out.writeDouble(graph.y(i));
+        }
+        for (int i = 0; i <= graph.nodeCount(); i++) {
+            out.writeInt(i < graph.nodeCount() ? graph.firstEdge(i) : graph.edgeCount());
+        }
+        out.writeInt(graph.edgeCount());
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            out.writeInt(graph.target(e));
+        }
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            out.writeDouble(graph.weight(e));
+        }
+        Map<String, String> buildings = new TreeMap<String, String>(data.getShort2LongName());
+        out.writeInt(buildings.size());
+        for (String shortName : buildings.keySet()) {
+            GraphImage.writeString(out, shortName);
+            GraphImage.writeString(out, buildings.get(shortName));
+            PointD loc = data.getName2Loc().get(shortName);
+            out.writeDouble(loc.getX());
+            out.writeDouble(loc.getY());
+        }
+        out.flush();
+        byte[] payload = bytes.toByteArray();
+
+        ByteBuffer header = ByteBuffer.allocate(GraphImage.HEADER_SIZE);
+        header.putInt(GraphImage.MAGIC);
+        header.putInt(GraphImage.VERSION);
+        GraphImage.putSource(header, new File(buildingFile));
+        GraphImage.putSource(header, new File(pathFile));
+        header.putInt(payload.length);
+        header.putLong(GraphImage.crc(payload, 0, payload.length));
+        header.putLong(GraphImage.crc(header.array(), 0, header.position()));
+
+        Path target = Paths.get(imageFile);
+        Path temp = Paths.get(imageFile + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            header.flip();
+            ByteBuffer body = ByteBuffer.wrap(payload);
+            while (header.hasRemaining() || body.hasRemaining()) {
+                channel.write(new ByteBuffer[] { header, body });
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * builds a CampusGraph from an image if it is up to date with its sources
+     *
+     * @param imageFile
+     *            path of the image
+     * @param buildingFile
+     *            path of the building data file the image was compiled from
+     * @param pathFile
+     *            path of the path data file the image was compiled from
+     * @return a CampusGraph of the data in the image, or null if the image is
+     *         missing, corrupt, of another version or older than either data
+     *         file
+     * @throws IllegalArgumentException
+     *             if args are null
+     */
+    public static CampusGraph read(String imageFile, String buildingFile, String pathFile) {
+        CampusData data = GraphImage.load(imageFile, buildingFile, pathFile);
+        return data == null ? null : new CampusGraph(data);
+    }
+
+    /**
+     * loads campus data from an image if it is up to date with its sources
+     *
+     * @param imageFile
+     *            path of the image
+     * @param buildingFile
+     *            path of the building data file the image was compiled from
+     * @param pathFile
+     *            path of the path data file the image was compiled from
+     * @return the data in the image, or null if the image is missing,
+     *         corrupt, of another version or older than either data file
+     * @throws IllegalArgumentException
+     *             if args are null
+     */
+    static CampusData load(String imageFile, String buildingFile, String pathFile) {
+        if (imageFile == null || buildingFile == null || pathFile == null) {
+            throw new IllegalArgumentException();
+        }
+        File file = new File(imageFile);
+        if (!file.isFile() || file.length() < GraphImage.HEADER_SIZE) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buf.getInt(0) != GraphImage.MAGIC || buf.getInt(4) != GraphImage.VERSION) {
+                return null;
+            }
+            byte[] header = new byte[GraphImage.HEADER_SIZE - 8];
+            buf.get(header);
+            if (GraphImage.crc(header, 0, header.length) != buf.getLong()) {
+                return null;
+            }
+            ByteBuffer fields = ByteBuffer.wrap(header);
+            fields.position(8);
+            if (!GraphImage.isCurrent(fields, new File(buildingFile))
+                    || !GraphImage.isCurrent(fields, new File(pathFile))) {
+                return null;
+            }
+            int length = fields.getInt();
+            long payloadCrc = fields.getLong();
+            if (length != buf.remaining()) {
+                return null;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buf.duplicate());
+            if (crc.getValue() != payloadCrc) {
+                return null;
+            }
+            return GraphImage.readPayload(buf);
+        } catch (IOException | RuntimeException e) {
+            // an unreadable image is the same as no image
+            return null;
+        }
+    }
+
+    /**
+     * reads the payload of an image
+     *
+     * @param buf
+     *            image positioned at the start of the payload
+     * @return the campus data in the payload
+     */
+    private static CampusData readPayload(ByteBuffer buf) {
+        int n = buf.getInt();
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        buf.asDoubleBuffer().get(xs);
+        buf.position(buf.position() + 8 * n);
+        buf.asDoubleBuffer().get(ys);
+        buf.position(buf.position() + 8 * n);
+        int[] offsets = new int[n + 1];
+        buf.asIntBuffer().get(offsets);
+        buf.position(buf.position() + 4 * (n + 1));
+        int m = buf.getInt();
+        int[] targets = new int[m];
+        buf.asIntBuffer().get(targets);
+        buf.position(buf.position() + 4 * m);
+        double[] weights = new double[m];
+        buf.asDoubleBuffer().get(weights);
+        buf.position(buf.position() + 8 * m);
+        CompactGraph compact = new CompactGraph(xs, ys, offsets, targets, weights);
+
+        PointDPool pool = new PointDPool(n);
+        for (int i = 0; i < n; i++) {
+            pool.intern(compact.node(i));
+        }
+        int count = buf.getInt();
+        Map<String, String> short2LongName = new HashMap<String, String>();
+        Map<String, PointD> name2Loc = new HashMap<String, PointD>();
+        for (int i = 0; i < count; i++) {
+            String shortName = GraphImage.readString(buf);
+            String longName = GraphImage.readString(buf);
+            double x = buf.getDouble();
+            double y = buf.getDouble();
+            short2LongName.put(shortName, longName);
+            name2Loc.put(shortName, pool.intern(x, y));
+        }
+        Graph<PointD, Double> graph = compact.toGraph();
+        return new CampusData(short2LongName, name2Loc, graph, pool, compact);
+    }
+
+    /**
+     * writes the length, last modified time and CRC32 of a source file
+     *
+     * @param header
+     *            buffer to write to
+     * @param source
+     *            the source file
+     * @modifies header
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    private static void putSource(ByteBuffer header, File source) throws IOException {
+        header.putLong(source.length());
+        header.putLong(source.lastModified());
+        header.putLong(GraphImage.crc(source));
+    }
+
+    /**
+     * checks a source file against the length, time and CRC32 recorded for it.
+     * A file whose time changed but whose contents did not is still current.
+     *
+     * @param fields
+     *            header positioned at the source's fields
+     * @param source
+     *            the source file
+     * @modifies fields
+     * @effects moves fields past the source's fields
+     * @return true iff source still has the recorded contents
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    private static boolean isCurrent(ByteBuffer fields, File source) throws IOException {
+        long length = fields.getLong();
+        long modified = fields.getLong();
+        long crc = fields.getLong();
+        if (!source.isFile() || source.length() != length) {
+            return false;
+        }
+        return source.lastModified() == modified || GraphImage.crc(source) == crc;
+    }
+
+    /**
+     * @param bytes
+     *            bytes to check
+     * @param from
+     *            first byte
+     * @param to
+     *            one past the last byte
+     * @return CRC32 of the range
+     */
+    private static long crc(byte[] bytes, int from, int to) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, from, to - from);
+        return crc.getValue();
+    }
+
+    /**
+     * @param file
+     *            file to check
+     * @return CRC32 of the contents of file
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    private static long crc(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] chunk = new byte[1 << 16];
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(chunk)) > 0) {
+                crc.update(chunk, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * writes a string as its UTF-8 length then bytes
+     *
+     * @param out
+     *            stream to write to
+     * @param s
+     *            string to write
+     * @throws IOException
+     *             if out cannot be written
+     */
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    /**
+     * reads a string written by writeString
+     *
+     * @param buf
+     *            buffer positioned at the string
+     * @return the string
+     */
+    private static String readString(ByteBuffer buf) {
+        byte[] b = new byte[buf.getInt()];
+        buf.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
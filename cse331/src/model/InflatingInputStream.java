@@ -0,0 +1,180 @@
+package model;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * An InflatingInputStream reads a compressed file, decompressing it on a
+ * separate thread. The thread hands chunks of decompressed bytes to the reader
+ * through a small bounded queue, so reading the file, inflating it and parsing
+ * the result all overlap, while no more than a few chunks are ever held in
+ * memory. Files ending in .gz are read as gzip and all others as zlib
+ * compressed deflate data.
+ *
+ * @author WP
+ *
+ */
+final class InflatingInputStream extends InputStream {
+
+    // size of the chunks handed to the reader
+    private static final int CHUNK_SIZE = 64 * 1024;
+    // number of chunks that can wait for the reader
+    private static final int DEPTH = 4;
+    // marks the end of the data
+    private static final byte[] END = new byte[0];
+
+    // chunks inflated but not yet read
+    private final BlockingQueue<byte[]> queue;
+    // thread inflating the file
+    private final Thread thread;
+    // error the thread stopped on, if any
+    private volatile IOException error;
+
+    // chunk being read, and the index of its next byte
+    private byte[] chunk;
+    private int pos;
+
+    // Abstraction function: this is the decompressed contents of the file,
+    // of which the bytes before this.pos in this.chunk have been read, and
+    // the bytes of this.queue and of the rest of the file have not.
+
+    // Representation Invariant:
+    // this.queue and this.thread are not null,
+    // 0 <= this.pos <= this.chunk.length if this.chunk is not null
+
+    /**
+     * constructor, opens a file and starts decompressing it
+     *
+     * @param filename
+     *            compressed file to read
+     * @effects starts a daemon thread that inflates filename into this
+     * @throws IOException
+     *             if the file cannot be opened
+     * @throws IllegalArgumentException
+     *             if filename is null
+     */
+    InflatingInputStream(String filename) throws IOException {
+        if (filename == null) {
+            throw new IllegalArgumentException();
+        }
+        final InputStream file = new FileInputStream(filename);
+        final boolean gzip = filename.endsWith(".gz");
+        this.queue = new ArrayBlockingQueue<byte[]>(InflatingInputStream.DEPTH);
+        this.thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                InflatingInputStream.this.inflate(file, gzip);
+            }
+        }, "campus-inflater");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * checks if a file is compressed
+     *
+     * @param filename
+     *            name of the file
+     * @return true iff filename ends in .gz or .deflate
+     */
+    static boolean isCompressed(String filename) {
+        return filename.endsWith(".gz") || filename.endsWith(".deflate");
+    }
+
+    /**
+     * inflates a file into this.queue, ending with END. Any error is left in
+     * this.error for the reader.
+     *
+     * @param file
+     *            compressed bytes to read, closed when done
+     * @param gzip
+     *            true if file is gzip, false if it is zlib deflate data
+     */
+    private void inflate(InputStream file, boolean gzip) {
+        try {
+            try (InputStream raw = file;
+                    InputStream in = gzip ? new GZIPInputStream(raw, InflatingInputStream.CHUNK_SIZE)
+                            : new InflaterInputStream(new BufferedInputStream(raw, InflatingInputStream.CHUNK_SIZE))) {
+                int n;
+                do {
+                    byte[] buf = new byte[InflatingInputStream.CHUNK_SIZE];
+                    n = 0;
+                    int read;
+                    while (n < buf.length && (read = in.read(buf, n, buf.length - n)) > 0) {
+                        n += read;
+                    }
+                    if (n > 0) {
+                        this.queue.put(n == buf.length ? buf : Arrays.copyOf(buf, n));
+                    }
+                } while (n == InflatingInputStream.CHUNK_SIZE);
+            } catch (IOException e) {
+                this.error = e;
+            }
+            this.queue.put(InflatingInputStream.END);
+        } catch (InterruptedException e) {
+            // the reader closed this early
+        }
+    }
+
+    /**
+     * makes sure there is an unread byte in this.chunk if any are left
+     *
+     * @return true iff there is a byte to read
+     * @throws IOException
+     *             if the file could not be read or inflated
+     */
+    private boolean fill() throws IOException {
+        while (this.chunk != InflatingInputStream.END && (this.chunk == null || this.pos == this.chunk.length)) {
+            try {
+                this.chunk = this.queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while waiting for data", e);
+            }
+            this.pos = 0;
+        }
+        if (this.chunk == InflatingInputStream.END && this.error != null) {
+            throw this.error;
+        }
+        return this.chunk != InflatingInputStream.END;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!this.fill()) {
+            return -1;
+        }
+        return this.chunk[this.pos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!this.fill()) {
+            return -1;
+        }
+        int n = Math.min(len, this.chunk.length - this.pos);
+        System.arraycopy(this.chunk, this.pos, b, off, n);
+        this.pos += n;
+        return n;
+    }
+
+    /**
+     * stops the inflating thread and drops any chunks it left
+     */
+    @Override
+    public void close() {
+        this.thread.interrupt();
+        this.queue.clear();
+        this.chunk = InflatingInputStream.END;
+    }
+}
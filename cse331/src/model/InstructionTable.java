@@ -0,0 +1,204 @@
+package model;
+
+import graphStructure.Edge;
+
+/**
+ * An InstructionTable holds the walking directions for every edge of a
+ * CompactGraph, worked out once when the table is built: the compass
+ * direction of the edge, its length rounded to feet and the rounded
+ * coordinates of its end. Describing a route is then only array lookups.
+ *
+ * @author WP
+ *
+ */
+public class InstructionTable {
+    // switch for checking rep invariant
+    private static final boolean CHECK = false;
+
+    // compass directions, indexed by the values in this.octants
+    private static final String[] DIRECTIONS = { "E", "SE", "S", "SW", "W", "NW", "N", "NE" };
+
+    // graph the edge ids refer to
+    private final CompactGraph graph;
+    // index into DIRECTIONS of each edge
+    private final byte[] octants;
+    // rounded length of each edge
+    private final long[] lengths;
+    // rounded coordinates of each node
+    private final long[] roundedX;
+    private final long[] roundedY;
+
+    // Abstraction function: for every edge e of this.graph, walking e means
+    // walking this.lengths[e] feet DIRECTIONS[this.octants[e]] to
+    // (this.roundedX[t], this.roundedY[t]) where t is the target of e.
+
+    // Representation Invariant:
+    // none of the fields are null,
+    // this.octants and this.lengths have one entry per edge of this.graph,
+    // this.roundedX and this.roundedY have one entry per node of this.graph,
+    // every octant is between 0 and 7
+
+    /**
+     * constructor, compiles directions for all edges of graph
+     *
+     * @param graph
+     *            graph to describe
+     * @effects creates a table of directions for every edge of graph
+     * @throws IllegalArgumentException
+     *             if graph is null
+     */
+    public InstructionTable(CompactGraph graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException();
+        }
+        this.graph = graph;
+        int n = graph.nodeCount();
+        this.roundedX = new long[n];
+        this.roundedY = new long[n];
+        for (int i = 0; i < n; i++) {
+            this.roundedX[i] = Math.round(graph.x(i));
+            this.roundedY[i] = Math.round(graph.y(i));
+        }
+        this.octants = new byte[graph.edgeCount()];
+        this.lengths = new long[graph.edgeCount()];
+        for (int u = 0; u < n; u++) {
+            for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                String dir = graph.node(u).relativeDirection(graph.node(graph.target(e)));
+                this.octants[e] = InstructionTable.octant(dir);
+                this.lengths[e] = Math.round(graph.weight(e));
+            }
+        }
+        this.checkRep();
+    }
+
+    /**
+     * @param dir
+     *            a compass direction from PointD.relativeDirection
+     * @return index of dir in DIRECTIONS
+     */
+    private static byte octant(String dir) {
+        for (byte i = 0; i < InstructionTable.DIRECTIONS.length; i++) {
+            if (InstructionTable.DIRECTIONS[i].equals(dir)) {
+                return i;
+            }
+        }
+        throw new RuntimeException("unknown direction " + dir);
+    }
+
+    /**
+     * @return the graph whose edge ids this table uses
+     */
+    public CompactGraph getGraph() {
+        return this.graph;
+    }
+
+    /**
+     * @param edge
+     *            id of the edge
+     * @requires 0 &lt;= edge &lt; graph.edgeCount()
+     * @return compass direction of the edge
+     */
+    public String direction(int edge) {
+        return InstructionTable.DIRECTIONS[this.octants[edge]];
+    }
+
+    /**
+     * @param edge
+     *            id of the edge
+     * @requires 0 &lt;= edge &lt; graph.edgeCount()
+     * @return length of the edge rounded to the nearest foot
+     */
+    public long length(int edge) {
+        return this.lengths[edge];
+    }
+
+    /**
+     * @param edge
+     *            id of the edge
+     * @requires 0 &lt;= edge &lt; graph.edgeCount()
+     * @return rounded x coord of the end of the edge
+     */
+    public long endX(int edge) {
+        return this.roundedX[this.graph.target(edge)];
+    }
+
+    /**
+     * @param edge
+     *            id of the edge
+     * @requires 0 &lt;= edge &lt; graph.edgeCount()
+     * @return rounded y coord of the end of the edge
+     */
+    public long endY(int edge) {
+        return this.roundedY[this.graph.target(edge)];
+    }
+
+    /**
+     * appends the walking direction for an edge, in the form
+     * "\tWalk 12 feet NE to (1903, 1952)"
+     *
+     * @param sb
+     *            builder to append to
+     * @param edge
+     *            id of the edge
+     * @requires 0 &lt;= edge &lt; graph.edgeCount()
+     * @modifies sb
+     * @effects appends the direction for edge, with no line break
+     * @return sb
+     */
+    public StringBuilder appendInstruction(StringBuilder sb, int edge) {
+        int t = this.graph.target(edge);
+        return sb.append("\tWalk ").append(this.lengths[edge]).append(" feet ")
+                .append(InstructionTable.DIRECTIONS[this.octants[edge]]).append(" to (").append(this.roundedX[t])
+                .append(", ").append(this.roundedY[t]).append(')');
+    }
+
+    /**
+     * appends the walking direction for an edge, in the form
+     * "\tWalk 12 feet NE to (1903, 1952)". Edges that are not in the graph
+     * are worked out directly.
+     *
+     * @param sb
+     *            builder to append to
+     * @param e
+     *            the edge
+     * @modifies sb
+     * @effects appends the direction for e, with no line break
+     * @return sb
+     * @throws IllegalArgumentException
+     *             if args are null
+     */
+    public StringBuilder appendInstruction(StringBuilder sb, Edge<PointD, Double> e) {
+        if (sb == null || e == null) {
+            throw new IllegalArgumentException();
+        }
+        int edge = this.graph.edgeId(e);
+        if (edge >= 0) {
+            return this.appendInstruction(sb, edge);
+        }
+        PointD endP = e.getEnd();
+        return sb.append("\tWalk ").append(Math.round(e.getLabel())).append(" feet ")
+                .append(e.getStart().relativeDirection(endP)).append(" to (").append(Math.round(endP.getX()))
+                .append(", ").append(Math.round(endP.getY())).append(')');
+    }
+
+    /**
+     * checks rep invariant. tables must match the graph and octants must be
+     * valid directions.
+     */
+    private void checkRep() {
+        if (!InstructionTable.CHECK) {
+            return;
+        }
+        if (this.octants.length != this.graph.edgeCount() || this.lengths.length != this.graph.edgeCount()) {
+            throw new RuntimeException("edge tables do not match the graph");
+        }
+        if (this.roundedX.length != this.graph.nodeCount() || this.roundedY.length != this.graph.nodeCount()) {
+            throw new RuntimeException("node tables do not match the graph");
+        }
+        for (byte b : this.octants) {
+            if (b < 0 || b >= InstructionTable.DIRECTIONS.length) {
+                throw new RuntimeException("bad octant");
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A LatencyHistogram counts durations in log scaled buckets, the way HDR
+ * histograms do: each power of two is split into SUB_BUCKETS equal buckets,
+ * so a recorded value is known to within 1 / SUB_BUCKETS of itself whatever
+ * its size, and every value a long can hold fits in under 500 buckets.
+ * Recording is lock free and never allocates, so any number of threads can
+ * record at once. Reads made while others record may be slightly out of date
+ * but are never torn.
+ *
+ * @author WP
+ *
+ */
+public final class LatencyHistogram {
+    // switch for checking rep invariant
+    private static final boolean CHECK = false;
+
+    // bits of each value kept below its leading one bit
+    private static final int PRECISION = 3;
+    // buckets per power of two
+    private static final int SUB_BUCKETS = 1 << LatencyHistogram.PRECISION;
+    // enough buckets for any non negative long
+    private static final int BUCKETS = (64 - LatencyHistogram.PRECISION) * LatencyHistogram.SUB_BUCKETS;
+
+    // number of values in each bucket
+    private final AtomicLongArray counts;
+    // number of values, their sum and the largest
+    private final AtomicLong total;
+    private final AtomicLong sum;
+    private final AtomicLong max;
+
+    // Abstraction function: this holds this.total values adding up to
+    // this.sum, the largest being this.max, of which this.counts[i] lie
+    // between lowest(i) and lowest(i + 1) - 1.
+
+    // Representation Invariant:
+    // none of the fields are null,
+    // this.counts has BUCKETS entries, none negative
+
+    /**
+     * constructor
+     *
+     * @effects creates an empty histogram
+     */
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(LatencyHistogram.BUCKETS);
+        this.total = new AtomicLong();
+        this.sum = new AtomicLong();
+        this.max = new AtomicLong();
+        this.checkRep();
+    }
+
+    /**
+     * finds the bucket of a value
+     *
+     * @param value
+     *            non negative value
+     * @return index of the bucket holding value
+     */
+    static int bucket(long value) {
+        if (value < LatencyHistogram.SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - LatencyHistogram.PRECISION;
+        int sub = (int) ((value >>> shift) & (LatencyHistogram.SUB_BUCKETS - 1));
+        return (shift + 1) * LatencyHistogram.SUB_BUCKETS + sub;
+    }
+
+    /**
+     * finds the smallest value in a bucket
+     *
+     * @param bucket
+     *            index of the bucket
+     * @return smallest value that falls in bucket
+     */
+    static long lowest(int bucket) {
+        if (bucket < LatencyHistogram.SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / LatencyHistogram.SUB_BUCKETS - 1;
+        return (long) (LatencyHistogram.SUB_BUCKETS + bucket % LatencyHistogram.SUB_BUCKETS) << shift;
+    }
+
+    /**
+     * records one value
+     *
+     * @param value
+     *            value to record; negative values count as zero
+     * @modifies this
+     * @effects adds value to this
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        this.counts.incrementAndGet(LatencyHistogram.bucket(v));
+        this.total.incrementAndGet();
+        this.sum.addAndGet(v);
+        long known = this.max.get();
+        while (v > known && !this.max.compareAndSet(known, v)) {
+            known = this.max.get();
+        }
+    }
+
+    /**
+     * number of values recorded
+     *
+     * @return number of values in this
+     */
+    public long count() {
+        return this.total.get();
+    }
+
+    /**
+     * mean of the values recorded
+     *
+     * @return mean of the values, or 0 if there are none
+     */
+    public double mean() {
+        long n = this.total.get();
+        return n == 0 ? 0 : (double) this.sum.get() / n;
+    }
+
+    /**
+     * largest value recorded
+     *
+     * @return largest value, or 0 if there are none
+     */
+    public long max() {
+        return this.max.get();
+    }
+
+    /**
+     * estimates a percentile of the values
+     *
+     * @param percent
+     *            percentile to find, from 0 to 100
+     * @return the middle of the bucket holding the percentile, no more than
+     *         the largest value, or the largest value for the last one, or 0
+     *         if there are no values
+     * @throws IllegalArgumentException
+     *             if percent is not between 0 and 100
+     */
+    public long percentile(double percent) {
+        if (!(percent >= 0 && percent <= 100)) {
+            throw new IllegalArgumentException();
+        }
+        long n = this.total.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(n * percent / 100));
+        if (rank >= n) {
+            return this.max.get();
+        }
+        long seen = 0;
+        for (int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+            seen += this.counts.get(i);
+            if (seen >= rank) {
+                long low = LatencyHistogram.lowest(i);
+                long high = i + 1 < LatencyHistogram.BUCKETS ? LatencyHistogram.lowest(i + 1) : Long.MAX_VALUE;
+                return Math.min(low + (high - low) / 2, this.max.get());
+            }
+        }
+        // values recorded while scanning
+        return this.max.get();
+    }
+
+    /**
+     * forgets every value
+     *
+     * @modifies this
+     * @effects this is empty
+     */
+    public void reset() {
+        for (int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+            this.counts.set(i, 0);
+        }
+        this.total.set(0);
+        this.sum.set(0);
+        this.max.set(0);
+    }
+
+    /**
+     * checks rep invariant. there must be a count for every bucket.
+     */
+    private void checkRep() {
+        if (!LatencyHistogram.CHECK) {
+            return;
+        }
+        if (this.counts.length() != LatencyHistogram.BUCKETS) {
+            throw new RuntimeException("wrong number of buckets");
+        }
+        for (int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+            if (this.counts.get(i) < 0) {
+                throw new RuntimeException("negative count");
+            }
+        }
+    }
+}
@@ -0,0 +1,563 @@
+package model;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A LoadGenerator measures how many route queries a campus model can answer
+ * and how fast. It is closed loop: each of a number of worker threads sends
+ * a query, waits for the answer and then sends the next, with the queries
+ * picked by a QueryMix. After a warm up, it reports the throughput and the
+ * latency percentiles of the queries answered.
+ *
+ * Two latencies are kept. Service time runs from when a query was sent to
+ * when it was answered. Response time corrects for coordinated omission, the
+ * queries a closed loop never sends while it waits on a slow one. With a
+ * target rate, each worker has a schedule, and response time runs from when
+ * the query should have been sent. Without one, the expected interval is the
+ * mean service time seen in the warm up, and every query slower than that
+ * also records the queries that would have waited behind it, as
+ * HdrHistogram's recordValueWithExpectedInterval does.
+ *
+ * Run main for the command line, for example
+ *
+ * <pre>
+ * java model.LoadGenerator --threads 8 --mix zipf --seconds 30
+ * java model.LoadGenerator --mix replay --log queries.txt --rate 20000
+ * java model.LoadGenerator --buildings synthetic_buildings.dat --paths synthetic_paths.dat
+ * </pre>
+ *
+ * @author WP
+ *
+ */
+public final class LoadGenerator {
+    // switch for checking rep invariant
+    private static final boolean CHECK = false;
+
+    // the model queried
+    private final CampusModel model;
+    // picks the queries
+    private final QueryMix mix;
+    // number of worker threads
+    private final int threads;
+    // seed of the first worker's random numbers
+    private final long seed;
+
+    // Abstraction function: this loads this.model with the queries of
+    // this.mix from this.threads workers, worker i drawing random numbers
+    // seeded with this.seed + i.
+
+    // Representation Invariant:
+    // this.model and this.mix are not null, this.threads > 0
+
+    /**
+     * constructor
+     *
+     * @param model
+     *            model to query
+     * @param mix
+     *            picks the queries
+     * @param threads
+     *            number of worker threads
+     * @param seed
+     *            seed of the random numbers, so runs can be repeated
+     * @effects creates a generator that has not run
+     * @throws IllegalArgumentException
+     *             if model or mix is null or threads is not positive
+     */
+    public LoadGenerator(CampusModel model, QueryMix mix, int threads, long seed) {
+        if (model == null || mix == null || threads <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.model = model;
+        this.mix = mix;
+        this.threads = threads;
+        this.seed = seed;
+        this.checkRep();
+    }
+
+    /**
+     * makes a mix of building pairs picked uniformly at random
+     *
+     * @param buildings
+     *            abbreviated names of the buildings to pick from
+     * @return mix of uniform pairs
+     * @throws IllegalArgumentException
+     *             if buildings is null or empty
+     */
+    public static QueryMix uniform(List<String> buildings) {
+        if (buildings == null || buildings.isEmpty()) {
+            throw new IllegalArgumentException();
+        }
+        final String[] names = buildings.toArray(new String[buildings.size()]);
+        return new QueryMix() {
+            @Override
+            public String[] next(Random random) {
+                return new String[] { names[random.nextInt(names.length)], names[random.nextInt(names.length)] };
+            }
+        };
+    }
+
+    /**
+     * makes a mix where a few buildings are much more popular than the rest.
+     * The buildings are ranked in a random order fixed by seed, and each end
+     * of a query is the building of rank k with probability proportional to
+     * 1 / k^exponent.
+     *
+     * @param buildings
+     *            abbreviated names of the buildings to pick from
+     * @param exponent
+     *            skew of the popularity, 0 for uniform; 1 is typical
+     * @param seed
+     *            seed of the ranking
+     * @return mix of Zipf distributed pairs
+     * @throws IllegalArgumentException
+     *             if buildings is null or empty or exponent is negative
+     */
+    public static QueryMix zipf(List<String> buildings, double exponent, long seed) {
+        if (buildings == null || buildings.isEmpty() || !(exponent >= 0)) {
+            throw new IllegalArgumentException();
+        }
+        List<String> ranked = new ArrayList<String>(buildings);
+        Collections.shuffle(ranked, new Random(seed));
+        final String[] names = ranked.toArray(new String[ranked.size()]);
+        // cumulative probability of the first k + 1 ranks
+        final double[] cumulative = new double[names.length];
+        double total = 0;
+        for (int k = 0; k < names.length; k++) {
+            total += 1 / Math.pow(k + 1, exponent);
+            cumulative[k] = total;
+        }
+        for (int k = 0; k < names.length; k++) {
+            cumulative[k] /= total;
+        }
+        return new QueryMix() {
+            @Override
+            public String[] next(Random random) {
+                return new String[] { this.pick(random), this.pick(random) };
+            }
+
+            /**
+             * picks a building by its popularity
+             */
+            private String pick(Random random) {
+                double u = random.nextDouble();
+                int low = 0;
+                int high = names.length - 1;
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+                    if (cumulative[mid] < u) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+                return names[low];
+            }
+        };
+    }
+
+    /**
+     * makes a mix replaying a log of queries in order, starting over at the
+     * end. The workers share one position in the log, so together they send
+     * the queries in about the order they were logged.
+     *
+     * @param queries
+     *            logged queries, each the start and end building
+     * @return mix replaying the log
+     * @throws IllegalArgumentException
+     *             if queries is null or empty
+     */
+    public static QueryMix replay(List<String[]> queries) {
+        if (queries == null || queries.isEmpty()) {
+            throw new IllegalArgumentException();
+        }
+        final String[][] log = queries.toArray(new String[queries.size()][]);
+        final AtomicLong position = new AtomicLong();
+        return new QueryMix() {
+            @Override
+            public String[] next(Random random) {
+                return log[(int) (position.getAndIncrement() % log.length)];
+            }
+        };
+    }
+
+    /**
+     * reads a query log in the format of View's batch mode: one query per
+     * line, the start and end building separated by a tab, skipping blank
+     * lines, lines starting with # and lines without a tab
+     *
+     * @param in
+     *            the log
+     * @return the queries of the log, in order
+     * @throws IOException
+     *             if in cannot be read
+     * @throws IllegalArgumentException
+     *             if in is null
+     */
+    public static List<String[]> readLog(Reader in) throws IOException {
+        if (in == null) {
+            throw new IllegalArgumentException();
+        }
+        BufferedReader reader = new BufferedReader(in);
+        List<String[]> queries = new ArrayList<String[]>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            int tab = line.indexOf('\t');
+            if (line.trim().length() == 0 || line.charAt(0) == '#' || tab < 0) {
+                continue;
+            }
+            queries.add(new String[] { line.substring(0, tab), line.substring(tab + 1) });
+        }
+        return queries;
+    }
+
+    /**
+     * warms up the model and then measures it
+     *
+     * @param warmupMillis
+     *            how long to warm up for, in milliseconds
+     * @param durationMillis
+     *            how long to measure for, in milliseconds
+     * @param rate
+     *            queries per second to aim for over all workers, or 0 to send
+     *            each query as soon as the last one is answered, correcting
+     *            stalls by the mean latency of the warm up, or not at all if
+     *            the warm up answered no queries
+     * @return what was measured
+     * @throws InterruptedException
+     *             if interrupted while waiting for the workers
+     * @throws IllegalArgumentException
+     *             if a time or the rate is negative, or durationMillis is 0
+     */
+    public Report run(long warmupMillis, long durationMillis, double rate) throws InterruptedException {
+        if (warmupMillis < 0 || durationMillis <= 0 || !(rate >= 0)) {
+            throw new IllegalArgumentException();
+        }
+        // nanoseconds between the queries of one worker
+        long interval = rate > 0 ? Math.max(1, Math.round(this.threads * 1e9 / rate)) : 0;
+        Report warmup = this.measure(warmupMillis, interval, interval);
+        long expected = interval;
+        if (rate == 0) {
+            // without a schedule, expect queries to take what they did in the
+            // warm up, and correct nothing if the warm up answered none
+            expected = warmup.getQueries() > 0 ? Math.max(1, Math.round(warmup.getServiceLatency().mean())) : 0;
+        }
+        return this.measure(durationMillis, interval, expected);
+    }
+
+    /**
+     * runs the workers for a while
+     *
+     * @param millis
+     *            how long to run for, in milliseconds
+     * @param interval
+     *            nanoseconds between the scheduled queries of a worker, or 0
+     *            for no schedule
+     * @param expected
+     *            nanoseconds a query is expected to take, for correcting
+     *            unscheduled runs, or 0 for no correction
+     * @return what was measured
+     * @throws InterruptedException
+     *             if interrupted while waiting for the workers
+     */
+    private Report measure(long millis, final long interval, final long expected) throws InterruptedException {
+        final LatencyHistogram service = new LatencyHistogram();
+        final LatencyHistogram response = new LatencyHistogram();
+        final AtomicLong errors = new AtomicLong();
+        final CountDownLatch start = new CountDownLatch(1);
+        final long[] window = new long[2];
+        final long length = millis * 1000000;
+        Thread[] workers = new Thread[this.threads];
+        for (int w = 0; w < workers.length; w++) {
+            final Random random = new Random(this.seed + w);
+            workers[w] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    LoadGenerator.this.work(random, window[0], window[1], interval, expected, service, response,
+                            errors);
+                }
+            }, "load-generator-" + w);
+            workers[w].setDaemon(true);
+            workers[w].start();
+        }
+        window[0] = System.nanoTime();
+        window[1] = window[0] + length;
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = Math.max(length, System.nanoTime() - window[0]);
+        return new Report(this.threads, elapsed, service, response, errors.get());
+    }
+
+    /**
+     * sends queries from one worker until the end of the run
+     *
+     * @param random
+     *            random numbers of the worker
+     * @param begin
+     *            System.nanoTime() at the start of the run
+     * @param end
+     *            System.nanoTime() at the end of the run
+     * @param interval
+     *            nanoseconds between scheduled queries, or 0 for none
+     * @param expected
+     *            nanoseconds a query is expected to take if unscheduled, or
+     *            0 for no correction
+     * @param service
+     *            where service times are recorded
+     * @param response
+     *            where response times are recorded
+     * @param errors
+     *            counts the queries the model rejected, such as those naming
+     *            a building it does not have
+     */
+    private void work(Random random, long begin, long end, long interval, long expected, LatencyHistogram service,
+            LatencyHistogram response, AtomicLong errors) {
+        // spread the workers' schedules over one interval
+        long intended = interval > 0 ? begin + (long) (random.nextDouble() * interval) : 0;
+        long now = System.nanoTime();
+        while (now < end) {
+            if (interval > 0 && intended > now) {
+                LockSupport.parkNanos(intended - now);
+                now = System.nanoTime();
+                if (now >= end) {
+                    return;
+                }
+            }
+            String[] query = this.mix.next(random);
+            long sent = System.nanoTime();
+            try {
+                this.model.findPath(query[0], query[1]);
+            } catch (IllegalArgumentException e) {
+                // counted, not timed, and the worker keeps going so the run
+                // has as many workers as reported
+                errors.incrementAndGet();
+                now = System.nanoTime();
+                intended += interval;
+                continue;
+            }
+            now = System.nanoTime();
+            long taken = now - sent;
+            service.record(taken);
+            if (interval > 0) {
+                response.record(now - intended);
+                intended += interval;
+            } else {
+                response.record(taken);
+                // no correction in the warm up, which finds what to expect
+                for (long missed = taken - expected; expected > 0 && missed >= expected; missed -= expected) {
+                    response.record(missed);
+                }
+            }
+        }
+    }
+
+    /**
+     * runs the generator from the command line. Options, all optional:
+     *
+     * <pre>
+     * --buildings FILE  buildings data file (campus_buildings.dat)
+     * --paths FILE      paths data file (campus_paths.dat)
+     * --engine NAME     graph to query CampusGraph, snapshot for CampusSnapshot
+     * --threads N       worker threads (number of processors)
+     * --mix NAME        uniform, zipf or replay (uniform)
+     * --zipf S          exponent of the zipf mix (1.0)
+     * --log FILE        query log for the replay mix
+     * --rate R          target queries per second, 0 for as fast as possible
+     * --warmup S        seconds of warm up (5)
+     * --seconds S       seconds measured (20)
+     * --seed N          seed of the random numbers (1)
+     * </pre>
+     *
+     * @param args
+     *            command line args
+     * @throws Exception
+     *             if the data or log cannot be read, or the run is interrupted
+     */
+    public static void main(String[] args) throws Exception {
+        String buildingFile = "campus_buildings.dat";
+        String pathFile = "campus_paths.dat";
+        String engine = "graph";
+        int threads = Runtime.getRuntime().availableProcessors();
+        String mixName = "uniform";
+        double exponent = 1.0;
+        String log = null;
+        double rate = 0;
+        double warmup = 5;
+        double seconds = 20;
+        long seed = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            if (args[i].equals("--buildings")) {
+                buildingFile = value;
+            } else if (args[i].equals("--paths")) {
+                pathFile = value;
+            } else if (args[i].equals("--engine")) {
+                engine = value;
+            } else if (args[i].equals("--threads")) {
+                threads = Integer.parseInt(value);
+            } else if (args[i].equals("--mix")) {
+                mixName = value;
+            } else if (args[i].equals("--zipf")) {
+                exponent = Double.parseDouble(value);
+            } else if (args[i].equals("--log")) {
+                log = value;
+            } else if (args[i].equals("--rate")) {
+                rate = Double.parseDouble(value);
+            } else if (args[i].equals("--warmup")) {
+                warmup = Double.parseDouble(value);
+            } else if (args[i].equals("--seconds")) {
+                seconds = Double.parseDouble(value);
+            } else if (args[i].equals("--seed")) {
+                seed = Long.parseLong(value);
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        CampusGraph graph = CampusGraph.load(buildingFile, pathFile);
+        CampusModel model = engine.equals("snapshot") ? graph.snapshot() : graph;
+        List<String> buildings = new ArrayList<String>(model.getBuildings().keySet());
+        QueryMix mix;
+        if (mixName.equals("zipf")) {
+            mix = LoadGenerator.zipf(buildings, exponent, seed);
+        } else if (mixName.equals("replay")) {
+            if (log == null) {
+                throw new IllegalArgumentException("The replay mix needs --log");
+            }
+            Reader in = new FileReader(log);
+            try {
+                mix = LoadGenerator.replay(LoadGenerator.readLog(in));
+            } finally {
+                in.close();
+            }
+        } else {
+            mix = LoadGenerator.uniform(buildings);
+        }
+        LoadGenerator generator = new LoadGenerator(model, mix, threads, seed);
+        Report report = generator.run(Math.round(warmup * 1000), Math.round(seconds * 1000), rate);
+        System.out.println(engine + " " + mixName + " on " + buildingFile + "/" + pathFile + ": " + report);
+    }
+
+    /**
+     * checks rep invariant. the model and mix must be set and there must be
+     * a worker
+     */
+    private void checkRep() {
+        if (!LoadGenerator.CHECK) {
+            return;
+        }
+        if (this.model == null || this.mix == null) {
+            throw new RuntimeException("fields cannot be null");
+        }
+        if (this.threads <= 0) {
+            throw new RuntimeException("needs a worker");
+        }
+    }
+
+    /**
+     * A Report is what one run of a LoadGenerator measured. Its histograms
+     * are in nanoseconds and are not changed after the run.
+     */
+    public static final class Report {
+        // number of workers
+        private final int threads;
+        // length of the run in nanoseconds
+        private final long elapsedNanos;
+        // latency from sending to answer, of each query answered
+        private final LatencyHistogram service;
+        // latency corrected for coordinated omission
+        private final LatencyHistogram response;
+        // number of queries the model rejected
+        private final long errors;
+
+        /**
+         * constructor
+         *
+         * @param threads
+         *            number of workers
+         * @param elapsedNanos
+         *            length of the run
+         * @param service
+         *            service times
+         * @param response
+         *            response times
+         * @param errors
+         *            queries rejected
+         * @effects creates a report of the args
+         */
+        private Report(int threads, long elapsedNanos, LatencyHistogram service, LatencyHistogram response,
+                long errors) {
+            this.threads = threads;
+            this.elapsedNanos = elapsedNanos;
+            this.service = service;
+            this.response = response;
+            this.errors = errors;
+        }
+
+        /**
+         * @return number of queries answered
+         */
+        public long getQueries() {
+            return this.service.count();
+        }
+
+        /**
+         * @return number of queries the model rejected, which are not in the
+         *         latencies or the throughput
+         */
+        public long getErrors() {
+            return this.errors;
+        }
+
+        /**
+         * @return queries answered per second
+         */
+        public double getThroughput() {
+            return this.service.count() * 1e9 / this.elapsedNanos;
+        }
+
+        /**
+         * @return histogram of the times from sending a query to its answer
+         */
+        public LatencyHistogram getServiceLatency() {
+            return this.service;
+        }
+
+        /**
+         * @return histogram of the response times, corrected for coordinated
+         *         omission
+         */
+        public LatencyHistogram getResponseLatency() {
+            return this.response;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("threads=%d queries=%d errors=%d throughput=%.0f/s service p50=%.1fus p99=%.1fus "
+                    + "p999=%.1fus max=%.1fus corrected p50=%.1fus p99=%.1fus p999=%.1fus max=%.1fus",
+                    this.threads, this.getQueries(), this.errors, this.getThroughput(),
+                    this.service.percentile(50) / 1e3, this.service.percentile(99) / 1e3,
+                    this.service.percentile(99.9) / 1e3,
+                    this.service.max() / 1e3, this.response.percentile(50) / 1e3,
+                    this.response.percentile(99) / 1e3, this.response.percentile(99.9) / 1e3,
+                    this.response.max() / 1e3);
+        }
+    }
+}
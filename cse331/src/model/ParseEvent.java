@@ -0,0 +1,68 @@
+package model;
+
+import java.io.File;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A Flight Recorder event for reading one campus data file. Only reads that
+ * take longer than the threshold, 10 ms unless a recording sets another, are
+ * recorded, so the event can stay on in production.
+ *
+ * @author WP
+ *
+ */
+@Name("model.Parse")
+@Label("Campus Data Parse")
+@Description("Reading a building, path or patch file")
+@Category("Campus Paths")
+@Threshold("10 ms")
+@StackTrace(false)
+final class ParseEvent extends Event {
+
+    @Label("File")
+    String file;
+
+    @Label("Format")
+    @Description("buildings, paths, paths mapped, paths parallel or patch")
+    String format;
+
+    @Label("Lines")
+    @Description("Lines of data read, not counting comments")
+    long lines;
+
+    @Label("Bytes")
+    @Description("Size of the file as stored, so compressed files count compressed")
+    @DataAmount
+    long bytes;
+
+    /**
+     * ends the event and records it if it took long enough
+     *
+     * @param file
+     *            path of the file read
+     * @param format
+     *            kind of file read
+     * @param lines
+     *            lines of data read
+     * @modifies this
+     * @effects commits this to any recording that wants it
+     */
+    void finish(String file, String format, long lines) {
+        this.end();
+        if (this.shouldCommit()) {
+            this.file = file;
+            this.format = format;
+            this.lines = lines;
+            this.bytes = new File(file).length();
+            this.commit();
+        }
+    }
+}
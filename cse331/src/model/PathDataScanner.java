@@ -0,0 +1,270 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Scans path data straight from the bytes of a file, without building a
+ * String per line. Each line becomes a record in a PathRecords buffer. Lines
+ * in the usual "x,y" or "x,y: distance" form are parsed in place, and any
+ * other line is decoded and checked the same way CampusParser.parsePathData
+ * checks it, so both report the same errors.
+ *
+ * @author WP
+ *
+ */
+final class PathDataScanner {
+
+    // largest integer a double holds exactly
+    private static final long MAX_EXACT = 1L << 53;
+
+    // powers of ten that a double holds exactly
+    private static final double[] POWERS = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+            1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    // not an ADT, only static methods
+    private PathDataScanner() {
+    }
+
+    /**
+     * scans the lines in part of a buffer. Scanning stops at the first
+     * malformed line, which is recorded as the error of the result.
+     *
+     * @param buf
+     *            bytes of a path data file
+     * @param from
+     *            index of the first byte of a line
+     * @param to
+     *            index one past the last byte to scan
+     * @return the records of every line from from to to, in order
+     */
+    static PathRecords scan(ByteBuffer buf, int from, int to) {
+        PathRecords records = new PathRecords(Math.max(16, (to - from) / 24));
+        int pos = from;
+        while (pos < to) {
+            int end = PathDataScanner.lineEnd(buf, pos, to);
+            if (buf.get(pos) != '#' && !PathDataScanner.scanLine(buf, pos, end, records)) {
+                PathDataScanner.slowLine(buf, pos, end, records);
+                if (records.hasError()) {
+                    return records;
+                }
+            }
+            pos = PathDataScanner.nextLine(buf, end, to);
+        }
+        return records;
+    }
+
+    /**
+     * @param buf
+     *            bytes to search
+     * @param pos
+     *            start of a line
+     * @param to
+     *            end of the bytes to search
+     * @return index of the line break ending the line at pos, or to
+     */
+    static int lineEnd(ByteBuffer buf, int pos, int to) {
+        while (pos < to) {
+            byte b = buf.get(pos);
+            if (b == '\n' || b == '\r') {
+                return pos;
+            }
+            pos++;
+        }
+        return to;
+    }
+
+    /**
+     * @param buf
+     *            bytes to search
+     * @param end
+     *            index of a line break, or to
+     * @param to
+     *            end of the bytes to search
+     * @return start of the line after the break at end, treating "\r\n" as
+     *         one break like BufferedReader.readLine does
+     */
+    static int nextLine(ByteBuffer buf, int end, int to) {
+        if (end >= to) {
+            return to;
+        }
+        if (buf.get(end) == '\r' && end + 1 < to && buf.get(end + 1) == '\n') {
+            return end + 2;
+        }
+        return end + 1;
+    }
+
+    /**
+     * parses a line of the form "x,y" or "x,y: distance", after any leading
+     * tabs, where every number is plain decimal
+     *
+     * @param buf
+     *            bytes of the file
+     * @param pos
+     *            start of the line
+     * @param end
+     *            end of the line
+     * @param records
+     *            buffer to add the line to
+     * @modifies records
+     * @effects adds the line to records if it is in the simple form
+     * @return true iff the line was in the simple form and was added
+     */
+    private static boolean scanLine(ByteBuffer buf, int pos, int end, PathRecords records) {
+        while (pos < end && buf.get(pos) == '\t') {
+            pos++;
+        }
+        int comma = PathDataScanner.find(buf, pos, end, (byte) ',');
+        if (comma < 0) {
+            return false;
+        }
+        int colon = PathDataScanner.find(buf, comma + 1, end, (byte) ':');
+        int yEnd = colon < 0 ? end : colon;
+        double x = PathDataScanner.parseDecimal(buf, pos, comma);
+        double y = PathDataScanner.parseDecimal(buf, comma + 1, yEnd);
+        if (Double.isNaN(x) || Double.isNaN(y)) {
+            return false;
+        }
+        if (colon < 0) {
+            records.addStart(x, y);
+            return true;
+        }
+        if (colon + 1 >= end || buf.get(colon + 1) != ' ') {
+            return false;
+        }
+        double w = PathDataScanner.parseDecimal(buf, colon + 2, end);
+        if (Double.isNaN(w)) {
+            return false;
+        }
+        records.addNeighbor(x, y, w);
+        return true;
+    }
+
+    /**
+     * @param buf
+     *            bytes to search
+     * @param from
+     *            first index to look at
+     * @param to
+     *            one past the last index to look at
+     * @param b
+     *            byte to look for
+     * @return index of the first b in range, or -1
+     */
+    private static int find(ByteBuffer buf, int from, int to, byte b) {
+        for (int i = from; i < to; i++) {
+            if (buf.get(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * parses an optionally signed decimal with digits and at most one point,
+     * such as "-1903.7201". The result is exactly what Double.parseDouble
+     * gives: when the digits and the power of ten both fit in a double without
+     * rounding, one division rounds correctly, and any other number is handed
+     * to Double.parseDouble.
+     *
+     * @param buf
+     *            bytes of the number
+     * @param from
+     *            first byte of the number
+     * @param to
+     *            one past the last byte of the number
+     * @return the value of the number, or NaN if the bytes are not a plain
+     *         decimal
+     */
+    static double parseDecimal(ByteBuffer buf, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (buf.get(i) == '-' || buf.get(i) == '+')) {
+            negative = buf.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fraction = -1;
+        boolean exact = true;
+        for (; i < to; i++) {
+            byte b = buf.get(i);
+            if (b >= '0' && b <= '9') {
+                if (mantissa >= MAX_EXACT / 10) {
+                    exact = false;
+                } else {
+                    mantissa = mantissa * 10 + (b - '0');
+                }
+                digits++;
+                if (fraction >= 0) {
+                    fraction++;
+                }
+            } else if (b == '.' && fraction < 0) {
+                fraction = 0;
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (digits == 0) {
+            return Double.NaN;
+        }
+        if (fraction < 0) {
+            fraction = 0;
+        }
+        if (!exact || fraction >= PathDataScanner.POWERS.length) {
+            byte[] chars = new byte[to - from];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = buf.get(from + j);
+            }
+            return Double.parseDouble(new String(chars, Charset.forName("US-ASCII")));
+        }
+        double value = mantissa / PathDataScanner.POWERS[fraction];
+        return negative ? -value : value;
+    }
+
+    /**
+     * decodes a line that is not in the simple form and parses it the same
+     * way CampusParser.parsePathData does
+     *
+     * @param buf
+     *            bytes of the file
+     * @param pos
+     *            start of the line
+     * @param end
+     *            end of the line
+     * @param records
+     *            buffer to add the line to
+     * @modifies records
+     * @effects adds the line to records, or records the error it causes
+     */
+    private static void slowLine(ByteBuffer buf, int pos, int end, PathRecords records) {
+        byte[] bytes = new byte[end - pos];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buf.get(pos + i);
+        }
+        String inputLine = new String(bytes, Charset.defaultCharset()).replace("\t", "");
+
+        String[] tokens = inputLine.split(": ");
+        String[] coordTokens = tokens[0].split(",");
+        if (tokens.length != 1 && tokens.length != 2) {
+            records.setError(inputLine,
+                    new MalformedDataException("Line should contain exactly one tab: " + inputLine));
+            return;
+        } else if (coordTokens.length != 2) {
+            records.setError(inputLine,
+                    new MalformedDataException("Line should contain a comma separated coordinate pair: " + inputLine));
+            return;
+        }
+        try {
+            double x = Double.parseDouble(coordTokens[0]);
+            double y = Double.parseDouble(coordTokens[1]);
+            if (tokens.length == 1) {
+                records.addStart(x, y);
+            } else {
+                records.addNeighbor(x, y, Double.parseDouble(tokens[1]));
+            }
+        } catch (NumberFormatException e) {
+            records.setError(null, e);
+        }
+    }
+}
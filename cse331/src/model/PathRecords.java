@@ -0,0 +1,183 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * A growable buffer of parsed path data lines, kept as primitive arrays.
+ * Every record is either a start point (an unindented "x,y" line) or a
+ * neighbor of the last start point (an "x,y: distance" line). A buffer also
+ * remembers the malformed line that stopped a scan, if any.
+ *
+ * @author WP
+ *
+ */
+final class PathRecords {
+
+    // coordinates and distance of each record. distance is unused for starts
+    private double[] xs;
+    private double[] ys;
+    private double[] distances;
+    // whether each record is a start point
+    private boolean[] starts;
+    // number of records
+    private int size;
+
+    // the error that stopped the scan, or null
+    private Exception error;
+    // the line that caused this.error, or null if it is not printed
+    private String errorLine;
+
+    // Abstraction function: this holds the records 0 to this.size - 1, where
+    // record i is at (this.xs[i], this.ys[i]) and is a start point iff
+    // this.starts[i], or else is an edge of length this.distances[i]. The
+    // records are followed by this.error, if it is not null.
+
+    // Representation Invariant:
+    // all arrays have the same length, which is at least this.size
+
+    /**
+     * constructor
+     *
+     * @param capacity
+     *            number of records to make room for
+     * @effects creates an empty buffer
+     */
+    PathRecords(int capacity) {
+        this.xs = new double[capacity];
+        this.ys = new double[capacity];
+        this.distances = new double[capacity];
+        this.starts = new boolean[capacity];
+    }
+
+    /**
+     * adds a start point
+     *
+     * @param x
+     *            x coord
+     * @param y
+     *            y coord
+     * @modifies this
+     * @effects adds a start record at (x, y)
+     */
+    void addStart(double x, double y) {
+        this.add(x, y, 0, true);
+    }
+
+    /**
+     * adds a neighbor of the last start point
+     *
+     * @param x
+     *            x coord
+     * @param y
+     *            y coord
+     * @param distance
+     *            length of the edge from the start point
+     * @modifies this
+     * @effects adds a neighbor record at (x, y)
+     */
+    void addNeighbor(double x, double y, double distance) {
+        this.add(x, y, distance, false);
+    }
+
+    /**
+     * adds a record, growing the arrays if needed
+     */
+    private void add(double x, double y, double distance, boolean start) {
+        if (this.size == this.xs.length) {
+            int capacity = Math.max(16, this.size * 2);
+            this.xs = Arrays.copyOf(this.xs, capacity);
+            this.ys = Arrays.copyOf(this.ys, capacity);
+            this.distances = Arrays.copyOf(this.distances, capacity);
+            this.starts = Arrays.copyOf(this.starts, capacity);
+        }
+        this.xs[this.size] = x;
+        this.ys[this.size] = y;
+        this.distances[this.size] = distance;
+        this.starts[this.size] = start;
+        this.size++;
+    }
+
+    /**
+     * records the error that stopped a scan
+     *
+     * @param line
+     *            the line to print when the error is reported, or null
+     * @param e
+     *            a MalformedDataException or RuntimeException
+     * @modifies this
+     * @effects sets the error of this
+     */
+    void setError(String line, Exception e) {
+        this.errorLine = line;
+        this.error = e;
+    }
+
+    /**
+     * @return true iff a malformed line stopped the scan
+     */
+    boolean hasError() {
+        return this.error != null;
+    }
+
+    /**
+     * reports the error that stopped the scan, printing the malformed line
+     * like CampusParser.parsePathData does
+     *
+     * @throws MalformedDataException
+     *             if that was the error
+     * @throws RuntimeException
+     *             if that was the error, such as a NumberFormatException
+     */
+    void throwError() throws MalformedDataException {
+        if (this.errorLine != null) {
+            System.out.println(this.errorLine);
+        }
+        if (this.error instanceof MalformedDataException) {
+            throw (MalformedDataException) this.error;
+        }
+        throw (RuntimeException) this.error;
+    }
+
+    /**
+     * @return number of records
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * @param i
+     *            index of a record
+     * @return x coord of record i
+     */
+    double x(int i) {
+        return this.xs[i];
+    }
+
+    /**
+     * @param i
+     *            index of a record
+     * @return y coord of record i
+     */
+    double y(int i) {
+        return this.ys[i];
+    }
+
+    /**
+     * @param i
+     *            index of a record
+     * @return distance of record i, if it is a neighbor
+     */
+    double distance(int i) {
+        return this.distances[i];
+    }
+
+    /**
+     * @param i
+     *            index of a record
+     * @return true iff record i is a start point
+     */
+    boolean isStart(int i) {
+        return this.starts[i];
+    }
+}
@@ -103,11 +103,21 @@ public class PointD {
 
     @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         return o instanceof PointD && ((PointD) o).x == (this.x) && ((PointD) o).y == (this.y);
     }
 
+    /**
+     * hashes the bits of both coordinates. Adding 0.0 turns -0.0 into 0.0 so
+     * points that are equal always hash the same.
+     *
+     * @return an int all equal points will also return
+     */
     @Override
     public int hashCode() {
-        return 13 * (this.x + "").hashCode() + (this.y + "").hashCode();
+        long bits = 31 * Double.doubleToLongBits(this.x + 0.0) + Double.doubleToLongBits(this.y + 0.0);
+        return (int) (bits ^ (bits >>> 32));
     }
 }
@@ -0,0 +1,169 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A PointDPool keeps one canonical PointD for every coordinate pair it has
+ * seen and numbers them in the order they were added. Interning points while
+ * loading data means equal coordinates share one object and can be compared
+ * by id instead of hashing. A pool is not safe to modify from several threads.
+ *
+ * @author WP
+ *
+ */
+public class PointDPool {
+    // switch for checking rep invariant
+    private static final boolean CHECK = false;
+
+    // maps coordinates to the index of their point in this.points
+    private final CoordinateIndex index;
+    // canonical points, in order of id
+    private final List<PointD> points;
+
+    // Abstraction function: this holds the points this.points, where the id
+    // of this.points.get(i) is i.
+
+    // Representation Invariant:
+    // none of the fields are null,
+    // this.index.size() == this.points.size(),
+    // this.index maps the coordinates of this.points.get(i) to i
+
+    /**
+     * constructor
+     *
+     * @effects creates an empty pool
+     */
+    public PointDPool() {
+        this(1024);
+    }
+
+    /**
+     * constructor
+     *
+     * @param expected
+     *            number of points expected to be interned
+     * @effects creates an empty pool
+     * @throws IllegalArgumentException
+     *             if expected is negative
+     */
+    public PointDPool(int expected) {
+        this.index = new CoordinateIndex(expected);
+        this.points = new ArrayList<PointD>(expected);
+        this.checkRep();
+    }
+
+    /**
+     * returns the canonical point for a coordinate pair
+     *
+     * @param x
+     *            x coord
+     * @param y
+     *            y coord
+     * @modifies this
+     * @effects adds a new point with the next id if (x, y) is not in the pool
+     * @return the pool's PointD equal to (x, y)
+     */
+    public PointD intern(double x, double y) {
+        int id = this.index.putIfAbsent(x, y, this.points.size());
+        if (id == this.points.size()) {
+            this.points.add(new PointD(x, y));
+            this.checkRep();
+        }
+        return this.points.get(id);
+    }
+
+    /**
+     * returns the canonical point equal to p
+     *
+     * @param p
+     *            point to intern
+     * @modifies this
+     * @effects adds p with the next id if no equal point is in the pool
+     * @return the pool's PointD equal to p
+     * @throws IllegalArgumentException
+     *             if p is null
+     */
+    public PointD intern(PointD p) {
+        if (p == null) {
+            throw new IllegalArgumentException();
+        }
+        int id = this.index.putIfAbsent(p.getX(), p.getY(), this.points.size());
+        if (id == this.points.size()) {
+            this.points.add(p);
+            this.checkRep();
+        }
+        return this.points.get(id);
+    }
+
+    /**
+     * returns the id of a coordinate pair
+     *
+     * @param x
+     *            x coord
+     * @param y
+     *            y coord
+     * @return id of (x, y), or -1 if it is not in the pool
+     */
+    public int id(double x, double y) {
+        return this.index.get(x, y);
+    }
+
+    /**
+     * returns the id of a point
+     *
+     * @param p
+     *            point to look up
+     * @return id of p, or -1 if it is not in the pool
+     * @throws IllegalArgumentException
+     *             if p is null
+     */
+    public int id(PointD p) {
+        if (p == null) {
+            throw new IllegalArgumentException();
+        }
+        return this.index.get(p.getX(), p.getY());
+    }
+
+    /**
+     * returns the point with an id
+     *
+     * @param id
+     *            id of the point
+     * @requires 0 &lt;= id &lt; size()
+     * @return the canonical point with that id
+     */
+    public PointD get(int id) {
+        return this.points.get(id);
+    }
+
+    /**
+     * number of points in the pool
+     *
+     * @return number of interned points
+     */
+    public int size() {
+        return this.points.size();
+    }
+
+    /**
+     * checks rep invariant. the index and the list must hold the same points.
+     */
+    private void checkRep() {
+        if (!PointDPool.CHECK) {
+            return;
+        }
+        if (this.index == null || this.points == null) {
+            throw new RuntimeException();
+        }
+        if (this.index.size() != this.points.size()) {
+            throw new RuntimeException("index and points are different sizes");
+        }
+        for (int i = 0; i < this.points.size(); i++) {
+            PointD p = this.points.get(i);
+            if (this.index.get(p.getX(), p.getY()) != i) {
+                throw new RuntimeException("point is not indexed by its id");
+            }
+        }
+    }
+}
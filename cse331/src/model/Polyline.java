@@ -0,0 +1,331 @@
+package model;
+
+import java.util.Arrays;
+import java.util.List;
+
+import graphStructure.Edge;
+
+/**
+ * Polyline encodes routes compactly for sending to clients. A route is the
+ * list of points it passes through, each coordinate rounded to a fixed point
+ * number with precision decimal places and written as the difference from
+ * the same coordinate of the point before, so neighboring points cost a few
+ * bytes. Each difference is zigzag encoded, so small negative numbers are
+ * small too, and then packed as a varint in one of two forms:
+ *
+ * <pre>
+ * text    5 bits per character, offset by 63 so every character is printable
+ *         ASCII, as in Google's encoded polyline format
+ * binary  7 bits per byte, the high bit set on all but the last byte
+ * </pre>
+ *
+ * Points are written x then y. With precision 5 and points given as
+ * (latitude, longitude) the text form is exactly Google's format. Campus
+ * coordinates have at most eight decimal places, so precision 8 is lossless
+ * for them; most have four, and lower precisions are shorter.
+ *
+ * Encoding reads coordinates straight from the points or graph arrays of the
+ * route and appends to a buffer the caller owns, creating no objects.
+ *
+ * @author WP
+ *
+ */
+public final class Polyline {
+
+    /** precision that keeps every digit of campus coordinates */
+    public static final int LOSSLESS = 8;
+    /** most decimal places allowed */
+    public static final int MAX_PRECISION = 9;
+    /** most bytes one point takes in the binary form */
+    public static final int MAX_POINT_BYTES = 20;
+
+    // powers of ten by precision
+    private static final double[] SCALES = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9 };
+
+    /**
+     * not instantiable
+     */
+    private Polyline() {
+    }
+
+    /**
+     * appends the text encoding of a path
+     *
+     * @param out
+     *            text to append to
+     * @param path
+     *            edges of the route, each starting where the last ended
+     * @param precision
+     *            decimal places kept, from 0 to MAX_PRECISION
+     * @return out
+     * @throws IllegalArgumentException
+     *             if out or path is null or precision is out of range
+     */
+    public static StringBuilder append(StringBuilder out, List<Edge<PointD, Double>> path, int precision) {
+        if (out == null || path == null) {
+            throw new IllegalArgumentException();
+        }
+        double scale = Polyline.scale(precision);
+        if (path.isEmpty()) {
+            return out;
+        }
+        PointD first = path.get(0).getStart();
+        long px = Math.round(first.getX() * scale);
+        long py = Math.round(first.getY() * scale);
+        Polyline.appendValue(out, px);
+        Polyline.appendValue(out, py);
+        for (int i = 0; i < path.size(); i++) {
+            PointD p = path.get(i).getEnd();
+            long x = Math.round(p.getX() * scale);
+            long y = Math.round(p.getY() * scale);
+            Polyline.appendValue(out, x - px);
+            Polyline.appendValue(out, y - py);
+            px = x;
+            py = y;
+        }
+        return out;
+    }
+
+    /**
+     * appends the text encoding of a route through nodes of a graph
+     *
+     * @param out
+     *            text to append to
+     * @param graph
+     *            graph the route is in
+     * @param nodes
+     *            ids of the nodes of the route in order, the first count used
+     * @param count
+     *            number of nodes in the route
+     * @param precision
+     *            decimal places kept, from 0 to MAX_PRECISION
+     * @return out
+     * @throws IllegalArgumentException
+     *             if any args are null, count is out of range or precision is
+     *             out of range
+     */
+    public static StringBuilder append(StringBuilder out, CompactGraph graph, int[] nodes, int count,
+            int precision) {
+        if (out == null || graph == null || nodes == null || count < 0 || count > nodes.length) {
+            throw new IllegalArgumentException();
+        }
+        double scale = Polyline.scale(precision);
+        long px = 0;
+        long py = 0;
+        for (int i = 0; i < count; i++) {
+            long x = Math.round(graph.x(nodes[i]) * scale);
+            long y = Math.round(graph.y(nodes[i]) * scale);
+            Polyline.appendValue(out, x - px);
+            Polyline.appendValue(out, y - py);
+            px = x;
+            py = y;
+        }
+        return out;
+    }
+
+    /**
+     * writes the binary encoding of a path
+     *
+     * @param out
+     *            array to write to, with room for MAX_POINT_BYTES per point
+     *            after offset
+     * @param offset
+     *            index in out of the first byte to write
+     * @param path
+     *            edges of the route, each starting where the last ended
+     * @param precision
+     *            decimal places kept, from 0 to MAX_PRECISION
+     * @return index in out after the last byte written
+     * @throws IllegalArgumentException
+     *             if out or path is null or precision is out of range
+     * @throws ArrayIndexOutOfBoundsException
+     *             if out is too short
+     */
+    public static int write(byte[] out, int offset, List<Edge<PointD, Double>> path, int precision) {
+        if (out == null || path == null) {
+            throw new IllegalArgumentException();
+        }
+        double scale = Polyline.scale(precision);
+        if (path.isEmpty()) {
+            return offset;
+        }
+        PointD first = path.get(0).getStart();
+        long px = Math.round(first.getX() * scale);
+        long py = Math.round(first.getY() * scale);
+        int at = Polyline.writeValue(out, offset, px);
+        at = Polyline.writeValue(out, at, py);
+        for (int i = 0; i < path.size(); i++) {
+            PointD p = path.get(i).getEnd();
+            long x = Math.round(p.getX() * scale);
+            long y = Math.round(p.getY() * scale);
+            at = Polyline.writeValue(out, at, x - px);
+            at = Polyline.writeValue(out, at, y - py);
+            px = x;
+            py = y;
+        }
+        return at;
+    }
+
+    /**
+     * decodes the text encoding of a route
+     *
+     * @param text
+     *            the encoding
+     * @param precision
+     *            decimal places the route was encoded with
+     * @return coordinates of the points of the route, x0, y0, x1, y1 and so
+     *         on
+     * @throws IllegalArgumentException
+     *             if text is null or not an encoding, or precision is out of
+     *             range
+     */
+    public static double[] decode(CharSequence text, int precision) {
+        if (text == null) {
+            throw new IllegalArgumentException();
+        }
+        double scale = Polyline.scale(precision);
+        // every value takes at least one character
+        double[] coordinates = new double[text.length()];
+        int count = 0;
+        long previousX = 0;
+        long previousY = 0;
+        int i = 0;
+        while (i < text.length()) {
+            long zigzag = 0;
+            int shift = 0;
+            int chunk;
+            do {
+                if (i == text.length() || shift > 63) {
+                    throw new IllegalArgumentException("Not a polyline");
+                }
+                chunk = text.charAt(i++) - 63;
+                if (chunk < 0 || chunk > 0x3F) {
+                    throw new IllegalArgumentException("Not a polyline");
+                }
+                zigzag |= (long) (chunk & 0x1F) << shift;
+                shift += 5;
+            } while (chunk >= 0x20);
+            long value = (zigzag >>> 1) ^ -(zigzag & 1);
+            if (count % 2 == 0) {
+                previousX += value;
+                coordinates[count++] = previousX / scale;
+            } else {
+                previousY += value;
+                coordinates[count++] = previousY / scale;
+            }
+        }
+        if (count % 2 != 0) {
+            throw new IllegalArgumentException("Not a polyline");
+        }
+        return Arrays.copyOf(coordinates, count);
+    }
+
+    /**
+     * decodes the binary encoding of a route
+     *
+     * @param in
+     *            array holding the encoding
+     * @param offset
+     *            index in in of the first byte of the encoding
+     * @param length
+     *            number of bytes in the encoding
+     * @param precision
+     *            decimal places the route was encoded with
+     * @return coordinates of the points of the route, x0, y0, x1, y1 and so
+     *         on
+     * @throws IllegalArgumentException
+     *             if in is null, the range is outside in or is not an
+     *             encoding, or precision is out of range
+     */
+    public static double[] decode(byte[] in, int offset, int length, int precision) {
+        if (in == null || offset < 0 || length < 0 || offset + length > in.length) {
+            throw new IllegalArgumentException();
+        }
+        double scale = Polyline.scale(precision);
+        double[] coordinates = new double[length];
+        int count = 0;
+        long previousX = 0;
+        long previousY = 0;
+        int i = offset;
+        int end = offset + length;
+        while (i < end) {
+            long zigzag = 0;
+            int shift = 0;
+            int b;
+            do {
+                if (i == end || shift > 63) {
+                    throw new IllegalArgumentException("Not a polyline");
+                }
+                b = in[i++];
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            long value = (zigzag >>> 1) ^ -(zigzag & 1);
+            if (count % 2 == 0) {
+                previousX += value;
+                coordinates[count++] = previousX / scale;
+            } else {
+                previousY += value;
+                coordinates[count++] = previousY / scale;
+            }
+        }
+        if (count % 2 != 0) {
+            throw new IllegalArgumentException("Not a polyline");
+        }
+        return Arrays.copyOf(coordinates, count);
+    }
+
+    /**
+     * finds the scale of a precision
+     *
+     * @param precision
+     *            decimal places kept
+     * @return 10 to the power precision
+     * @throws IllegalArgumentException
+     *             if precision is not from 0 to MAX_PRECISION
+     */
+    private static double scale(int precision) {
+        if (precision < 0 || precision > Polyline.MAX_PRECISION) {
+            throw new IllegalArgumentException("precision must be from 0 to " + Polyline.MAX_PRECISION);
+        }
+        return Polyline.SCALES[precision];
+    }
+
+    /**
+     * appends a value as zigzag encoded 5 bit chunks
+     *
+     * @param out
+     *            text to append to
+     * @param value
+     *            value to append
+     */
+    private static void appendValue(StringBuilder out, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x1FL) != 0) {
+            out.append((char) ((0x20 | (zigzag & 0x1F)) + 63));
+            zigzag >>>= 5;
+        }
+        out.append((char) (zigzag + 63));
+    }
+
+    /**
+     * writes a value as a zigzag encoded varint
+     *
+     * @param out
+     *            array to write to
+     * @param at
+     *            index of the first byte to write
+     * @param value
+     *            value to write
+     * @return index after the last byte written
+     */
+    private static int writeValue(byte[] out, int at, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out[at++] = (byte) (0x80 | (zigzag & 0x7F));
+            zigzag >>>= 7;
+        }
+        out[at++] = (byte) zigzag;
+        return at;
+    }
+}
@@ -0,0 +1,24 @@
+package model;
+
+import java.util.Random;
+
+/**
+ * A QueryMix is a source of route queries for load testing: each call to next
+ * picks the start and end building of one query. LoadGenerator makes the
+ * usual mixes. A mix is called by several threads at once, each with its own
+ * Random, so it must be thread safe.
+ *
+ * @author WP
+ *
+ */
+public interface QueryMix {
+
+    /**
+     * picks the next query
+     *
+     * @param random
+     *            random numbers of the calling thread
+     * @return the abbreviated names of the start and end building
+     */
+    public String[] next(Random random);
+}
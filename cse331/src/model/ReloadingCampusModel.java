@@ -0,0 +1,271 @@
+package model;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import graphStructure.Edge;
+
+/**
+ * A CampusModel that reloads itself when its data files change. A background
+ * thread watches the directory of the files, builds a new CampusGraph when
+ * either file is written and then swaps it in with one volatile write.
+ * Queries that already started finish on the CampusGraph they started with,
+ * and new queries only ever see a fully built one. If the new files are
+ * malformed, missing, unreadable, empty or change while they are read, the
+ * old model keeps answering. The parsers report I/O errors without throwing,
+ * so the files are checked before and after they are read, and a parse that
+ * found no buildings or no paths is taken as a failed read.
+ *
+ * @author WP
+ *
+ */
+public class ReloadingCampusModel implements CampusModel, Closeable {
+
+    // how long to wait for more changes before reloading, in milliseconds
+    private static final long SETTLE_MILLIS = 200;
+
+    // paths of the data files
+    private final String buildingFile;
+    private final String pathFile;
+
+    // the model answering queries
+    private volatile CampusGraph current;
+
+    // watches the directory of the data files
+    private final WatchService watcher;
+    // thread taking events from this.watcher
+    private final Thread thread;
+
+    // Abstraction function: this is the campus in the files this.buildingFile
+    // and this.pathFile, as of the last time this.current was built.
+
+    // Representation Invariant:
+    // none of the fields are null
+
+    /**
+     * constructor, loads the data files and starts watching them
+     *
+     * @param buildingFile
+     *            path of the building data file
+     * @param pathFile
+     *            path of the path data file
+     * @requires both files exist
+     * @effects builds a model of the files and starts a daemon thread that
+     *          reloads it whenever they change
+     * @throws MalformedDataException
+     *             if the files are not of proper format
+     * @throws IOException
+     *             if the directories of the files cannot be watched
+     * @throws IllegalArgumentException
+     *             if args are null
+     */
+    public ReloadingCampusModel(String buildingFile, String pathFile) throws MalformedDataException, IOException {
+        if (buildingFile == null || pathFile == null) {
+            throw new IllegalArgumentException();
+        }
+        this.buildingFile = buildingFile;
+        this.pathFile = pathFile;
+        this.current = new CampusGraph(CampusData.parse(buildingFile, pathFile));
+
+        this.watcher = FileSystems.getDefault().newWatchService();
+        ReloadingCampusModel.register(this.watcher, buildingFile);
+        ReloadingCampusModel.register(this.watcher, pathFile);
+        this.thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                ReloadingCampusModel.this.watch();
+            }
+        }, "campus-reloader");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * watches the directory a file is in
+     *
+     * @param watcher
+     *            service to register with
+     * @param file
+     *            path of the file
+     * @throws IOException
+     *             if the directory cannot be watched
+     */
+    private static void register(WatchService watcher, String file) throws IOException {
+        Path dir = new File(file).getAbsoluteFile().getParentFile().toPath();
+        dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+    }
+
+    /**
+     * takes events until the watcher is closed, reloading when one of the data
+     * files changes
+     */
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = this.watcher.take();
+                boolean changed = this.isDataChange(key);
+                // let a burst of writes settle before reading the files
+                while (changed && (key = this.watcher.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    this.isDataChange(key);
+                }
+                if (changed) {
+                    this.tryReload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed, stop watching
+        }
+    }
+
+    /**
+     * checks and resets a watch key
+     *
+     * @param key
+     *            key with pending events
+     * @return true iff one of the events was for a data file
+     */
+    private boolean isDataChange(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            Object context = event.context();
+            if (context instanceof Path) {
+                String name = ((Path) context).getFileName().toString();
+                if (name.equals(new File(this.buildingFile).getName())
+                        || name.equals(new File(this.pathFile).getName())) {
+                    changed = true;
+                }
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    /**
+     * reloads the files, keeping the current model if they are malformed
+     */
+    private void tryReload() {
+        try {
+            this.reload();
+        } catch (MalformedDataException | RuntimeException e) {
+            System.err.println(e.toString());
+            e.printStackTrace(System.err);
+        }
+    }
+
+    /**
+     * reads the data files now and swaps in a model of them
+     *
+     * @modifies this
+     * @effects this answers queries from the new contents of the files
+     * @throws MalformedDataException
+     *             if the files are not of proper format, cannot be read,
+     *             change while being read or hold no buildings or no paths,
+     *             in which case the old model is kept
+     */
+    public void reload() throws MalformedDataException {
+        File buildings = new File(this.buildingFile);
+        File paths = new File(this.pathFile);
+        String before = ReloadingCampusModel.stamp(buildings) + ReloadingCampusModel.stamp(paths);
+        CampusData data;
+        try {
+            data = CampusData.parse(this.buildingFile, this.pathFile);
+        } catch (InternalError e) {
+            // the path file is mapped, and reading a page past its end after
+            // it was cut short is an InternalError, not an IOException
+            throw new MalformedDataException("Data files changed while being read", e);
+        }
+        String after = ReloadingCampusModel.stamp(buildings) + ReloadingCampusModel.stamp(paths);
+        if (!before.equals(after)) {
+            throw new MalformedDataException("Data files changed while being read");
+        }
+        if (data.getShort2LongName().isEmpty() || data.getGraph().isEmpty()) {
+            throw new MalformedDataException("Data files hold no buildings or no paths");
+        }
+        this.current = new CampusGraph(data);
+    }
+
+    /**
+     * describes the version of a data file
+     *
+     * @param file
+     *            the file
+     * @return its length and modification time
+     * @throws MalformedDataException
+     *             if the file is missing or cannot be read
+     */
+    private static String stamp(File file) throws MalformedDataException {
+        if (!file.isFile() || !file.canRead()) {
+            throw new MalformedDataException("Cannot read " + file);
+        }
+        return file.length() + ":" + file.lastModified() + ";";
+    }
+
+    /**
+     * returns the model answering queries right now. Callers that make
+     * several queries that must agree with each other should make them all on
+     * one snapshot.
+     *
+     * @return the current model
+     */
+    public CampusGraph getSnapshot() {
+        return this.current;
+    }
+
+    /**
+     * stops watching the data files
+     *
+     * @modifies this
+     * @effects the model is no longer reloaded
+     */
+    @Override
+    public void close() throws IOException {
+        this.watcher.close();
+        this.thread.interrupt();
+    }
+
+    @Override
+    public PointD getLocation(String s) {
+        return this.current.getLocation(s);
+    }
+
+    @Override
+    public Map<String, String> getBuildings() {
+        return this.current.getBuildings();
+    }
+
+    @Override
+    public BuildingDirectory getDirectory() {
+        return this.current.getDirectory();
+    }
+
+    @Override
+    public String getLongName(String shortName) {
+        return this.current.getLongName(shortName);
+    }
+
+    @Override
+    public InstructionTable getInstructions() {
+        return this.current.getInstructions();
+    }
+
+    @Override
+    public List<Edge<PointD, Double>> findPath(String start, String end) {
+        return this.current.findPath(start, end);
+    }
+
+    @Override
+    public RouteExplanation explain(String start, String end, boolean trace) {
+        return this.current.explain(start, end, trace);
+    }
+}
@@ -0,0 +1,151 @@
+package model;
+
+import java.util.Collections;
+import java.util.List;
+
+import graphStructure.Edge;
+
+/**
+ * A RouteExplanation is what a route search did to find a path: the path,
+ * how much searching it took, how long each phase took and, if a trace was
+ * asked for, the nodes in the order they were settled, which together make up
+ * the region the search explored. RouteExplanations are immutable.
+ *
+ * @author WP
+ *
+ */
+public final class RouteExplanation {
+
+    // path found, or null if there is none
+    private final List<Edge<PointD, Double>> path;
+    // search effort
+    private final int settledNodes;
+    private final int relaxations;
+    private final int heapPushes;
+    private final int maxHeapSize;
+    // time spent finding the buildings' nodes, searching and rebuilding the
+    // path, in nanoseconds
+    private final long resolveNanos;
+    private final long searchNanos;
+    private final long pathNanos;
+    // nodes in the order they were settled, or empty if not traced
+    private final List<PointD> settledOrder;
+
+    // Abstraction function: a search that found this.path after settling
+    // this.settledNodes nodes (this.settledOrder if traced), relaxing
+    // this.relaxations edges and pushing this.heapPushes entries onto a heap
+    // that never held more than this.maxHeapSize, in the times given.
+
+    // Representation Invariant:
+    // this.settledOrder is not null and is empty or has this.settledNodes
+    // entries
+
+    /**
+     * constructor
+     *
+     * @param path
+     *            path found, or null if there is none
+     * @param settledNodes
+     *            nodes settled
+     * @param relaxations
+     *            edges relaxed
+     * @param heapPushes
+     *            entries pushed or moved up in the heap
+     * @param maxHeapSize
+     *            most entries in the heap at once
+     * @param resolveNanos
+     *            time spent finding the nodes of the buildings
+     * @param searchNanos
+     *            time spent searching
+     * @param pathNanos
+     *            time spent rebuilding the path
+     * @param settledOrder
+     *            nodes in the order they were settled, or empty if not traced
+     * @requires settledOrder is not modified afterwards
+     * @effects creates an explanation holding the args
+     */
+    RouteExplanation(List<Edge<PointD, Double>> path, int settledNodes, int relaxations, int heapPushes,
+            int maxHeapSize, long resolveNanos, long searchNanos, long pathNanos, List<PointD> settledOrder) {
+        this.path = path == null ? null : Collections.unmodifiableList(path);
+        this.settledNodes = settledNodes;
+        this.relaxations = relaxations;
+        this.heapPushes = heapPushes;
+        this.maxHeapSize = maxHeapSize;
+        this.resolveNanos = resolveNanos;
+        this.searchNanos = searchNanos;
+        this.pathNanos = pathNanos;
+        this.settledOrder = Collections.unmodifiableList(settledOrder);
+    }
+
+    /**
+     * @return the path found, or null if there is none
+     */
+    public List<Edge<PointD, Double>> getPath() {
+        return this.path;
+    }
+
+    /**
+     * @return number of nodes the search settled
+     */
+    public int getSettledNodes() {
+        return this.settledNodes;
+    }
+
+    /**
+     * @return number of edges the search relaxed
+     */
+    public int getRelaxations() {
+        return this.relaxations;
+    }
+
+    /**
+     * @return number of times a node was pushed onto or moved up in the heap
+     */
+    public int getHeapPushes() {
+        return this.heapPushes;
+    }
+
+    /**
+     * @return most nodes the heap held at once
+     */
+    public int getMaxHeapSize() {
+        return this.maxHeapSize;
+    }
+
+    /**
+     * @return nanoseconds spent finding the nodes of the buildings
+     */
+    public long getResolveNanos() {
+        return this.resolveNanos;
+    }
+
+    /**
+     * @return nanoseconds spent searching
+     */
+    public long getSearchNanos() {
+        return this.searchNanos;
+    }
+
+    /**
+     * @return nanoseconds spent rebuilding the path
+     */
+    public long getPathNanos() {
+        return this.pathNanos;
+    }
+
+    /**
+     * @return the nodes in the order they were settled, or an empty list if
+     *         the search was not traced
+     */
+    public List<PointD> getSettledOrder() {
+        return this.settledOrder;
+    }
+
+    @Override
+    public String toString() {
+        return "path=" + (this.path == null ? "none" : this.path.size() + " edges") + " settled=" + this.settledNodes
+                + " relaxed=" + this.relaxations + " pushes=" + this.heapPushes + " maxHeap=" + this.maxHeapSize
+                + " resolve=" + this.resolveNanos + "ns search=" + this.searchNanos + "ns path=" + this.pathNanos
+                + "ns";
+    }
+}
@@ -0,0 +1,367 @@
+package model;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * RouteMetrics measures one routing engine: a latency histogram of its
+ * queries, how much searching they did (nodes settled, edges relaxed, heap
+ * pushes), the bytes they allocated and how often its cache hit. There is one
+ * RouteMetrics per engine name, got with forEngine, and each is registered as
+ * a JMX MBean named model:type=RouteMetrics,name=&lt;engine&gt; so it can be
+ * read from jconsole. dumpAll writes every engine's metrics as text, and
+ * startDump does so periodically.
+ *
+ * Recording is lock free and costs a few atomic adds plus, for allocated
+ * bytes, a read of the current thread's allocation counter, so it stays on in
+ * production. An engine measures a query like this:
+ *
+ * <pre>
+ * long started = System.nanoTime();
+ * long allocated = RouteMetrics.allocatedBytes();
+ * ... search, counting settled, relaxed and pushes ...
+ * metrics.record(started, allocated, settled, relaxed, pushes);
+ * </pre>
+ *
+ * @author WP
+ *
+ */
+public final class RouteMetrics implements RouteMetricsMBean {
+
+    // metrics of each engine by name
+    private static final ConcurrentMap<String, RouteMetrics> ENGINES = new ConcurrentHashMap<String, RouteMetrics>();
+
+    // the JVM's per thread allocation counter, or null if it has none
+    private static final com.sun.management.ThreadMXBean THREADS = RouteMetrics.allocationCounter();
+
+    // name of the engine measured
+    private final String engine;
+    // latency of each query in nanoseconds
+    private final LatencyHistogram latency;
+    // search effort of all queries
+    private final LongAdder settled;
+    private final LongAdder relaxed;
+    private final LongAdder pushes;
+    private final LongAdder allocated;
+    // cache lookups
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    // Abstraction function: this holds the metrics of the queries of
+    // this.engine since it was created or last reset.
+
+    // Representation Invariant:
+    // none of the fields are null
+
+    /**
+     * constructor
+     *
+     * @param engine
+     *            name of the engine measured
+     * @effects creates metrics with nothing recorded
+     */
+    private RouteMetrics(String engine) {
+        this.engine = engine;
+        this.latency = new LatencyHistogram();
+        this.settled = new LongAdder();
+        this.relaxed = new LongAdder();
+        this.pushes = new LongAdder();
+        this.allocated = new LongAdder();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    /**
+     * returns the metrics of an engine, creating and registering them with
+     * the platform MBean server the first time
+     *
+     * @param engine
+     *            name of the engine
+     * @return the one RouteMetrics for that engine
+     * @throws IllegalArgumentException
+     *             if engine is null
+     */
+    public static RouteMetrics forEngine(String engine) {
+        if (engine == null) {
+            throw new IllegalArgumentException();
+        }
+        RouteMetrics metrics = RouteMetrics.ENGINES.get(engine);
+        if (metrics == null) {
+            RouteMetrics created = new RouteMetrics(engine);
+            metrics = RouteMetrics.ENGINES.putIfAbsent(engine, created);
+            if (metrics == null) {
+                metrics = created;
+                RouteMetrics.register(created);
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * registers metrics as an MBean, leaving them unregistered if JMX refuses
+     *
+     * @param metrics
+     *            metrics to register
+     */
+    private static void register(RouteMetrics metrics) {
+        try {
+            ObjectName name = new ObjectName("model:type=RouteMetrics,name=" + ObjectName.quote(metrics.engine));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, name);
+        } catch (JMException e) {
+            System.err.println("Could not register metrics of " + metrics.engine + ": " + e);
+        }
+    }
+
+    /**
+     * finds the JVM's allocation counter, turning it on if it is off
+     *
+     * @return the counter, or null if the JVM has none
+     */
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+        if (!counter.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        if (!counter.isThreadAllocatedMemoryEnabled()) {
+            counter.setThreadAllocatedMemoryEnabled(true);
+        }
+        return counter;
+    }
+
+    /**
+     * returns how many bytes the current thread has allocated so far, to take
+     * before and after a query
+     *
+     * @return bytes allocated by the current thread, or 0 if the JVM cannot
+     *         tell
+     */
+    public static long allocatedBytes() {
+        if (RouteMetrics.THREADS == null) {
+            return 0;
+        }
+        return RouteMetrics.THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * records one query that ran on the current thread
+     *
+     * @param startNanos
+     *            System.nanoTime() when the query started
+     * @param startAllocated
+     *            allocatedBytes() when the query started
+     * @param nodesSettled
+     *            nodes the query settled
+     * @param edgesRelaxed
+     *            edges the query relaxed
+     * @param heapPushes
+     *            entries the query pushed onto its heap
+     * @modifies this
+     * @effects adds the query to the metrics
+     */
+    public void record(long startNanos, long startAllocated, long nodesSettled, long edgesRelaxed,
+            long heapPushes) {
+        this.latency.record(System.nanoTime() - startNanos);
+        this.allocated.add(RouteMetrics.allocatedBytes() - startAllocated);
+        this.settled.add(nodesSettled);
+        this.relaxed.add(edgesRelaxed);
+        this.pushes.add(heapPushes);
+    }
+
+    /**
+     * records a cache lookup
+     *
+     * @param hit
+     *            true iff the lookup found what it wanted
+     * @modifies this
+     * @effects counts the lookup
+     */
+    public void recordCache(boolean hit) {
+        if (hit) {
+            this.hits.increment();
+        } else {
+            this.misses.increment();
+        }
+    }
+
+    /**
+     * returns the latency histogram, in nanoseconds
+     *
+     * @return histogram of query latencies
+     */
+    public LatencyHistogram getLatency() {
+        return this.latency;
+    }
+
+    @Override
+    public String getEngine() {
+        return this.engine;
+    }
+
+    @Override
+    public long getQueries() {
+        return this.latency.count();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return this.latency.mean() / 1000;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return this.latency.percentile(50) / 1000.0;
+    }
+
+    @Override
+    public double getP90Micros() {
+        return this.latency.percentile(90) / 1000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return this.latency.percentile(99) / 1000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return this.latency.max() / 1000.0;
+    }
+
+    @Override
+    public long getNodesSettled() {
+        return this.settled.sum();
+    }
+
+    @Override
+    public long getEdgesRelaxed() {
+        return this.relaxed.sum();
+    }
+
+    @Override
+    public long getHeapPushes() {
+        return this.pushes.sum();
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return this.allocated.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return this.hits.sum();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return this.misses.sum();
+    }
+
+    @Override
+    public double getCacheHitRate() {
+        long h = this.hits.sum();
+        long total = h + this.misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    @Override
+    public String dump() {
+        long queries = this.getQueries();
+        long per = Math.max(1, queries);
+        return String.format("%s: queries=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus max=%.1fus "
+                + "settled/q=%d relaxed/q=%d pushes/q=%d bytes/q=%d cacheHitRate=%.3f", this.engine, queries,
+                this.getMeanMicros(), this.getP50Micros(), this.getP90Micros(), this.getP99Micros(),
+                this.getMaxMicros(), this.getNodesSettled() / per, this.getEdgesRelaxed() / per,
+                this.getHeapPushes() / per, this.getAllocatedBytes() / per, this.getCacheHitRate());
+    }
+
+    @Override
+    public void reset() {
+        this.latency.reset();
+        this.settled.reset();
+        this.relaxed.reset();
+        this.pushes.reset();
+        this.allocated.reset();
+        this.hits.reset();
+        this.misses.reset();
+    }
+
+    /**
+     * writes the metrics of every engine, one line each in order of name
+     *
+     * @param out
+     *            stream to write to
+     * @throws IllegalArgumentException
+     *             if out is null
+     */
+    public static void dumpAll(PrintStream out) {
+        if (out == null) {
+            throw new IllegalArgumentException();
+        }
+        for (RouteMetrics metrics : new TreeMap<String, RouteMetrics>(RouteMetrics.ENGINES).values()) {
+            out.println(metrics.dump());
+        }
+        out.flush();
+    }
+
+    /**
+     * starts a daemon thread that writes the metrics of every engine
+     * periodically
+     *
+     * @param out
+     *            stream to write to
+     * @param periodMillis
+     *            time between dumps, in milliseconds
+     * @return handle that stops the dumps when closed
+     * @throws IllegalArgumentException
+     *             if out is null or periodMillis is not positive
+     */
+    public static Closeable startDump(final PrintStream out, final long periodMillis) {
+        if (out == null || periodMillis <= 0) {
+            throw new IllegalArgumentException();
+        }
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        Thread.sleep(periodMillis);
+                        RouteMetrics.dumpAll(out);
+                    }
+                } catch (InterruptedException e) {
+                    // closed, stop dumping
+                }
+            }
+        }, "route-metrics-dump");
+        thread.setDaemon(true);
+        thread.start();
+        return new Closeable() {
+            @Override
+            public void close() {
+                thread.interrupt();
+            }
+        };
+    }
+
+    /**
+     * returns the metrics of every engine
+     *
+     * @return map of engine names to their metrics, in order of name
+     */
+    public static Map<String, RouteMetrics> getAll() {
+        return new TreeMap<String, RouteMetrics>(RouteMetrics.ENGINES);
+    }
+}
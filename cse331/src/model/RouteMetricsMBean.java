@@ -0,0 +1,91 @@
+package model;
+
+/**
+ * The management interface of RouteMetrics, through which JMX clients such as
+ * jconsole read the metrics of a routing engine. Times are in microseconds.
+ *
+ * @author WP
+ *
+ */
+public interface RouteMetricsMBean {
+
+    /**
+     * @return name of the engine measured
+     */
+    public String getEngine();
+
+    /**
+     * @return number of queries recorded
+     */
+    public long getQueries();
+
+    /**
+     * @return mean query latency
+     */
+    public double getMeanMicros();
+
+    /**
+     * @return median query latency
+     */
+    public double getP50Micros();
+
+    /**
+     * @return 90th percentile query latency
+     */
+    public double getP90Micros();
+
+    /**
+     * @return 99th percentile query latency
+     */
+    public double getP99Micros();
+
+    /**
+     * @return longest query latency
+     */
+    public double getMaxMicros();
+
+    /**
+     * @return nodes settled by all queries
+     */
+    public long getNodesSettled();
+
+    /**
+     * @return edges relaxed by all queries
+     */
+    public long getEdgesRelaxed();
+
+    /**
+     * @return pushes onto the search heap by all queries
+     */
+    public long getHeapPushes();
+
+    /**
+     * @return bytes allocated by all queries, or 0 if the JVM cannot tell
+     */
+    public long getAllocatedBytes();
+
+    /**
+     * @return cache lookups that hit
+     */
+    public long getCacheHits();
+
+    /**
+     * @return cache lookups that missed
+     */
+    public long getCacheMisses();
+
+    /**
+     * @return fraction of cache lookups that hit, or 0 if there were none
+     */
+    public double getCacheHitRate();
+
+    /**
+     * @return the metrics as one line of text
+     */
+    public String dump();
+
+    /**
+     * sets every metric back to zero
+     */
+    public void reset();
+}
@@ -0,0 +1,87 @@
+package model;
+
+import java.util.List;
+
+import graphStructure.Edge;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A Flight Recorder event for one shortest path query. Only queries that take
+ * longer than the threshold, 1 ms unless a recording sets another, are
+ * recorded, so slow routes can be lined up with GC pauses in the same
+ * recording at almost no cost for the fast ones.
+ *
+ * @author WP
+ *
+ */
+@Name("model.RouteQuery")
+@Label("Route Query")
+@Description("Finding the shortest path between two points")
+@Category("Campus Paths")
+@Threshold("1 ms")
+@StackTrace(false)
+final class RouteQueryEvent extends Event {
+
+    @Label("Origin")
+    String origin;
+
+    @Label("Destination")
+    String destination;
+
+    @Label("Algorithm")
+    @Description("Routing engine that answered, as named in RouteMetrics")
+    String algorithm;
+
+    @Label("Settled Nodes")
+    long settledNodes;
+
+    @Label("Path Length")
+    @Description("Edges in the path found, or -1 if there is none")
+    long pathLength;
+
+    @Label("Path Distance")
+    @Description("Total weight of the path found, or -1 if there is none")
+    double pathDistance;
+
+    /**
+     * ends the event and records it if it took long enough
+     *
+     * @param algorithm
+     *            engine that answered the query
+     * @param start
+     *            start of the query
+     * @param end
+     *            end of the query
+     * @param settledNodes
+     *            nodes the search settled
+     * @param path
+     *            path found, or null if there is none
+     * @modifies this
+     * @effects commits this to any recording that wants it
+     */
+    <T> void finish(String algorithm, Object start, Object end, long settledNodes, List<Edge<T, Double>> path) {
+        this.end();
+        if (this.shouldCommit()) {
+            this.algorithm = algorithm;
+            this.origin = String.valueOf(start);
+            this.destination = String.valueOf(end);
+            this.settledNodes = settledNodes;
+            this.pathLength = path == null ? -1 : path.size();
+            double distance = -1;
+            if (path != null) {
+                distance = 0;
+                for (Edge<T, Double> e : path) {
+                    distance += e.getLabel();
+                }
+            }
+            this.pathDistance = distance;
+            this.commit();
+        }
+    }
+}
@@ -0,0 +1,709 @@
+package model;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A SyntheticCampus is a made up campus of any size, for testing and
+ * benchmarking the loaders, indexes and routing engines at scale. It is
+ * written in exactly the format of campus_buildings.dat and campus_paths.dat,
+ * with coordinates to four decimal places, every path in both directions and
+ * each path labeled with the Euclidean distance between its ends, so a
+ * synthetic campus loads like the real one. Campuses are made from a seed, so
+ * the same arguments always make the same files. Three kinds can be made:
+ *
+ * <pre>
+ * grid       nodes on a square grid, joined to their 4 neighbors, or 8 with
+ *            the diagonals if the degree is 8
+ * geometric  nodes scattered at random, each joined to its degree nearest
+ *            nodes
+ * road       a jittered grid of intersections with some roads missing, so
+ *            intersections have about degree roads, and each road bent by a
+ *            few shape points, like a street network
+ * </pre>
+ *
+ * Nodes are spread about 50 feet apart, like the paths of the real campus.
+ * Buildings are put at nodes picked at random and named AAA, AAB and so on.
+ * Run main to write a campus to the data directory:
+ *
+ * <pre>
+ * java model.SyntheticCampus --topology road --nodes 1000000 --degree 3
+ *         --buildings 5000 --seed 7 --name big
+ * </pre>
+ *
+ * writes big_buildings.dat and big_paths.dat, which load with
+ * CampusGraph.load("big_buildings.dat", "big_paths.dat").
+ *
+ * @author WP
+ *
+ */
+public final class SyntheticCampus {
+    // switch for checking rep invariant
+    private static final boolean CHECK = false;
+
+    /** nodes on a square grid */
+    public static final String GRID = "grid";
+    /** nodes scattered at random, joined to their nearest neighbors */
+    public static final String GEOMETRIC = "geometric";
+    /** a street network of intersections and shape points */
+    public static final String ROAD = "road";
+
+    // feet between neighboring nodes
+    private static final double SPACING = 50;
+    // shape points bending each road
+    private static final int SHAPE_POINTS = 3;
+
+    // coordinates of each node, on the 1/10000 foot grid of the data files
+    private final double[] xs;
+    private final double[] ys;
+    // neighbors of node i are targets[offsets[i]] to targets[offsets[i + 1] - 1]
+    private final int[] offsets;
+    private final int[] targets;
+    // node of each building, in order of name
+    private final int[] buildings;
+
+    // Abstraction function: this is a campus of the nodes
+    // (this.xs[i], this.ys[i]), with a path in each direction between node i
+    // and each of its neighbors, and a building named name(j) with a long
+    // name of "Synthetic Hall j" at node this.buildings[j].
+
+    // Representation Invariant:
+    // no array is null, this.xs and this.ys have the same length n,
+    // this.offsets has length n + 1 and runs from 0 to this.targets.length
+    // without decreasing, j is a neighbor of i iff i is a neighbor of j, no
+    // node is its own neighbor or the same neighbor twice, no two nodes have
+    // the same coordinates, the buildings are at different nodes
+
+    /**
+     * constructor
+     *
+     * @param xs
+     *            x coordinate of each node
+     * @param ys
+     *            y coordinate of each node
+     * @param edges
+     *            sorted, distinct undirected edges, each the smaller node id
+     *            in the high 32 bits and the larger in the low
+     * @param edgeCount
+     *            number of edges used
+     * @param buildings
+     *            node of each building
+     * @effects creates a campus of the args
+     */
+    private SyntheticCampus(double[] xs, double[] ys, long[] edges, int edgeCount, int[] buildings) {
+        this.xs = xs;
+        this.ys = ys;
+        this.buildings = buildings;
+        int n = xs.length;
+        this.offsets = new int[n + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            this.offsets[(int) (edges[e] >>> 32) + 1]++;
+            this.offsets[(int) edges[e] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            this.offsets[i + 1] += this.offsets[i];
+        }
+        this.targets = new int[2 * edgeCount];
+        int[] next = Arrays.copyOf(this.offsets, n);
+        for (int e = 0; e < edgeCount; e++) {
+            int a = (int) (edges[e] >>> 32);
+            int b = (int) edges[e];
+            this.targets[next[a]++] = b;
+            this.targets[next[b]++] = a;
+        }
+        this.checkRep();
+    }
+
+    /**
+     * makes a synthetic campus
+     *
+     * @param topology
+     *            GRID, GEOMETRIC or ROAD
+     * @param nodes
+     *            about how many nodes to make; grids round up to a square
+     * @param degree
+     *            paths from each node: 4 or 8 for a grid, the nearest
+     *            neighbors joined for geometric, about the roads at each
+     *            intersection, from 1 to 4, for road
+     * @param buildingCount
+     *            number of buildings, at most the number of nodes
+     * @param seed
+     *            seed of the random numbers
+     * @return the campus
+     * @throws IllegalArgumentException
+     *             if topology is not one of the three, nodes is less than 2,
+     *             degree is out of range or buildingCount is negative or
+     *             more than the nodes made
+     */
+    public static SyntheticCampus generate(String topology, int nodes, int degree, int buildingCount, long seed) {
+        if (topology == null || nodes < 2 || degree < 1 || buildingCount < 0) {
+            throw new IllegalArgumentException();
+        }
+        Random random = new Random(seed);
+        Builder b;
+        if (topology.equals(SyntheticCampus.GRID)) {
+            if (degree != 4 && degree != 8) {
+                throw new IllegalArgumentException("grid degree must be 4 or 8");
+            }
+            b = SyntheticCampus.grid(nodes, degree == 8);
+        } else if (topology.equals(SyntheticCampus.GEOMETRIC)) {
+            if (degree >= nodes) {
+                throw new IllegalArgumentException("degree must be less than nodes");
+            }
+            b = SyntheticCampus.geometric(nodes, degree, random);
+        } else if (topology.equals(SyntheticCampus.ROAD)) {
+            if (degree > 4) {
+                throw new IllegalArgumentException("road degree must be from 1 to 4");
+            }
+            b = SyntheticCampus.road(nodes, degree, random);
+        } else {
+            throw new IllegalArgumentException("Unknown topology: " + topology);
+        }
+        if (buildingCount > b.size) {
+            throw new IllegalArgumentException("more buildings than nodes");
+        }
+        // a partial Fisher-Yates shuffle picks distinct nodes
+        int[] order = new int[b.size];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        int[] buildings = new int[buildingCount];
+        for (int i = 0; i < buildingCount; i++) {
+            int j = i + random.nextInt(order.length - i);
+            int t = order[i];
+            order[i] = order[j];
+            order[j] = t;
+            buildings[i] = order[i];
+        }
+        long[] edges = b.edges;
+        Arrays.sort(edges, 0, b.edgeCount);
+        int distinct = 0;
+        for (int e = 0; e < b.edgeCount; e++) {
+            if (distinct == 0 || edges[e] != edges[distinct - 1]) {
+                edges[distinct++] = edges[e];
+            }
+        }
+        return new SyntheticCampus(Arrays.copyOf(b.xs, b.size), Arrays.copyOf(b.ys, b.size), edges, distinct,
+                buildings);
+    }
+
+    /**
+     * makes a grid
+     *
+     * @param nodes
+     *            about how many nodes
+     * @param diagonals
+     *            true to join diagonal neighbors too
+     * @return the nodes and edges of the grid
+     */
+    private static Builder grid(int nodes, boolean diagonals) {
+        int side = (int) Math.ceil(Math.sqrt(nodes));
+        Builder b = new Builder(side * side, side * side * (diagonals ? 4 : 2));
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                b.node(c * SyntheticCampus.SPACING, r * SyntheticCampus.SPACING);
+            }
+        }
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                int i = r * side + c;
+                if (c + 1 < side) {
+                    b.edge(i, i + 1);
+                }
+                if (r + 1 < side) {
+                    b.edge(i, i + side);
+                    if (diagonals && c + 1 < side) {
+                        b.edge(i, i + side + 1);
+                    }
+                    if (diagonals && c > 0) {
+                        b.edge(i, i + side - 1);
+                    }
+                }
+            }
+        }
+        return b;
+    }
+
+    /**
+     * makes a random geometric graph: nodes scattered uniformly over a square
+     * with one node per SPACING squared on average, each joined to its degree
+     * nearest nodes. The nearest nodes are found through a grid of cells
+     * holding about one node each.
+     *
+     * @param nodes
+     *            number of nodes
+     * @param degree
+     *            nearest nodes joined to each node
+     * @param random
+     *            random numbers
+     * @return the nodes and edges of the graph
+     */
+    private static Builder geometric(int nodes, int degree, Random random) {
+        double side = Math.sqrt(nodes) * SyntheticCampus.SPACING;
+        int cells = Math.max(1, (int) Math.sqrt(nodes));
+        double cell = side / cells;
+        Builder b = new Builder(nodes, (long) nodes * degree);
+        // nodes sorted by cell, found by a counting sort
+        int[] cellOf = new int[nodes];
+        int[] cellStart = new int[cells * cells + 1];
+        for (int i = 0; i < nodes; i++) {
+            int id;
+            do {
+                id = b.node(random.nextDouble() * side, random.nextDouble() * side);
+            } while (id < 0);
+            int cx = Math.min(cells - 1, (int) (b.xs[id] / cell));
+            int cy = Math.min(cells - 1, (int) (b.ys[id] / cell));
+            cellOf[id] = cy * cells + cx;
+            cellStart[cellOf[id] + 1]++;
+        }
+        for (int c = 0; c < cells * cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] byCell = new int[nodes];
+        int[] next = Arrays.copyOf(cellStart, cells * cells);
+        for (int i = 0; i < nodes; i++) {
+            byCell[next[cellOf[i]]++] = i;
+        }
+
+        int[] best = new int[degree];
+        double[] bestDist = new double[degree];
+        for (int i = 0; i < nodes; i++) {
+            int cx = cellOf[i] % cells;
+            int cy = cellOf[i] / cells;
+            int found = 0;
+            // search rings of cells until the nearest found are closer than
+            // any node in the next ring can be
+            for (int ring = 0; ring <= cells; ring++) {
+                if (found == degree && bestDist[degree - 1] <= (ring - 1) * cell * (ring - 1) * cell) {
+                    break;
+                }
+                for (int y = cy - ring; y <= cy + ring; y++) {
+                    for (int x = cx - ring; x <= cx + ring; x++) {
+                        boolean edge = y == cy - ring || y == cy + ring || x == cx - ring || x == cx + ring;
+                        if (!edge || x < 0 || y < 0 || x >= cells || y >= cells) {
+                            continue;
+                        }
+                        int c = y * cells + x;
+                        for (int k = cellStart[c]; k < cellStart[c + 1]; k++) {
+                            int j = byCell[k];
+                            if (j == i) {
+                                continue;
+                            }
+                            double dx = b.xs[j] - b.xs[i];
+                            double dy = b.ys[j] - b.ys[i];
+                            double d = dx * dx + dy * dy;
+                            if (found < degree || d < bestDist[found - 1]) {
+                                // insert into the sorted nearest nodes
+                                int at = found < degree ? found++ : found - 1;
+                                while (at > 0 && bestDist[at - 1] > d) {
+                                    best[at] = best[at - 1];
+                                    bestDist[at] = bestDist[at - 1];
+                                    at--;
+                                }
+                                best[at] = j;
+                                bestDist[at] = d;
+                            }
+                        }
+                    }
+                }
+            }
+            for (int k = 0; k < found; k++) {
+                b.edge(i, best[k]);
+            }
+        }
+        return b;
+    }
+
+    /**
+     * makes a street network. Intersections sit on a grid, jittered by up to
+     * a quarter of the block. Every road of the first column and of every row
+     * is kept so the network stays connected, and the other column roads are
+     * kept with the probability that gives intersections about degree roads.
+     * Each road is drawn through SHAPE_POINTS shape points offset a little to
+     * the side, so most nodes have two paths, as on real streets.
+     *
+     * @param nodes
+     *            about how many nodes
+     * @param degree
+     *            about how many roads meet at an intersection
+     * @param random
+     *            random numbers
+     * @return the nodes and edges of the network
+     */
+    private static Builder road(int nodes, int degree, Random random) {
+        // each intersection brings about degree / 2 roads of SHAPE_POINTS
+        // nodes
+        int intersections = Math.max(4, (int) (nodes / (1 + SyntheticCampus.SHAPE_POINTS * degree / 2.0)));
+        int side = Math.max(2, (int) Math.round(Math.sqrt(intersections)));
+        double block = SyntheticCampus.SPACING * (SyntheticCampus.SHAPE_POINTS + 1);
+        // rows give 1 road per intersection and the first column a few more;
+        // other column roads make up the rest of degree / 2
+        double keep = Math.max(0, Math.min(1, degree / 2.0 - 1));
+        Builder b = new Builder(side * side * (1 + 2 * SyntheticCampus.SHAPE_POINTS),
+                (long) side * side * 2 * (SyntheticCampus.SHAPE_POINTS + 1));
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                int id;
+                do {
+                    id = b.node(c * block + (random.nextDouble() - 0.5) * block / 2,
+                            r * block + (random.nextDouble() - 0.5) * block / 2);
+                } while (id < 0);
+            }
+        }
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                int i = r * side + c;
+                if (c + 1 < side && (degree > 1 || r == 0)) {
+                    SyntheticCampus.roadBetween(b, i, i + 1, random);
+                }
+                if (r + 1 < side && (c == 0 || random.nextDouble() < keep)) {
+                    SyntheticCampus.roadBetween(b, i, i + side, random);
+                }
+            }
+        }
+        return b;
+    }
+
+    /**
+     * adds a road between two intersections through shape points
+     *
+     * @param b
+     *            network being built
+     * @param from
+     *            intersection at one end
+     * @param to
+     *            intersection at the other end
+     * @param random
+     *            random numbers
+     */
+    private static void roadBetween(Builder b, int from, int to, Random random) {
+        double dx = b.xs[to] - b.xs[from];
+        double dy = b.ys[to] - b.ys[from];
+        double length = Math.sqrt(dx * dx + dy * dy);
+        int last = from;
+        for (int s = 1; s <= SyntheticCampus.SHAPE_POINTS; s++) {
+            double t = (double) s / (SyntheticCampus.SHAPE_POINTS + 1);
+            int id;
+            do {
+                // offset to the side by up to a tenth of the road
+                double side = (random.nextDouble() - 0.5) * 0.2 * length;
+                id = b.node(b.xs[from] + t * dx - side * dy / length, b.ys[from] + t * dy + side * dx / length);
+            } while (id < 0);
+            b.edge(last, id);
+            last = id;
+        }
+        b.edge(last, to);
+    }
+
+    /**
+     * @return number of nodes
+     */
+    public int nodeCount() {
+        return this.xs.length;
+    }
+
+    /**
+     * @return number of paths, counting each direction
+     */
+    public int edgeCount() {
+        return this.targets.length;
+    }
+
+    /**
+     * @return number of buildings
+     */
+    public int buildingCount() {
+        return this.buildings.length;
+    }
+
+    /**
+     * returns the short name of a building: three or more capital letters,
+     * AAA for building 0, AAB for building 1 and so on
+     *
+     * @param building
+     *            index of the building
+     * @return short name of the building
+     * @throws IllegalArgumentException
+     *             if building is negative
+     */
+    public static String name(int building) {
+        if (building < 0) {
+            throw new IllegalArgumentException();
+        }
+        char[] letters = new char[8];
+        int at = letters.length;
+        int rest = building;
+        do {
+            letters[--at] = (char) ('A' + rest % 26);
+            rest /= 26;
+        } while (rest > 0 || letters.length - at < 3);
+        return new String(letters, at, letters.length - at);
+    }
+
+    /**
+     * writes the campus in the format of the data files
+     *
+     * @param buildingOut
+     *            where the buildings are written, in the format of
+     *            campus_buildings.dat
+     * @param pathOut
+     *            where the paths are written, in the format of
+     *            campus_paths.dat
+     * @throws IOException
+     *             if the campus cannot be written
+     * @throws IllegalArgumentException
+     *             if any args are null
+     */
+    public void write(Writer buildingOut, Writer pathOut) throws IOException {
+        if (buildingOut == null || pathOut == null) {
+            throw new IllegalArgumentException();
+        }
+        StringBuilder line = new StringBuilder(64);
+        for (int j = 0; j < this.buildings.length; j++) {
+            int node = this.buildings[j];
+            line.setLength(0);
+            line.append(SyntheticCampus.name(j)).append("\tSynthetic Hall ").append(j).append('\t');
+            SyntheticCampus.appendCoordinate(line, this.xs[node]).append('\t');
+            SyntheticCampus.appendCoordinate(line, this.ys[node]).append('\n');
+            buildingOut.append(line);
+        }
+        buildingOut.flush();
+        for (int i = 0; i < this.xs.length; i++) {
+            line.setLength(0);
+            SyntheticCampus.appendCoordinate(line, this.xs[i]).append(',');
+            SyntheticCampus.appendCoordinate(line, this.ys[i]).append('\n');
+            pathOut.append(line);
+            for (int e = this.offsets[i]; e < this.offsets[i + 1]; e++) {
+                int j = this.targets[e];
+                double dx = this.xs[j] - this.xs[i];
+                double dy = this.ys[j] - this.ys[i];
+                line.setLength(0);
+                line.append('\t');
+                SyntheticCampus.appendCoordinate(line, this.xs[j]).append(',');
+                SyntheticCampus.appendCoordinate(line, this.ys[j]).append(": ").append(Math.sqrt(dx * dx + dy * dy))
+                        .append('\n');
+                pathOut.append(line);
+            }
+        }
+        pathOut.flush();
+    }
+
+    /**
+     * writes the campus to files
+     *
+     * @param buildingFile
+     *            name of the building file to write
+     * @param pathFile
+     *            name of the path file to write
+     * @throws IOException
+     *             if the files cannot be written
+     * @throws IllegalArgumentException
+     *             if any args are null
+     */
+    public void write(String buildingFile, String pathFile) throws IOException {
+        if (buildingFile == null || pathFile == null) {
+            throw new IllegalArgumentException();
+        }
+        Writer buildingOut = new BufferedWriter(new FileWriter(buildingFile), 1 << 16);
+        try {
+            Writer pathOut = new BufferedWriter(new FileWriter(pathFile), 1 << 16);
+            try {
+                this.write(buildingOut, pathOut);
+            } finally {
+                pathOut.close();
+            }
+        } finally {
+            buildingOut.close();
+        }
+    }
+
+    /**
+     * appends a coordinate with four decimal places, as in the data files
+     *
+     * @param sb
+     *            text to append to
+     * @param v
+     *            coordinate, already on the 1/10000 grid and not negative
+     * @return sb
+     */
+    private static StringBuilder appendCoordinate(StringBuilder sb, double v) {
+        long tenThousandths = Math.round(v * 10000);
+        sb.append(tenThousandths / 10000).append('.');
+        long fraction = tenThousandths % 10000;
+        for (long digit = 1000; digit > fraction && digit > 1; digit /= 10) {
+            sb.append('0');
+        }
+        return sb.append(fraction);
+    }
+
+    /**
+     * writes a synthetic campus to the data directory. Options, all
+     * optional:
+     *
+     * <pre>
+     * --topology T   grid, geometric or road (road)
+     * --nodes N      about how many nodes (100000)
+     * --degree D     paths per node, see generate (3 for road, 4 otherwise)
+     * --buildings B  number of buildings (1000, at most the nodes)
+     * --seed S       seed of the random numbers (1)
+     * --name NAME    files are NAME_buildings.dat and NAME_paths.dat
+     *                (synthetic)
+     * </pre>
+     *
+     * @param args
+     *            command line args
+     * @throws IOException
+     *             if the files cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        String topology = SyntheticCampus.ROAD;
+        int nodes = 100000;
+        int degree = -1;
+        int buildingCount = 1000;
+        long seed = 1;
+        String name = "synthetic";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            if (args[i].equals("--topology")) {
+                topology = value;
+            } else if (args[i].equals("--nodes")) {
+                nodes = Integer.parseInt(value);
+            } else if (args[i].equals("--degree")) {
+                degree = Integer.parseInt(value);
+            } else if (args[i].equals("--buildings")) {
+                buildingCount = Integer.parseInt(value);
+            } else if (args[i].equals("--seed")) {
+                seed = Long.parseLong(value);
+            } else if (args[i].equals("--name")) {
+                name = value;
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (degree < 0) {
+            degree = topology.equals(SyntheticCampus.ROAD) ? 3 : 4;
+        }
+        SyntheticCampus campus = SyntheticCampus.generate(topology, nodes, degree, Math.min(buildingCount, nodes),
+                seed);
+        String buildingFile = name + "_buildings.dat";
+        String pathFile = name + "_paths.dat";
+        campus.write(CampusGraph.dataFile(buildingFile), CampusGraph.dataFile(pathFile));
+        System.out.println("Wrote " + campus.nodeCount() + " nodes, " + campus.edgeCount() + " paths and "
+                + campus.buildingCount() + " buildings to " + buildingFile + " and " + pathFile);
+    }
+
+    /**
+     * checks rep invariant. the neighbor lists must be symmetric and the
+     * buildings at different nodes
+     */
+    private void checkRep() {
+        if (!SyntheticCampus.CHECK) {
+            return;
+        }
+        int n = this.xs.length;
+        if (this.ys.length != n || this.offsets.length != n + 1 || this.offsets[n] != this.targets.length) {
+            throw new RuntimeException("arrays do not match");
+        }
+        for (int i = 0; i < n; i++) {
+            for (int e = this.offsets[i]; e < this.offsets[i + 1]; e++) {
+                int j = this.targets[e];
+                if (j == i) {
+                    throw new RuntimeException("node joined to itself");
+                }
+                boolean back = false;
+                for (int f = this.offsets[j]; f < this.offsets[j + 1]; f++) {
+                    back |= this.targets[f] == i;
+                }
+                if (!back) {
+                    throw new RuntimeException("path in one direction only");
+                }
+            }
+        }
+        boolean[] built = new boolean[n];
+        for (int node : this.buildings) {
+            if (built[node]) {
+                throw new RuntimeException("two buildings at one node");
+            }
+            built[node] = true;
+        }
+    }
+
+    /**
+     * A Builder collects the nodes and undirected edges of a campus as it is
+     * made, growing its arrays as needed. Coordinates are rounded to the
+     * 1/10000 foot grid of the data files, and a node that would round to
+     * the coordinates of another is refused.
+     */
+    private static final class Builder {
+        // coordinates of the nodes
+        private double[] xs;
+        private double[] ys;
+        // number of nodes
+        private int size;
+        // undirected edges, smaller node id in the high 32 bits
+        private long[] edges;
+        // number of edges, counting repeats
+        private int edgeCount;
+        // ids of the nodes by coordinates
+        private final CoordinateIndex index;
+
+        /**
+         * constructor
+         *
+         * @param nodes
+         *            expected number of nodes
+         * @param edges
+         *            expected number of edges
+         * @effects creates an empty builder
+         */
+        private Builder(int nodes, long edges) {
+            this.xs = new double[nodes];
+            this.ys = new double[nodes];
+            this.edges = new long[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(16, edges))];
+            this.index = new CoordinateIndex(nodes);
+        }
+
+        /**
+         * adds a node
+         *
+         * @param x
+         *            x coordinate, not negative after rounding
+         * @param y
+         *            y coordinate, not negative after rounding
+         * @return id of the new node, or -1 if a node has those coordinates
+         */
+        private int node(double x, double y) {
+            double rx = Math.max(0, Math.round(x * 10000)) / 10000.0;
+            double ry = Math.max(0, Math.round(y * 10000)) / 10000.0;
+            if (this.index.putIfAbsent(rx, ry, this.size) != this.size) {
+                return -1;
+            }
+            if (this.size == this.xs.length) {
+                this.xs = Arrays.copyOf(this.xs, 2 * this.size);
+                this.ys = Arrays.copyOf(this.ys, 2 * this.size);
+            }
+            this.xs[this.size] = rx;
+            this.ys[this.size] = ry;
+            return this.size++;
+        }
+
+        /**
+         * adds an undirected edge
+         *
+         * @param a
+         *            a node
+         * @param b
+         *            another node
+         */
+        private void edge(int a, int b) {
+            if (this.edgeCount == this.edges.length) {
+                this.edges = Arrays.copyOf(this.edges, 2 * this.edgeCount);
+            }
+            this.edges[this.edgeCount++] = ((long) Math.min(a, b) << 32) | Math.max(a, b);
+        }
+    }
+}
@@ -1,7 +1,24 @@
 package model;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Scanner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import graphStructure.Edge;
 
@@ -9,19 +26,35 @@ public class View {
 
     // view/controller, not an ADT
 
+    // queries resolved together by one batch task
+    private static final int BATCH_CHUNK = 256;
+    // size of the batch output buffer
+    private static final int BATCH_BUFFER = 1 << 16;
+
     /**
      * view/controller. allows client to find path between two buildings, list
-     * all the buildings in the model, or see the menu
+     * all the buildings in the model, or see the menu. Run with --batch [file]
+     * to instead answer the route queries in file, or standard input if no
+     * file is given, as described by runBatch.
      *
      * @param args
      *            command line args
      */
     public static void main(String[] args) {
 
+        if (args.length > 0 && args[0].equals("--batch")) {
+            View.batch(args.length > 1 ? args[1] : null);
+            return;
+        }
         Scanner sc = new Scanner(System.in);
+        // -Dmodel.metricsDumpMillis=N writes routing metrics every N ms
+        String dumpMillis = System.getProperty("model.metricsDumpMillis");
+        if (dumpMillis != null) {
+            RouteMetrics.startDump(System.err, Long.parseLong(dumpMillis));
+        }
         CampusGraph model = null;
         try {
-            model = new CampusGraph("campus_buildings.dat", "campus_paths.dat");
+            model = CampusGraph.load("campus_buildings.dat", "campus_paths.dat");
         } catch (MalformedDataException e) {
             e.printStackTrace();
         }
@@ -51,14 +84,14 @@ public class View {
     }
 
     /**
-     * prints path given a CampusGraph model and a scanner with additional args
+     * prints path given a CampusModel and a scanner with additional args
      *
      * @param model
      *            model of campus
      * @param sc
      *            scanner listening for args
      */
-    private static void printPath(CampusGraph model, Scanner sc) {
+    private static void printPath(CampusModel model, Scanner sc) {
         System.out.print("Abbreviated name of starting building: ");
         String start = sc.nextLine();
         System.out.print("Abbreviated name of ending building: ");
@@ -68,20 +101,212 @@ public class View {
         if (path == null) {
             return;
         }
-        System.out.println("Path from " + model.getLongName(start) + " to " + model.getLongName(end) + ":");
-        double dist = 0;
+        System.out.print(View.appendPath(new StringBuilder(), model, start, end, path));
+    }
 
+    /**
+     * appends a path the way printPath prints it: a header line, one line of
+     * directions per edge, the total distance and a blank line
+     *
+     * @param out
+     *            text to append to
+     * @param model
+     *            model of campus
+     * @param start
+     *            building at start of path
+     * @param end
+     *            building at end of path
+     * @param path
+     *            path from start to end in model
+     * @return out
+     */
+    private static StringBuilder appendPath(StringBuilder out, CampusModel model, String start, String end,
+            List<Edge<PointD, Double>> path) {
+        String newline = System.lineSeparator();
+        out.append("Path from ").append(model.getLongName(start)).append(" to ").append(model.getLongName(end))
+                .append(':').append(newline);
+        double dist = 0;
+        InstructionTable instructions = model.getInstructions();
         for (Edge<PointD, Double> e : path) {
-            PointD startP = e.getStart();
-            PointD endP = e.getEnd();
-            double edge = e.getLabel();
-            dist += edge;
-            System.out.println('\t' + "Walk " + Math.round(edge) + " feet " + startP.relativeDirection(endP) + " to ("
-                    + Math.round(endP.getX()) + ", " + Math.round(endP.getY()) + ")");
-        }
-        System.out.println("Total distance: " + Math.round(dist) + " feet");
-        System.out.println();
+            dist += e.getLabel();
+            instructions.appendInstruction(out, e).append(newline);
+        }
+        out.append("Total distance: ").append(Math.round(dist)).append(" feet").append(newline);
+        out.append(newline);
+        return out;
+    }
+
+    /**
+     * answers the route queries of a file, or of standard input if file is
+     * null, on standard output using a snapshot of the campus
+     *
+     * @param file
+     *            name of the file of queries, or null for standard input
+     */
+    private static void batch(String file) {
+        try {
+            CampusSnapshot model = CampusGraph.load("campus_buildings.dat", "campus_paths.dat").snapshot();
+            Reader in = file == null ? new InputStreamReader(System.in) : new FileReader(file);
+            try {
+                Writer out = new OutputStreamWriter(System.out);
+                View.runBatch(in, out, model, Runtime.getRuntime().availableProcessors());
+            } finally {
+                in.close();
+            }
+        } catch (MalformedDataException e) {
+            e.printStackTrace();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
 
+    /**
+     * answers route queries without prompts. Each line of in is a query, the
+     * abbreviated names of the starting and ending buildings separated by a
+     * tab; blank lines and lines starting with # are skipped. The answers are
+     * written to out in the order of the queries, each exactly as the route
+     * option prints it, including the lines naming unknown buildings. Queries
+     * are answered in chunks by a pool of threads while later queries are
+     * read, and all output goes through one large buffer.
+     *
+     * @param in
+     *            queries, one per line
+     * @param out
+     *            where the answers are written
+     * @param model
+     *            model of campus, queried by several threads at once
+     * @param threads
+     *            number of threads answering queries
+     * @modifies in, out
+     * @effects reads every query of in and writes its answer to out, then
+     *          flushes out
+     * @throws IOException
+     *             if in cannot be read or out cannot be written
+     * @throws IllegalArgumentException
+     *             if any args are null or threads is not positive
+     */
+    public static void runBatch(Reader in, Writer out, final CampusSnapshot model, int threads)
+            throws IOException {
+        if (in == null || out == null || model == null || threads <= 0) {
+            throw new IllegalArgumentException();
+        }
+        BufferedReader reader = new BufferedReader(in, View.BATCH_BUFFER);
+        BufferedWriter writer = new BufferedWriter(out, View.BATCH_BUFFER);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        // chunks being answered, in order, at most a few per thread so memory
+        // stays bounded however many queries there are
+        Queue<Future<String>> pending = new ArrayDeque<Future<String>>();
+        try {
+            List<String> chunk = new ArrayList<String>(View.BATCH_CHUNK);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().length() == 0 || line.charAt(0) == '#') {
+                    continue;
+                }
+                chunk.add(line);
+                if (chunk.size() == View.BATCH_CHUNK) {
+                    pending.add(pool.submit(View.answer(model, chunk)));
+                    chunk = new ArrayList<String>(View.BATCH_CHUNK);
+                    if (pending.size() > 4 * threads) {
+                        writer.write(View.result(pending.remove()));
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                pending.add(pool.submit(View.answer(model, chunk)));
+            }
+            while (!pending.isEmpty()) {
+                writer.write(View.result(pending.remove()));
+            }
+            writer.flush();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * makes a task answering a chunk of queries
+     *
+     * @param model
+     *            model of campus
+     * @param queries
+     *            lines holding one query each
+     * @return task returning the answers to queries, in order
+     */
+    private static Callable<String> answer(final CampusSnapshot model, final List<String> queries) {
+        return new Callable<String>() {
+            @Override
+            public String call() {
+                StringBuilder out = new StringBuilder(queries.size() * 512);
+                for (String query : queries) {
+                    View.answer(out, model, query);
+                }
+                return out.toString();
+            }
+        };
+    }
+
+    /**
+     * appends the answer to one query. Unknown buildings are checked here, so
+     * the model never prints
+     *
+     * @param out
+     *            text to append to
+     * @param model
+     *            model of campus
+     * @param query
+     *            start and end building separated by a tab
+     */
+    private static void answer(StringBuilder out, CampusSnapshot model, String query) {
+        String newline = System.lineSeparator();
+        int tab = query.indexOf('\t');
+        if (tab < 0) {
+            out.append("Malformed query: ").append(query).append(newline).append(newline);
+            return;
+        }
+        String start = query.substring(0, tab);
+        String end = query.substring(tab + 1);
+        BuildingDirectory directory = model.getDirectory();
+        boolean unknown = false;
+        if (!directory.contains(start)) {
+            out.append("Unknown building: ").append(start).append(newline);
+            unknown = true;
+        }
+        if (!directory.contains(end)) {
+            out.append("Unknown building: ").append(end).append(newline);
+            unknown = true;
+        }
+        if (unknown) {
+            out.append(newline);
+            return;
+        }
+        List<Edge<PointD, Double>> path = model.findPath(start, end);
+        if (path != null) {
+            View.appendPath(out, model, start, end, path);
+        }
+    }
+
+    /**
+     * waits for the answers of a chunk of queries
+     *
+     * @param answers
+     *            answers being found
+     * @return the answers
+     * @throws IOException
+     *             if interrupted while waiting
+     */
+    private static String result(Future<String> answers) throws IOException {
+        try {
+            return answers.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while answering queries", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
     }
 
     /**
@@ -102,10 +327,10 @@ public class View {
      * @param model
      *            model of campus
      */
-    private static void printBuildings(CampusGraph model) {
+    private static void printBuildings(CampusModel model) {
         System.out.println("Buildings:");
-        for (String s : model.getBuildings().keySet()) {
-            System.out.println('\t' + s + ": " + model.getBuildings().get(s));
+        for (Map.Entry<String, String> building : model.getBuildings().entrySet()) {
+            System.out.println('\t' + building.getKey() + ": " + building.getValue());
         }
         System.out.println();
     }
@@ -0,0 +1,97 @@
+package model.test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import model.BuildingDirectory;
+import model.CampusParser;
+import model.MalformedDataException;
+import model.PointD;
+
+/**
+ * this class tests the implementation of the BuildingDirectory class
+ *
+ * @author WP
+ *
+ */
+public class BuildingDirectoryTest {
+
+    private BuildingDirectory directory;
+
+    @Before
+    public void startUp() {
+        Map<String, String> short2LongName = new HashMap<String, String>();
+        Map<String, PointD> name2Loc = new HashMap<String, PointD>();
+        String[][] buildings = { { "MGH", "Mary Gates Hall" }, { "CSE", "Paul G. Allen Center" },
+                { "MUS", "Music Building" }, { "MOR", "Moore Hall" }, { "BAG", "Bagley Hall" } };
+        for (int i = 0; i < buildings.length; i++) {
+            short2LongName.put(buildings[i][0], buildings[i][1]);
+            name2Loc.put(buildings[i][0], new PointD(i, i));
+        }
+        this.directory = new BuildingDirectory(short2LongName, name2Loc);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullConstructor() {
+        new BuildingDirectory(null, null);
+    }
+
+    @Test
+    public void testLookup() {
+        Assert.assertEquals(5, this.directory.size());
+        Assert.assertTrue(this.directory.contains("MGH"));
+        Assert.assertFalse(this.directory.contains("mgh"));
+        Assert.assertEquals("Moore Hall", this.directory.getLongName("MOR"));
+        Assert.assertEquals(new PointD(1, 1), this.directory.getLocation("CSE"));
+        Assert.assertNull(this.directory.getLongName("OOG"));
+    }
+
+    @Test
+    public void testSortedViews() {
+        Assert.assertEquals(Arrays.asList("BAG", "CSE", "MGH", "MOR", "MUS"), this.directory.getShortNames());
+        Assert.assertEquals(this.directory.getShortNames(),
+                Arrays.asList(this.directory.getBuildings().keySet().toArray()));
+        Assert.assertSame(this.directory.getBuildings(), this.directory.getBuildings());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testViewUnmodifiable() {
+        this.directory.getBuildings().put("OOG", "unknown new building");
+    }
+
+    @Test
+    public void testCompleteShortAndLongNames() {
+        Assert.assertEquals(Arrays.asList("MGH", "MOR", "MUS"), this.directory.complete("m", 10));
+        Assert.assertEquals(Collections.singletonList("MOR"), this.directory.complete("Mo", 10));
+        Assert.assertEquals(Collections.singletonList("MUS"), this.directory.complete("mu", 10));
+        // any word of a long name can be completed
+        Assert.assertEquals(Arrays.asList("BAG", "MGH", "MOR"), this.directory.complete("hall", 10));
+        Assert.assertEquals(Collections.singletonList("CSE"), this.directory.complete("allen c", 10));
+        Assert.assertTrue(this.directory.complete("hallx", 10).isEmpty());
+    }
+
+    @Test
+    public void testCompleteLimit() {
+        Assert.assertEquals(Arrays.asList("BAG", "CSE"), this.directory.complete("", 2));
+        Assert.assertTrue(this.directory.complete("m", 0).isEmpty());
+    }
+
+    @Test
+    public void testCampusBuildings() throws MalformedDataException {
+        Map<String, String> short2LongName = new HashMap<String, String>();
+        Map<String, PointD> name2Loc = new HashMap<String, PointD>();
+        CampusParser.parseBuildingData("./src/model/data/campus_buildings.dat", short2LongName, name2Loc);
+        BuildingDirectory campus = new BuildingDirectory(short2LongName, name2Loc);
+        Assert.assertEquals(short2LongName, campus.getBuildings());
+        for (String shortName : short2LongName.keySet()) {
+            Assert.assertTrue(campus.complete(shortName, campus.size()).contains(shortName));
+            Assert.assertTrue(campus.complete(short2LongName.get(shortName), campus.size()).contains(shortName));
+        }
+    }
+}
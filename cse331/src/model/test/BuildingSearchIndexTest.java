@@ -0,0 +1,127 @@
+package model.test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import model.BuildingSearchIndex;
+import model.CampusParser;
+import model.MalformedDataException;
+import model.PointD;
+import model.RouteMetrics;
+
+/**
+ * this class tests the implementation of the BuildingSearchIndex class
+ *
+ * @author WP
+ *
+ */
+public class BuildingSearchIndexTest {
+
+    private static BuildingSearchIndex campus;
+
+    @BeforeClass
+    public static void startUp() throws MalformedDataException {
+        Map<String, String> short2LongName = new HashMap<String, String>();
+        CampusParser.parseBuildingData("./src/model/data/campus_buildings.dat", short2LongName,
+                new HashMap<String, PointD>());
+        BuildingSearchIndexTest.campus = new BuildingSearchIndex(short2LongName);
+    }
+
+    private static String first(String query) {
+        List<String> found = BuildingSearchIndexTest.campus.search(query, 5);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullConstructor() {
+        new BuildingSearchIndex(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullQuery() {
+        BuildingSearchIndexTest.campus.search(null, 5);
+    }
+
+    @Test
+    public void testExactShortName() {
+        Assert.assertEquals("MGH", BuildingSearchIndexTest.first("MGH"));
+        Assert.assertEquals("KNE (SE)", BuildingSearchIndexTest.first("kne (se)"));
+    }
+
+    @Test
+    public void testLongNamePrefix() {
+        Assert.assertEquals("MGH", BuildingSearchIndexTest.first("Mary Gates"));
+        Assert.assertEquals("SUZ", BuildingSearchIndexTest.first("suzzallo"));
+        Assert.assertEquals("OUG", BuildingSearchIndexTest.first("Undergraduate Library"));
+    }
+
+    @Test
+    public void testInitials() {
+        Assert.assertEquals("MGH", BuildingSearchIndexTest.first("mgates"));
+        Assert.assertEquals("OUG", BuildingSearchIndexTest.first("oulibrary"));
+    }
+
+    @Test
+    public void testTypos() {
+        Assert.assertEquals("MGH", BuildingSearchIndexTest.first("Mray Gates"));
+        Assert.assertEquals("SUZ", BuildingSearchIndexTest.first("Suzalo Library"));
+        Assert.assertEquals("PAR", BuildingSearchIndexTest.first("Parington"));
+    }
+
+    @Test
+    public void testNoMatch() {
+        Assert.assertTrue(BuildingSearchIndexTest.campus.search("xyzzy", 5).isEmpty());
+        Assert.assertTrue(BuildingSearchIndexTest.campus.search(" -- ", 5).isEmpty());
+    }
+
+    @Test
+    public void testRankedAndLimited() {
+        List<String> found = BuildingSearchIndexTest.campus.search("Kane Hall", 3);
+        Assert.assertEquals(Arrays.asList("KNE", "KNE (E)", "KNE (S)"), found);
+        Assert.assertTrue(BuildingSearchIndexTest.campus.search("Kane Hall", 0).isEmpty());
+    }
+
+    @Test
+    public void testLargeDirectory() {
+        Map<String, String> short2LongName = new HashMap<String, String>();
+        for (int i = 0; i < 20000; i++) {
+            short2LongName.put("B" + i, "Building Number " + i + " Hall");
+        }
+        short2LongName.put("MGH", "Mary Gates Hall");
+        BuildingSearchIndex large = new BuildingSearchIndex(short2LongName);
+        Assert.assertEquals(20001, large.size());
+        Assert.assertEquals("MGH", large.search("mary gtes", 1).get(0));
+        Assert.assertEquals(Arrays.asList("B12345"), large.search("b12345", 1));
+    }
+
+    @Test
+    public void testNewThreadReusesWorkingArrays() throws InterruptedException {
+        Map<String, String> short2LongName = new HashMap<String, String>();
+        for (int i = 0; i < 5000; i++) {
+            short2LongName.put("B" + i, "Building Number " + i);
+        }
+        final BuildingSearchIndex large = new BuildingSearchIndex(short2LongName);
+        final long[] allocated = new long[1];
+        for (int i = 0; i < 20; i++) {
+            // a new thread per search, as a server on virtual threads makes
+            Thread t = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    long before = RouteMetrics.allocatedBytes();
+                    large.search("bulding numbr 42", 5);
+                    allocated[0] = RouteMetrics.allocatedBytes() - before;
+                }
+            });
+            t.start();
+            t.join();
+        }
+        // working arrays take over 8 bytes per building, a search far less
+        Assert.assertTrue(allocated[0] + " bytes", allocated[0] < 4L * large.size());
+    }
+}
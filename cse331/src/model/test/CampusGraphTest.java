@@ -1,10 +1,17 @@
 package model.test;
 
+import java.util.List;
+
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import graphStructure.Edge;
 import model.CampusGraph;
 import model.MalformedDataException;
+import model.PointD;
+import model.RouteExplanation;
+import model.RouteMetrics;
 
 /**
  * this class tests the implementation of CampusGraph
@@ -46,4 +53,28 @@ public class CampusGraphTest {
     public void testFindPathsNull() {
         this.model.findPath(null, null);
     }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExplainUnknown() {
+        this.model.explain(CampusGraphTest.UNKNOWN_NAME, "MGH", false);
+    }
+
+    @Test
+    public void testExplainIsFindPathSearch() {
+        RouteMetrics metrics = RouteMetrics.forEngine("contracted");
+        long settled = metrics.getNodesSettled();
+        long relaxed = metrics.getEdgesRelaxed();
+        List<Edge<PointD, Double>> path = this.model.findPath("MGH", "SUZ");
+        settled = metrics.getNodesSettled() - settled;
+        relaxed = metrics.getEdgesRelaxed() - relaxed;
+
+        RouteExplanation explained = this.model.explain("MGH", "SUZ", true);
+        Assert.assertEquals(path, explained.getPath());
+        Assert.assertEquals(settled, explained.getSettledNodes());
+        Assert.assertEquals(relaxed, explained.getRelaxations());
+        Assert.assertEquals(explained.getSettledNodes(), explained.getSettledOrder().size());
+        // the contracted search settles fewer nodes than a plain one
+        Assert.assertTrue(explained.getSettledNodes() < this.model.snapshot().explain("MGH", "SUZ", false)
+                .getSettledNodes());
+    }
 }
@@ -1,16 +1,32 @@
 package model.test;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import graphStructure.Edge;
 import graphStructure.Graph;
+import model.CampusGraph;
 import model.CampusParser;
+import model.GraphDelta;
 import model.MalformedDataException;
 import model.PointD;
+import model.PointDPool;
 
 /**
  * this class tests the implementation of the CampusParser class
@@ -66,4 +82,246 @@ public class CampusParserTest {
         CampusParser.parsePathData("./src/hw8/data/" + "campus_paths.dat", this.campusGraph);
         Assert.assertFalse(this.campusGraph.containsNode(newPoint));
     }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullArgsMapped() throws MalformedDataException {
+        CampusParser.parsePathDataMapped(null, null, null);
+    }
+
+    @Test
+    public void testMappedSameGraph() throws MalformedDataException {
+        CampusParser.parsePathData("./src/model/data/campus_paths.dat", this.campusGraph);
+        Graph<PointD, Double> mapped = new Graph<PointD, Double>();
+        CampusParser.parsePathDataMapped("./src/model/data/campus_paths.dat", mapped, new PointDPool());
+        CampusParserTest.assertSameGraph(this.campusGraph, mapped);
+    }
+
+    @Test
+    public void testMappedUnusualNumbers() throws MalformedDataException, IOException {
+        File file = CampusParserTest.writeTemp("1903.7201,1952.4322\r\n"
+                + "\t-0.5,+12: 26.583482327919597\r\n#comment\n\t1e2,.5: 1.\n7,8\n\t0.1,0.3: 123456789012345678901");
+        CampusParser.parsePathData(file.getPath(), this.campusGraph);
+        Graph<PointD, Double> mapped = new Graph<PointD, Double>();
+        CampusParser.parsePathDataMapped(file.getPath(), mapped, new PointDPool());
+        CampusParserTest.assertSameGraph(this.campusGraph, mapped);
+        Assert.assertTrue(mapped.containsNode(new PointD(100, 0.5)));
+    }
+
+    @Test
+    public void testMappedSameMessage() throws IOException {
+        File file = CampusParserTest.writeTemp("1,2\n\t3,4: 5: 6\n");
+        String expected = null;
+        try {
+            CampusParser.parsePathData(file.getPath(), this.campusGraph);
+        } catch (MalformedDataException e) {
+            expected = e.getMessage();
+        }
+        try {
+            CampusParser.parsePathDataMapped(file.getPath(), new Graph<PointD, Double>(), new PointDPool());
+            Assert.fail();
+        } catch (MalformedDataException e) {
+            Assert.assertEquals(expected, e.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParallelNoThreads() throws MalformedDataException {
+        CampusParser.parsePathDataParallel("./src/model/data/campus_paths.dat", this.campusGraph, new PointDPool(), 0);
+    }
+
+    @Test
+    public void testParallelSameGraph() throws MalformedDataException {
+        CampusParser.parsePathData("./src/model/data/campus_paths.dat", this.campusGraph);
+        for (int threads : new int[] { 1, 2, 3, 8, 10000 }) {
+            Graph<PointD, Double> parallel = new Graph<PointD, Double>();
+            CampusParser.parsePathDataParallel("./src/model/data/campus_paths.dat", parallel, new PointDPool(),
+                    threads);
+            CampusParserTest.assertSameGraph(this.campusGraph, parallel);
+        }
+    }
+
+    @Test
+    public void testParallelFirstError() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            text.append(i).append(",0\n\t").append(i + 1).append(",0: 1\n");
+        }
+        text.append("\t1,2,3: 4\n");
+        for (int i = 0; i < 200; i++) {
+            text.append(i).append(",1\n\t5,6: 7: 8\n");
+        }
+        File file = CampusParserTest.writeTemp(text.toString());
+        try {
+            CampusParser.parsePathDataParallel(file.getPath(), this.campusGraph, new PointDPool(), 4);
+            Assert.fail();
+        } catch (MalformedDataException e) {
+            Assert.assertEquals("Line should contain a comma separated coordinate pair: 1,2,3: 4", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testGzipSameData() throws MalformedDataException, IOException {
+        File paths = CampusParserTest.compress("./src/model/data/campus_paths.dat", ".gz");
+        File buildings = CampusParserTest.compress("./src/model/data/campus_buildings.dat", ".gz");
+        CampusParser.parsePathData("./src/model/data/campus_paths.dat", this.campusGraph);
+        Graph<PointD, Double> gzipped = new Graph<PointD, Double>();
+        CampusParser.parsePathData(paths.getPath(), gzipped);
+        CampusParserTest.assertSameGraph(this.campusGraph, gzipped);
+
+        CampusParser.parseBuildingData("./src/model/data/campus_buildings.dat", this.short2LongName, this.name2Loc);
+        Map<String, String> names = new HashMap<String, String>();
+        Map<String, PointD> locs = new HashMap<String, PointD>();
+        CampusParser.parseBuildingData(buildings.getPath(), names, locs);
+        Assert.assertEquals(this.short2LongName, names);
+        Assert.assertEquals(this.name2Loc, locs);
+    }
+
+    @Test
+    public void testDeflateParallelSameGraph() throws MalformedDataException, IOException {
+        File paths = CampusParserTest.compress("./src/model/data/campus_paths.dat", ".deflate");
+        CampusParser.parsePathData("./src/model/data/campus_paths.dat", this.campusGraph);
+        Graph<PointD, Double> deflated = new Graph<PointD, Double>();
+        CampusParser.parsePathDataParallel(paths.getPath(), deflated, new PointDPool(), 4);
+        CampusParserTest.assertSameGraph(this.campusGraph, deflated);
+    }
+
+    @Test
+    public void testGzipSameMessage() throws IOException {
+        File paths = CampusParserTest.compress(CampusParserTest.writeTemp("1,2\n\t3,4: 5: 6\n").getPath(), ".gz");
+        try {
+            CampusParser.parsePathData(paths.getPath(), this.campusGraph);
+            Assert.fail();
+        } catch (MalformedDataException e) {
+            Assert.assertEquals("Line should contain exactly one tab: 3,4: 5: 6", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testPatchChanges() throws MalformedDataException, IOException {
+        PointDPool pool = new PointDPool();
+        File paths = CampusParserTest.writeTemp("1,1\n\t2,2: 5\n2,2\n\t1,1: 5\n\t3,3: 7\n3,3\n\t2,2: 7\n");
+        CampusParser.parsePathData(paths.getPath(), this.campusGraph, pool);
+        File patch = CampusParserTest.writeTemp("# move the library\n+building\tLIB\tLibrary\t3\t3\n"
+                + "-node\t2,2\n+edge\t1,1\t3,3: 9.5\n+edge\t3,3\t1,1: 9.5\n-edge\t4,4\t1,1: 1\n");
+        GraphDelta<PointD> delta = CampusParser.applyPatch(patch.getPath(), this.campusGraph, this.short2LongName,
+                this.name2Loc, pool);
+
+        PointD p1 = new PointD(1, 1);
+        PointD p3 = new PointD(3, 3);
+        Assert.assertEquals("Library", this.short2LongName.get("LIB"));
+        Assert.assertSame(pool.intern(p3), this.name2Loc.get("LIB"));
+        Assert.assertFalse(this.campusGraph.containsNode(new PointD(2, 2)));
+        Assert.assertEquals(2, this.campusGraph.size());
+        Assert.assertEquals(Collections.singleton(new Edge<PointD, Double>(9.5, p1, p3)),
+                this.campusGraph.getEdges(p1));
+        Assert.assertEquals(Collections.singleton(new PointD(2, 2)), delta.getRemovedNodes());
+        Assert.assertEquals(4, delta.getRemovedEdges().size());
+        Assert.assertEquals(2, delta.getAddedEdges().size());
+        Assert.assertTrue(delta.getAffectedNodes().contains(p3));
+    }
+
+    @Test
+    public void testPatchRemovesOneWayEdgesIn() throws MalformedDataException, IOException {
+        PointDPool pool = new PointDPool();
+        // 4,4 has a one way edge to 2,2, which has no edge back
+        File paths = CampusParserTest.writeTemp("1,1\n\t2,2: 5\n2,2\n\t1,1: 5\n4,4\n\t2,2: 3\n");
+        CampusParser.parsePathData(paths.getPath(), this.campusGraph, pool);
+        // 5,5 gets a one way edge to 1,1 after the edges in are first indexed
+        File patch = CampusParserTest.writeTemp("-node\t2,2\n+edge\t5,5\t1,1: 4\n-node\t1,1\n");
+        GraphDelta<PointD> delta = CampusParser.applyPatch(patch.getPath(), this.campusGraph, this.short2LongName,
+                this.name2Loc, pool);
+
+        PointD p4 = new PointD(4, 4);
+        PointD p5 = new PointD(5, 5);
+        Assert.assertEquals(2, this.campusGraph.size());
+        Assert.assertTrue(this.campusGraph.getEdges(p4).isEmpty());
+        Assert.assertTrue(this.campusGraph.getEdges(p5).isEmpty());
+        Assert.assertTrue(delta.getRemovedEdges().contains(new Edge<PointD, Double>(3.0, p4, new PointD(2, 2))));
+        // the edge from 5,5 was added and removed by the patch, so is in neither
+        Assert.assertEquals(3, delta.getRemovedEdges().size());
+        Assert.assertNull(CampusGraph.findWeightedPath(this.campusGraph, p4, p5));
+    }
+
+    @Test
+    public void testPatchUsesIncomingIndex() throws MalformedDataException, IOException {
+        PointDPool pool = new PointDPool();
+        File paths = CampusParserTest.writeTemp("1,1\n\t2,2: 5\n2,2\n\t1,1: 5\n4,4\n\t2,2: 3\n");
+        CampusParser.parsePathData(paths.getPath(), this.campusGraph, pool);
+        PointD p1 = new PointD(1, 1);
+        PointD p2 = new PointD(2, 2);
+        PointD p4 = new PointD(4, 4);
+        // the edges into each node before the patch, plus one already gone
+        Map<PointD, List<Edge<PointD, Double>>> incoming = new HashMap<PointD, List<Edge<PointD, Double>>>();
+        incoming.put(p1, Arrays.asList(new Edge<PointD, Double>(5.0, p2, p1)));
+        incoming.put(p2, Arrays.asList(new Edge<PointD, Double>(5.0, p1, p2), new Edge<PointD, Double>(3.0, p4, p2),
+                new Edge<PointD, Double>(7.0, p4, p2)));
+        File patch = CampusParserTest.writeTemp("+edge\t5,5\t2,2: 4\n-node\t2,2\n");
+        GraphDelta<PointD> delta = CampusParser.applyPatch(patch.getPath(), this.campusGraph, this.short2LongName,
+                this.name2Loc, pool, incoming);
+
+        Assert.assertFalse(this.campusGraph.containsNode(p2));
+        Assert.assertTrue(this.campusGraph.getEdges(p1).isEmpty());
+        Assert.assertTrue(this.campusGraph.getEdges(p4).isEmpty());
+        Assert.assertTrue(this.campusGraph.getEdges(new PointD(5, 5)).isEmpty());
+        // 1,1 to 2,2, 4,4 to 2,2 and 2,2 to 1,1; the edge from 5,5 cancels
+        Assert.assertEquals(3, delta.getRemovedEdges().size());
+        Assert.assertEquals(Arrays.asList(new Edge<PointD, Double>(5.0, p2, p1)), incoming.get(p1));
+    }
+
+    @Test
+    public void testMalformedPatchChangesNothing() throws MalformedDataException, IOException {
+        this.short2LongName.put("LIB", "Library");
+        File patch = CampusParserTest.writeTemp("-building\tLIB\n+edge\t1,1\t2,2 9\n");
+        try {
+            CampusParser.applyPatch(patch.getPath(), this.campusGraph, this.short2LongName, this.name2Loc,
+                    new PointDPool());
+            Assert.fail();
+        } catch (MalformedDataException e) {
+            Assert.assertEquals("Patch line is not a known change: +edge\t1,1\t2,2 9", e.getMessage());
+        }
+        Assert.assertEquals("Library", this.short2LongName.get("LIB"));
+        Assert.assertTrue(this.campusGraph.isEmpty());
+    }
+
+    /**
+     * writes text to a temporary file that is deleted on exit
+     */
+    static File writeTemp(String text) throws IOException {
+        File file = File.createTempFile("paths", ".dat");
+        file.deleteOnExit();
+        FileWriter writer = new FileWriter(file);
+        writer.write(text);
+        writer.close();
+        return file;
+    }
+
+    /**
+     * writes a compressed copy of a file to a temporary file that is deleted
+     * on exit. suffix is .gz for gzip or .deflate for zlib.
+     */
+    static File compress(String source, String suffix) throws IOException {
+        File file = File.createTempFile("data", ".dat" + suffix);
+        file.deleteOnExit();
+        OutputStream out = new FileOutputStream(file);
+        out = suffix.equals(".gz") ? new GZIPOutputStream(out) : new DeflaterOutputStream(out);
+        Files.copy(Paths.get(source), out);
+        out.close();
+        return file;
+    }
+
+    /**
+     * asserts two graphs have the same nodes and edges. Edge labels are
+     * compared with Double.equals, so they must match bit for bit.
+     */
+    static void assertSameGraph(Graph<PointD, Double> expected, Graph<PointD, Double> actual) {
+        Assert.assertEquals(expected.getNodes(), actual.getNodes());
+        for (PointD p : expected.getNodes()) {
+            Assert.assertEquals(expected.getEdges(p), actual.getEdges(p));
+        }
+        int edges = 0;
+        for (PointD p : actual.getNodes()) {
+            edges += actual.getEdges(p).size();
+        }
+        Assert.assertTrue(edges > 0);
+    }
 }
@@ -0,0 +1,113 @@
+package model.test;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import model.CampusModel;
+import model.CampusRegistry;
+import model.MalformedDataException;
+
+/**
+ * this class tests the implementation of the CampusRegistry class
+ *
+ * @author WP
+ *
+ */
+public class CampusRegistryTest {
+
+    private static final String BUILDINGS = "./src/model/data/campus_buildings.dat";
+    private static final String PATHS = "./src/model/data/campus_paths.dat";
+
+    private CampusRegistry registry;
+
+    @Before
+    public void startUp() throws IOException {
+        this.registry = new CampusRegistry();
+        this.registry.register("seattle", CampusRegistryTest.BUILDINGS, CampusRegistryTest.PATHS);
+        File buildings = CampusParserTest.compress(CampusRegistryTest.BUILDINGS, ".gz");
+        File paths = CampusParserTest.compress(CampusRegistryTest.PATHS, ".gz");
+        this.registry.register("copy", buildings.getPath(), paths.getPath());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateName() {
+        this.registry.register("seattle", CampusRegistryTest.BUILDINGS, CampusRegistryTest.PATHS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownCampus() throws MalformedDataException {
+        this.registry.get("bothell");
+    }
+
+    @Test
+    public void testLazyLoad() throws MalformedDataException {
+        Assert.assertEquals(2, this.registry.getNames().size());
+        Assert.assertFalse(this.registry.isLoaded("seattle"));
+        CampusModel seattle = this.registry.get("seattle");
+        Assert.assertTrue(this.registry.isLoaded("seattle"));
+        Assert.assertFalse(this.registry.isLoaded("copy"));
+        Assert.assertSame(seattle, this.registry.get("seattle"));
+        Assert.assertEquals(1, this.registry.getStats("seattle").getLoads());
+    }
+
+    @Test
+    public void testSharedStorage() throws MalformedDataException {
+        CampusModel seattle = this.registry.get("seattle");
+        CampusModel copy = this.registry.get("copy");
+        Assert.assertNotSame(seattle, copy);
+        for (String shortName : seattle.getBuildings().keySet()) {
+            Assert.assertSame(seattle.getLocation(shortName), copy.getLocation(shortName));
+            Assert.assertSame(seattle.getLongName(shortName), copy.getLongName(shortName));
+        }
+    }
+
+    @Test
+    public void testEvictAndStats() throws MalformedDataException {
+        CampusModel seattle = this.registry.get("seattle");
+        Assert.assertNotNull(seattle.findPath("MGH", "SUZ"));
+        seattle.findPath("CSE", "KNE");
+        this.registry.evict("seattle");
+        Assert.assertFalse(this.registry.isLoaded("seattle"));
+        // callers holding the old model can still use it
+        Assert.assertNotNull(seattle.findPath("MGH", "SUZ"));
+        CampusModel reloaded = this.registry.get("seattle");
+        Assert.assertEquals(seattle.findPath("MGH", "SUZ"), reloaded.findPath("MGH", "SUZ"));
+
+        CampusRegistry.Stats stats = this.registry.getStats("seattle");
+        Assert.assertEquals(2, stats.getLoads());
+        Assert.assertEquals(1, stats.getEvictions());
+        Assert.assertEquals(5, stats.getQueries());
+        Assert.assertEquals(0, this.registry.getStats("copy").getQueries());
+    }
+
+    @Test
+    public void testEvictShrinksPool() throws MalformedDataException {
+        Assert.assertEquals(0, this.registry.getPooledPoints());
+        CampusModel seattle = this.registry.get("seattle");
+        int points = this.registry.getPooledPoints();
+        int names = this.registry.getPooledNames();
+        Assert.assertTrue(points > 0);
+        Assert.assertTrue(names >= seattle.getBuildings().size());
+
+        // the copy uses the same points and names, so it adds none
+        CampusModel copy = this.registry.get("copy");
+        Assert.assertEquals(points, this.registry.getPooledPoints());
+        Assert.assertEquals(names, this.registry.getPooledNames());
+
+        // the copy still uses everything seattle did
+        this.registry.evict("seattle");
+        Assert.assertEquals(points, this.registry.getPooledPoints());
+        CampusModel reloaded = this.registry.get("seattle");
+        Assert.assertSame(copy.getLocation("CSE"), reloaded.getLocation("CSE"));
+
+        this.registry.evict("seattle");
+        this.registry.evict("copy");
+        Assert.assertEquals(0, this.registry.getPooledPoints());
+        Assert.assertEquals(0, this.registry.getPooledNames());
+        Assert.assertNotNull(seattle.findPath("MGH", "SUZ"));
+    }
+}
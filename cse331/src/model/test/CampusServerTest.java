@@ -0,0 +1,167 @@
+package model.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import graphStructure.Edge;
+import model.CampusGraph;
+import model.CampusServer;
+import model.CampusSnapshot;
+import model.MalformedDataException;
+import model.PointD;
+import model.Polyline;
+
+/**
+ * this class tests the implementation of the CampusServer class
+ *
+ * @author WP
+ *
+ */
+public class CampusServerTest {
+
+    private static CampusSnapshot snapshot;
+    private static CampusServer server;
+
+    @BeforeClass
+    public static void startUp() throws MalformedDataException, IOException {
+        CampusServerTest.snapshot = new CampusGraph("campus_buildings.dat", "campus_paths.dat").snapshot();
+        CampusServerTest.server = new CampusServer(CampusServerTest.snapshot, 0);
+        CampusServerTest.server.start();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        CampusServerTest.server.stop();
+    }
+
+    /**
+     * requests a path of the server, returning the status and then the body
+     */
+    private static String[] get(String path, String method) throws IOException {
+        URL url = new URL("http://localhost:" + CampusServerTest.server.getPort() + path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        int status = connection.getResponseCode();
+        Assert.assertEquals("application/json; charset=utf-8", connection.getContentType());
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+            bytes.write(buffer, 0, n);
+        }
+        in.close();
+        return new String[] { Integer.toString(status), new String(bytes.toByteArray(), StandardCharsets.UTF_8) };
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullModel() throws IOException {
+        new CampusServer(null, 0);
+    }
+
+    @Test
+    public void testRoute() throws IOException {
+        String[] response = CampusServerTest.get("/route?from=CSE&to=MGH", "GET");
+        Assert.assertEquals("200", response[0]);
+        PointD start = CampusServerTest.snapshot.getLocation("CSE");
+        Assert.assertTrue(response[1], response[1].startsWith("{\"from\":{\"short\":\"CSE\",\"long\":\""
+                + CampusServerTest.snapshot.getLongName("CSE") + "\""));
+        Assert.assertTrue(response[1], response[1].contains("\"path\":[[" + start.getX() + "," + start.getY() + "]"));
+        Assert.assertTrue(response[1], response[1].endsWith("]]}"));
+
+        // the same buffer is reused for a longer answer
+        String[] other = CampusServerTest.get("/route?from=BAG&to=SUZ", "GET");
+        Assert.assertEquals("200", other[0]);
+        Assert.assertTrue(other[1], other[1].startsWith("{\"from\":{\"short\":\"BAG\""));
+    }
+
+    @Test
+    public void testRouteErrors() throws IOException {
+        Assert.assertEquals("400", CampusServerTest.get("/route?from=CSE", "GET")[0]);
+        String[] unknown = CampusServerTest.get("/route?from=CSE&to=OOG", "GET");
+        Assert.assertEquals("404", unknown[0]);
+        Assert.assertEquals("{\"error\":\"Unknown building: OOG\"}", unknown[1]);
+        Assert.assertEquals("405", CampusServerTest.get("/route?from=CSE&to=MGH", "POST")[0]);
+    }
+
+    @Test
+    public void testRoutePolyline() throws IOException {
+        String[] response = CampusServerTest.get("/route?from=BAG&to=SUZ&format=polyline", "GET");
+        Assert.assertEquals("200", response[0]);
+        Assert.assertTrue(response[1], response[1].startsWith("{\"from\":{\"short\":\"BAG\""));
+        String plain = CampusServerTest.get("/route?from=BAG&to=SUZ", "GET")[1];
+        String distance = plain.substring(plain.indexOf(",\"distance\":"), plain.indexOf(",\"path\":"));
+        Assert.assertTrue(response[1],
+                response[1].endsWith(",\"precision\":" + Polyline.LOSSLESS + distance + "}"));
+        int start = response[1].indexOf("\"polyline\":\"") + "\"polyline\":\"".length();
+        String text = response[1].substring(start, response[1].indexOf("\",\"precision\"")).replace("\\\\", "\\");
+        double[] points = Polyline.decode(text, Polyline.LOSSLESS);
+        List<Edge<PointD, Double>> path = CampusServerTest.snapshot.findPath("BAG", "SUZ");
+        Assert.assertEquals(2 * (path.size() + 1), points.length);
+        for (int i = 0; i < path.size(); i++) {
+            Assert.assertEquals(path.get(i).getEnd(), new PointD(points[2 * i + 2], points[2 * i + 3]));
+        }
+
+        Assert.assertEquals("200", CampusServerTest.get("/route?from=BAG&to=SUZ&format=polyline&precision=0",
+                "GET")[0]);
+        Assert.assertEquals("400", CampusServerTest.get("/route?from=BAG&to=SUZ&format=polyline&precision=10",
+                "GET")[0]);
+        Assert.assertEquals("400", CampusServerTest.get("/route?from=BAG&to=SUZ&format=svg", "GET")[0]);
+    }
+
+    @Test
+    public void testBuildings() throws IOException {
+        String[] response = CampusServerTest.get("/buildings", "GET");
+        Assert.assertEquals("200", response[0]);
+        Assert.assertTrue(response[1].startsWith("[{\"short\":"));
+        for (String shortName : CampusServerTest.snapshot.getBuildings().keySet()) {
+            Assert.assertTrue(shortName, response[1].contains("{\"short\":\"" + shortName + "\""));
+        }
+    }
+
+    @Test
+    public void testNearest() throws IOException {
+        PointD mgh = CampusServerTest.snapshot.getLocation("MGH");
+        String[] response = CampusServerTest.get("/nearest?x=" + (mgh.getX() + 1) + "&y=" + mgh.getY(), "GET");
+        Assert.assertEquals("200", response[0]);
+        Assert.assertTrue(response[1], response[1].startsWith("{\"short\":\"MGH\""));
+        Assert.assertTrue(response[1], response[1].endsWith(",\"distance\":1}"));
+        Assert.assertEquals("400", CampusServerTest.get("/nearest?x=abc&y=1", "GET")[0]);
+    }
+
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        final String expected = CampusServerTest.get("/route?from=KNE&to=CSE", "GET")[1];
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < 64; i++) {
+                results.add(pool.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws IOException {
+                        return CampusServerTest.get("/route?from=KNE&to=CSE", "GET")[1];
+                    }
+                }));
+            }
+            for (Future<String> result : results) {
+                Assert.assertEquals(expected, result.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
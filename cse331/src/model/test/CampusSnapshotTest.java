@@ -0,0 +1,226 @@
+package model.test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import graphStructure.Edge;
+import graphStructure.Graph;
+import model.BuildingDirectory;
+import model.CampusGraph;
+import model.CampusSnapshot;
+import model.CompactGraph;
+import model.InstructionTable;
+import model.MalformedDataException;
+import model.PointD;
+import model.RouteExplanation;
+import model.RouteMetrics;
+
+/**
+ * this class tests the implementation of the CampusSnapshot class
+ *
+ * @author WP
+ *
+ */
+public class CampusSnapshotTest {
+
+    private static CampusGraph model;
+    private static CampusSnapshot snapshot;
+
+    @BeforeClass
+    public static void startUp() throws MalformedDataException {
+        CampusSnapshotTest.model = new CampusGraph("campus_buildings.dat", "campus_paths.dat");
+        CampusSnapshotTest.snapshot = CampusSnapshotTest.model.snapshot();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullConstructor() {
+        new CampusSnapshot(null, null, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFindPathNull() {
+        CampusSnapshotTest.snapshot.findPath(null, "MGH");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadGetName() {
+        CampusSnapshotTest.snapshot.getLongName("OOG");
+    }
+
+    @Test
+    public void testSameBuildings() {
+        Assert.assertEquals(CampusSnapshotTest.model.getBuildings(), CampusSnapshotTest.snapshot.getBuildings());
+        for (String shortName : CampusSnapshotTest.model.getBuildings().keySet()) {
+            Assert.assertEquals(CampusSnapshotTest.model.getLocation(shortName),
+                    CampusSnapshotTest.snapshot.getLocation(shortName));
+            Assert.assertEquals(CampusSnapshotTest.model.getLongName(shortName),
+                    CampusSnapshotTest.snapshot.getLongName(shortName));
+        }
+        Assert.assertNull(CampusSnapshotTest.snapshot.findPath("OOG", "MGH"));
+    }
+
+    @Test
+    public void testSamePaths() {
+        for (String start : CampusSnapshotTest.model.getBuildings().keySet()) {
+            for (String end : CampusSnapshotTest.model.getBuildings().keySet()) {
+                List<Edge<PointD, Double>> expected = CampusSnapshotTest.model.findPath(start, end);
+                List<Edge<PointD, Double>> actual = CampusSnapshotTest.snapshot.findPath(start, end);
+                Assert.assertEquals(CampusSnapshotTest.weight(expected), CampusSnapshotTest.weight(actual), 0.0);
+                Assert.assertEquals(expected.size(), actual.size());
+                if (!actual.isEmpty()) {
+                    Assert.assertEquals(CampusSnapshotTest.model.getLocation(start), actual.get(0).getStart());
+                    Assert.assertEquals(CampusSnapshotTest.model.getLocation(end),
+                            actual.get(actual.size() - 1).getEnd());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentQueries() throws Exception {
+        final List<String> names = new ArrayList<String>(CampusSnapshotTest.snapshot.getBuildings().keySet());
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int t = 0; t < 8; t++) {
+                final int offset = t;
+                results.add(pool.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        for (int i = 0; i < names.size(); i++) {
+                            String start = names.get(i);
+                            String end = names.get((i * 7 + offset) % names.size());
+                            List<Edge<PointD, Double>> path = CampusSnapshotTest.snapshot.findPath(start, end);
+                            if (CampusSnapshotTest.weight(path) != CampusSnapshotTest
+                                    .weight(CampusSnapshotTest.snapshot.findPath(start, end))) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                Assert.assertTrue(result.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testNewThreadReusesWorkingArrays() throws Exception {
+        final int nodes = CampusSnapshotTest.snapshot.getGraph().nodeCount();
+        final long[] allocated = new long[1];
+        for (int i = 0; i < 20; i++) {
+            // a new thread per query, as a server on virtual threads makes
+            Thread t = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    long before = RouteMetrics.allocatedBytes();
+                    CampusSnapshotTest.snapshot.findPath("BAG", "SUZ");
+                    allocated[0] = RouteMetrics.allocatedBytes() - before;
+                }
+            });
+            t.start();
+            t.join();
+        }
+        // working arrays take about 44 bytes per node, the path far less
+        Assert.assertTrue(allocated[0] + " bytes", allocated[0] < 8L * nodes);
+    }
+
+    @Test
+    public void testExplain() {
+        RouteExplanation plain = CampusSnapshotTest.snapshot.explain("MGH", "SUZ", false);
+        RouteExplanation traced = CampusSnapshotTest.snapshot.explain("MGH", "SUZ", true);
+        Assert.assertEquals(CampusSnapshotTest.snapshot.findPath("MGH", "SUZ"), traced.getPath());
+        Assert.assertEquals(plain.getPath(), traced.getPath());
+        Assert.assertTrue(plain.getSettledOrder().isEmpty());
+        Assert.assertEquals(plain.getSettledNodes(), traced.getSettledNodes());
+        Assert.assertEquals(traced.getSettledNodes(), traced.getSettledOrder().size());
+        Assert.assertTrue(traced.getRelaxations() >= traced.getSettledNodes() - 1);
+        Assert.assertTrue(traced.getMaxHeapSize() > 0 && traced.getMaxHeapSize() <= traced.getHeapPushes());
+        Assert.assertTrue(traced.getSearchNanos() > 0);
+        // the search settles the start first and the end last
+        Assert.assertEquals(CampusSnapshotTest.snapshot.getLocation("MGH"), traced.getSettledOrder().get(0));
+        Assert.assertEquals(CampusSnapshotTest.snapshot.getLocation("SUZ"),
+                traced.getSettledOrder().get(traced.getSettledNodes() - 1));
+    }
+
+    @Test
+    public void testExplainOnCampusGraph() {
+        RouteExplanation explained = CampusSnapshotTest.model.explain("CSE", "KNE", true);
+        List<Edge<PointD, Double>> path = CampusSnapshotTest.model.findPath("CSE", "KNE");
+        Assert.assertEquals(CampusSnapshotTest.weight(path), CampusSnapshotTest.weight(explained.getPath()), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExplainUnknown() {
+        CampusSnapshotTest.snapshot.explain("OOG", "MGH", false);
+    }
+
+    @Test
+    public void testInterruptedSearchStops() {
+        // a grid of 70 by 70 nodes, more than a search settles between
+        // checks for interruption, with buildings at opposite corners
+        Graph<PointD, Double> grid = new Graph<PointD, Double>();
+        int side = 70;
+        for (int x = 0; x < side; x++) {
+            for (int y = 0; y < side; y++) {
+                grid.addNode(new PointD(x, y));
+            }
+        }
+        for (int x = 0; x < side; x++) {
+            for (int y = 0; y < side; y++) {
+                if (x + 1 < side) {
+                    grid.addEdge(1.0, new PointD(x, y), new PointD(x + 1, y));
+                    grid.addEdge(1.0, new PointD(x + 1, y), new PointD(x, y));
+                }
+                if (y + 1 < side) {
+                    grid.addEdge(1.0, new PointD(x, y), new PointD(x, y + 1));
+                    grid.addEdge(1.0, new PointD(x, y + 1), new PointD(x, y));
+                }
+            }
+        }
+        Map<String, String> names = new HashMap<String, String>();
+        names.put("SW", "South West");
+        names.put("NE", "North East");
+        Map<String, PointD> locations = new HashMap<String, PointD>();
+        locations.put("SW", new PointD(0, 0));
+        locations.put("NE", new PointD(side - 1, side - 1));
+        CompactGraph compact = new CompactGraph(grid);
+        CampusSnapshot corners = new CampusSnapshot(new BuildingDirectory(names, locations), compact,
+                new InstructionTable(compact));
+        Thread.currentThread().interrupt();
+        try {
+            Assert.assertNull(corners.findPath("SW", "NE"));
+            Assert.assertNull(corners.explain("SW", "NE", false).getPath());
+            // the thread is left interrupted for its caller to see
+            Assert.assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+        Assert.assertEquals(2 * (side - 1), corners.findPath("SW", "NE").size());
+    }
+
+    /**
+     * sums the weights of a path in order
+     */
+    private static double weight(List<Edge<PointD, Double>> path) {
+        double total = 0;
+        for (Edge<PointD, Double> e : path) {
+            total += e.getLabel();
+        }
+        return total;
+    }
+}
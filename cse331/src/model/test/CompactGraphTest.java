@@ -0,0 +1,78 @@
+package model.test;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import graphStructure.Edge;
+import graphStructure.Graph;
+import model.CampusParser;
+import model.CompactGraph;
+import model.InstructionTable;
+import model.MalformedDataException;
+import model.PointD;
+
+/**
+ * this class tests the implementation of the CompactGraph and
+ * InstructionTable classes
+ *
+ * @author WP
+ *
+ */
+public class CompactGraphTest {
+
+    private Graph<PointD, Double> campus;
+    private CompactGraph compact;
+
+    @Before
+    public void startUp() throws MalformedDataException {
+        this.campus = new Graph<PointD, Double>();
+        CampusParser.parsePathData("./src/model/data/campus_paths.dat", this.campus);
+        this.compact = new CompactGraph(this.campus);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullConstructor() {
+        new CompactGraph(null);
+    }
+
+    @Test
+    public void testSameEdges() {
+        Assert.assertEquals(this.campus.size(), this.compact.nodeCount());
+        int edges = 0;
+        for (PointD p : this.campus.getNodes()) {
+            int id = this.compact.nodeId(p);
+            Assert.assertEquals(p, this.compact.node(id));
+            Assert.assertEquals(this.campus.getEdges(p).size(), this.compact.endEdge(id) - this.compact.firstEdge(id));
+            for (Edge<PointD, Double> e : this.campus.getEdges(p)) {
+                int edge = this.compact.edgeId(e);
+                Assert.assertTrue(edge >= 0);
+                Assert.assertEquals(e.getEnd(), this.compact.node(this.compact.target(edge)));
+                edges++;
+            }
+        }
+        Assert.assertEquals(edges, this.compact.edgeCount());
+    }
+
+    @Test
+    public void testUnknownEdge() {
+        PointD p = new PointD(-1, -1);
+        Assert.assertEquals(-1, this.compact.nodeId(p));
+        Assert.assertEquals(-1, this.compact.edgeId(new Edge<PointD, Double>(1.0, p, p)));
+    }
+
+    @Test
+    public void testInstructionsMatchDirections() {
+        InstructionTable table = new InstructionTable(this.compact);
+        StringBuilder sb = new StringBuilder();
+        for (PointD p : this.campus.getNodes()) {
+            for (Edge<PointD, Double> e : this.campus.getEdges(p)) {
+                PointD endP = e.getEnd();
+                String expected = '\t' + "Walk " + Math.round(e.getLabel()) + " feet " + p.relativeDirection(endP)
+                        + " to (" + Math.round(endP.getX()) + ", " + Math.round(endP.getY()) + ")";
+                sb.setLength(0);
+                Assert.assertEquals(expected, table.appendInstruction(sb, e).toString());
+            }
+        }
+    }
+}
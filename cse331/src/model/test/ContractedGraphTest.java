@@ -0,0 +1,245 @@
+package model.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import graphStructure.Edge;
+import graphStructure.Graph;
+import model.CampusGraph;
+import model.CampusParser;
+import model.ContractedGraph;
+import model.GraphDelta;
+import model.MalformedDataException;
+import model.PointD;
+import model.PointDPool;
+
+/**
+ * this class tests the implementation of the ContractedGraph class
+ *
+ * @author WP
+ *
+ */
+public class ContractedGraphTest {
+
+    private Graph<String, Double> line;
+    private Set<String> keep;
+
+    @Before
+    public void startUp() {
+        // a - b - c - d, with a shortcut a - d and a branch c - e
+        this.line = new Graph<String, Double>();
+        for (String s : new String[] { "a", "b", "c", "d", "e", "f" }) {
+            this.line.addNode(s);
+        }
+        this.addBoth("a", "b", 1.0);
+        this.addBoth("b", "c", 2.0);
+        this.addBoth("c", "d", 3.0);
+        this.addBoth("a", "d", 10.0);
+        this.addBoth("d", "e", 1.0);
+        this.addBoth("e", "f", 1.0);
+        this.keep = new HashSet<String>();
+        this.keep.add("a");
+    }
+
+    private void addBoth(String s1, String s2, double w) {
+        this.line.addEdge(w, s1, s2);
+        this.line.addEdge(w, s2, s1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullConstructor() {
+        new ContractedGraph<String>(null, null);
+    }
+
+    @Test
+    public void testChainsRemoved() {
+        ContractedGraph<String> c = new ContractedGraph<String>(this.line, this.keep);
+        // b, c and e only connect two neighbors each
+        Assert.assertEquals(3, c.size());
+    }
+
+    @Test
+    public void testKeptNodesStay() {
+        this.keep.add("b");
+        ContractedGraph<String> c = new ContractedGraph<String>(this.line, this.keep);
+        Assert.assertEquals(4, c.size());
+    }
+
+    @Test
+    public void testPathExpanded() {
+        ContractedGraph<String> c = new ContractedGraph<String>(this.line, this.keep);
+        Assert.assertEquals(CampusGraph.findWeightedPath(this.line, "a", "f"), c.findPath("a", "f"));
+        Assert.assertEquals(5, c.findPath("a", "f").size());
+    }
+
+    @Test
+    public void testPathFromChainNode() {
+        ContractedGraph<String> c = new ContractedGraph<String>(this.line, this.keep);
+        Assert.assertEquals(CampusGraph.findWeightedPath(this.line, "c", "a"), c.findPath("c", "a"));
+    }
+
+    @Test
+    public void testPathToSelf() {
+        ContractedGraph<String> c = new ContractedGraph<String>(this.line, this.keep);
+        Assert.assertTrue(c.findPath("a", "a").isEmpty());
+    }
+
+    @Test
+    public void testCampusPathsUnchanged() throws MalformedDataException {
+        Map<String, String> short2LongName = new HashMap<String, String>();
+        Map<String, PointD> name2Loc = new HashMap<String, PointD>();
+        Graph<PointD, Double> campus = new Graph<PointD, Double>();
+        CampusParser.parseBuildingData("./src/model/data/campus_buildings.dat", short2LongName, name2Loc);
+        CampusParser.parsePathData("./src/model/data/campus_paths.dat", campus);
+        ContractedGraph<PointD> c = new ContractedGraph<PointD>(campus, new HashSet<PointD>(name2Loc.values()));
+        Assert.assertTrue(c.size() < campus.size());
+
+        String[][] pairs = { { "BAG", "CSE" }, { "MGH", "KNE" }, { "PAR", "SUZ" }, { "EEB", "CMU" } };
+        for (String[] pair : pairs) {
+            PointD start = name2Loc.get(pair[0]);
+            PointD end = name2Loc.get(pair[1]);
+            Assert.assertEquals(CampusGraph.findWeightedPath(campus, start, end), c.findPath(start, end));
+        }
+    }
+
+    @Test
+    public void testUpdateMatchesRebuild() {
+        ContractedGraph<String> c = new ContractedGraph<String>(this.line, this.keep);
+        GraphDelta<String> delta = new GraphDelta<String>();
+        // cut b - c, join c - f and keep e
+        this.line.removeEdge(2.0, "b", "c");
+        this.line.removeEdge(2.0, "c", "b");
+        delta.edgeRemoved(new Edge<String, Double>(2.0, "b", "c"));
+        delta.edgeRemoved(new Edge<String, Double>(2.0, "c", "b"));
+        this.addBoth("c", "f", 1.0);
+        delta.edgeAdded(new Edge<String, Double>(1.0, "c", "f"));
+        delta.edgeAdded(new Edge<String, Double>(1.0, "f", "c"));
+        this.keep.add("e");
+        delta.touch("e");
+        c.update(delta, this.keep);
+
+        Assert.assertEquals(new ContractedGraph<String>(this.line, this.keep).size(), c.size());
+        for (String start : this.line.getNodes()) {
+            for (String end : this.line.getNodes()) {
+                Assert.assertEquals(CampusGraph.findWeightedPath(this.line, start, end), c.findPath(start, end));
+            }
+        }
+    }
+
+    @Test
+    public void testCampusPatchUpdate() throws MalformedDataException, IOException {
+        Map<String, String> short2LongName = new HashMap<String, String>();
+        Map<String, PointD> name2Loc = new HashMap<String, PointD>();
+        Graph<PointD, Double> campus = new Graph<PointD, Double>();
+        PointDPool pool = new PointDPool();
+        CampusParser.parseBuildingData("./src/model/data/campus_buildings.dat", short2LongName, name2Loc, pool);
+        CampusParser.parsePathData("./src/model/data/campus_paths.dat", campus, pool);
+        ContractedGraph<PointD> c = new ContractedGraph<PointD>(campus, new HashSet<PointD>(name2Loc.values()));
+
+        // block the middle of one route, add a shortcut along another and put
+        // a new building in the middle of a third
+        List<Edge<PointD, Double>> blocked = CampusGraph.findWeightedPath(campus, name2Loc.get("BAG"),
+                name2Loc.get("CSE"));
+        List<Edge<PointD, Double>> shortened = CampusGraph.findWeightedPath(campus, name2Loc.get("MGH"),
+                name2Loc.get("KNE"));
+        List<Edge<PointD, Double>> split = CampusGraph.findWeightedPath(campus, name2Loc.get("PAR"),
+                name2Loc.get("SUZ"));
+        PointD from = shortened.get(1).getStart();
+        PointD to = shortened.get(shortened.size() - 2).getEnd();
+        File patch = CampusParserTest.writeTemp("-node\t" + this.coords(blocked.get(blocked.size() / 2).getEnd())
+                + "\n+edge\t" + this.coords(from) + "\t" + this.coords(to) + ": 1.0\n+edge\t" + this.coords(to)
+                + "\t" + this.coords(from) + ": 1.0\n-building\tPAR\n+building\tNEW\tNew Building\t"
+                + split.get(split.size() / 2).getEnd().getX() + "\t" + split.get(split.size() / 2).getEnd().getY()
+                + "\n");
+        GraphDelta<PointD> delta = CampusParser.applyPatch(patch.getPath(), campus, short2LongName, name2Loc, pool);
+        Set<PointD> keep = new HashSet<PointD>(name2Loc.values());
+        c.update(delta, keep);
+
+        Assert.assertEquals(new ContractedGraph<PointD>(campus, keep).size(), c.size());
+        String[] buildings = { "BAG", "CSE", "MGH", "KNE", "NEW", "SUZ", "EEB", "CMU" };
+        for (String start : buildings) {
+            for (String end : buildings) {
+                PointD p1 = name2Loc.get(start);
+                PointD p2 = name2Loc.get(end);
+                Assert.assertEquals(CampusGraph.findWeightedPath(campus, p1, p2), c.findPath(p1, p2));
+            }
+        }
+    }
+
+    @Test
+    public void testDirectEdgeBeatsChainOfSameWeight() {
+        // many triangles, each a direct edge s - e and a chain s - m - e of
+        // the same weight, so the chain is found first in some of them
+        Graph<String, Double> triangles = new Graph<String, Double>();
+        Set<String> ends = new HashSet<String>();
+        for (int i = 0; i < 50; i++) {
+            String s = "s" + i;
+            String m = "m" + i;
+            String e = "e" + i;
+            triangles.addNode(s);
+            triangles.addNode(m);
+            triangles.addNode(e);
+            for (String[] pair : new String[][] { { s, e }, { e, s } }) {
+                triangles.addEdge(1.0, pair[0], pair[1]);
+            }
+            for (String[] pair : new String[][] { { s, m }, { m, s }, { m, e }, { e, m } }) {
+                triangles.addEdge(0.5, pair[0], pair[1]);
+            }
+            ends.add(s);
+            ends.add(e);
+        }
+        ContractedGraph<String> contracted = new ContractedGraph<String>(triangles, ends);
+        for (int i = 0; i < 50; i++) {
+            List<Edge<String, Double>> path = contracted.findPath("s" + i, "e" + i);
+            Assert.assertEquals(CampusGraph.findWeightedPath(triangles, "s" + i, "e" + i), path);
+            Assert.assertEquals(1, path.size());
+            Assert.assertEquals(1, contracted.findPath("e" + i, "s" + i).size());
+        }
+    }
+
+    @Test
+    public void testInterruptedSearchStops() {
+        // a grid of 70 by 70 nodes, more than a search settles between
+        // checks for interruption
+        Graph<String, Double> grid = new Graph<String, Double>();
+        int side = 70;
+        for (int i = 0; i < side * side; i++) {
+            grid.addNode(String.valueOf(i));
+        }
+        for (int i = 0; i < side * side; i++) {
+            if (i % side + 1 < side) {
+                grid.addEdge(1.0, String.valueOf(i), String.valueOf(i + 1));
+                grid.addEdge(1.0, String.valueOf(i + 1), String.valueOf(i));
+            }
+            if (i + side < side * side) {
+                grid.addEdge(1.0, String.valueOf(i), String.valueOf(i + side));
+                grid.addEdge(1.0, String.valueOf(i + side), String.valueOf(i));
+            }
+        }
+        ContractedGraph<String> contracted = new ContractedGraph<String>(grid, new HashSet<String>());
+        String last = String.valueOf(side * side - 1);
+        Thread.currentThread().interrupt();
+        try {
+            Assert.assertNull(contracted.findPath("0", last));
+            Assert.assertNull(CampusGraph.findWeightedPath(grid, "0", last));
+            // the thread is left interrupted for its caller to see
+            Assert.assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+        Assert.assertEquals(2 * (side - 1), contracted.findPath("0", last).size());
+    }
+
+    private String coords(PointD p) {
+        return p.getX() + "," + p.getY();
+    }
+}
@@ -0,0 +1,90 @@
+package model.test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import model.CampusGraph;
+import model.MalformedDataException;
+
+/**
+ * this class tests the Flight Recorder events of the model
+ *
+ * @author WP
+ *
+ */
+public class FlightEventsTest {
+
+    /**
+     * records loading the campus and finding a path with every model event
+     * enabled and no thresholds
+     */
+    private static List<RecordedEvent> record() throws IOException, MalformedDataException {
+        Path file = Files.createTempFile("campus", ".jfr");
+        file.toFile().deleteOnExit();
+        try (Recording recording = new Recording()) {
+            for (String name : new String[] { "model.Parse", "model.GraphBuild", "model.RouteQuery" }) {
+                recording.enable(name).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            CampusGraph model = new CampusGraph("campus_buildings.dat", "campus_paths.dat");
+            model.findPath("MGH", "SUZ");
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file);
+    }
+
+    /**
+     * finds the events of one type
+     */
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> result = new ArrayList<RecordedEvent>();
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(name)) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testEvents() throws IOException, MalformedDataException {
+        List<RecordedEvent> events = FlightEventsTest.record();
+
+        List<RecordedEvent> parses = FlightEventsTest.named(events, "model.Parse");
+        Assert.assertEquals(2, parses.size());
+        for (RecordedEvent parse : parses) {
+            Assert.assertTrue(parse.getLong("lines") > 0);
+            Assert.assertTrue(parse.getLong("bytes") > 0);
+            Assert.assertTrue(parse.getString("format").startsWith("buildings")
+                    || parse.getString("format").startsWith("paths"));
+        }
+
+        List<String> structures = new ArrayList<String>();
+        for (RecordedEvent build : FlightEventsTest.named(events, "model.GraphBuild")) {
+            structures.add(build.getString("structure"));
+            Assert.assertTrue(build.getLong("nodes") > 0);
+            Assert.assertTrue(build.getLong("edges") > 0);
+        }
+        Assert.assertTrue(structures.containsAll(Arrays.asList("campus", "contracted", "compact")));
+
+        List<RecordedEvent> queries = FlightEventsTest.named(events, "model.RouteQuery");
+        Assert.assertEquals(1, queries.size());
+        RecordedEvent query = queries.get(0);
+        Assert.assertEquals("contracted", query.getString("algorithm"));
+        Assert.assertTrue(query.getLong("settledNodes") > 0);
+        Assert.assertTrue(query.getLong("pathLength") > 0);
+        Assert.assertTrue(query.getDouble("pathDistance") > 0);
+    }
+}
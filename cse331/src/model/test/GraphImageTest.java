@@ -0,0 +1,103 @@
+package model.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import model.CampusGraph;
+import model.GraphImage;
+import model.MalformedDataException;
+
+/**
+ * this class tests the implementation of the GraphImage class
+ *
+ * @author WP
+ *
+ */
+public class GraphImageTest {
+
+    private File buildings;
+    private File paths;
+    private File image;
+
+    @Before
+    public void startUp() throws IOException {
+        this.buildings = GraphImageTest.copy("./src/model/data/campus_buildings.dat");
+        this.paths = GraphImageTest.copy("./src/model/data/campus_paths.dat");
+        this.image = File.createTempFile("campus", ".img");
+        this.image.deleteOnExit();
+    }
+
+    private static File copy(String source) throws IOException {
+        File file = File.createTempFile("campus", ".dat");
+        file.deleteOnExit();
+        Files.copy(new File(source).toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return file;
+    }
+
+    private CampusGraph read() {
+        return GraphImage.read(this.image.getPath(), this.buildings.getPath(), this.paths.getPath());
+    }
+
+    @Test
+    public void testImageFileName() {
+        Assert.assertEquals("./src/model/data/campus_paths.img", GraphImage.imageFile("./src/model/data/campus_paths.dat"));
+    }
+
+    @Test
+    public void testMissingImage() {
+        this.image.delete();
+        Assert.assertNull(this.read());
+    }
+
+    @Test
+    public void testSameAsText() throws MalformedDataException, IOException {
+        GraphImage.compile(this.buildings.getPath(), this.paths.getPath(), this.image.getPath());
+        CampusGraph fromImage = this.read();
+        CampusGraph fromText = new CampusGraph("campus_buildings.dat", "campus_paths.dat");
+        Assert.assertNotNull(fromImage);
+        Assert.assertEquals(fromText.getBuildings(), fromImage.getBuildings());
+        for (String start : new String[] { "BAG", "MGH", "PAR" }) {
+            for (String end : new String[] { "CSE", "KNE", "SUZ" }) {
+                Assert.assertEquals(fromText.getLocation(start), fromImage.getLocation(start));
+                Assert.assertEquals(fromText.findPath(start, end), fromImage.findPath(start, end));
+            }
+        }
+    }
+
+    @Test
+    public void testTouchedSourceStillCurrent() throws MalformedDataException, IOException {
+        GraphImage.compile(this.buildings.getPath(), this.paths.getPath(), this.image.getPath());
+        Assert.assertTrue(this.paths.setLastModified(this.paths.lastModified() + 10000));
+        Assert.assertNotNull(this.read());
+    }
+
+    @Test
+    public void testChangedSourceIsStale() throws MalformedDataException, IOException {
+        GraphImage.compile(this.buildings.getPath(), this.paths.getPath(), this.image.getPath());
+        RandomAccessFile file = new RandomAccessFile(this.buildings, "rw");
+        file.seek(0);
+        file.write('X');
+        file.close();
+        Assert.assertTrue(this.buildings.setLastModified(this.buildings.lastModified() + 10000));
+        Assert.assertNull(this.read());
+    }
+
+    @Test
+    public void testCorruptImage() throws MalformedDataException, IOException {
+        GraphImage.compile(this.buildings.getPath(), this.paths.getPath(), this.image.getPath());
+        RandomAccessFile file = new RandomAccessFile(this.image, "rw");
+        file.seek(file.length() / 2);
+        int b = file.read();
+        file.seek(file.length() / 2);
+        file.write(b ^ 1);
+        file.close();
+        Assert.assertNull(this.read());
+    }
+}
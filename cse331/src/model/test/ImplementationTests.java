@@ -12,7 +12,12 @@ import org.junit.runners.Suite.SuiteClasses;
  */
 
 @RunWith(Suite.class)
-@SuiteClasses({ PointDTest.class, CampusGraphTest.class, CampusParserTest.class })
+@SuiteClasses({ PointDTest.class, CampusGraphTest.class, CampusParserTest.class, ContractedGraphTest.class,
+        PointDPoolTest.class, CompactGraphTest.class, GraphImageTest.class,
+        ReloadingCampusModelTest.class, BuildingDirectoryTest.class, BuildingSearchIndexTest.class,
+        CampusSnapshotTest.class, CampusRegistryTest.class, RouteMetricsTest.class,
+        FlightEventsTest.class, ViewBatchTest.class, CampusServerTest.class,
+        LoadGeneratorTest.class, SyntheticCampusTest.class, PolylineTest.class })
 
 public final class ImplementationTests {
     // this class is a placeholder for the suite, so it has no members.
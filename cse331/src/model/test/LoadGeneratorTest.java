@@ -0,0 +1,169 @@
+package model.test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import graphStructure.Graph;
+import model.BuildingDirectory;
+import model.CampusGraph;
+import model.CampusSnapshot;
+import model.CompactGraph;
+import model.InstructionTable;
+import model.LoadGenerator;
+import model.MalformedDataException;
+import model.PointD;
+import model.QueryMix;
+
+/**
+ * this class tests the implementation of the LoadGenerator class
+ *
+ * @author WP
+ *
+ */
+public class LoadGeneratorTest {
+
+    private static CampusGraph model;
+    private static List<String> buildings;
+
+    @BeforeClass
+    public static void startUp() throws MalformedDataException {
+        LoadGeneratorTest.model = new CampusGraph("campus_buildings.dat", "campus_paths.dat");
+        LoadGeneratorTest.buildings = new ArrayList<String>(LoadGeneratorTest.model.getBuildings().keySet());
+    }
+
+    /**
+     * counts how often each building starts a query of a mix
+     */
+    private static Map<String, Integer> starts(QueryMix mix, int queries) {
+        Map<String, Integer> counts = new HashMap<String, Integer>();
+        Random random = new Random(7);
+        for (int i = 0; i < queries; i++) {
+            String start = mix.next(random)[0];
+            Integer count = counts.get(start);
+            counts.put(start, count == null ? 1 : count + 1);
+        }
+        return counts;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoThreads() {
+        new LoadGenerator(LoadGeneratorTest.model, LoadGenerator.uniform(LoadGeneratorTest.buildings), 0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyMix() {
+        LoadGenerator.uniform(new ArrayList<String>());
+    }
+
+    @Test
+    public void testUniformCoversBuildings() {
+        Map<String, Integer> counts = LoadGeneratorTest.starts(LoadGenerator.uniform(LoadGeneratorTest.buildings),
+                100 * LoadGeneratorTest.buildings.size());
+        Assert.assertEquals(LoadGeneratorTest.buildings.size(), counts.size());
+    }
+
+    @Test
+    public void testZipfIsSkewed() {
+        int queries = 100000;
+        Map<String, Integer> counts = LoadGeneratorTest
+                .starts(LoadGenerator.zipf(LoadGeneratorTest.buildings, 1.0, 3), queries);
+        int most = 0;
+        for (int count : counts.values()) {
+            most = Math.max(most, count);
+        }
+        // the most popular of n buildings gets 1 / H(n) of the queries, over
+        // 20% for the campus, against 2% if uniform
+        Assert.assertTrue(most > queries / 5);
+        Map<String, Integer> flat = LoadGeneratorTest.starts(LoadGenerator.zipf(LoadGeneratorTest.buildings, 0, 3),
+                queries);
+        for (int count : flat.values()) {
+            Assert.assertTrue(count < queries / 20);
+        }
+    }
+
+    @Test
+    public void testReplayLog() throws IOException {
+        List<String[]> log = LoadGenerator.readLog(new StringReader("# recorded\nCSE\tMGH\n\nbad line\nKNE\tSUZ\n"));
+        Assert.assertEquals(2, log.size());
+        QueryMix mix = LoadGenerator.replay(log);
+        Random random = new Random();
+        Assert.assertArrayEquals(new String[] { "CSE", "MGH" }, mix.next(random));
+        Assert.assertArrayEquals(new String[] { "KNE", "SUZ" }, mix.next(random));
+        Assert.assertArrayEquals(new String[] { "CSE", "MGH" }, mix.next(random));
+    }
+
+    @Test
+    public void testClosedLoop() throws InterruptedException {
+        LoadGenerator generator = new LoadGenerator(LoadGeneratorTest.model,
+                LoadGenerator.uniform(LoadGeneratorTest.buildings), 2, 1);
+        LoadGenerator.Report report = generator.run(50, 300, 0);
+        Assert.assertTrue(report.getQueries() > 0);
+        Assert.assertTrue(report.getThroughput() > 0);
+        // correction only adds queries that were never sent
+        Assert.assertTrue(report.getResponseLatency().count() >= report.getQueries());
+        Assert.assertEquals(report.getServiceLatency().max(), report.getResponseLatency().max());
+        Assert.assertTrue(report.toString(), report.toString().contains("p999="));
+    }
+
+    @Test
+    public void testClosedLoopWithoutWarmup() throws InterruptedException {
+        LoadGenerator generator = new LoadGenerator(LoadGeneratorTest.model,
+                LoadGenerator.uniform(LoadGeneratorTest.buildings), 2, 1);
+        LoadGenerator.Report report = generator.run(0, 200, 0);
+        Assert.assertTrue(report.getQueries() > 0);
+        // no warm up to expect a latency from, so nothing is made up
+        Assert.assertEquals(report.getQueries(), report.getResponseLatency().count());
+    }
+
+    @Test
+    public void testRejectedQueriesCounted() throws InterruptedException {
+        // OFF is a building on no path, which a snapshot rejects
+        Graph<PointD, Double> paths = new Graph<PointD, Double>();
+        PointD a = new PointD(0, 0);
+        PointD b = new PointD(3, 4);
+        paths.addNode(a);
+        paths.addNode(b);
+        paths.addEdge(5.0, a, b);
+        paths.addEdge(5.0, b, a);
+        Map<String, String> names = new HashMap<String, String>();
+        Map<String, PointD> locations = new HashMap<String, PointD>();
+        names.put("A", "Building A");
+        locations.put("A", a);
+        names.put("B", "Building B");
+        locations.put("B", b);
+        names.put("OFF", "Off the paths");
+        locations.put("OFF", new PointD(9, 9));
+        CompactGraph compact = new CompactGraph(paths);
+        CampusSnapshot snapshot = new CampusSnapshot(new BuildingDirectory(names, locations), compact,
+                new InstructionTable(compact));
+        List<String[]> log = new ArrayList<String[]>();
+        log.add(new String[] { "A", "B" });
+        log.add(new String[] { "OFF", "A" });
+
+        LoadGenerator generator = new LoadGenerator(snapshot, LoadGenerator.replay(log), 2, 1);
+        LoadGenerator.Report report = generator.run(0, 200, 0);
+        // the workers keep going past the rejected queries
+        Assert.assertTrue(report.getQueries() > 2);
+        Assert.assertTrue(report.getErrors() > 2);
+        Assert.assertTrue(report.toString(), report.toString().contains("errors=" + report.getErrors()));
+    }
+
+    @Test
+    public void testTargetRate() throws InterruptedException {
+        LoadGenerator generator = new LoadGenerator(LoadGeneratorTest.model.snapshot(),
+                LoadGenerator.zipf(LoadGeneratorTest.buildings, 1.0, 1), 2, 1);
+        LoadGenerator.Report report = generator.run(0, 500, 200);
+        // about 100 queries in half a second at 200 per second
+        Assert.assertTrue(report.toString(), report.getQueries() >= 80 && report.getQueries() <= 110);
+        Assert.assertEquals(report.getQueries(), report.getResponseLatency().count());
+    }
+}
@@ -0,0 +1,74 @@
+package model.test;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import model.CoordinateIndex;
+import model.PointD;
+import model.PointDPool;
+
+/**
+ * this class tests the implementation of the PointDPool and CoordinateIndex
+ * classes
+ *
+ * @author WP
+ *
+ */
+public class PointDPoolTest {
+
+    private PointDPool pool;
+
+    @Before
+    public void startUp() {
+        this.pool = new PointDPool(4);
+    }
+
+    @Test
+    public void testInternSameInstance() {
+        PointD p = this.pool.intern(1903.7201, 1952.4322);
+        Assert.assertSame(p, this.pool.intern(1903.7201, 1952.4322));
+        Assert.assertSame(p, this.pool.intern(new PointD(1903.7201, 1952.4322)));
+        Assert.assertEquals(1, this.pool.size());
+    }
+
+    @Test
+    public void testIdsInOrder() {
+        for (int i = 0; i < 1000; i++) {
+            this.pool.intern(i * 0.5, -i);
+        }
+        Assert.assertEquals(1000, this.pool.size());
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(i, this.pool.id(i * 0.5, -i));
+            Assert.assertEquals(new PointD(i * 0.5, -i), this.pool.get(i));
+        }
+    }
+
+    @Test
+    public void testUnknownId() {
+        this.pool.intern(1, 2);
+        Assert.assertEquals(-1, this.pool.id(2, 1));
+        Assert.assertEquals(-1, this.pool.id(new PointD(2, 1)));
+    }
+
+    @Test
+    public void testNegativeZero() {
+        PointD p = this.pool.intern(0.0, 0.0);
+        Assert.assertSame(p, this.pool.intern(-0.0, -0.0));
+        Assert.assertEquals(new PointD(0.0, 0.0).hashCode(), new PointD(-0.0, -0.0).hashCode());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInternNull() {
+        this.pool.intern(null);
+    }
+
+    @Test
+    public void testIndexKeepsFirstId() {
+        CoordinateIndex index = new CoordinateIndex(0);
+        Assert.assertEquals(3, index.putIfAbsent(1.5, 2.5, 3));
+        Assert.assertEquals(3, index.putIfAbsent(1.5, 2.5, 7));
+        Assert.assertEquals(3, index.get(1.5, 2.5));
+        Assert.assertEquals(1, index.size());
+    }
+}
@@ -0,0 +1,146 @@
+package model.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import graphStructure.Edge;
+import model.CampusGraph;
+import model.CampusSnapshot;
+import model.MalformedDataException;
+import model.PointD;
+import model.Polyline;
+
+/**
+ * this class tests the implementation of the Polyline class
+ *
+ * @author WP
+ *
+ */
+public class PolylineTest {
+
+    private static CampusSnapshot snapshot;
+
+    @BeforeClass
+    public static void setUp() throws MalformedDataException {
+        PolylineTest.snapshot = new CampusGraph("campus_buildings.dat", "campus_paths.dat").snapshot();
+    }
+
+    /**
+     * makes a path through points given as x0, y0, x1, y1 and so on
+     */
+    private static List<Edge<PointD, Double>> path(double... coordinates) {
+        List<Edge<PointD, Double>> path = new ArrayList<Edge<PointD, Double>>();
+        for (int i = 2; i < coordinates.length; i += 2) {
+            path.add(new Edge<PointD, Double>(1.0, new PointD(coordinates[i - 2], coordinates[i - 1]),
+                    new PointD(coordinates[i], coordinates[i + 1])));
+        }
+        return path;
+    }
+
+    @Test
+    public void testGoogleExample() {
+        // the example of Google's encoded polyline format, latitude first
+        List<Edge<PointD, Double>> path = PolylineTest.path(38.5, -120.2, 40.7, -120.95, 43.252, -126.453);
+        String text = Polyline.append(new StringBuilder(), path, 5).toString();
+        Assert.assertEquals("_p~iF~ps|U_ulLnnqC_mqNvxq`@", text);
+        Assert.assertArrayEquals(new double[] { 38.5, -120.2, 40.7, -120.95, 43.252, -126.453 },
+                Polyline.decode(text, 5), 1e-9);
+    }
+
+    @Test
+    public void testEmptyPath() {
+        List<Edge<PointD, Double>> path = new ArrayList<Edge<PointD, Double>>();
+        Assert.assertEquals("", Polyline.append(new StringBuilder(), path, 4).toString());
+        Assert.assertEquals(3, Polyline.write(new byte[0], 3, path, 4));
+        Assert.assertEquals(0, Polyline.decode("", 4).length);
+    }
+
+    @Test
+    public void testBinaryRoundTrip() {
+        double[] coordinates = { 0, 0, -1, 1, 1e6, -1e6, 1234.5678, 0.0001, 1234.5678, 0.0001 };
+        List<Edge<PointD, Double>> path = PolylineTest.path(coordinates);
+        byte[] bytes = new byte[2 + Polyline.MAX_POINT_BYTES * (path.size() + 1)];
+        int end = Polyline.write(bytes, 2, path, 4);
+        Assert.assertArrayEquals(coordinates, Polyline.decode(bytes, 2, end - 2, 4), 1e-9);
+        Assert.assertArrayEquals(coordinates, Polyline.decode(Polyline.append(new StringBuilder(), path, 4), 4),
+                1e-9);
+    }
+
+    @Test
+    public void testPrecision() {
+        List<Edge<PointD, Double>> path = PolylineTest.path(1.26, -1.24, 3.75, 0.5);
+        Assert.assertArrayEquals(new double[] { 1.3, -1.2, 3.8, 0.5 },
+                Polyline.decode(Polyline.append(new StringBuilder(), path, 1), 1), 1e-9);
+        Assert.assertArrayEquals(new double[] { 1, -1, 4, 1 },
+                Polyline.decode(Polyline.append(new StringBuilder(), path, 0), 0), 1e-9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadPrecision() {
+        Polyline.append(new StringBuilder(), PolylineTest.path(1, 1), Polyline.MAX_PRECISION + 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncatedText() {
+        // a continued chunk with nothing after it
+        Polyline.decode("_", 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOddText() {
+        // one value is half a point
+        Polyline.decode("?", 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncatedBytes() {
+        Polyline.decode(new byte[] { (byte) 0x80 }, 0, 1, 4);
+    }
+
+    @Test
+    public void testSnapshotMatchesPath() {
+        List<String> names = new ArrayList<String>(PolylineTest.snapshot.getBuildings().keySet());
+        StringBuilder fromSnapshot = new StringBuilder();
+        StringBuilder fromPath = new StringBuilder();
+        for (int i = 0; i < names.size(); i++) {
+            String start = names.get(i);
+            String end = names.get(names.size() - 1 - i);
+            if (PolylineTest.snapshot.getLocation(start) == null || PolylineTest.snapshot.getLocation(end) == null) {
+                continue;
+            }
+            fromSnapshot.setLength(0);
+            fromPath.setLength(0);
+            double length = PolylineTest.snapshot.appendPolyline(start, end, Polyline.LOSSLESS, fromSnapshot);
+            List<Edge<PointD, Double>> path = PolylineTest.snapshot.findPath(start, end);
+            if (path == null) {
+                Assert.assertEquals(-1, length, 0);
+                continue;
+            }
+            if (path.isEmpty()) {
+                Assert.assertEquals(0, length, 0);
+                PointD p = PolylineTest.snapshot.getLocation(start);
+                Assert.assertArrayEquals(new double[] { p.getX(), p.getY() },
+                        Polyline.decode(fromSnapshot, Polyline.LOSSLESS), 1e-9);
+                continue;
+            }
+            double sum = 0;
+            for (Edge<PointD, Double> e : path) {
+                sum += e.getLabel();
+            }
+            Assert.assertEquals(sum, length, 1e-9);
+            Polyline.append(fromPath, path, Polyline.LOSSLESS);
+            Assert.assertEquals(start + " to " + end, fromPath.toString(), fromSnapshot.toString());
+
+            // lossless: every point decodes to a node of the path
+            double[] points = Polyline.decode(fromSnapshot, Polyline.LOSSLESS);
+            Assert.assertEquals(PolylineTest.snapshot.getLocation(start), new PointD(points[0], points[1]));
+            for (int j = 0; j < path.size(); j++) {
+                Assert.assertEquals(path.get(j).getEnd(), new PointD(points[2 * j + 2], points[2 * j + 3]));
+            }
+        }
+    }
+}
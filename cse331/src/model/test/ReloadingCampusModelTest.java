@@ -0,0 +1,128 @@
+package model.test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import model.CampusGraph;
+import model.MalformedDataException;
+import model.ReloadingCampusModel;
+
+/**
+ * this class tests the implementation of the ReloadingCampusModel class
+ *
+ * @author WP
+ *
+ */
+public class ReloadingCampusModelTest {
+
+    private File dir;
+    private File buildings;
+    private File paths;
+    private ReloadingCampusModel model;
+
+    @Before
+    public void startUp() throws IOException, MalformedDataException {
+        this.dir = Files.createTempDirectory("campus").toFile();
+        this.buildings = new File(this.dir, "campus_buildings.dat");
+        this.paths = new File(this.dir, "campus_paths.dat");
+        Files.copy(new File("./src/model/data/campus_buildings.dat").toPath(), this.buildings.toPath());
+        Files.copy(new File("./src/model/data/campus_paths.dat").toPath(), this.paths.toPath());
+        this.model = new ReloadingCampusModel(this.buildings.getPath(), this.paths.getPath());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        this.model.close();
+        this.buildings.delete();
+        this.paths.delete();
+        this.dir.delete();
+    }
+
+    /**
+     * writes the campus buildings plus more lines to a new file and moves it
+     * over the building file
+     */
+    private void addBuilding(String line) throws IOException {
+        File temp = new File(this.dir, "buildings.tmp");
+        Files.copy(this.buildings.toPath(), temp.toPath());
+        FileWriter writer = new FileWriter(temp, true);
+        writer.write(line);
+        writer.close();
+        Files.move(temp.toPath(), this.buildings.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullConstructor() throws MalformedDataException, IOException {
+        new ReloadingCampusModel(null, null);
+    }
+
+    @Test
+    public void testReload() throws IOException, MalformedDataException {
+        CampusGraph before = this.model.getSnapshot();
+        this.addBuilding("\nNEW\tNew Hall\t1903.7201\t1952.4322\n");
+        this.model.reload();
+        Assert.assertEquals("New Hall", this.model.getLongName("NEW"));
+        Assert.assertFalse(before.getBuildings().containsKey("NEW"));
+        Assert.assertNotNull(before.findPath("BAG", "CSE"));
+    }
+
+    @Test
+    public void testMalformedKeepsOld() throws IOException {
+        CampusGraph before = this.model.getSnapshot();
+        this.addBuilding("\nBAD LINE\n");
+        try {
+            this.model.reload();
+            Assert.fail();
+        } catch (MalformedDataException e) {
+            Assert.assertSame(before, this.model.getSnapshot());
+        }
+    }
+
+    @Test
+    public void testMissingFileKeepsOld() throws IOException {
+        CampusGraph before = this.model.getSnapshot();
+        Assert.assertTrue(this.paths.delete());
+        try {
+            this.model.reload();
+            Assert.fail();
+        } catch (MalformedDataException e) {
+            Assert.assertSame(before, this.model.getSnapshot());
+        }
+        Assert.assertNotNull(this.model.findPath("BAG", "CSE"));
+    }
+
+    @Test
+    public void testTruncatedFileKeepsOld() throws IOException, InterruptedException {
+        CampusGraph before = this.model.getSnapshot();
+        new FileWriter(this.buildings).close();
+        try {
+            this.model.reload();
+            Assert.fail();
+        } catch (MalformedDataException e) {
+            Assert.assertSame(before, this.model.getSnapshot());
+        }
+        // the watcher sees the truncation too, and must not swap it in
+        Thread.sleep(1000);
+        Assert.assertSame(before, this.model.getSnapshot());
+        Assert.assertEquals(this.model.getLocation("BAG"), before.getLocation("BAG"));
+    }
+
+    @Test
+    public void testWatchReloads() throws IOException, InterruptedException {
+        this.addBuilding("\nNEW\tNew Hall\t1903.7201\t1952.4322\n");
+        for (int i = 0; i < 200 && !this.model.getBuildings().containsKey("NEW"); i++) {
+            Thread.sleep(50);
+        }
+        Assert.assertEquals("New Hall", this.model.getLongName("NEW"));
+        Assert.assertEquals(this.model.getLocation("BAG"), this.model.getLocation("BAG"));
+        Assert.assertNotNull(this.model.findPath("NEW", "CSE"));
+    }
+}
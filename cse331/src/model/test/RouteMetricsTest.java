@@ -0,0 +1,120 @@
+package model.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import model.CampusGraph;
+import model.CampusSnapshot;
+import model.LatencyHistogram;
+import model.MalformedDataException;
+import model.RouteMetrics;
+
+/**
+ * this class tests the implementation of the RouteMetrics and
+ * LatencyHistogram classes
+ *
+ * @author WP
+ *
+ */
+public class RouteMetricsTest {
+
+    @Test
+    public void testEmptyHistogram() {
+        LatencyHistogram h = new LatencyHistogram();
+        Assert.assertEquals(0, h.count());
+        Assert.assertEquals(0, h.percentile(99));
+        Assert.assertEquals(0.0, h.mean(), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadPercentile() {
+        new LatencyHistogram().percentile(101);
+    }
+
+    @Test
+    public void testPercentilesWithinPrecision() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 100000; v++) {
+            h.record(v);
+        }
+        Assert.assertEquals(100000, h.count());
+        Assert.assertEquals(100000, h.max());
+        Assert.assertEquals(50000.5, h.mean(), 1e-9);
+        for (int p : new int[] { 1, 50, 90, 99 }) {
+            long expected = 1000L * p;
+            Assert.assertEquals(expected, h.percentile(p), expected / 8.0);
+        }
+        Assert.assertEquals(100000, h.percentile(100));
+        h.reset();
+        Assert.assertEquals(0, h.count());
+    }
+
+    @Test
+    public void testExtremeValues() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(-5);
+        h.record(Long.MAX_VALUE);
+        Assert.assertEquals(0, h.percentile(50));
+        Assert.assertEquals(Long.MAX_VALUE, h.percentile(100));
+    }
+
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        final LatencyHistogram h = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        h.record(i);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        Assert.assertEquals(40000, h.count());
+        Assert.assertEquals(9999, h.max());
+    }
+
+    @Test
+    public void testEngineMetrics() throws Exception {
+        RouteMetrics metrics = RouteMetrics.forEngine("snapshot");
+        Assert.assertSame(metrics, RouteMetrics.forEngine("snapshot"));
+        Assert.assertTrue(ManagementFactory.getPlatformMBeanServer()
+                .isRegistered(new ObjectName("model:type=RouteMetrics,name=\"snapshot\"")));
+
+        CampusSnapshot snapshot = new CampusGraph("campus_buildings.dat", "campus_paths.dat").snapshot();
+        metrics.reset();
+        Assert.assertNotNull(snapshot.findPath("MGH", "SUZ"));
+        Assert.assertEquals(1, metrics.getQueries());
+        Assert.assertTrue(metrics.getNodesSettled() > 0);
+        Assert.assertTrue(metrics.getEdgesRelaxed() >= metrics.getNodesSettled() - 1);
+        Assert.assertTrue(metrics.getHeapPushes() > 0);
+        Assert.assertTrue(metrics.getMaxMicros() > 0);
+
+        metrics.recordCache(true);
+        metrics.recordCache(true);
+        metrics.recordCache(false);
+        Assert.assertEquals(2.0 / 3, metrics.getCacheHitRate(), 1e-9);
+    }
+
+    @Test
+    public void testDump() throws MalformedDataException {
+        new CampusGraph("campus_buildings.dat", "campus_paths.dat").findPath("MGH", "CSE");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        RouteMetrics.dumpAll(new PrintStream(bytes));
+        String text = bytes.toString();
+        Assert.assertTrue(text, text.contains("contracted: queries="));
+        Assert.assertTrue(text, text.contains("p99="));
+    }
+}
@@ -0,0 +1,181 @@
+package model.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import graphStructure.Edge;
+import graphStructure.Graph;
+import model.CampusGraph;
+import model.CampusParser;
+import model.MalformedDataException;
+import model.PointD;
+import model.PointDPool;
+import model.SyntheticCampus;
+
+/**
+ * this class tests the implementation of the SyntheticCampus class
+ *
+ * @author WP
+ *
+ */
+public class SyntheticCampusTest {
+
+    private static final String DATA_DIR = "src/model/data";
+
+    /**
+     * writes a campus to temporary files in the data directory, returning
+     * their names
+     */
+    private static String[] write(SyntheticCampus campus) throws IOException {
+        File buildings = File.createTempFile("synthetic", "_buildings.dat", new File(SyntheticCampusTest.DATA_DIR));
+        File paths = File.createTempFile("synthetic", "_paths.dat", new File(SyntheticCampusTest.DATA_DIR));
+        buildings.deleteOnExit();
+        paths.deleteOnExit();
+        campus.write(buildings.getPath(), paths.getPath());
+        return new String[] { buildings.getName(), paths.getName() };
+    }
+
+    /**
+     * loads the paths of a campus, checking every path has a reverse and is
+     * labeled with the distance between its ends
+     */
+    private static Graph<PointD, Double> paths(String pathFile) throws MalformedDataException {
+        Graph<PointD, Double> graph = new Graph<PointD, Double>();
+        CampusParser.parsePathData(SyntheticCampusTest.DATA_DIR + "/" + pathFile, graph);
+        for (PointD p : graph.getNodes()) {
+            for (Edge<PointD, Double> e : graph.getEdges(p)) {
+                Assert.assertTrue(graph.getDirectedEdgesBetween(e.getEnd(), p).size() == 1);
+                double dx = e.getEnd().getX() - p.getX();
+                double dy = e.getEnd().getY() - p.getY();
+                Assert.assertEquals(Math.sqrt(dx * dx + dy * dy), e.getLabel(), 0.0);
+                Assert.assertFalse(e.getEnd().equals(p));
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * counts the nodes reachable from a node
+     */
+    private static int reachable(Graph<PointD, Double> graph, PointD start) {
+        Set<PointD> seen = new HashSet<PointD>();
+        Queue<PointD> queue = new ArrayDeque<PointD>();
+        seen.add(start);
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            for (PointD next : graph.getChildren(queue.remove())) {
+                if (seen.add(next)) {
+                    queue.add(next);
+                }
+            }
+        }
+        return seen.size();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownTopology() {
+        SyntheticCampus.generate("maze", 100, 4, 1, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadGridDegree() {
+        SyntheticCampus.generate(SyntheticCampus.GRID, 100, 5, 1, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyBuildings() {
+        SyntheticCampus.generate(SyntheticCampus.GRID, 100, 4, 101, 1);
+    }
+
+    @Test
+    public void testNames() {
+        Assert.assertEquals("AAA", SyntheticCampus.name(0));
+        Assert.assertEquals("AAZ", SyntheticCampus.name(25));
+        Assert.assertEquals("ABA", SyntheticCampus.name(26));
+        Assert.assertEquals("BAAA", SyntheticCampus.name(26 * 26 * 26));
+    }
+
+    @Test
+    public void testGrid() throws IOException, MalformedDataException {
+        SyntheticCampus campus = SyntheticCampus.generate(SyntheticCampus.GRID, 90, 4, 10, 1);
+        Assert.assertEquals(100, campus.nodeCount());
+        // 2 * 10 * 9 edges, in both directions
+        Assert.assertEquals(360, campus.edgeCount());
+        String[] files = SyntheticCampusTest.write(campus);
+        Graph<PointD, Double> graph = SyntheticCampusTest.paths(files[1]);
+        Assert.assertEquals(100, graph.size());
+        Assert.assertEquals(100, SyntheticCampusTest.reachable(graph, graph.getNodes().iterator().next()));
+
+        SyntheticCampus diagonal = SyntheticCampus.generate(SyntheticCampus.GRID, 100, 8, 10, 1);
+        Assert.assertEquals(360 + 4 * 9 * 9, diagonal.edgeCount());
+    }
+
+    @Test
+    public void testGeometric() throws IOException, MalformedDataException {
+        SyntheticCampus campus = SyntheticCampus.generate(SyntheticCampus.GEOMETRIC, 2000, 5, 50, 3);
+        Assert.assertEquals(2000, campus.nodeCount());
+        // each node joins its 5 nearest, some of them both ways
+        Assert.assertTrue(campus.edgeCount() >= 2000 * 5 && campus.edgeCount() <= 2 * 2000 * 5);
+        Graph<PointD, Double> graph = SyntheticCampusTest.paths(SyntheticCampusTest.write(campus)[1]);
+        for (PointD p : graph.getNodes()) {
+            Assert.assertTrue(graph.getEdges(p).size() >= 5);
+        }
+    }
+
+    @Test
+    public void testRoadLoadsAndRoutes() throws IOException, MalformedDataException {
+        SyntheticCampus campus = SyntheticCampus.generate(SyntheticCampus.ROAD, 5000, 3, 40, 7);
+        Assert.assertTrue(campus.nodeCount() > 2500 && campus.nodeCount() < 10000);
+        String[] files = SyntheticCampusTest.write(campus);
+        Graph<PointD, Double> graph = SyntheticCampusTest.paths(files[1]);
+        Assert.assertEquals(campus.nodeCount(), SyntheticCampusTest.reachable(graph, graph.getNodes().iterator()
+                .next()));
+        // most nodes are shape points with two paths
+        int two = 0;
+        for (PointD p : graph.getNodes()) {
+            if (graph.getEdges(p).size() == 2) {
+                two++;
+            }
+        }
+        Assert.assertTrue(two > campus.nodeCount() / 2);
+
+        Map<String, String> short2LongName = new HashMap<String, String>();
+        Map<String, PointD> name2Loc = new HashMap<String, PointD>();
+        CampusParser.parseBuildingData(SyntheticCampusTest.DATA_DIR + "/" + files[0], short2LongName, name2Loc,
+                new PointDPool());
+        Assert.assertEquals(40, short2LongName.size());
+        Assert.assertEquals("Synthetic Hall 0", short2LongName.get("AAA"));
+        for (PointD location : name2Loc.values()) {
+            Assert.assertTrue(graph.containsNode(location));
+        }
+
+        CampusGraph model = new CampusGraph(files[0], files[1]);
+        Assert.assertNotNull(model.findPath("AAA", "ABN"));
+        Assert.assertEquals(model.findPath("AAA", "ABN").size(), model.snapshot().findPath("AAA", "ABN").size());
+    }
+
+    @Test
+    public void testSeeded() throws IOException {
+        StringWriter b1 = new StringWriter();
+        StringWriter p1 = new StringWriter();
+        SyntheticCampus.generate(SyntheticCampus.ROAD, 1000, 3, 10, 5).write(b1, p1);
+        StringWriter b2 = new StringWriter();
+        StringWriter p2 = new StringWriter();
+        SyntheticCampus.generate(SyntheticCampus.ROAD, 1000, 3, 10, 5).write(b2, p2);
+        Assert.assertEquals(b1.toString(), b2.toString());
+        Assert.assertEquals(p1.toString(), p2.toString());
+        StringWriter p3 = new StringWriter();
+        SyntheticCampus.generate(SyntheticCampus.ROAD, 1000, 3, 10, 6).write(new StringWriter(), p3);
+        Assert.assertFalse(p1.toString().equals(p3.toString()));
+    }
+}
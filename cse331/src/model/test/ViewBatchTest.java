@@ -0,0 +1,112 @@
+package model.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import model.CampusGraph;
+import model.CampusSnapshot;
+import model.MalformedDataException;
+import model.View;
+
+/**
+ * this class tests the batch mode of View
+ *
+ * @author WP
+ *
+ */
+public class ViewBatchTest {
+
+    private static final String ENDING_PROMPT = "Abbreviated name of ending building: ";
+    private static final String OPTION_PROMPT = "Enter an option ('m' to see the menu): ";
+
+    private static CampusSnapshot snapshot;
+    private static List<String[]> queries;
+
+    @BeforeClass
+    public static void startUp() throws MalformedDataException {
+        ViewBatchTest.snapshot = new CampusGraph("campus_buildings.dat", "campus_paths.dat").snapshot();
+        ViewBatchTest.queries = new ArrayList<String[]>();
+        List<String> names = new ArrayList<String>(ViewBatchTest.snapshot.getBuildings().keySet());
+        for (int i = 0; i < names.size(); i++) {
+            for (int j = 0; j < names.size(); j += 3) {
+                ViewBatchTest.queries.add(new String[] { names.get(i), names.get((i + j) % names.size()) });
+            }
+        }
+        ViewBatchTest.queries.add(new String[] { "OOG", "MGH" });
+        ViewBatchTest.queries.add(new String[] { "CSE", "OOG" });
+        ViewBatchTest.queries.add(new String[] { "OOG", "GOO" });
+    }
+
+    /**
+     * answers the queries in batch mode
+     */
+    private static String batch(String input, int threads) throws Exception {
+        StringWriter out = new StringWriter();
+        View.runBatch(new StringReader(input), out, ViewBatchTest.snapshot, threads);
+        return out.toString();
+    }
+
+    /**
+     * answers the queries interactively, keeping only what follows the ending
+     * building prompt of each route option
+     */
+    private static String interactive() {
+        StringBuilder script = new StringBuilder();
+        for (String[] q : ViewBatchTest.queries) {
+            script.append("r\n").append(q[0]).append('\n').append(q[1]).append('\n');
+        }
+        script.append("q\n");
+        InputStream stdin = System.in;
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            System.setIn(new ByteArrayInputStream(script.toString().getBytes()));
+            System.setOut(new PrintStream(bytes));
+            View.main(new String[0]);
+        } finally {
+            System.setIn(stdin);
+            System.setOut(stdout);
+        }
+        StringBuilder answers = new StringBuilder();
+        String[] parts = bytes.toString().split(ViewBatchTest.ENDING_PROMPT, -1);
+        for (int i = 1; i < parts.length; i++) {
+            answers.append(parts[i], 0, parts[i].indexOf(ViewBatchTest.OPTION_PROMPT));
+        }
+        return answers.toString();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullModel() throws Exception {
+        View.runBatch(new StringReader(""), new StringWriter(), null, 1);
+    }
+
+    @Test
+    public void testSameAsInteractive() throws Exception {
+        StringBuilder input = new StringBuilder("# header comment\n\n");
+        for (String[] q : ViewBatchTest.queries) {
+            input.append(q[0]).append('\t').append(q[1]).append('\n');
+        }
+        String expected = ViewBatchTest.interactive();
+        Assert.assertTrue(expected.contains("Total distance: "));
+        Assert.assertTrue(expected.contains("Unknown building: OOG"));
+        Assert.assertEquals(expected, ViewBatchTest.batch(input.toString(), 1));
+        Assert.assertEquals(expected, ViewBatchTest.batch(input.toString(), 4));
+    }
+
+    @Test
+    public void testMalformedAndEmpty() throws Exception {
+        String nl = System.lineSeparator();
+        Assert.assertEquals("", ViewBatchTest.batch("", 2));
+        Assert.assertEquals("Malformed query: CSE MGH" + nl + nl, ViewBatchTest.batch("CSE MGH\n", 2));
+    }
+}